@@ -0,0 +1,107 @@
+package benchmarks;
+
+import entities.EntityType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the FileSystemManagementService operations over generated trees.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar -rf json -rff target/jmh-result.json} to get machine-readable
+ * results, and override the tree shape with e.g. {@code -p depth=6 -p fanOut=4 -p fileCount=100000}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileSystemManagementServiceBenchmark {
+
+    @Benchmark
+    public void create(FileSystemState fileSystem, ThreadState thread) {
+        fileSystem.service.create(EntityType.TEXT_FILE, thread.nextName("created"), fileSystem.firstLeafFolder);
+    }
+
+    /**
+     * Deleting needs an existing entity on every invocation, so each one is created right before.
+     */
+    @Benchmark
+    public void createAndDelete(FileSystemState fileSystem, ThreadState thread) {
+        String name = thread.nextName("deleted");
+        fileSystem.service.create(EntityType.TEXT_FILE, name, fileSystem.firstLeafFolder);
+        fileSystem.service.delete(EntityType.TEXT_FILE, fileSystem.firstLeafFolder + "\\" + name);
+    }
+
+    /**
+     * Moves a deep Folder with all its files back and forth between two distant locations.
+     */
+    @Benchmark
+    public void move(FileSystemState fileSystem, ThreadState thread) {
+        String name = thread.invocations == 0 ? createMovingFolder(fileSystem, thread) : "moving-" + thread.threadId;
+        boolean inFirstFolder = thread.invocations++ % 2 == 1;
+        String source = (inFirstFolder ? fileSystem.firstLeafFolder : fileSystem.secondLeafFolder) + "\\" + name;
+        String destination = (inFirstFolder ? fileSystem.secondLeafFolder : fileSystem.firstLeafFolder) + "\\" + name;
+
+        fileSystem.service.move(EntityType.FOLDER, source, destination);
+    }
+
+    @Benchmark
+    public void writeToFile(FileSystemState fileSystem, ThreadState thread) {
+        fileSystem.service.writeToFile(fileSystem.textFiles.get((int) (thread.invocations++ % fileSystem.textFiles.size())), "appended");
+    }
+
+    @Benchmark
+    public int getDriveSize(FileSystemState fileSystem) {
+        return fileSystem.service.getEntitySize(EntityType.DRIVE, FileSystemState.DRIVE);
+    }
+
+    @Benchmark
+    public int getTextFileSize(FileSystemState fileSystem, ThreadState thread) {
+        return fileSystem.service.getEntitySize(EntityType.TEXT_FILE, fileSystem.textFiles.get((int) (thread.invocations++ % fileSystem.textFiles.size())));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int getTextFileSizeConcurrently(FileSystemState fileSystem, ThreadState thread) {
+        return getTextFileSize(fileSystem, thread);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void writeToFileConcurrently(FileSystemState fileSystem, ThreadState thread) {
+        writeToFile(fileSystem, thread);
+    }
+
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(3)
+    public int readMostlyReaders(FileSystemState fileSystem, ThreadState thread) {
+        return getTextFileSize(fileSystem, thread);
+    }
+
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(1)
+    public void readMostlyWriter(FileSystemState fileSystem, ThreadState thread) {
+        writeToFile(fileSystem, thread);
+    }
+
+    private String createMovingFolder(FileSystemState fileSystem, ThreadState thread) {
+        String name = "moving-" + thread.threadId;
+        fileSystem.service.create(EntityType.FOLDER, name, fileSystem.secondLeafFolder);
+        for (int i = 0; i < 100; i++) {
+            fileSystem.service.create(EntityType.TEXT_FILE, "file-" + i, fileSystem.secondLeafFolder + "\\" + name);
+        }
+        return name;
+    }
+}
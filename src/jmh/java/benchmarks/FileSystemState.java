@@ -0,0 +1,117 @@
+package benchmarks;
+
+import entities.DriveRegistry;
+import entities.EntityFactory;
+import entities.EntityType;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import services.CompactFileSystemManagementService;
+import services.ConcurrentFileSystemManagementService;
+import services.DefaultFileSystemManagementService;
+import services.FileSystemManagementService;
+import services.OperationLogLevel;
+import services.PersistentFileSystemManagementService;
+import services.StorageMode;
+import utils.NavigationUtils;
+import utils.PathUtils;
+import validators.DefaultConstraintsValidator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared benchmark state: a FileSystem generated with the configured shape, behind the configured storage mode.
+ * <p>
+ * The generated tree has one Drive with {@code fanOut} Folders per level down to {@code depth} levels, and
+ * {@code fileCount} TextFiles of {@code contentSize} characters spread over the deepest Folders.
+ */
+@State(Scope.Benchmark)
+public class FileSystemState {
+
+    static final String DRIVE = "C:";
+
+    @Param({"OBJECT_TREE", "PERSISTENT_TREE", "COMPACT_TREE"})
+    StorageMode storageMode;
+    @Param({"4"})
+    int depth;
+    @Param({"8"})
+    int fanOut;
+    @Param({"10000"})
+    int fileCount;
+    @Param({"64"})
+    int contentSize;
+
+    FileSystemManagementService service;
+    String content;
+    /**
+     * Paths of the deepest Folders of the generated tree.
+     */
+    List<String> leafFolders;
+    /**
+     * Paths of the generated TextFiles.
+     */
+    List<String> textFiles;
+    String firstLeafFolder;
+    String secondLeafFolder;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = createService(storageMode);
+        content = "x".repeat(contentSize);
+        leafFolders = new ArrayList<>();
+        textFiles = new ArrayList<>();
+
+        service.create(EntityType.DRIVE, DRIVE, "");
+        createFolders(DRIVE, 1);
+
+        for (int i = 0; i < fileCount; i++) {
+            String folder = leafFolders.get(i % leafFolders.size());
+            String name = "file-" + i;
+            service.create(EntityType.TEXT_FILE, name, folder);
+            service.writeToFile(folder + "\\" + name, content);
+            textFiles.add(folder + "\\" + name);
+        }
+
+        firstLeafFolder = leafFolders.getFirst();
+        secondLeafFolder = leafFolders.getLast();
+    }
+
+    private void createFolders(String parentPath, int level) {
+        if (level > depth) {
+            leafFolders.add(parentPath);
+            return;
+        }
+        for (int i = 0; i < fanOut; i++) {
+            String name = "folder-" + level + "-" + i;
+            service.create(EntityType.FOLDER, name, parentPath);
+            createFolders(parentPath + "\\" + name, level + 1);
+        }
+    }
+
+    static FileSystemManagementService createService(StorageMode storageMode) {
+        PathUtils pathUtils = new PathUtils();
+
+        return switch (storageMode) {
+            case OBJECT_TREE -> {
+                DriveRegistry drives = new DriveRegistry();
+                NavigationUtils navigationUtils = new NavigationUtils();
+                DefaultFileSystemManagementService service = new DefaultFileSystemManagementService(new DefaultConstraintsValidator(drives, pathUtils, navigationUtils), drives, pathUtils, navigationUtils, new EntityFactory());
+                service.setOperationLogLevel(OperationLogLevel.OFF);
+                yield new ConcurrentFileSystemManagementService(service, pathUtils);
+            }
+            case PERSISTENT_TREE -> {
+                PersistentFileSystemManagementService service = new PersistentFileSystemManagementService(pathUtils);
+                service.setOperationLogLevel(OperationLogLevel.OFF);
+                yield service;
+            }
+            case COMPACT_TREE -> {
+                CompactFileSystemManagementService service = new CompactFileSystemManagementService(pathUtils);
+                service.setOperationLogLevel(OperationLogLevel.OFF);
+                yield service;
+            }
+        };
+    }
+}
@@ -0,0 +1,22 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-thread benchmark state, used to build entity names that are unique across threads and invocations.
+ */
+@State(Scope.Thread)
+public class ThreadState {
+
+    private static final AtomicInteger THREAD_IDS = new AtomicInteger();
+
+    final int threadId = THREAD_IDS.getAndIncrement();
+    long invocations;
+
+    String nextName(String prefix) {
+        return prefix + "-" + threadId + "-" + invocations++;
+    }
+}
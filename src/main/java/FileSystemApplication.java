@@ -1,10 +1,18 @@
 import orchestrators.ApplicationOrchestrator;
+import orchestrators.DependencyOrchestrator;
 
 import java.io.IOException;
 
 public class FileSystemApplication {
 
     public static void main(String[] args) throws IOException {
-        ApplicationOrchestrator.getInstance().start();
+        String script = System.getProperty(DependencyOrchestrator.SCRIPT_PROPERTY);
+        if (script != null) {
+            ApplicationOrchestrator.getInstance().runScript(script);
+        } else if (System.getProperty(DependencyOrchestrator.SERVER_PORT_PROPERTY) != null) {
+            ApplicationOrchestrator.getInstance().serve();
+        } else {
+            ApplicationOrchestrator.getInstance().start();
+        }
     }
 }
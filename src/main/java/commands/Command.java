@@ -0,0 +1,38 @@
+package commands;
+
+import entities.EntityType;
+
+import java.nio.file.Path;
+
+/**
+ * Command is a parsed request to the FileSystem, as read from a line of text.
+ */
+public sealed interface Command {
+
+    record Create(EntityType type, String name, String path) implements Command {
+    }
+
+    record Delete(EntityType type, String path) implements Command {
+    }
+
+    record Move(EntityType type, String sourcePath, String destinationPath) implements Command {
+    }
+
+    record WriteToFile(String path, String content) implements Command {
+    }
+
+    record GetSize(EntityType type, String path) implements Command {
+    }
+
+    record ListContents(String path) implements Command {
+    }
+
+    record Find(String rootPath, String pattern, EntityType type) implements Command {
+    }
+
+    record SaveSnapshot(Path file) implements Command {
+    }
+
+    record LoadSnapshot(Path file) implements Command {
+    }
+}
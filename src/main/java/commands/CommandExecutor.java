@@ -0,0 +1,191 @@
+package commands;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import services.EntityInfo;
+import services.FileSystemManagementService;
+import services.OperationResult;
+import services.ReadResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * CommandExecutor runs the commands read by a CommandParser against a FileSystemManagementService, and writes a
+ * response for each of them:
+ * <pre>
+ * OK                       the command was applied
+ * OK &lt;size&gt;                SIZE succeeded
+ * OK &lt;count&gt;               LIST or FIND succeeded, followed by one "&lt;type&gt; &lt;size&gt; &lt;path&gt;" line per entity
+ * ERROR &lt;error&gt; &lt;message&gt;  the command was rejected, &lt;error&gt; being the name of the exception
+ * </pre>
+ * Blank lines and comments are skipped, and get no response.
+ * <p>
+ * Executors for untrusted clients (e.g. the network server) are built with confinedTo, so that SAVE and LOAD cannot
+ * reach files outside a snapshot directory. Failing to save or load a snapshot is reported without the message of the
+ * IOException, which names files of the host; the message is logged instead.
+ */
+public class CommandExecutor {
+
+    private static final OperationResult SNAPSHOTS_DISABLED = OperationResult.illegalOperation("Snapshots cannot be saved or loaded by this client.");
+    private static final OperationResult SNAPSHOT_OUTSIDE_DIRECTORY = OperationResult.illegalOperation("Snapshot files must be inside the snapshot directory.");
+    private static final String SNAPSHOT_FAILURE_MESSAGE = "The snapshot could not be saved or loaded.";
+
+    private final FileSystemManagementService fileSystemManagementService;
+    private final CommandParser parser;
+    private final boolean confined;
+    private final Path snapshotDirectory;
+    private final Logger log = LogManager.getLogger(CommandExecutor.class);
+
+    /**
+     * Builds an executor that saves and loads snapshots wherever the commands say, for trusted callers such as scripts.
+     *
+     * @param fileSystemManagementService the service the commands are run against.
+     * @param parser the parser of the lines.
+     */
+    public CommandExecutor(FileSystemManagementService fileSystemManagementService, CommandParser parser) {
+        this(fileSystemManagementService, parser, false, null);
+    }
+
+    private CommandExecutor(FileSystemManagementService fileSystemManagementService, CommandParser parser, boolean confined, Path snapshotDirectory) {
+        this.fileSystemManagementService = fileSystemManagementService;
+        this.parser = parser;
+        this.confined = confined;
+        this.snapshotDirectory = snapshotDirectory;
+    }
+
+    /**
+     * Builds an executor for untrusted clients, which only saves and loads snapshots inside a directory. Snapshot paths
+     * are resolved against the directory, and rejected if they lead out of it, symbolic links included.
+     *
+     * @param fileSystemManagementService the service the commands are run against.
+     * @param parser the parser of the lines.
+     * @param snapshotDirectory the directory of the snapshots, or null to reject SAVE and LOAD altogether.
+     * @return the executor.
+     */
+    public static CommandExecutor confinedTo(FileSystemManagementService fileSystemManagementService, CommandParser parser, Path snapshotDirectory) {
+        Path directory = snapshotDirectory == null ? null : snapshotDirectory.toAbsolutePath().normalize();
+        return new CommandExecutor(fileSystemManagementService, parser, true, directory);
+    }
+
+    /**
+     * Parses and runs a line, appending its response to the output.
+     *
+     * @param line the line.
+     * @param output where the response is appended, one line at a time, each one ending with a line feed.
+     * @return false if the command was rejected, and true otherwise, including for skipped lines.
+     */
+    public boolean execute(String line, StringBuilder output) {
+        if (parser.isSkipped(line)) return true;
+
+        try {
+            return execute(parser.parse(line), output);
+        } catch (IOException e) {
+            log.warn("Failed to run {}: {}", line, e.toString());
+            appendError(e.getClass().getSimpleName(), SNAPSHOT_FAILURE_MESSAGE, output);
+            return false;
+        } catch (RuntimeException e) {
+            appendError(e, output);
+            return false;
+        }
+    }
+
+    /**
+     * Runs a command, appending its response to the output.
+     *
+     * Mutations and reads are run through the try versions of the service operations, so rejecting them does not throw.
+     *
+     * @param command the command.
+     * @param output where the response is appended.
+     * @return false if the command was rejected, and true otherwise.
+     * @throws IOException if a snapshot cannot be saved or loaded.
+     */
+    public boolean execute(Command command, StringBuilder output) throws IOException {
+        OperationResult result = switch (command) {
+            case Command.Create create -> fileSystemManagementService.tryCreate(create.type(), create.name(), create.path());
+            case Command.Delete delete -> fileSystemManagementService.tryDelete(delete.type(), delete.path());
+            case Command.Move move -> fileSystemManagementService.tryMove(move.type(), move.sourcePath(), move.destinationPath());
+            case Command.WriteToFile writeToFile -> fileSystemManagementService.tryWriteToFile(writeToFile.path(), writeToFile.content());
+            case Command.GetSize getSize -> {
+                ReadResult<Integer> size = fileSystemManagementService.tryGetEntitySize(getSize.type(), getSize.path());
+                if (!size.isOk()) yield size.result();
+                output.append("OK ").append(size.value()).append('\n');
+                yield null;
+            }
+            case Command.ListContents listContents -> appendEntities(fileSystemManagementService.tryList(listContents.path()), output);
+            case Command.Find find -> appendEntities(fileSystemManagementService.tryFind(find.rootPath(), find.pattern(), find.type()), output);
+            case Command.SaveSnapshot saveSnapshot -> {
+                Path file = snapshotFile(saveSnapshot.file());
+                if (file == null) yield rejectedSnapshot();
+                fileSystemManagementService.saveSnapshot(file);
+                yield OperationResult.OK;
+            }
+            case Command.LoadSnapshot loadSnapshot -> {
+                Path file = snapshotFile(loadSnapshot.file());
+                if (file == null) yield rejectedSnapshot();
+                fileSystemManagementService.loadSnapshot(file);
+                yield OperationResult.OK;
+            }
+        };
+
+        // Commands with their own response have already appended it
+        if (result == null) return true;
+        if (result.isOk()) {
+            output.append("OK\n");
+            return true;
+        }
+
+        appendError(result.code().getErrorName(), result.message(), output);
+        return false;
+    }
+
+    /**
+     * Resolves the file of a SAVE or LOAD command.
+     *
+     * @return the file, or null if this executor does not let the command reach it.
+     * @throws IOException if the links on the way to the file cannot be followed.
+     */
+    private Path snapshotFile(Path file) throws IOException {
+        if (!confined) return file;
+        if (snapshotDirectory == null) return null;
+
+        Path resolvedFile = snapshotDirectory.resolve(file).normalize();
+        if (!resolvedFile.startsWith(snapshotDirectory) || resolvedFile.equals(snapshotDirectory)) return null;
+
+        // A link inside the directory may still lead out of it, so the real location is checked as well
+        Path realFile = Files.exists(resolvedFile) ? resolvedFile.toRealPath() : resolvedFile.getParent().toRealPath().resolve(resolvedFile.getFileName());
+        return realFile.startsWith(snapshotDirectory.toRealPath()) ? resolvedFile : null;
+    }
+
+    private OperationResult rejectedSnapshot() {
+        return snapshotDirectory == null ? SNAPSHOTS_DISABLED : SNAPSHOT_OUTSIDE_DIRECTORY;
+    }
+
+    private void appendError(Exception e, StringBuilder output) {
+        appendError(e.getClass().getSimpleName(), e.getMessage(), output);
+    }
+
+    private void appendError(String errorName, String message, StringBuilder output) {
+        String singleLineMessage = message == null ? "" : message.replace('\n', ' ').replace('\r', ' ');
+        output.append("ERROR ").append(errorName).append(' ').append(singleLineMessage).append('\n');
+    }
+
+    /**
+     * Entities are collected before anything is appended, so that a failing stream does not leave a partial response.
+     *
+     * @return null if the entities were appended, or why they could not be read.
+     */
+    private OperationResult appendEntities(ReadResult<Stream<EntityInfo>> entities, StringBuilder output) {
+        if (!entities.isOk()) return entities.result();
+        List<EntityInfo> collectedEntities = entities.value().toList();
+
+        output.append("OK ").append(collectedEntities.size()).append('\n');
+        for (EntityInfo entity : collectedEntities) {
+            output.append(entity.type()).append(' ').append(entity.size()).append(' ').append(entity.path()).append('\n');
+        }
+        return null;
+    }
+}
@@ -0,0 +1,146 @@
+package commands;
+
+import entities.EntityType;
+import exceptions.InvalidCommandException;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * CommandParser reads commands from lines of text, one command per line:
+ * <pre>
+ * CREATE &lt;type&gt; &lt;name&gt; [&lt;path&gt;]
+ * DELETE &lt;type&gt; &lt;path&gt;
+ * MOVE &lt;type&gt; &lt;sourcePath&gt; &lt;destinationPath&gt;
+ * WRITE &lt;path&gt; &lt;content&gt;
+ * SIZE &lt;type&gt; &lt;path&gt;
+ * LIST &lt;path&gt;
+ * FIND &lt;rootPath&gt; &lt;pattern&gt; &lt;type&gt;
+ * SAVE &lt;file&gt;
+ * LOAD &lt;file&gt;
+ * </pre>
+ * Commands and types are case-insensitive. Arguments are separated by spaces or tabs, and arguments that are empty or
+ * contain spaces must be enclosed in double quotes, where a doubled quote stands for a quote. Backslashes have no special
+ * meaning, so paths are written as they are, e.g. {@code WRITE "C:\My Folder\notes" "some text"}.
+ */
+public final class CommandParser {
+
+    /**
+     * Checks if a line has no command, i.e. it is blank or a comment starting with #.
+     *
+     * @param line the line.
+     * @return true if the line must be skipped and false otherwise.
+     */
+    public boolean isSkipped(String line) {
+        String trimmed = line.strip();
+        return trimmed.isEmpty() || trimmed.charAt(0) == '#';
+    }
+
+    /**
+     * Parses a line into a command.
+     *
+     * @param line the line.
+     * @throws InvalidCommandException if the line is not a valid command.
+     * @return the command.
+     */
+    public Command parse(String line) {
+        List<String> tokens = tokenize(line);
+        if (tokens.isEmpty()) throw new InvalidCommandException("Empty command.");
+
+        String name = tokens.getFirst().toUpperCase(Locale.ROOT);
+        List<String> arguments = tokens.subList(1, tokens.size());
+        return switch (name) {
+            case "CREATE" -> {
+                if (arguments.size() != 2 && arguments.size() != 3) throw usage("CREATE <type> <name> [<path>]");
+                yield new Command.Create(parseType(arguments.get(0)), arguments.get(1), arguments.size() == 3 ? arguments.get(2) : "");
+            }
+            case "DELETE" -> {
+                requireArguments(arguments, 2, "DELETE <type> <path>");
+                yield new Command.Delete(parseType(arguments.get(0)), arguments.get(1));
+            }
+            case "MOVE" -> {
+                requireArguments(arguments, 3, "MOVE <type> <sourcePath> <destinationPath>");
+                yield new Command.Move(parseType(arguments.get(0)), arguments.get(1), arguments.get(2));
+            }
+            case "WRITE" -> {
+                requireArguments(arguments, 2, "WRITE <path> <content>");
+                yield new Command.WriteToFile(arguments.get(0), arguments.get(1));
+            }
+            case "SIZE" -> {
+                requireArguments(arguments, 2, "SIZE <type> <path>");
+                yield new Command.GetSize(parseType(arguments.get(0)), arguments.get(1));
+            }
+            case "LIST" -> {
+                requireArguments(arguments, 1, "LIST <path>");
+                yield new Command.ListContents(arguments.get(0));
+            }
+            case "FIND" -> {
+                requireArguments(arguments, 3, "FIND <rootPath> <pattern> <type>");
+                yield new Command.Find(arguments.get(0), arguments.get(1), parseType(arguments.get(2)));
+            }
+            case "SAVE" -> {
+                requireArguments(arguments, 1, "SAVE <file>");
+                yield new Command.SaveSnapshot(Path.of(arguments.get(0)));
+            }
+            case "LOAD" -> {
+                requireArguments(arguments, 1, "LOAD <file>");
+                yield new Command.LoadSnapshot(Path.of(arguments.get(0)));
+            }
+            default -> throw new InvalidCommandException("Unknown command: " + tokens.getFirst());
+        };
+    }
+
+    private List<String> tokenize(String line) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (true) {
+            while (i < line.length() && isSeparator(line.charAt(i))) i++;
+            if (i == line.length()) return tokens;
+
+            StringBuilder token = new StringBuilder();
+            if (line.charAt(i) != '"') {
+                while (i < line.length() && !isSeparator(line.charAt(i))) token.append(line.charAt(i++));
+                tokens.add(token.toString());
+                continue;
+            }
+
+            i++;
+            while (true) {
+                if (i == line.length()) throw new InvalidCommandException("Unterminated quoted argument.");
+                char character = line.charAt(i++);
+                if (character != '"') {
+                    token.append(character);
+                } else if (i < line.length() && line.charAt(i) == '"') {
+                    token.append('"');
+                    i++;
+                } else {
+                    break;
+                }
+            }
+            if (i < line.length() && !isSeparator(line.charAt(i))) throw new InvalidCommandException("Quoted arguments must be followed by a separator.");
+            tokens.add(token.toString());
+        }
+    }
+
+    private static boolean isSeparator(char character) {
+        return character == ' ' || character == '\t';
+    }
+
+    private static EntityType parseType(String type) {
+        try {
+            return EntityType.valueOf(type.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCommandException("Only following types are accepted: DRIVE|FOLDER|ZIP_FILE|TEXT_FILE");
+        }
+    }
+
+    private static void requireArguments(List<String> arguments, int count, String usage) {
+        if (arguments.size() != count) throw usage(usage);
+    }
+
+    private static InvalidCommandException usage(String usage) {
+        return new InvalidCommandException("Usage: " + usage);
+    }
+}
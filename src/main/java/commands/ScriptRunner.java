@@ -0,0 +1,61 @@
+package commands;
+
+import lombok.RequiredArgsConstructor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * ScriptRunner executes a script of commands, one per line, in the same format as the server protocol, and writes the
+ * response of every command. Nothing is prompted, and responses are accumulated and written in large chunks, so that
+ * scripts with millions of commands run at the speed of the FileSystem rather than of the output.
+ */
+@RequiredArgsConstructor
+public class ScriptRunner {
+
+    /**
+     * Number of response characters accumulated before they are written.
+     */
+    static final int FLUSH_THRESHOLD = 64 * 1024;
+
+    private final CommandExecutor commandExecutor;
+
+    /**
+     * Runs every command of the script, whether the previous ones failed or not.
+     *
+     * @param script the script, read until its end.
+     * @param output where the responses are written. It is flushed once the script ends, but not closed.
+     * @return the number of lines and of rejected commands of the script.
+     * @throws IOException if the script cannot be read or the responses cannot be written.
+     */
+    public Summary run(BufferedReader script, Writer output) throws IOException {
+        StringBuilder responses = new StringBuilder(FLUSH_THRESHOLD * 2);
+        long lines = 0;
+        long failures = 0;
+
+        String line;
+        while ((line = script.readLine()) != null) {
+            lines++;
+            if (!commandExecutor.execute(line, responses)) failures++;
+
+            if (responses.length() >= FLUSH_THRESHOLD) {
+                output.append(responses);
+                responses.setLength(0);
+            }
+        }
+
+        output.append(responses);
+        output.flush();
+        return new Summary(lines, failures);
+    }
+
+    /**
+     * The outcome of a script.
+     *
+     * @param lines the number of lines of the script, including blank lines and comments.
+     * @param failures the number of rejected commands.
+     */
+    public record Summary(long lines, long failures) {
+    }
+}
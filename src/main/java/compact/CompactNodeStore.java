@@ -0,0 +1,509 @@
+package compact;
+
+import entities.EntityType;
+import entities.NameTable;
+import entities.TextContent;
+import entities.TextStorage;
+import utils.NameMap;
+import utils.NamePattern;
+
+import java.util.Arrays;
+
+/**
+ * CompactNodeStore keeps a FileSystem tree in struct-of-arrays form: every node is an int identifier, and its
+ * properties are stored at that position of a set of primitive arrays (parent, first and last child, previous and next
+ * sibling, type and size). Only names and TextFile contents are objects, and names are interned in the NameTable.
+ * <p>
+ * Children are chained in insertion order through the sibling arrays, and found by name and type through a single open
+ * addressing hash index shared by the whole tree. Identifiers of removed nodes are recycled. Nodes are also indexed by
+ * name and type across the whole tree, from their creation until they are freed, so that they can be found by name:
+ * the nodes with the same name and type are chained through two more arrays, so only distinct names are objects.
+ * <p>
+ * Node 0 is the root of the tree, whose children are the Drives. The store is not thread-safe.
+ */
+public final class CompactNodeStore {
+
+    public static final int ROOT = 0;
+    public static final int NONE = -1;
+
+    private static final byte ROOT_TYPE = -1;
+    private static final byte FREE_TYPE = -2;
+    private static final EntityType[] TYPES = EntityType.values();
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] parents = new int[INITIAL_CAPACITY];
+    private int[] firstChildren = new int[INITIAL_CAPACITY];
+    private int[] lastChildren = new int[INITIAL_CAPACITY];
+    private int[] previousSiblings = new int[INITIAL_CAPACITY];
+    /**
+     * Next sibling of every node, or next free identifier of every removed node.
+     */
+    private int[] nextSiblings = new int[INITIAL_CAPACITY];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private long[] sizes = new long[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private TextContent[] contents = new TextContent[INITIAL_CAPACITY];
+    /**
+     * Next and previous node with the same name and type, whatever their place in the tree.
+     */
+    private int[] nextSameNames = new int[INITIAL_CAPACITY];
+    private int[] previousSameNames = new int[INITIAL_CAPACITY];
+    /**
+     * First node of every chain of nodes with the same name, by type.
+     */
+    private final NameMap<int[]> firstSameNames = new NameMap<>();
+
+    /**
+     * Open addressing hash index of the linked nodes by parent, name and type. Slots hold node identifiers plus one, so
+     * that 0 marks an empty slot.
+     */
+    private int[] childIndex = new int[INITIAL_CAPACITY * 2];
+    private int indexedNodes;
+
+    private int allocatedNodes;
+    private int freeNodes;
+    private int firstFreeNode = NONE;
+    private int structuralModifications;
+    private final TextStorage textStorage;
+
+    public CompactNodeStore() {
+        this(TextStorage.HEAP);
+    }
+
+    /**
+     * @param textStorage where the content of the TextFile nodes is stored.
+     */
+    public CompactNodeStore(TextStorage textStorage) {
+        this.textStorage = textStorage;
+        allocate(ROOT_TYPE, "");
+    }
+
+    /**
+     * Returns the number of nodes in the store, including the root and the detached nodes that were not freed yet.
+     *
+     * @return the number of nodes.
+     */
+    public int getNodeCount() {
+        return allocatedNodes - freeNodes;
+    }
+
+    /**
+     * Returns the number of times nodes have been linked, unlinked or freed, so that readers that walk the store across
+     * many reads can detect that the links they follow may have changed.
+     *
+     * @return the number of structural modifications.
+     */
+    public int getStructuralModificationCount() {
+        return structuralModifications;
+    }
+
+    /**
+     * Returns the type of the node.
+     *
+     * @param node the node.
+     * @return the type of the node, or null for the root.
+     */
+    public EntityType getType(int node) {
+        return node == ROOT ? null : TYPES[types[node]];
+    }
+
+    public String getName(int node) {
+        return names[node];
+    }
+
+    public long getSize(int node) {
+        return sizes[node];
+    }
+
+    public int getParent(int node) {
+        return parents[node];
+    }
+
+    public int getFirstChild(int node) {
+        return firstChildren[node];
+    }
+
+    public int getLastChild(int node) {
+        return lastChildren[node];
+    }
+
+    public int getNextSibling(int node) {
+        return nextSiblings[node];
+    }
+
+    public int getPreviousSibling(int node) {
+        return previousSiblings[node];
+    }
+
+    /**
+     * Checks if the node may contain other nodes.
+     *
+     * @param node the node.
+     * @return true for the root, Drives, Folders and ZipFiles, and false otherwise.
+     */
+    public boolean isComposable(int node) {
+        return types[node] != EntityType.TEXT_FILE.ordinal();
+    }
+
+    /**
+     * Finds the child with the provided name and type.
+     *
+     * @param parent the parent node.
+     * @param name the name of the child.
+     * @param type the type of the child.
+     * @return the child, or NONE if not found.
+     */
+    public int findChild(int parent, String name, EntityType type) {
+        String canonicalName = NameTable.getInstance().find(name);
+        if (canonicalName == null) return NONE;
+
+        int mask = childIndex.length - 1;
+        for (int slot = hash(parent, canonicalName, type.ordinal()) & mask; childIndex[slot] != 0; slot = (slot + 1) & mask) {
+            int node = childIndex[slot] - 1;
+            if (parents[node] == parent && names[node] == canonicalName && types[node] == type.ordinal()) return node;
+        }
+        return NONE;
+    }
+
+    /**
+     * Finds the Composable child with the provided name, whichever its type is.
+     *
+     * @param parent the parent node.
+     * @param name the name of the child.
+     * @return the child, or NONE if not found.
+     */
+    public int findComposableChild(int parent, String name) {
+        int child = findChild(parent, name, EntityType.FOLDER);
+        return child != NONE ? child : findChild(parent, name, EntityType.ZIP_FILE);
+    }
+
+    /**
+     * Checks if the node is the provided ancestor or one of its descendants.
+     *
+     * @param node the node.
+     * @param ancestor the potential ancestor.
+     * @return true if the node is the ancestor or is contained in it, and false otherwise.
+     */
+    public boolean isSameOrDescendantOf(int node, int ancestor) {
+        for (int current = node; current != NONE; current = parents[current]) {
+            if (current == ancestor) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Finds the nodes of a type whose name matches a pattern, among the descendants of a node.
+     *
+     * @param ancestor the node to search under.
+     * @param pattern the name pattern.
+     * @param type the type of the nodes.
+     * @return the matching nodes, in no particular order.
+     */
+    public int[] find(int ancestor, NamePattern pattern, EntityType type) {
+        int[] found = new int[16];
+        int foundCount = 0;
+        for (int[] firstNodes : firstSameNames.findMatching(pattern)) {
+            for (int node = firstNodes[type.ordinal()]; node != NONE; node = nextSameNames[node]) {
+                if (node == ancestor || !isSameOrDescendantOf(node, ancestor)) continue;
+                if (foundCount == found.length) found = Arrays.copyOf(found, foundCount * 2);
+                found[foundCount++] = node;
+            }
+        }
+        return Arrays.copyOf(found, foundCount);
+    }
+
+    /**
+     * Creates a new node as the last child of the parent. The caller must make sure no sibling has the same name and type.
+     *
+     * @param parent the parent node.
+     * @param type the type of the new node.
+     * @param name the name of the new node.
+     * @return the new node.
+     */
+    public int addChild(int parent, EntityType type, String name) {
+        int node = allocate((byte) type.ordinal(), NameTable.getInstance().intern(name));
+        if (type == EntityType.TEXT_FILE) contents[node] = textStorage.newContent();
+        indexName(node);
+
+        link(node, parent, lastChildren[parent]);
+        return node;
+    }
+
+    /**
+     * Links a detached node (and its subtree) to a parent, right after the provided sibling, updating the sizes of the
+     * parent and its ancestors.
+     *
+     * @param node the detached node.
+     * @param parent the new parent.
+     * @param previousSibling the child of the parent to place the node after, or NONE to place it first.
+     */
+    public void link(int node, int parent, int previousSibling) {
+        int nextSibling = previousSibling == NONE ? firstChildren[parent] : nextSiblings[previousSibling];
+
+        structuralModifications++;
+        parents[node] = parent;
+        previousSiblings[node] = previousSibling;
+        nextSiblings[node] = nextSibling;
+        if (previousSibling == NONE) firstChildren[parent] = node; else nextSiblings[previousSibling] = node;
+        if (nextSibling == NONE) lastChildren[parent] = node; else previousSiblings[nextSibling] = node;
+
+        index(node);
+        updateSize(parent, sizes[parent] + getChildSizeContribution(parent, sizes[node]));
+    }
+
+    /**
+     * Unlinks a node (and its subtree) from its parent, updating the sizes of the parent and its ancestors. The detached
+     * nodes are kept until they are freed, so the node can be linked again.
+     *
+     * @param node the node to unlink.
+     */
+    public void unlink(int node) {
+        int parent = parents[node];
+        int previousSibling = previousSiblings[node];
+        int nextSibling = nextSiblings[node];
+
+        structuralModifications++;
+        unindex(node);
+        if (previousSibling == NONE) firstChildren[parent] = nextSibling; else nextSiblings[previousSibling] = nextSibling;
+        if (nextSibling == NONE) lastChildren[parent] = previousSibling; else previousSiblings[nextSibling] = previousSibling;
+        parents[node] = NONE;
+        previousSiblings[node] = NONE;
+        nextSiblings[node] = NONE;
+
+        updateSize(parent, sizes[parent] - getChildSizeContribution(parent, sizes[node]));
+    }
+
+    /**
+     * Releases an unlinked node and its whole subtree, so that their identifiers can be reused.
+     *
+     * @param node the unlinked node.
+     */
+    public void free(int node) {
+        int[] pending = new int[16];
+        int pendingCount = 0;
+        pending[pendingCount++] = node;
+
+        // Iterative on purpose, so that deep hierarchies cannot overflow the stack
+        while (pendingCount > 0) {
+            int current = pending[--pendingCount];
+            for (int child = firstChildren[current]; child != NONE; child = nextSiblings[child]) {
+                if (pendingCount == pending.length) pending = Arrays.copyOf(pending, pending.length * 2);
+                pending[pendingCount++] = child;
+                unindex(child);
+            }
+            release(current);
+        }
+    }
+
+    /**
+     * Returns the content of a TextFile node.
+     *
+     * @param node the TextFile node.
+     * @return the whole content of the file.
+     */
+    public String getContent(int node) {
+        return contents[node].toString();
+    }
+
+    /**
+     * Appends text to a TextFile node, updating its size and the sizes of its ancestors.
+     *
+     * @param node the TextFile node.
+     * @param text the text to append.
+     */
+    public void appendContent(int node, String text) {
+        contents[node].append(text);
+        updateSize(node, contents[node].length());
+    }
+
+    /**
+     * Discards the content of a TextFile node beyond the given length, updating its size and the sizes of its ancestors.
+     *
+     * @param node the TextFile node.
+     * @param length the number of characters to keep.
+     */
+    public void truncateContent(int node, int length) {
+        contents[node].truncate(length);
+        updateSize(node, contents[node].length());
+    }
+
+    /**
+     * Replaces the content of a TextFile node, e.g. with one restored from a snapshot, updating its size and the sizes of
+     * its ancestors.
+     *
+     * @param node the TextFile node.
+     * @param content the new content.
+     */
+    public void restoreContent(int node, TextContent content) {
+        contents[node].release();
+        contents[node] = content;
+        updateSize(node, content.length());
+    }
+
+    /**
+     * Releases the content of all the TextFile nodes, freeing any memory they hold outside the heap. It must be called
+     * before discarding the store.
+     */
+    public void releaseContents() {
+        for (int node = 0; node < allocatedNodes; node++) {
+            if (contents[node] != null) contents[node].release();
+        }
+    }
+
+    private int allocate(byte type, String name) {
+        int node;
+        if (firstFreeNode != NONE) {
+            node = firstFreeNode;
+            firstFreeNode = nextSiblings[node];
+            freeNodes--;
+        } else {
+            if (allocatedNodes == types.length) grow();
+            node = allocatedNodes++;
+        }
+
+        parents[node] = NONE;
+        firstChildren[node] = NONE;
+        lastChildren[node] = NONE;
+        previousSiblings[node] = NONE;
+        nextSiblings[node] = NONE;
+        types[node] = type;
+        sizes[node] = 0;
+        names[node] = name;
+        return node;
+    }
+
+    private void release(int node) {
+        structuralModifications++;
+        unindexName(node);
+        types[node] = FREE_TYPE;
+        names[node] = null;
+        if (contents[node] != null) contents[node].release();
+        contents[node] = null;
+        nextSiblings[node] = firstFreeNode;
+        firstFreeNode = node;
+        freeNodes++;
+    }
+
+    private void grow() {
+        int capacity = types.length + (types.length >> 1);
+
+        parents = Arrays.copyOf(parents, capacity);
+        firstChildren = Arrays.copyOf(firstChildren, capacity);
+        lastChildren = Arrays.copyOf(lastChildren, capacity);
+        previousSiblings = Arrays.copyOf(previousSiblings, capacity);
+        nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+        types = Arrays.copyOf(types, capacity);
+        sizes = Arrays.copyOf(sizes, capacity);
+        names = Arrays.copyOf(names, capacity);
+        contents = Arrays.copyOf(contents, capacity);
+        nextSameNames = Arrays.copyOf(nextSameNames, capacity);
+        previousSameNames = Arrays.copyOf(previousSameNames, capacity);
+    }
+
+    private void updateSize(int node, long newSize) {
+        int current = node;
+        long currentNewSize = newSize;
+
+        while (current != NONE && sizes[current] != currentNewSize) {
+            long currentOldSize = sizes[current];
+            sizes[current] = currentNewSize;
+
+            int parent = parents[current];
+            if (parent != NONE) {
+                currentNewSize = sizes[parent]
+                        + getChildSizeContribution(parent, currentNewSize)
+                        - getChildSizeContribution(parent, currentOldSize);
+            }
+            current = parent;
+        }
+    }
+
+    private long getChildSizeContribution(int parent, long childSize) {
+        return types[parent] == EntityType.ZIP_FILE.ordinal() ? childSize / 2 : childSize;
+    }
+
+    private void indexName(int node) {
+        int[] firstNodes = firstSameNames.computeIfAbsent(names[node], it -> {
+            int[] firstNodesByType = new int[TYPES.length];
+            Arrays.fill(firstNodesByType, NONE);
+            return firstNodesByType;
+        });
+
+        int next = firstNodes[types[node]];
+        previousSameNames[node] = NONE;
+        nextSameNames[node] = next;
+        if (next != NONE) previousSameNames[next] = node;
+        firstNodes[types[node]] = node;
+    }
+
+    private void unindexName(int node) {
+        int previous = previousSameNames[node];
+        int next = nextSameNames[node];
+        if (next != NONE) previousSameNames[next] = previous;
+        if (previous != NONE) {
+            nextSameNames[previous] = next;
+            return;
+        }
+
+        int[] firstNodes = firstSameNames.get(names[node]);
+        firstNodes[types[node]] = next;
+        for (int firstNode : firstNodes) {
+            if (firstNode != NONE) return;
+        }
+        firstSameNames.remove(names[node]);
+    }
+
+    private void index(int node) {
+        // Keep the load factor under 2/3, so that probe sequences stay short
+        if ((indexedNodes + 1) * 3 > childIndex.length * 2) resizeIndex(childIndex.length * 2);
+
+        int mask = childIndex.length - 1;
+        int slot = homeSlot(node, mask);
+        while (childIndex[slot] != 0) slot = (slot + 1) & mask;
+        childIndex[slot] = node + 1;
+        indexedNodes++;
+    }
+
+    private void unindex(int node) {
+        int mask = childIndex.length - 1;
+        int slot = homeSlot(node, mask);
+        while (childIndex[slot] != node + 1) slot = (slot + 1) & mask;
+
+        // Backward shift deletion: move up the following entries that would not be reachable through the empty slot
+        int emptySlot = slot;
+        for (int current = (emptySlot + 1) & mask; childIndex[current] != 0; current = (current + 1) & mask) {
+            int home = homeSlot(childIndex[current] - 1, mask);
+            boolean reachableFromEmptySlot = emptySlot <= current ?
+                    home > emptySlot && home <= current :
+                    home > emptySlot || home <= current;
+            if (!reachableFromEmptySlot) {
+                childIndex[emptySlot] = childIndex[current];
+                emptySlot = current;
+            }
+        }
+        childIndex[emptySlot] = 0;
+        indexedNodes--;
+    }
+
+    private void resizeIndex(int capacity) {
+        int[] oldIndex = childIndex;
+        childIndex = new int[capacity];
+        int mask = capacity - 1;
+
+        for (int entry : oldIndex) {
+            if (entry == 0) continue;
+            int slot = homeSlot(entry - 1, mask);
+            while (childIndex[slot] != 0) slot = (slot + 1) & mask;
+            childIndex[slot] = entry;
+        }
+    }
+
+    private int homeSlot(int node, int mask) {
+        return hash(parents[node], names[node], types[node]) & mask;
+    }
+
+    private static int hash(int parent, String name, int type) {
+        int hash = (parent * 31 + name.hashCode()) * 31 + type;
+        return hash ^ (hash >>> 16);
+    }
+}
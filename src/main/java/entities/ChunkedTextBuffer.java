@@ -0,0 +1,117 @@
+package entities;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ChunkedTextBuffer is an append-optimized text container.
+ * Appended text is copied into a list of character blocks whose capacity grows geometrically, so appending never
+ * copies the previously stored text. A String is only materialized when the whole content is requested, and it is kept
+ * until the next modification.
+ */
+public class ChunkedTextBuffer implements TextContent {
+
+    private static final int MIN_BLOCK_SIZE = 16;
+    private static final int MAX_BLOCK_SIZE = 64 * 1024;
+
+    private final List<char[]> blocks = new ArrayList<>();
+    private int lastBlockLength;
+    private int length;
+    private String materialized = "";
+
+    /**
+     * Appends text at the end of the buffer in amortized constant time (relative to the current buffer length).
+     *
+     * @param text the text to append.
+     */
+    @Override
+    public void append(String text) {
+        int remaining = text.length();
+        if (remaining == 0) return;
+
+        int textOffset = 0;
+        while (remaining > 0) {
+            char[] lastBlock = blocks.isEmpty() ? null : blocks.getLast();
+            if (lastBlock == null || lastBlockLength == lastBlock.length) {
+                lastBlock = new char[nextBlockSize(remaining)];
+                blocks.add(lastBlock);
+                lastBlockLength = 0;
+            }
+
+            int copied = Math.min(remaining, lastBlock.length - lastBlockLength);
+            text.getChars(textOffset, textOffset + copied, lastBlock, lastBlockLength);
+            lastBlockLength += copied;
+            textOffset += copied;
+            remaining -= copied;
+        }
+
+        length += text.length();
+        materialized = null;
+    }
+
+    /**
+     * Discards the content beyond the given length, keeping the blocks that hold the remaining content.
+     *
+     * @param newLength the number of characters to keep.
+     */
+    @Override
+    public void truncate(int newLength) {
+        if (newLength < 0 || newLength > length) throw new IndexOutOfBoundsException("Cannot truncate " + length + " characters to " + newLength);
+        if (newLength == length) return;
+
+        int keptLength = 0;
+        int keptBlocks = 0;
+        while (keptLength < newLength) {
+            keptLength += blocks.get(keptBlocks++).length;
+        }
+        blocks.subList(keptBlocks, blocks.size()).clear();
+
+        lastBlockLength = keptBlocks == 0 ? 0 : blocks.getLast().length - (keptLength - newLength);
+        length = newLength;
+        materialized = null;
+    }
+
+    /**
+     * Removes all the content from the buffer.
+     */
+    @Override
+    public void clear() {
+        blocks.clear();
+        lastBlockLength = 0;
+        length = 0;
+        materialized = "";
+    }
+
+    /**
+     * Returns the number of characters in the buffer.
+     *
+     * @return the length of the content.
+     */
+    @Override
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Materializes the content of the buffer as a String.
+     *
+     * @return the whole content of the buffer.
+     */
+    @Override
+    public String toString() {
+        if (materialized == null) {
+            StringBuilder content = new StringBuilder(length);
+            for (int i = 0; i < blocks.size(); i++) {
+                char[] block = blocks.get(i);
+                content.append(block, 0, i == blocks.size() - 1 ? lastBlockLength : block.length);
+            }
+            materialized = content.toString();
+        }
+        return materialized;
+    }
+
+    private int nextBlockSize(int required) {
+        int geometricSize = Math.min(MAX_BLOCK_SIZE, Math.max(MIN_BLOCK_SIZE, length));
+        return Math.max(geometricSize, Math.min(required, MAX_BLOCK_SIZE));
+    }
+}
@@ -9,10 +9,10 @@ public sealed interface Composable permits Drive, Folder, ZipFile {
      *
      * @return the entity contents.
      */
-    ExclusionEntityList<Entity> getContents();
+    IndexedEntityList getContents();
 
     /**
-     * Removes entity's descendants contents and then its own contents.
+     * Detaches the entity's contents, releasing the content of all the descendant TextFiles.
      */
     void clearContents();
 }
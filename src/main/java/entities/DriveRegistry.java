@@ -0,0 +1,156 @@
+package entities;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DriveRegistry holds the Drives of a FileSystem indexed by name, so that finding the Drive of a path takes the same
+ * time however many Drives there are.
+ * <p>
+ * Drives are split in shards by a DriveSharding. Every shard is a concurrent map, so Drives may be looked up, registered
+ * and unregistered from many threads. Iterating is weakly consistent, and Drives are iterated sorted by name.
+ */
+public final class DriveRegistry implements Iterable<Drive> {
+
+    public static final int DEFAULT_SHARD_COUNT = 64;
+
+    private static final Comparator<Drive> BY_NAME = Comparator.comparing(Entity::getName);
+
+    private final DriveSharding sharding;
+    private final List<ConcurrentHashMap<String, Drive>> shards;
+    private final AtomicInteger size = new AtomicInteger();
+
+    public DriveRegistry() {
+        this(DEFAULT_SHARD_COUNT, DriveSharding.HASH);
+    }
+
+    public DriveRegistry(int shardCount, DriveSharding sharding) {
+        if (shardCount < 1) throw new IllegalArgumentException("At least one shard is required.");
+
+        this.sharding = sharding;
+        this.shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Finds a Drive by its name.
+     *
+     * @param driveName the name of the Drive.
+     * @return the Drive, or null if there is none with that name.
+     */
+    public Drive find(String driveName) {
+        if (driveName == null) return null;
+
+        return shards.get(shardOf(driveName)).get(driveName);
+    }
+
+    /**
+     * Registers a Drive, unless there already is one with the same name.
+     *
+     * @param drive the Drive.
+     * @return true if the Drive was registered, false if its name was taken.
+     */
+    public boolean register(Drive drive) {
+        if (shards.get(shardOf(drive.getName())).putIfAbsent(drive.getName(), drive) != null) return false;
+
+        size.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Unregisters a Drive, if it is the one registered with its name.
+     *
+     * @param drive the Drive.
+     * @return true if the Drive was unregistered, false if it was not registered.
+     */
+    public boolean unregister(Drive drive) {
+        // Entities are equal if their contents are, so the registered Drive is compared by identity instead
+        boolean[] unregistered = {false};
+        shards.get(shardOf(drive.getName())).computeIfPresent(drive.getName(), (name, registeredDrive) -> {
+            if (registeredDrive != drive) return registeredDrive;
+            unregistered[0] = true;
+            return null;
+        });
+        if (!unregistered[0]) return false;
+
+        size.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * Replaces all the Drives, e.g. when a snapshot is loaded. It is not atomic, so the caller must keep the registry
+     * from being accessed meanwhile.
+     *
+     * @param drives the new Drives, with distinct names.
+     * @return the replaced Drives.
+     */
+    public List<Drive> replaceAll(Collection<Drive> drives) {
+        List<Drive> replacedDrives = getDrives();
+        shards.forEach(ConcurrentHashMap::clear);
+        size.set(0);
+        drives.forEach(this::register);
+        return replacedDrives;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    public DriveSharding getSharding() {
+        return sharding;
+    }
+
+    /**
+     * Returns the shard a Drive belongs to, whether it is registered or not.
+     *
+     * @param driveName the name of the Drive.
+     * @return the index of the shard.
+     */
+    public int shardOf(String driveName) {
+        return sharding.shardOf(driveName, shards.size());
+    }
+
+    /**
+     * Returns the Drives of a shard, sorted by name.
+     *
+     * @param shard the index of the shard.
+     * @return a copy of the Drives of the shard.
+     */
+    public List<Drive> getShard(int shard) {
+        List<Drive> drives = new ArrayList<>(shards.get(shard).values());
+        drives.sort(BY_NAME);
+        return drives;
+    }
+
+    /**
+     * Returns all the Drives, sorted by name.
+     *
+     * @return a copy of the Drives.
+     */
+    public List<Drive> getDrives() {
+        List<Drive> drives = new ArrayList<>(size());
+        shards.forEach(shard -> drives.addAll(shard.values()));
+        drives.sort(BY_NAME);
+        return drives;
+    }
+
+    @Override
+    public Iterator<Drive> iterator() {
+        return getDrives().iterator();
+    }
+}
@@ -0,0 +1,30 @@
+package entities;
+
+import java.util.Objects;
+
+/**
+ * DriveSharding decides which shard every Drive belongs to, so that deployments with many Drives (e.g. one per tenant)
+ * can group them as they see fit, e.g. keeping the Drives of a tenant together. The DriveRegistry keeps the Drives of
+ * every shard apart, and the ConcurrentFileSystemManagementService locks them with the same stripe.
+ */
+@FunctionalInterface
+public interface DriveSharding {
+
+    /**
+     * Spreads the Drives over the shards by the hash of their name.
+     */
+    DriveSharding HASH = (driveName, shardCount) -> {
+        int hash = Objects.hashCode(driveName);
+        // Spread the higher bits, as String hashes of short Drive names differ mostly in the lower ones
+        return Math.floorMod(hash ^ (hash >>> 16), shardCount);
+    };
+
+    /**
+     * Returns the shard of a Drive. It must always return the same shard for the same name and shard count.
+     *
+     * @param driveName the name of the Drive, which may be null for malformed paths.
+     * @param shardCount the number of shards.
+     * @return the index of the shard, from 0 to shardCount - 1.
+     */
+    int shardOf(String driveName, int shardCount);
+}
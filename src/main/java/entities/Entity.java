@@ -1,7 +1,17 @@
 package entities;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Entity base class that models common entity's properties and behavior.
@@ -9,22 +19,184 @@ import lombok.NonNull;
 @Data
 public abstract class Entity implements Sizeable {
 
-    @NonNull
-    protected final ExclusionEntityList<Entity> contents = new ExclusionEntityList<>(Drive.class);
+    /**
+     * The children of the entity, created by the Composable entities once they are constructed, and null for TextFiles,
+     * which have none.
+     */
+    @Setter(AccessLevel.NONE)
+    protected IndexedEntityList contents;
     @NonNull
     protected final EntityType entityType;
+    /**
+     * The name of the entity, interned in the NameTable so that it can be compared by identity.
+     */
     @NonNull
-    protected String name;
-    @NonNull
-    protected String path;
+    protected final String name;
+    /**
+     * The Composable entity containing this entity, or null for Drives and detached entities.
+     */
+    @Setter(AccessLevel.PACKAGE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Entity parent;
+    /**
+     * The cached size of the entity, kept up to date as the entity and its descendants change.
+     */
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private int size;
+    /**
+     * Loader of the children of an entity restored from a snapshot, until they are first accessed.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private volatile Supplier<List<Entity>> pendingContents;
+
+    protected Entity(@NonNull EntityType entityType, @NonNull String name) {
+        this.entityType = entityType;
+        this.name = NameTable.getInstance().intern(name);
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the children of the entity, loading them first if the entity was restored from a snapshot and they were not
+     * accessed yet.
+     *
+     * @return the entity contents.
+     */
+    public IndexedEntityList getContents() {
+        if (pendingContents != null) loadPendingContents();
+        return contents;
+    }
+
+    /**
+     * Restores a detached, empty entity from a snapshot: its size is set right away, while its children are only loaded
+     * when they are first accessed.
+     *
+     * @param size the size of the entity, including its children.
+     * @param children the loader of the children of the entity.
+     */
+    public void restoreContents(int size, @NonNull Supplier<List<Entity>> children) {
+        if (contents == null || parent != null || !contents.isEmpty() || pendingContents != null) {
+            throw new IllegalStateException("Only detached, empty Composable entities can be restored.");
+        }
+        updateSize(size);
+        pendingContents = children;
+    }
+
+    /**
+     * Returns the path of the entity, computed from the names of its ancestors. Paths are not stored, so that moving a
+     * subtree does not need to update any of its descendants.
+     *
+     * @return the path of the entity.
+     */
+    public String getPath() {
+        if (parent == null) return name;
+
+        // Iterative on purpose, so that deep hierarchies cannot overflow the stack
+        Deque<String> names = new ArrayDeque<>();
+        Entity current = this;
+        while (current.parent != null) {
+            names.push(current.name);
+            current = current.parent;
+        }
+
+        StringBuilder fullPath = new StringBuilder(current.name);
+        names.forEach(it -> fullPath.append('\\').append(it));
+        return fullPath.toString();
+    }
+
+    /**
+     * Checks if this entity is the provided entity or one of its descendants.
+     *
+     * @param entity the potential ancestor.
+     * @return true if this entity is the provided entity or is contained in it, and false otherwise.
+     */
+    public boolean isSameOrDescendantOf(Entity entity) {
+        for (Entity current = this; current != null; current = current.parent) {
+            if (current == entity) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Releases the content of every descendant TextFile in parallel, and then detaches all the children of this entity.
+     * Children that were never loaded from a snapshot are discarded without loading them, and the detached subtree is
+     * left to the garbage collector.
+     */
+    protected void clearSubtree() {
+        EntityTraversal.forEachParallel(this, entity -> {
+            if (entity instanceof TextFile textFile) {
+                textFile.releaseContent();
+            } else {
+                entity.discardPendingContents();
+            }
+        }, it -> it.contents);
+        contents.clear();
+    }
+
+    private synchronized void discardPendingContents() {
+        pendingContents = null;
+    }
+
+    /**
+     * Loads the pending children once, even if many readers access them at the same time.
+     */
+    private synchronized void loadPendingContents() {
+        Supplier<List<Entity>> children = pendingContents;
+        if (children == null) return;
+
+        contents.restore(children.get());
+        pendingContents = null;
+    }
+
+    /**
+     * Returns how much a child of the provided size adds to the size of this entity.
+     *
+     * @param childSize the size of the child.
+     * @return the share of the child's size accounted in this entity's size.
+     */
+    protected int getChildSizeContribution(int childSize) {
+        return childSize;
+    }
+
+    /**
+     * Sets the size of this entity and propagates the difference up the parent chain.
+     *
+     * @param newSize the new size of the entity.
+     */
+    protected void updateSize(int newSize) {
+        Entity current = this;
+        int currentNewSize = newSize;
+
+        // Iterative on purpose, so that deep hierarchies cannot overflow the stack
+        while (current != null && current.size != currentNewSize) {
+            int currentOldSize = current.size;
+            current.size = currentNewSize;
+
+            Entity currentParent = current.parent;
+            if (currentParent != null) {
+                currentNewSize = currentParent.size
+                        + currentParent.getChildSizeContribution(currentNewSize)
+                        - currentParent.getChildSizeContribution(currentOldSize);
+            }
+            current = currentParent;
+        }
+    }
 
     /**
-     * Updates all children paths.
+     * Accounts a size change of one of the children in this entity's size.
      *
-     * @param parentPath the path to the entity's parent.
+     * @param oldChildSize the size of the child before the change.
+     * @param newChildSize the size of the child after the change.
      */
-    public void updateDescendantsPath(String parentPath) {
-        setPath(parentPath + "\\" + getName());
-        contents.forEach(it -> it.updateDescendantsPath(getPath()));
+    void childSizeChanged(int oldChildSize, int newChildSize) {
+        updateSize(size + getChildSizeContribution(newChildSize) - getChildSizeContribution(oldChildSize));
     }
 }
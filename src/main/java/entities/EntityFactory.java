@@ -7,22 +7,38 @@ import exceptions.IllegalFileSystemOperationException;
  */
 public class EntityFactory {
 
+    private final TextStorage textStorage;
+
+    public EntityFactory() {
+        this(TextStorage.HEAP);
+    }
+
+    /**
+     * @param textStorage where the content of the created TextFiles is stored.
+     */
+    public EntityFactory(TextStorage textStorage) {
+        this.textStorage = textStorage;
+    }
+
+    public TextStorage getTextStorage() {
+        return textStorage;
+    }
+
     /**
      * Creates an entity with the requested properties.
+     * The name is interned, so entities with the same name share it. Paths are not stored, but derived from the parent
+     * the entity is added to.
      *
      * @param type the type of the entity.
      * @param name the name of the entity.
-     * @param path the path to the entity.
      * @return the entity.
      */
-    public Entity createEntity(EntityType type, String name, String path) {
-        String fullPath = path + "\\" + name;
-
+    public Entity createEntity(EntityType type, String name) {
         return switch (type) {
-            case DRIVE -> new Drive(type, name, name);
-            case FOLDER -> new Folder(type, name, fullPath);
-            case ZIP_FILE -> new ZipFile(type, name, fullPath);
-            case TEXT_FILE -> new TextFile(type, name, fullPath);
+            case DRIVE -> new Drive(type, name);
+            case FOLDER -> new Folder(type, name);
+            case ZIP_FILE -> new ZipFile(type, name);
+            case TEXT_FILE -> new TextFile(type, name, textStorage.newContent());
             default -> throw new IllegalFileSystemOperationException("Requested entity type not supported");
         };
     }
@@ -0,0 +1,98 @@
+package entities;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * EntityReclaimer clears deleted subtrees in a background thread, so that deleting an entity only takes unlinking it,
+ * no matter how many descendants it has.
+ * <p>
+ * Unreachable entities are collected by the garbage collector anyway, but the content of their TextFiles may hold memory
+ * outside the heap, which must be released explicitly. Subtrees must be detached, and not linked again, before being
+ * handed to the reclaimer.
+ */
+public final class EntityReclaimer {
+
+    private static final EntityReclaimer INSTANCE = new EntityReclaimer();
+
+    private final BlockingQueue<PendingReclaim> pendingEntities = new LinkedBlockingQueue<>();
+    private final AtomicLong unreclaimedEntities = new AtomicLong();
+    private final Object reclaimed = new Object();
+    private final Logger log = LogManager.getLogger(EntityReclaimer.class);
+
+    private EntityReclaimer() {
+        Thread reclaimer = new Thread(this::reclaimEntities, "filesystem-entity-reclaimer");
+        reclaimer.setDaemon(true);
+        reclaimer.start();
+    }
+
+    public static EntityReclaimer getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Queues a detached entity to be cleared, together with all its descendants.
+     *
+     * @param entity the detached entity.
+     */
+    public void reclaim(Entity entity) {
+        reclaim(entity, null);
+    }
+
+    /**
+     * Queues a detached entity to be cleared, together with all its descendants, performing an action on every entity of
+     * the subtree first (e.g. to remove it from an index). Children that were never loaded from a snapshot are skipped.
+     *
+     * @param entity the detached entity.
+     * @param action the action to perform on every entity of the subtree, from many threads at the same time, or null.
+     */
+    public void reclaim(Entity entity, Consumer<Entity> action) {
+        unreclaimedEntities.incrementAndGet();
+        pendingEntities.add(new PendingReclaim(entity, action));
+    }
+
+    /**
+     * Waits until every queued entity has been cleared.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public void awaitReclaimed() throws InterruptedException {
+        synchronized (reclaimed) {
+            while (unreclaimedEntities.get() > 0) {
+                reclaimed.wait();
+            }
+        }
+    }
+
+    private void reclaimEntities() {
+        while (true) {
+            PendingReclaim pending;
+            try {
+                pending = pendingEntities.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            try {
+                if (pending.action() != null) EntityTraversal.forEachParallel(pending.entity(), pending.action(), it -> it.contents);
+                pending.entity().clearSubtree();
+            } catch (RuntimeException e) {
+                log.error("Failed to reclaim {}", pending.entity().getName(), e);
+            }
+
+            if (unreclaimedEntities.decrementAndGet() == 0) {
+                synchronized (reclaimed) {
+                    reclaimed.notifyAll();
+                }
+            }
+        }
+    }
+
+    private record PendingReclaim(Entity entity, Consumer<Entity> action) {
+    }
+}
@@ -0,0 +1,242 @@
+package entities;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * EntityTraversal walks the entity tree without recursion, so that deep hierarchies cannot overflow the stack.
+ * <p>
+ * Sequential traversals visit the entities depth-first (in pre-order, with a post-order exit for Composable entities) or
+ * breadth-first, and let the visitor skip subtrees. Parallel traversals run on the common fork-join pool: every task
+ * walks its subtree iteratively, and hands the children of wide Composable entities to new tasks, so that huge Drives
+ * are processed by all the cores while narrow, deep paths do not create a task per level.
+ * <p>
+ * Entities must not be modified while they are traversed, except by the visitor on the entity it is visiting.
+ */
+public final class EntityTraversal {
+
+    /**
+     * Number of children from which a Composable entity is processed in parallel.
+     */
+    public static final int PARALLEL_THRESHOLD = 256;
+
+    private EntityTraversal() {
+    }
+
+    public enum Order {
+        DEPTH_FIRST, BREADTH_FIRST
+    }
+
+    /**
+     * Visitor of a sequential traversal.
+     */
+    public interface Visitor {
+        /**
+         * Visits an entity before its children.
+         *
+         * @param entity the entity.
+         * @param depth the depth of the entity, 0 being the root of the traversal.
+         * @return true to visit the children of the entity, or false to skip them.
+         */
+        boolean enter(Entity entity, int depth);
+
+        /**
+         * Visits a Composable entity after its children, in depth-first traversals only.
+         *
+         * @param entity the entity.
+         * @param depth the depth of the entity.
+         */
+        default void exit(Entity entity, int depth) {
+        }
+    }
+
+    /**
+     * Visits an entity and its descendants, in the given order. Children are always visited in their insertion order.
+     *
+     * @param root the root of the traversal.
+     * @param order the order of the traversal.
+     * @param visitor the visitor.
+     */
+    public static void traverse(Entity root, Order order, Visitor visitor) {
+        traverse(root, order, visitor, Entity::getContents);
+    }
+
+    /**
+     * Performs an action on an entity and all its descendants in parallel, in no particular order.
+     *
+     * @param root the root of the traversal.
+     * @param action the action, which must be safe to perform on many entities at the same time.
+     */
+    public static void forEachParallel(Entity root, Consumer<Entity> action) {
+        forEachParallel(root, action, Entity::getContents);
+    }
+
+    /**
+     * Same as forEachParallel, but without loading the children of the entities restored from a snapshot: such entities
+     * are visited, but their children are not, until they are first accessed.
+     *
+     * @param root the root of the traversal.
+     * @param action the action, which must be safe to perform on many entities at the same time.
+     */
+    public static void forEachLoadedParallel(Entity root, Consumer<Entity> action) {
+        forEachParallel(root, action, it -> it.contents);
+    }
+
+    /**
+     * Computes the size of an entity from the content of its descendant TextFiles, in parallel, instead of relying on the
+     * cached sizes of the entity and its descendants.
+     *
+     * @param root the entity.
+     * @return the size of the entity.
+     */
+    public static int computeSize(Entity root) {
+        return new SizeTask(root).invoke();
+    }
+
+    static void traverse(Entity root, Order order, Visitor visitor, Function<Entity, List<Entity>> children) {
+        if (order == Order.BREADTH_FIRST) {
+            breadthFirst(root, visitor, children);
+        } else {
+            depthFirst(root, visitor, children);
+        }
+    }
+
+    static void forEachParallel(Entity root, Consumer<Entity> action, Function<Entity, List<Entity>> children) {
+        new ForEachTask(List.of(root), action, children).invoke();
+    }
+
+    private static void depthFirst(Entity root, Visitor visitor, Function<Entity, List<Entity>> children) {
+        // Every entity is pushed twice: to be entered, and again (with a negative depth) to be exited after its children
+        Deque<Entity> pendingEntities = new ArrayDeque<>();
+        Deque<Integer> pendingDepths = new ArrayDeque<>();
+        pendingEntities.push(root);
+        pendingDepths.push(0);
+
+        while (!pendingEntities.isEmpty()) {
+            Entity entity = pendingEntities.pop();
+            int depth = pendingDepths.pop();
+            if (depth < 0) {
+                visitor.exit(entity, -depth - 1);
+                continue;
+            }
+            if (!visitor.enter(entity, depth) || entity instanceof TextFile) continue;
+
+            pendingEntities.push(entity);
+            pendingDepths.push(-depth - 1);
+            List<Entity> entityChildren = children.apply(entity);
+            for (int i = entityChildren.size() - 1; i >= 0; i--) {
+                pendingEntities.push(entityChildren.get(i));
+                pendingDepths.push(depth + 1);
+            }
+        }
+    }
+
+    private static void breadthFirst(Entity root, Visitor visitor, Function<Entity, List<Entity>> children) {
+        List<Entity> level = List.of(root);
+        for (int depth = 0; !level.isEmpty(); depth++) {
+            List<Entity> nextLevel = new ArrayList<>();
+            for (Entity entity : level) {
+                if (visitor.enter(entity, depth) && !(entity instanceof TextFile)) nextLevel.addAll(children.apply(entity));
+            }
+            level = nextLevel;
+        }
+    }
+
+    private static final class ForEachTask extends RecursiveAction {
+        private final List<Entity> roots;
+        private final Consumer<Entity> action;
+        private final Function<Entity, List<Entity>> children;
+
+        private ForEachTask(List<Entity> roots, Consumer<Entity> action, Function<Entity, List<Entity>> children) {
+            this.roots = roots;
+            this.action = action;
+            this.children = children;
+        }
+
+        @Override
+        protected void compute() {
+            List<ForEachTask> forkedTasks = new ArrayList<>();
+            Deque<Entity> pendingEntities = new ArrayDeque<>(roots);
+
+            while (!pendingEntities.isEmpty()) {
+                Entity entity = pendingEntities.pop();
+                action.accept(entity);
+                if (entity instanceof TextFile) continue;
+
+                List<Entity> entityChildren = children.apply(entity);
+                if (entityChildren.size() < PARALLEL_THRESHOLD) {
+                    entityChildren.forEach(pendingEntities::push);
+                    continue;
+                }
+                for (int start = 0; start < entityChildren.size(); start += PARALLEL_THRESHOLD) {
+                    ForEachTask task = new ForEachTask(entityChildren.subList(start, Math.min(start + PARALLEL_THRESHOLD, entityChildren.size())), action, children);
+                    task.fork();
+                    forkedTasks.add(task);
+                }
+            }
+            forkedTasks.forEach(ForkJoinTask::join);
+        }
+    }
+
+    /**
+     * Computes the size of a subtree in post-order. The children of wide Composable entities are computed by forked tasks,
+     * so tasks only nest as many times as there are wide entities on a path.
+     */
+    private static final class SizeTask extends RecursiveTask<Integer> {
+        private final Entity root;
+
+        private SizeTask(Entity root) {
+            this.root = root;
+        }
+
+        @Override
+        protected Integer compute() {
+            Deque<SizeFrame> pendingFrames = new ArrayDeque<>();
+            pendingFrames.push(new SizeFrame(root));
+
+            while (true) {
+                SizeFrame frame = pendingFrames.peek();
+                int size;
+                if (frame.entity instanceof TextFile) {
+                    size = frame.entity.getSize();
+                } else if (frame.children.size() >= PARALLEL_THRESHOLD) {
+                    size = 0;
+                    List<SizeTask> tasks = new ArrayList<>(frame.children.size());
+                    frame.children.forEach(it -> tasks.add(new SizeTask(it)));
+                    for (SizeTask task : ForkJoinTask.invokeAll(tasks)) {
+                        size += frame.entity.getChildSizeContribution(task.join());
+                    }
+                } else if (frame.nextChild < frame.children.size()) {
+                    pendingFrames.push(new SizeFrame(frame.children.get(frame.nextChild++)));
+                    continue;
+                } else {
+                    size = frame.size;
+                }
+
+                pendingFrames.pop();
+                if (pendingFrames.isEmpty()) return size;
+                SizeFrame parentFrame = pendingFrames.peek();
+                parentFrame.size += parentFrame.entity.getChildSizeContribution(size);
+            }
+        }
+    }
+
+    private static final class SizeFrame {
+        private final Entity entity;
+        private final List<Entity> children;
+        private int nextChild;
+        private int size;
+
+        private SizeFrame(Entity entity) {
+            this.entity = entity;
+            this.children = entity instanceof TextFile ? List.of() : entity.getContents();
+        }
+    }
+}
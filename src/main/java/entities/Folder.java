@@ -4,20 +4,13 @@ import lombok.NonNull;
 
 public final class Folder extends Entity implements Composable {
 
-    public Folder(@NonNull EntityType entityType, @NonNull String name, @NonNull String path) {
-        super(entityType, name, path);
-    }
-
-    @Override
-    public int getSize() {
-        return contents.stream().map(Sizeable::getSize).reduce(0, Integer::sum);
+    public Folder(@NonNull EntityType entityType, @NonNull String name) {
+        super(entityType, name);
+        contents = new IndexedEntityList(this);
     }
 
     @Override
     public void clearContents() {
-        contents.forEach(it -> {
-            if (it instanceof Composable) ((Composable) it).clearContents();
-        });
-        contents.clear();
+        clearSubtree();
     }
 }
@@ -0,0 +1,330 @@
+package entities;
+
+import exceptions.IllegalFileSystemOperationException;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * IndexedEntityList is the children container of Composable entities.
+ * It keeps the insertion order of an ExclusionEntityList (and its rule that Drives cannot be nested), and additionally
+ * maintains a hash index keyed by name and EntityType so that children can be looked up in constant time. Names are
+ * interned in the NameTable, so the index compares them by identity, and a name that no entity uses is discarded
+ * without probing the index at all.
+ * Adding or removing children links them to (or unlinks them from) the owner entity and updates the owner's size.
+ * Every mutator of ArrayList that would write the backing array directly, including those of its sub lists, goes
+ * through add, set and remove instead, so that the index, the parents and the sizes cannot get out of date.
+ */
+public class IndexedEntityList extends ExclusionEntityList<Entity> {
+
+    private final Map<ChildKey, Entity> index = new HashMap<>();
+    private final Entity owner;
+
+    public IndexedEntityList(Entity owner) {
+        super(Drive.class);
+        this.owner = owner;
+    }
+
+    /**
+     * Finds the child with the provided name and type.
+     *
+     * @param name the name of the child.
+     * @param type the type of the child.
+     * @return an Optional with the child (empty if not found).
+     */
+    public Optional<Entity> findChild(String name, EntityType type) {
+        String canonicalName = NameTable.getInstance().find(name);
+        if (canonicalName == null) return Optional.empty();
+
+        return Optional.ofNullable(index.get(new ChildKey(canonicalName, type)));
+    }
+
+    /**
+     * Finds the Composable child with the provided name, whichever its type is.
+     *
+     * @param name the name of the child.
+     * @return an Optional with the Composable child (empty if not found).
+     */
+    public Optional<Composable> findComposableChild(String name) {
+        String canonicalName = NameTable.getInstance().find(name);
+        if (canonicalName == null) return Optional.empty();
+
+        Entity child = index.get(new ChildKey(canonicalName, EntityType.FOLDER));
+        if (child == null) child = index.get(new ChildKey(canonicalName, EntityType.ZIP_FILE));
+
+        return Optional.ofNullable((Composable) child);
+    }
+
+    /**
+     * Checks if a child with the provided name and type is present.
+     *
+     * @param name the name of the child.
+     * @param type the type of the child.
+     * @return true if the child is present and false otherwise.
+     */
+    public boolean containsChild(String name, EntityType type) {
+        return findChild(name, type).isPresent();
+    }
+
+    @Override
+    public boolean add(Entity element) {
+        index(element);
+        try {
+            super.add(element);
+        } catch (RuntimeException e) {
+            index.remove(keyOf(element));
+            throw e;
+        }
+        attach(element);
+        return true;
+    }
+
+    @Override
+    public void add(int index, Entity element) {
+        index(element);
+        try {
+            super.add(index, element);
+        } catch (RuntimeException e) {
+            this.index.remove(keyOf(element));
+            throw e;
+        }
+        attach(element);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Entity> collection) {
+        collection.forEach(this::add);
+        return !collection.isEmpty();
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends Entity> collection) {
+        int position = index;
+        for (Entity element : collection) {
+            add(position++, element);
+        }
+        return !collection.isEmpty();
+    }
+
+    @Override
+    public Entity set(int index, Entity element) {
+        Entity previous = get(index);
+        this.index.remove(keyOf(previous));
+        try {
+            index(element);
+            super.set(index, element);
+        } catch (RuntimeException e) {
+            this.index.put(keyOf(previous), previous);
+            throw e;
+        }
+        detach(previous);
+        attach(element);
+        return previous;
+    }
+
+    /**
+     * Removes the provided entity, comparing by identity instead of equality.
+     * The index is used to discard absent entities without scanning the list.
+     */
+    @Override
+    public boolean remove(Object element) {
+        if (!(element instanceof Entity entity) || index.get(keyOf(entity)) != entity) return false;
+
+        for (int i = 0; i < size(); i++) {
+            if (get(i) == entity) {
+                remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Entity remove(int index) {
+        Entity removed = super.remove(index);
+        this.index.remove(keyOf(removed));
+        detach(removed);
+        return removed;
+    }
+
+    @Override
+    public Entity removeFirst() {
+        if (isEmpty()) throw new NoSuchElementException();
+        return remove(0);
+    }
+
+    @Override
+    public Entity removeLast() {
+        if (isEmpty()) throw new NoSuchElementException();
+        return remove(size() - 1);
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        for (int i = toIndex - 1; i >= fromIndex; i--) {
+            remove(i);
+        }
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<Entity> operator) {
+        for (int i = 0; i < size(); i++) {
+            set(i, operator.apply(get(i)));
+        }
+    }
+
+    /**
+     * Returns a view of a range of the children, whose mutators go through the ones of this list.
+     */
+    @Override
+    public List<Entity> subList(int fromIndex, int toIndex) {
+        Objects.checkFromToIndex(fromIndex, toIndex, size());
+        return new SubList(fromIndex, toIndex - fromIndex);
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Entity> filter) {
+        boolean removed = false;
+        for (int i = size() - 1; i >= 0; i--) {
+            if (filter.test(get(i))) {
+                remove(i);
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> collection) {
+        return removeIf(collection::contains);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> collection) {
+        return removeIf(it -> !collection.contains(it));
+    }
+
+    /**
+     * Removes all the children at once, updating the owner's size a single time.
+     */
+    @Override
+    public void clear() {
+        forEach(it -> {
+            if (it.getParent() == owner) it.setParent(null);
+        });
+        super.clear();
+        index.clear();
+        owner.updateSize(0);
+    }
+
+    /**
+     * Adds the children of an entity restored from a snapshot, whose size already accounts for them.
+     */
+    void restore(List<Entity> children) {
+        children.forEach(it -> {
+            index(it);
+            super.add(it);
+            it.setParent(owner);
+        });
+    }
+
+    private void index(Entity element) {
+        if (element == null) throw new IllegalFileSystemOperationException("Null entities are not allowed in this list.");
+        ChildKey key = keyOf(element);
+        if (index.containsKey(key)) {
+            throw new IllegalFileSystemOperationException("An entity of type " + key.type() + " named " + key.name() + " already exists in this location.");
+        }
+        index.put(key, element);
+    }
+
+    private void attach(Entity element) {
+        element.setParent(owner);
+        owner.childSizeChanged(0, element.getSize());
+    }
+
+    private void detach(Entity element) {
+        owner.childSizeChanged(element.getSize(), 0);
+        // The entity may have been attached to a new parent already (e.g. while being moved)
+        if (element.getParent() == owner) element.setParent(null);
+    }
+
+    private static ChildKey keyOf(Entity element) {
+        return new ChildKey(element.getName(), element.getEntityType());
+    }
+
+    /**
+     * A range of the children. Unlike the sub lists of ArrayList, it only writes through set, add, remove and removeRange.
+     */
+    private final class SubList extends AbstractList<Entity> {
+
+        private final int offset;
+        private int size;
+
+        private SubList(int offset, int size) {
+            this.offset = offset;
+            this.size = size;
+        }
+
+        @Override
+        public Entity get(int index) {
+            Objects.checkIndex(index, size);
+            return IndexedEntityList.this.get(offset + index);
+        }
+
+        @Override
+        public Entity set(int index, Entity element) {
+            Objects.checkIndex(index, size);
+            return IndexedEntityList.this.set(offset + index, element);
+        }
+
+        @Override
+        public void add(int index, Entity element) {
+            Objects.checkIndex(index, size + 1);
+            IndexedEntityList.this.add(offset + index, element);
+            size++;
+        }
+
+        @Override
+        public Entity remove(int index) {
+            Objects.checkIndex(index, size);
+            Entity removed = IndexedEntityList.this.remove(offset + index);
+            size--;
+            return removed;
+        }
+
+        @Override
+        protected void removeRange(int fromIndex, int toIndex) {
+            IndexedEntityList.this.removeRange(offset + fromIndex, offset + toIndex);
+            size -= toIndex - fromIndex;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Key of the index. Names are always canonical instances, so they are compared by identity.
+     */
+    private record ChildKey(String name, EntityType type) {
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ChildKey otherKey && name == otherKey.name && type == otherKey.type;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * name.hashCode() + type.hashCode();
+        }
+    }
+}
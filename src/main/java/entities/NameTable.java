@@ -0,0 +1,83 @@
+package entities;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * NameTable interns the names of the entities, so that every distinct name is stored once no matter how many entities
+ * share it, and names can be compared by identity.
+ * <p>
+ * Canonical names are only weakly referenced by the table: once no entity uses a name anymore, it is collected and its
+ * entry is purged on a later interning.
+ */
+public final class NameTable {
+
+    private static final NameTable INSTANCE = new NameTable();
+
+    private final ConcurrentHashMap<String, NameReference> names = new ConcurrentHashMap<>();
+    private final ReferenceQueue<String> collectedNames = new ReferenceQueue<>();
+
+    public static NameTable getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the canonical instance of the name, making the provided one canonical if there is none yet.
+     *
+     * @param name the name to intern.
+     * @return the canonical instance of the name.
+     */
+    public String intern(String name) {
+        purgeCollectedNames();
+
+        while (true) {
+            NameReference reference = names.get(name);
+            String canonicalName = reference == null ? null : reference.get();
+            if (canonicalName != null) return canonicalName;
+
+            // The key must not be the canonical instance itself, or the table would keep it reachable forever
+            NameReference newReference = new NameReference(new String(name), name, collectedNames);
+            boolean published = reference == null ?
+                    names.putIfAbsent(newReference.key, newReference) == null :
+                    names.replace(reference.key, reference, newReference);
+            if (published) return name;
+        }
+    }
+
+    /**
+     * Returns the canonical instance of the name without interning it.
+     *
+     * @param name the name to look for.
+     * @return the canonical instance of the name, or null if no entity uses that name.
+     */
+    public String find(String name) {
+        NameReference reference = names.get(name);
+        return reference == null ? null : reference.get();
+    }
+
+    /**
+     * Returns the number of names in the table, including the ones that have been collected but not purged yet.
+     *
+     * @return the number of names.
+     */
+    public int size() {
+        return names.size();
+    }
+
+    private void purgeCollectedNames() {
+        NameReference collected;
+        while ((collected = (NameReference) collectedNames.poll()) != null) {
+            names.remove(collected.key, collected);
+        }
+    }
+
+    private static final class NameReference extends WeakReference<String> {
+        private final String key;
+
+        private NameReference(String key, String canonicalName, ReferenceQueue<String> queue) {
+            super(canonicalName, queue);
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package entities;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * OffHeapBlockPool hands out the native memory blocks of the off-heap TextFile contents, and takes them back when the
+ * contents are truncated or released.
+ * <p>
+ * Blocks come in power of two sizes, and are sliced from large slabs of a single size each, so that neither allocating
+ * nor freeing a block opens or closes an arena: closing a shared arena makes every thread handshake, which is far too
+ * expensive once per file when a whole subtree is deleted. Freed blocks are reused by the next contents of the same
+ * size, and a slab whose blocks are all free is released (closing its arena) unless it is the only slab of its size
+ * with free blocks, which is kept to absorb the next allocations. The pool thus holds the slabs of the blocks in use,
+ * plus at most one empty slab per size.
+ * <p>
+ * The pool is safe to use from many threads.
+ */
+final class OffHeapBlockPool {
+
+    static final long MIN_BLOCK_SIZE = 128;
+    static final long MAX_BLOCK_SIZE = 512 * 1024;
+    static final long SLAB_SIZE = 1024 * 1024;
+    private static final OffHeapBlockPool INSTANCE = new OffHeapBlockPool();
+
+    private final SizeClass[] sizeClasses = new SizeClass[sizeClass(MAX_BLOCK_SIZE) + 1];
+
+    OffHeapBlockPool() {
+        for (int i = 0; i < sizeClasses.length; i++) {
+            sizeClasses[i] = new SizeClass(MIN_BLOCK_SIZE << i);
+        }
+    }
+
+    static OffHeapBlockPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns a block of at least the requested size, up to the maximum block size.
+     *
+     * @param size the requested size in bytes.
+     * @return a block whose size is a power of two.
+     */
+    MemorySegment allocate(long size) {
+        return sizeClasses[sizeClass(size)].allocate();
+    }
+
+    /**
+     * Takes back a block handed out by the pool. The block must not be used anymore.
+     *
+     * @param block the block.
+     */
+    void free(MemorySegment block) {
+        sizeClasses[sizeClass(block.byteSize())].free(block);
+    }
+
+    /**
+     * Returns the native memory held by the pool, whether its blocks are in use or not.
+     *
+     * @return the size of all the slabs of the pool, in bytes.
+     */
+    long getReservedBytes() {
+        long reservedBytes = 0;
+        for (SizeClass sizeClass : sizeClasses) {
+            reservedBytes += sizeClass.getReservedBytes();
+        }
+        return reservedBytes;
+    }
+
+    private static int sizeClass(long size) {
+        long blockSize = Math.clamp(size, MIN_BLOCK_SIZE, MAX_BLOCK_SIZE);
+        // The smallest power of two that holds the requested size, counted from the minimum block size
+        return 64 - Long.numberOfLeadingZeros(blockSize - 1) - Long.numberOfTrailingZeros(MIN_BLOCK_SIZE);
+    }
+
+    /**
+     * The slabs of a single block size. Slabs are found from the address of their blocks, and the ones with free blocks
+     * are kept apart so that allocating does not look at the full ones.
+     */
+    private static final class SizeClass {
+        private final long blockSize;
+        private final TreeMap<Long, Slab> slabsByAddress = new TreeMap<>();
+        private final Set<Slab> slabsWithFreeBlocks = new LinkedHashSet<>();
+
+        private SizeClass(long blockSize) {
+            this.blockSize = blockSize;
+        }
+
+        private synchronized MemorySegment allocate() {
+            if (slabsWithFreeBlocks.isEmpty()) {
+                Slab slab = new Slab(blockSize);
+                slabsByAddress.put(slab.memory.address(), slab);
+                slabsWithFreeBlocks.add(slab);
+            }
+
+            Slab slab = slabsWithFreeBlocks.iterator().next();
+            MemorySegment block = slab.freeBlocks.pop();
+            if (slab.freeBlocks.isEmpty()) slabsWithFreeBlocks.remove(slab);
+            return block;
+        }
+
+        private synchronized void free(MemorySegment block) {
+            Map.Entry<Long, Slab> entry = slabsByAddress.floorEntry(block.address());
+            Slab slab = entry.getValue();
+            slab.freeBlocks.push(block);
+            slabsWithFreeBlocks.add(slab);
+
+            if (slab.freeBlocks.size() == slab.blockCount && slabsWithFreeBlocks.size() > 1) {
+                slabsWithFreeBlocks.remove(slab);
+                slabsByAddress.remove(entry.getKey());
+                slab.arena.close();
+            }
+        }
+
+        private synchronized long getReservedBytes() {
+            return slabsByAddress.size() * SLAB_SIZE;
+        }
+    }
+
+    /**
+     * A slab and its free blocks. Every slab has its own arena, so that it can be released on its own: the handshake of
+     * closing it is paid once per slab, not once per block.
+     */
+    private static final class Slab {
+        private final Arena arena = Arena.ofShared();
+        private final MemorySegment memory;
+        private final Deque<MemorySegment> freeBlocks = new ArrayDeque<>();
+        private final int blockCount;
+
+        private Slab(long blockSize) {
+            memory = arena.allocate(SLAB_SIZE, Character.BYTES);
+            blockCount = (int) (SLAB_SIZE / blockSize);
+            for (long offset = SLAB_SIZE - blockSize; offset >= 0; offset -= blockSize) {
+                freeBlocks.push(memory.asSlice(offset, blockSize));
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package entities;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * OffHeapTextBuffer is an append-optimized text container that keeps its content in native memory.
+ * Appended text is copied as UTF-16 into a list of memory blocks whose capacity grows geometrically, taken from the
+ * OffHeapBlockPool. Empty files hold no block, and the blocks are given back to the pool as soon as the content is
+ * truncated or released, instead of waiting for the garbage collector.
+ * <p>
+ * The content is never cached on the heap: every call to toString materializes it again.
+ */
+public class OffHeapTextBuffer implements TextContent {
+
+    private static final ValueLayout.OfChar CHAR = ValueLayout.JAVA_CHAR_UNALIGNED;
+    private static final int MIN_BLOCK_SIZE = (int) (OffHeapBlockPool.MIN_BLOCK_SIZE / Character.BYTES);
+    private static final int MAX_BLOCK_SIZE = (int) (OffHeapBlockPool.MAX_BLOCK_SIZE / Character.BYTES);
+
+    private final OffHeapBlockPool pool = OffHeapBlockPool.getInstance();
+    private final List<MemorySegment> blocks = new ArrayList<>();
+    private int lastBlockLength;
+    private int length;
+
+    /**
+     * Appends text at the end of the buffer in amortized constant time (relative to the current buffer length).
+     *
+     * @param text the text to append.
+     */
+    @Override
+    public void append(String text) {
+        int remaining = text.length();
+        if (remaining == 0) return;
+
+        char[] chars = text.toCharArray();
+        int textOffset = 0;
+        while (remaining > 0) {
+            MemorySegment lastBlock = blocks.isEmpty() ? null : blocks.getLast();
+            if (lastBlock == null || lastBlockLength == capacity(lastBlock)) {
+                lastBlock = pool.allocate(nextBlockSize(remaining) * CHAR.byteSize());
+                blocks.add(lastBlock);
+                lastBlockLength = 0;
+            }
+
+            int copied = Math.min(remaining, capacity(lastBlock) - lastBlockLength);
+            MemorySegment.copy(chars, textOffset, lastBlock, CHAR, lastBlockLength * CHAR.byteSize(), copied);
+            lastBlockLength += copied;
+            textOffset += copied;
+            remaining -= copied;
+        }
+
+        length += text.length();
+    }
+
+    /**
+     * Discards the content beyond the given length, giving the blocks that are no longer used back to the pool.
+     *
+     * @param newLength the number of characters to keep.
+     */
+    @Override
+    public void truncate(int newLength) {
+        if (newLength < 0 || newLength > length) throw new IndexOutOfBoundsException("Cannot truncate " + length + " characters to " + newLength);
+        if (newLength == length) return;
+        if (newLength == 0) {
+            release();
+            return;
+        }
+
+        int keptLength = 0;
+        int keptBlocks = 0;
+        while (keptLength < newLength) {
+            keptLength += capacity(blocks.get(keptBlocks++));
+        }
+        List<MemorySegment> discardedBlocks = blocks.subList(keptBlocks, blocks.size());
+        discardedBlocks.forEach(pool::free);
+        discardedBlocks.clear();
+
+        lastBlockLength = capacity(blocks.getLast()) - (keptLength - newLength);
+        length = newLength;
+    }
+
+    /**
+     * Removes all the content from the buffer, giving its blocks back to the pool.
+     */
+    @Override
+    public void clear() {
+        release();
+    }
+
+    /**
+     * Removes all the content from the buffer, giving its blocks back to the pool.
+     */
+    @Override
+    public void release() {
+        blocks.forEach(pool::free);
+        blocks.clear();
+        lastBlockLength = 0;
+        length = 0;
+    }
+
+    /**
+     * Returns the number of characters in the buffer.
+     *
+     * @return the length of the content.
+     */
+    @Override
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Copies the content of the buffer into a new String.
+     *
+     * @return the whole content of the buffer.
+     */
+    @Override
+    public String toString() {
+        char[] content = new char[length];
+        int contentOffset = 0;
+        for (int i = 0; i < blocks.size(); i++) {
+            MemorySegment block = blocks.get(i);
+            int blockLength = i == blocks.size() - 1 ? lastBlockLength : capacity(block);
+            MemorySegment.copy(block, CHAR, 0, content, contentOffset, blockLength);
+            contentOffset += blockLength;
+        }
+        return new String(content);
+    }
+
+    private static int capacity(MemorySegment block) {
+        return (int) (block.byteSize() / CHAR.byteSize());
+    }
+
+    private int nextBlockSize(int required) {
+        // The pool rounds the size up to a power of two
+        int geometricSize = Math.min(MAX_BLOCK_SIZE, Math.max(MIN_BLOCK_SIZE, length));
+        return Math.max(geometricSize, Math.min(required, MAX_BLOCK_SIZE));
+    }
+}
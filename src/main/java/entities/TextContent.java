@@ -0,0 +1,49 @@
+package entities;
+
+/**
+ * TextContent is the storage of the content of a TextFile.
+ */
+public interface TextContent {
+
+    /**
+     * Appends text at the end of the content.
+     *
+     * @param text the text to append.
+     */
+    void append(String text);
+
+    /**
+     * Discards the content beyond the given length.
+     *
+     * @param newLength the number of characters to keep.
+     */
+    void truncate(int newLength);
+
+    /**
+     * Removes all the content.
+     */
+    void clear();
+
+    /**
+     * Returns the number of characters of the content.
+     *
+     * @return the length of the content.
+     */
+    int length();
+
+    /**
+     * Removes all the content and frees any memory that is not managed by the garbage collector. The content can still be
+     * used afterwards, as if it was new.
+     */
+    default void release() {
+        clear();
+    }
+
+    /**
+     * Materializes the content as a String.
+     *
+     * @return the whole content.
+     */
+    @Override
+    String toString();
+}
@@ -1,31 +1,71 @@
 package entities;
 
 import exceptions.IllegalFileSystemOperationException;
-import lombok.Getter;
 import lombok.NonNull;
-import lombok.Setter;
 
-@Getter
-@Setter
 public final class TextFile extends Entity {
-    private String content = "";
+    private final TextContent content;
 
-    public TextFile(@NonNull EntityType entityType, @NonNull String name, @NonNull String path) {
-        super(entityType, name, path);
+    public TextFile(@NonNull EntityType entityType, @NonNull String name) {
+        this(entityType, name, new ChunkedTextBuffer());
     }
 
-    @Override
-    public int getSize() {
-        return content.length();
+    public TextFile(@NonNull EntityType entityType, @NonNull String name, @NonNull TextContent content) {
+        super(entityType, name);
+        this.content = content;
+        updateSize(content.length());
     }
 
-    @Override
-    public ExclusionEntityList<Entity> getContents() {
-        throw new IllegalFileSystemOperationException("Text files are not Composable, and therefore, have no children.");
+    /**
+     * Returns the whole content of the file. The content is materialized into a String on demand.
+     *
+     * @return the content of the file.
+     */
+    public String getContent() {
+        return content.toString();
+    }
+
+    /**
+     * Replaces the content of the file, updating the size of the file and its ancestors.
+     *
+     * @param content the new content.
+     */
+    public void setContent(@NonNull String content) {
+        this.content.clear();
+        appendContent(content);
+    }
+
+    /**
+     * Appends content at the end of the file without copying the existing content, updating the size of the file and its
+     * ancestors.
+     *
+     * @param content the content to append.
+     */
+    public void appendContent(@NonNull String content) {
+        this.content.append(content);
+        updateSize(this.content.length());
+    }
+
+    /**
+     * Discards the content beyond the given length, e.g. to undo appends, updating the size of the file and its ancestors.
+     *
+     * @param length the number of characters to keep.
+     */
+    public void truncateContent(int length) {
+        content.truncate(length);
+        updateSize(content.length());
+    }
+
+    /**
+     * Removes the content of the file freeing any memory it holds outside the heap. It must be called once the file is
+     * deleted, and it does not update the size of the ancestors, which no longer contain the file.
+     */
+    public void releaseContent() {
+        content.release();
     }
 
     @Override
-    public void updateDescendantsPath(String parentPath) {
-        setPath(parentPath + "\\" + getName());
+    public IndexedEntityList getContents() {
+        throw new IllegalFileSystemOperationException("Text files are not Composable, and therefore, have no children.");
     }
 }
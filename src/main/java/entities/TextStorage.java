@@ -0,0 +1,23 @@
+package entities;
+
+/**
+ * TextStorage defines where the content of TextFiles is stored.
+ * - HEAP: in chunked character arrays in the Java heap.
+ * - OFF_HEAP: in pooled native memory blocks, which do not add to the garbage collector's work and are explicitly given
+ *   back to the pool when the TextFile is deleted.
+ */
+public enum TextStorage {
+    HEAP, OFF_HEAP;
+
+    /**
+     * Creates an empty content container for this storage.
+     *
+     * @return the new, empty content.
+     */
+    public TextContent newContent() {
+        return switch (this) {
+            case HEAP -> new ChunkedTextBuffer();
+            case OFF_HEAP -> new OffHeapTextBuffer();
+        };
+    }
+}
@@ -4,20 +4,21 @@ import lombok.NonNull;
 
 public final class ZipFile extends Entity implements Composable {
 
-    public ZipFile(@NonNull EntityType entityType, @NonNull String name, @NonNull String path) {
-        super(entityType, name, path);
+    public ZipFile(@NonNull EntityType entityType, @NonNull String name) {
+        super(entityType, name);
+        contents = new IndexedEntityList(this);
     }
 
+    /**
+     * Every child only accounts for half of its size, rounded down.
+     */
     @Override
-    public int getSize() {
-        return contents.stream().map(it -> it.getSize() / 2).reduce(0, Integer::sum);
+    protected int getChildSizeContribution(int childSize) {
+        return childSize / 2;
     }
 
     @Override
     public void clearContents() {
-        contents.forEach(it -> {
-            if (it instanceof Composable) ((Composable) it).clearContents();
-        });
-        contents.clear();
+        clearSubtree();
     }
 }
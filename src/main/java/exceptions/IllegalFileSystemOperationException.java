@@ -10,6 +10,6 @@ package exceptions;
 public final class IllegalFileSystemOperationException extends RuntimeException {
 
     public IllegalFileSystemOperationException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -0,0 +1,11 @@
+package exceptions;
+
+/**
+ * InvalidCommandException is thrown when a line of text cannot be parsed as a command.
+ */
+public final class InvalidCommandException extends RuntimeException {
+
+    public InvalidCommandException(String message) {
+        super(message, null, false, false);
+    }
+}
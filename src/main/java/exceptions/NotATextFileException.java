@@ -7,6 +7,6 @@ package exceptions;
 public final class NotATextFileException extends RuntimeException {
 
     public NotATextFileException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -6,6 +6,6 @@ package exceptions;
 public final class PathAlreadyExistsException extends RuntimeException {
 
     public PathAlreadyExistsException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -6,6 +6,6 @@ package exceptions;
 public final class PathNotFoundException extends RuntimeException {
 
     public PathNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -0,0 +1,13 @@
+package journal;
+
+/**
+ * DurabilityLevel defines when a journaled operation is acknowledged to the caller.
+ * - BUFFERED: as soon as it is queued. The journal writes and syncs it in the background, so the last operations may be
+ *   lost if the process or the machine crashes.
+ * - WRITTEN: once it is written to the journal file. It survives a crash of the process, but not of the machine.
+ * - SYNCED: once the journal file is synced to the storage device. Operations waiting at the same time share a single
+ *   sync (group commit).
+ */
+public enum DurabilityLevel {
+    BUFFERED, WRITTEN, SYNCED
+}
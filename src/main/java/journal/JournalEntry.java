@@ -0,0 +1,119 @@
+package journal;
+
+import entities.EntityType;
+import services.BatchOperation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JournalEntry is a mutation of the FileSystem recorded in the journal: a single operation, or a whole batch.
+ * Entries are replayed as batches, which apply a single operation the same way the equivalent method does.
+ *
+ * @param operations the operations, in the order they were applied.
+ * @param atomic whether the operations were applied all-or-nothing.
+ */
+public record JournalEntry(List<BatchOperation> operations, boolean atomic) {
+
+    private static final byte NULL = -1;
+    private static final byte CREATE = 0;
+    private static final byte DELETE = 1;
+    private static final byte MOVE = 2;
+    private static final byte WRITE_TO_FILE = 3;
+    private static final EntityType[] TYPES = EntityType.values();
+
+    public static JournalEntry of(BatchOperation operation) {
+        return new JournalEntry(List.of(operation), false);
+    }
+
+    /**
+     * Encodes the entry. Every field is written as is, including nulls, so that replaying it fails (or succeeds) exactly
+     * as the original operations did.
+     */
+    byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeBoolean(atomic);
+            out.writeInt(operations.size());
+            for (BatchOperation operation : operations) {
+                switch (operation) {
+                    case null -> out.writeByte(NULL);
+                    case BatchOperation.Create create -> {
+                        out.writeByte(CREATE);
+                        writeType(out, create.type());
+                        writeString(out, create.name());
+                        writeString(out, create.path());
+                    }
+                    case BatchOperation.Delete delete -> {
+                        out.writeByte(DELETE);
+                        writeType(out, delete.type());
+                        writeString(out, delete.path());
+                    }
+                    case BatchOperation.Move move -> {
+                        out.writeByte(MOVE);
+                        writeType(out, move.type());
+                        writeString(out, move.sourcePath());
+                        writeString(out, move.destinationPath());
+                    }
+                    case BatchOperation.WriteToFile writeToFile -> {
+                        out.writeByte(WRITE_TO_FILE);
+                        writeString(out, writeToFile.path());
+                        writeString(out, writeToFile.content());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // Writing to memory cannot fail
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static JournalEntry decode(DataInputStream in) throws IOException {
+        boolean atomic = in.readBoolean();
+        int operationCount = in.readInt();
+        List<BatchOperation> operations = new ArrayList<>(operationCount);
+        for (int i = 0; i < operationCount; i++) {
+            byte kind = in.readByte();
+            operations.add(switch (kind) {
+                case NULL -> null;
+                case CREATE -> new BatchOperation.Create(readType(in), readString(in), readString(in));
+                case DELETE -> new BatchOperation.Delete(readType(in), readString(in));
+                case MOVE -> new BatchOperation.Move(readType(in), readString(in), readString(in));
+                case WRITE_TO_FILE -> new BatchOperation.WriteToFile(readString(in), readString(in));
+                default -> throw new IOException("Unknown journaled operation " + kind);
+            });
+        }
+        return new JournalEntry(operations, atomic);
+    }
+
+    private static void writeType(DataOutputStream out, EntityType type) throws IOException {
+        out.writeByte(type == null ? NULL : type.ordinal());
+    }
+
+    private static EntityType readType(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        return type == NULL ? null : TYPES[type];
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        return length == NULL ? null : new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,424 @@
+package journal;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * OperationJournal is an append-only, write-ahead log of the mutations of the FileSystem, kept in a directory together
+ * with the snapshots it is compacted into.
+ * <p>
+ * The journal is split in generations: snapshot-N.img holds the state of the FileSystem before any entry of
+ * journal-N.log, so recovering means loading the latest snapshot and replaying the journals of its generation and the
+ * following ones. Every time the journal is opened a new generation is started, so a torn record at the end of a journal
+ * (e.g. after a crash) is never followed by new records in the same file.
+ * <p>
+ * Records are written by a single background thread: appending only queues the record, and the writer takes all the
+ * queued records at once, writes them with one call and syncs the file once for all of them (group commit). Callers then
+ * wait for their record according to the DurabilityLevel. Every record holds its length and a CRC32C checksum of its
+ * payload, so torn or corrupted records are detected on replay.
+ */
+public final class OperationJournal implements Closeable {
+
+    private static final String JOURNAL_PREFIX = "journal-";
+    private static final String JOURNAL_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".img";
+    private static final String PENDING_SUFFIX = ".tmp";
+    private static final int RECORD_HEADER_SIZE = Integer.BYTES * 2;
+    private static final long BACKGROUND_SYNC_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Path directory;
+    private final DurabilityLevel durabilityLevel;
+    private final Logger log = LogManager.getLogger(OperationJournal.class);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition recordsAppended = lock.newCondition();
+    private final Condition recordsPersisted = lock.newCondition();
+    private final Thread writer;
+
+    // Guarded by the lock
+    private List<ByteBuffer> pendingRecords = new ArrayList<>();
+    private long appendedSequence;
+    private long writtenSequence;
+    private long syncedSequence;
+    private boolean syncRequested;
+    private boolean closed;
+    private IOException failure;
+    private FileChannel channel;
+    private long generation;
+    private long snapshotGeneration;
+    private long generationSize;
+    private long sizeSinceSnapshot;
+
+    private OperationJournal(Path directory, DurabilityLevel durabilityLevel) {
+        this.directory = directory;
+        this.durabilityLevel = durabilityLevel;
+        this.writer = new Thread(this::writeRecords, "filesystem-journal-writer");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Opens the journal kept in a directory, creating the directory if needed, and starts a new generation.
+     *
+     * @param directory the directory of the journal.
+     * @param durabilityLevel when appended entries are acknowledged.
+     * @return the open journal.
+     * @throws IOException if the directory cannot be read or the new journal file cannot be created.
+     */
+    public static OperationJournal open(Path directory, DurabilityLevel durabilityLevel) throws IOException {
+        Files.createDirectories(directory);
+        OperationJournal journal = new OperationJournal(directory, durabilityLevel);
+
+        TreeSet<Long> snapshotGenerations = journal.listGenerations(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        TreeSet<Long> journalGenerations = journal.listGenerations(JOURNAL_PREFIX, JOURNAL_SUFFIX);
+        journal.snapshotGeneration = snapshotGenerations.isEmpty() ? 0 : snapshotGenerations.last();
+        for (long journalGeneration : journalGenerations.tailSet(journal.snapshotGeneration)) {
+            journal.sizeSinceSnapshot += Files.size(journal.journalFile(journalGeneration));
+        }
+
+        long lastGeneration = Math.max(journal.snapshotGeneration, journalGenerations.isEmpty() ? 0 : journalGenerations.last());
+        journal.generation = lastGeneration + 1;
+        journal.channel = FileChannel.open(journal.journalFile(journal.generation), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        journal.writer.start();
+        return journal;
+    }
+
+    /**
+     * Returns the latest snapshot the journal was compacted into, which must be loaded before replaying the journal.
+     *
+     * @return an Optional with the snapshot file (empty if the journal was never compacted).
+     */
+    public Optional<Path> getSnapshot() {
+        lock.lock();
+        try {
+            return snapshotGeneration == 0 ? Optional.empty() : Optional.of(snapshotFile(snapshotGeneration));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads the entries journaled since the latest snapshot, in the order they were appended. Reading a journal stops at
+     * its first torn or corrupted record, as nothing after it was acknowledged as written.
+     *
+     * @param entries the consumer of the entries.
+     * @return the number of entries read.
+     * @throws IOException if a journal cannot be read.
+     */
+    public int replay(Consumer<JournalEntry> entries) throws IOException {
+        long firstGeneration;
+        long lastGeneration;
+        lock.lock();
+        try {
+            firstGeneration = snapshotGeneration;
+            lastGeneration = generation;
+        } finally {
+            lock.unlock();
+        }
+
+        int replayed = 0;
+        for (long journalGeneration : listGenerations(JOURNAL_PREFIX, JOURNAL_SUFFIX).subSet(firstGeneration, lastGeneration)) {
+            replayed += replay(journalFile(journalGeneration), entries);
+        }
+        return replayed;
+    }
+
+    /**
+     * Queues an entry to be written. The entry is not durable until awaitDurable returns for the returned sequence.
+     *
+     * @param entry the entry to append.
+     * @return the sequence of the entry.
+     */
+    public long append(JournalEntry entry) {
+        byte[] payload = entry.encode();
+        CRC32C checksum = new CRC32C();
+        checksum.update(payload);
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length);
+        record.putInt(payload.length).putInt((int) checksum.getValue()).put(payload).flip();
+
+        lock.lock();
+        try {
+            checkUsable();
+            pendingRecords.add(record);
+            recordsAppended.signal();
+            return ++appendedSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the entry with the given sequence is as durable as the DurabilityLevel of the journal requires.
+     *
+     * @param sequence the sequence of the entry.
+     */
+    public void awaitDurable(long sequence) {
+        if (durabilityLevel == DurabilityLevel.BUFFERED) return;
+
+        lock.lock();
+        try {
+            while ((durabilityLevel == DurabilityLevel.SYNCED ? syncedSequence : writtenSequence) < sequence) {
+                if (failure != null) throw new UncheckedIOException("The journal could not be written.", failure);
+                recordsPersisted.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of bytes journaled since the latest snapshot, i.e. how much would be replayed on recovery.
+     *
+     * @return the size of the journal since the latest snapshot.
+     */
+    public long getSizeSinceSnapshot() {
+        lock.lock();
+        try {
+            return sizeSinceSnapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts a new generation, once every queued entry is written and synced. The state of the FileSystem at this point
+     * must be saved to getPendingSnapshot(generation) and then committed, without applying any operation in between.
+     *
+     * @return the new generation.
+     * @throws IOException if the new journal file cannot be created.
+     */
+    public long rotate() throws IOException {
+        lock.lock();
+        try {
+            syncRequested = true;
+            recordsAppended.signal();
+            while (syncedSequence < appendedSequence) {
+                checkUsable();
+                recordsPersisted.awaitUninterruptibly();
+            }
+            checkUsable();
+
+            channel.close();
+            generation++;
+            channel = FileChannel.open(journalFile(generation), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            generationSize = 0;
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the file the snapshot of a generation must be saved to before it is committed.
+     *
+     * @param generation the generation returned by rotate.
+     * @return the pending snapshot file.
+     */
+    public Path getPendingSnapshot(long generation) {
+        return directory.resolve(SNAPSHOT_PREFIX + generation + SNAPSHOT_SUFFIX + PENDING_SUFFIX);
+    }
+
+    /**
+     * Makes the pending snapshot of a generation the latest snapshot, and deletes the snapshots and journals it replaces.
+     *
+     * @param generation the generation returned by rotate.
+     * @throws IOException if the snapshot cannot be committed.
+     */
+    public void commitSnapshot(long generation) throws IOException {
+        try (FileChannel snapshot = FileChannel.open(getPendingSnapshot(generation), StandardOpenOption.WRITE)) {
+            snapshot.force(true);
+        }
+        Files.move(getPendingSnapshot(generation), snapshotFile(generation), StandardCopyOption.ATOMIC_MOVE);
+
+        lock.lock();
+        try {
+            snapshotGeneration = generation;
+            sizeSinceSnapshot = generationSize;
+        } finally {
+            lock.unlock();
+        }
+
+        for (long replacedGeneration : listGenerations(JOURNAL_PREFIX, JOURNAL_SUFFIX).headSet(generation)) {
+            Files.deleteIfExists(journalFile(replacedGeneration));
+        }
+        for (long replacedGeneration : listGenerations(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX).headSet(generation)) {
+            Files.deleteIfExists(snapshotFile(replacedGeneration));
+        }
+    }
+
+    /**
+     * Writes and syncs every queued entry, and closes the journal file.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            recordsAppended.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while closing the journal.");
+        } finally {
+            channel.close();
+        }
+        if (failure != null) throw failure;
+    }
+
+    /**
+     * Body of the writer thread: takes all the queued records, writes them at once and, if needed, syncs them with a
+     * single call. Written records that do not need to be synced right away are synced after a short interval.
+     */
+    private void writeRecords() {
+        while (true) {
+            List<ByteBuffer> records;
+            long sequence;
+            FileChannel target;
+            boolean sync;
+
+            lock.lock();
+            try {
+                while (pendingRecords.isEmpty() && !closed && !(syncRequested && syncedSequence < writtenSequence)) {
+                    if (syncedSequence == writtenSequence) {
+                        recordsAppended.await();
+                    } else if (recordsAppended.awaitNanos(BACKGROUND_SYNC_INTERVAL_NANOS) <= 0) {
+                        syncRequested = true;
+                    }
+                }
+                if (closed && pendingRecords.isEmpty() && syncedSequence == writtenSequence) return;
+
+                records = pendingRecords;
+                pendingRecords = new ArrayList<>();
+                sequence = appendedSequence;
+                target = channel;
+                sync = durabilityLevel == DurabilityLevel.SYNCED || syncRequested || closed;
+                syncRequested = false;
+            } catch (InterruptedException e) {
+                fail(new InterruptedIOException("The journal writer was interrupted."));
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            long writtenBytes = 0;
+            try {
+                ByteBuffer[] buffers = records.toArray(ByteBuffer[]::new);
+                for (ByteBuffer buffer : buffers) writtenBytes += buffer.remaining();
+                while (buffers.length > 0 && buffers[buffers.length - 1].hasRemaining()) {
+                    target.write(buffers);
+                }
+                if (sync) target.force(false);
+            } catch (IOException e) {
+                log.error("Failed to write the journal", e);
+                fail(e);
+                return;
+            }
+
+            lock.lock();
+            try {
+                writtenSequence = sequence;
+                if (sync) syncedSequence = sequence;
+                generationSize += writtenBytes;
+                sizeSinceSnapshot += writtenBytes;
+                recordsPersisted.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private int replay(Path journalFile, Consumer<JournalEntry> entries) throws IOException {
+        int replayed = 0;
+        try (BufferedInputStream in = new BufferedInputStream(Files.newInputStream(journalFile))) {
+            byte[] header = new byte[RECORD_HEADER_SIZE];
+            while (true) {
+                int headerLength = in.readNBytes(header, 0, RECORD_HEADER_SIZE);
+                if (headerLength == 0) return replayed;
+
+                ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+                int length = headerBuffer.getInt();
+                int expectedChecksum = headerBuffer.getInt();
+                byte[] payload = headerLength < RECORD_HEADER_SIZE || length < 0 ? null : in.readNBytes(length);
+                if (payload == null || payload.length < length) {
+                    log.warn("Ignoring the torn record at the end of {}", journalFile);
+                    return replayed;
+                }
+
+                CRC32C checksum = new CRC32C();
+                checksum.update(payload);
+                if ((int) checksum.getValue() != expectedChecksum) {
+                    log.warn("Ignoring the corrupted record of {} and everything after it", journalFile);
+                    return replayed;
+                }
+
+                entries.accept(JournalEntry.decode(new DataInputStream(new ByteArrayInputStream(payload))));
+                replayed++;
+            }
+        }
+    }
+
+    private void fail(IOException e) {
+        lock.lock();
+        try {
+            failure = e;
+            recordsPersisted.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkUsable() {
+        if (failure != null) throw new UncheckedIOException("The journal could not be written.", failure);
+        if (closed) throw new IllegalStateException("The journal is closed.");
+    }
+
+    private TreeSet<Long> listGenerations(String prefix, String suffix) throws IOException {
+        TreeSet<Long> generations = new TreeSet<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(it -> it.getFileName().toString())
+                    .filter(it -> it.startsWith(prefix) && it.endsWith(suffix))
+                    .map(it -> it.substring(prefix.length(), it.length() - suffix.length()))
+                    .filter(it -> !it.isEmpty() && it.chars().allMatch(Character::isDigit))
+                    .forEach(it -> generations.add(Long.parseLong(it)));
+        }
+        return generations;
+    }
+
+    private Path journalFile(long generation) {
+        return directory.resolve(JOURNAL_PREFIX + generation + JOURNAL_SUFFIX);
+    }
+
+    private Path snapshotFile(long generation) {
+        return directory.resolve(SNAPSHOT_PREFIX + generation + SNAPSHOT_SUFFIX);
+    }
+}
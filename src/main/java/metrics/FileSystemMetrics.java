@@ -0,0 +1,98 @@
+package metrics;
+
+import services.FileSystemManagementService;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * FileSystemMetrics holds the metrics of every operation of a FileSystemManagementService and of the path walks its
+ * storage does, and exposes them through snapshots and JMX MBeans under the "filesystem" domain:
+ * <pre>
+ * filesystem:type=Operation,name=&lt;operation&gt;   one per Operation, see OperationMetricsMXBean
+ * filesystem:type=PathWalks                    see PathWalkMetricsMXBean
+ * filesystem:type=TreeShape                    see TreeShapeProbeMXBean
+ * </pre>
+ */
+public final class FileSystemMetrics {
+
+    public static final String JMX_DOMAIN = "filesystem";
+
+    private final Map<Operation, OperationMetrics> operations = new EnumMap<>(Operation.class);
+    private final PathWalkMetrics pathWalks;
+
+    /**
+     * @param pathWalks the metrics the storage records its path walks into.
+     */
+    public FileSystemMetrics(PathWalkMetrics pathWalks) {
+        this.pathWalks = pathWalks;
+        for (Operation operation : Operation.values()) {
+            operations.put(operation, new OperationMetrics());
+        }
+    }
+
+    public OperationMetrics get(Operation operation) {
+        return operations.get(operation);
+    }
+
+    public PathWalkMetrics getPathWalks() {
+        return pathWalks;
+    }
+
+    /**
+     * Takes a snapshot of all the metrics.
+     *
+     * @return the snapshot.
+     */
+    public Snapshot snapshot() {
+        Map<Operation, OperationMetrics.Snapshot> operationSnapshots = new EnumMap<>(Operation.class);
+        operations.forEach((operation, metrics) -> operationSnapshots.put(operation, metrics.snapshot()));
+        return new Snapshot(Collections.unmodifiableMap(operationSnapshots), pathWalks.snapshot());
+    }
+
+    /**
+     * Registers the MBeans of the metrics, and the one measuring the shape of the FileSystem.
+     *
+     * @param server the MBean server.
+     * @param fileSystemManagementService the service whose shape is measured.
+     * @throws JMException if any MBean cannot be registered, e.g. because it already is.
+     */
+    public void registerMBeans(MBeanServer server, FileSystemManagementService fileSystemManagementService) throws JMException {
+        for (Map.Entry<Operation, OperationMetrics> entry : operations.entrySet()) {
+            server.registerMBean(entry.getValue(), operationObjectName(entry.getKey()));
+        }
+        server.registerMBean(pathWalks, new ObjectName(JMX_DOMAIN, "type", "PathWalks"));
+        server.registerMBean(new TreeShapeProbe(fileSystemManagementService), new ObjectName(JMX_DOMAIN, "type", "TreeShape"));
+    }
+
+    /**
+     * Unregisters the MBeans registered by registerMBeans.
+     *
+     * @param server the MBean server.
+     * @throws JMException if any MBean cannot be unregistered, e.g. because it is not registered.
+     */
+    public void unregisterMBeans(MBeanServer server) throws JMException {
+        for (Operation operation : operations.keySet()) {
+            server.unregisterMBean(operationObjectName(operation));
+        }
+        server.unregisterMBean(new ObjectName(JMX_DOMAIN, "type", "PathWalks"));
+        server.unregisterMBean(new ObjectName(JMX_DOMAIN, "type", "TreeShape"));
+    }
+
+    private static ObjectName operationObjectName(Operation operation) throws JMException {
+        return new ObjectName(JMX_DOMAIN + ":type=Operation,name=" + operation.name());
+    }
+
+    /**
+     * The metrics of a FileSystem up to some point.
+     *
+     * @param operations the metrics of every operation.
+     * @param pathWalkLengths how many path elements every path walk went through.
+     */
+    public record Snapshot(Map<Operation, OperationMetrics.Snapshot> operations, Histogram.Snapshot pathWalkLengths) {
+    }
+}
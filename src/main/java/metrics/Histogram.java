@@ -0,0 +1,123 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram counts non-negative values (e.g. latencies in nanoseconds) in log-linear buckets, the way HdrHistogram
+ * does: values below 2^SUB_BUCKET_BITS get a bucket each, and every higher power of two range is split into
+ * 2^SUB_BUCKET_BITS equal buckets, so any recorded value is reported with a relative error below 1 / 2^SUB_BUCKET_BITS
+ * (about 3%) whatever its magnitude.
+ * <p>
+ * Recording is lock-free and does not allocate, so it can be done on every operation. Snapshots are not atomic: values
+ * recorded while a snapshot is taken may be partially reflected in it.
+ */
+public final class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Records a value. Negative values are recorded as 0.
+     *
+     * @param value the value.
+     */
+    public void record(long value) {
+        long recordedValue = Math.max(value, 0);
+
+        counts.incrementAndGet(bucketIndex(recordedValue));
+        sum.add(recordedValue);
+        if (recordedValue < min.get()) min.accumulateAndGet(recordedValue, Math::min);
+        if (recordedValue > max.get()) max.accumulateAndGet(recordedValue, Math::max);
+    }
+
+    /**
+     * Takes a snapshot of the recorded values.
+     *
+     * @return the snapshot.
+     */
+    public Snapshot snapshot() {
+        long[] bucketCounts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            bucketCounts[i] = counts.get(i);
+            total += bucketCounts[i];
+        }
+        if (total == 0) return Snapshot.EMPTY;
+
+        // A value being recorded may already be counted in its bucket, but not in the extremes yet
+        long recordedMax = max.get();
+        long maxValue = recordedMax < 0 ? highestValueInBucket(highestBucket(bucketCounts)) : recordedMax;
+        return new Snapshot(
+                total,
+                Math.min(min.get(), maxValue),
+                maxValue,
+                (double) sum.sum() / total,
+                valueAtPercentile(bucketCounts, total, 50, maxValue),
+                valueAtPercentile(bucketCounts, total, 90, maxValue),
+                valueAtPercentile(bucketCounts, total, 99, maxValue),
+                valueAtPercentile(bucketCounts, total, 99.9, maxValue));
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) return (int) value;
+
+        // The value is in [2^exponent, 2^(exponent + 1)), which is split into SUB_BUCKET_COUNT buckets
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * Returns the highest value that falls in the bucket, which is the one reported for all the values in it.
+     */
+    static long highestValueInBucket(int index) {
+        if (index < SUB_BUCKET_COUNT) return index;
+
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long subBucket = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    private static int highestBucket(long[] bucketCounts) {
+        int index = bucketCounts.length - 1;
+        while (bucketCounts[index] == 0) index--;
+        return index;
+    }
+
+    private static long valueAtPercentile(long[] bucketCounts, long total, double percentile, long maxValue) {
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+
+        long seen = 0;
+        for (int i = 0; i < bucketCounts.length; i++) {
+            seen += bucketCounts[i];
+            if (seen >= rank) return Math.min(highestValueInBucket(i), maxValue);
+        }
+        return maxValue;
+    }
+
+    /**
+     * The values recorded by a Histogram up to some point.
+     *
+     * @param count how many values were recorded.
+     * @param min the lowest recorded value, or 0 if none was.
+     * @param max the highest recorded value, or 0 if none was.
+     * @param mean the mean of the recorded values, or 0 if none was.
+     * @param p50 the median.
+     * @param p90 the 90th percentile.
+     * @param p99 the 99th percentile.
+     * @param p999 the 99.9th percentile.
+     */
+    public record Snapshot(long count, long min, long max, double mean, long p50, long p90, long p99, long p999) {
+
+        static final Snapshot EMPTY = new Snapshot(0, 0, 0, 0, 0, 0, 0, 0);
+    }
+}
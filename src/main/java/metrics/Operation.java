@@ -0,0 +1,8 @@
+package metrics;
+
+/**
+ * Operation names the operations of FileSystemManagementService that are measured.
+ */
+public enum Operation {
+    CREATE, DELETE, MOVE, WRITE_TO_FILE, GET_ENTITY_SIZE, LIST, WALK, FIND, EXECUTE_BATCH, SAVE_SNAPSHOT, LOAD_SNAPSHOT
+}
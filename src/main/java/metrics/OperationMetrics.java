@@ -0,0 +1,98 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * OperationMetrics counts the calls to one operation, and how many of them were rejected (reported as a rejected
+ * OperationResult) or failed (threw), and records the latency of all of them.
+ */
+public final class OperationMetrics implements OperationMetricsMXBean {
+
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final Histogram latencies = new Histogram();
+
+    /**
+     * Records a call that completed, applied or not.
+     *
+     * @param latencyNanos how long the call took.
+     * @param rejected whether the operation was rejected.
+     */
+    public void recordCompleted(long latencyNanos, boolean rejected) {
+        if (rejected) rejections.increment();
+        latencies.record(latencyNanos);
+    }
+
+    /**
+     * Records a call that threw.
+     *
+     * @param latencyNanos how long the call took.
+     */
+    public void recordFailed(long latencyNanos) {
+        failures.increment();
+        latencies.record(latencyNanos);
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(rejections.sum(), failures.sum(), latencies.snapshot());
+    }
+
+    @Override
+    public long getCount() {
+        return latencies.snapshot().count();
+    }
+
+    @Override
+    public long getRejectionCount() {
+        return rejections.sum();
+    }
+
+    @Override
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    @Override
+    public double getLatencyMean() {
+        return latencies.snapshot().mean();
+    }
+
+    @Override
+    public long getLatencyP50() {
+        return latencies.snapshot().p50();
+    }
+
+    @Override
+    public long getLatencyP90() {
+        return latencies.snapshot().p90();
+    }
+
+    @Override
+    public long getLatencyP99() {
+        return latencies.snapshot().p99();
+    }
+
+    @Override
+    public long getLatencyP999() {
+        return latencies.snapshot().p999();
+    }
+
+    @Override
+    public long getLatencyMax() {
+        return latencies.snapshot().max();
+    }
+
+    /**
+     * The metrics of an operation up to some point.
+     *
+     * @param rejections how many calls were rejected.
+     * @param failures how many calls threw.
+     * @param latencyNanos the latencies of all the calls, whose count is the number of calls.
+     */
+    public record Snapshot(long rejections, long failures, Histogram.Snapshot latencyNanos) {
+
+        public long count() {
+            return latencyNanos.count();
+        }
+    }
+}
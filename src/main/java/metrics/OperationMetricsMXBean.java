@@ -0,0 +1,25 @@
+package metrics;
+
+/**
+ * OperationMetricsMXBean exposes the metrics of one operation through JMX. Latencies are in nanoseconds.
+ */
+public interface OperationMetricsMXBean {
+
+    long getCount();
+
+    long getRejectionCount();
+
+    long getFailureCount();
+
+    double getLatencyMean();
+
+    long getLatencyP50();
+
+    long getLatencyP90();
+
+    long getLatencyP99();
+
+    long getLatencyP999();
+
+    long getLatencyMax();
+}
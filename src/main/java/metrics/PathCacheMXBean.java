@@ -0,0 +1,21 @@
+package metrics;
+
+/**
+ * PathCacheMXBean exposes the statistics of the cache of resolved paths through JMX.
+ */
+public interface PathCacheMXBean {
+
+    int getCapacity();
+
+    int getSize();
+
+    long getHitCount();
+
+    long getMissCount();
+
+    long getEvictionCount();
+
+    long getInvalidationCount();
+
+    double getHitRatio();
+}
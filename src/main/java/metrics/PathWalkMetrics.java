@@ -0,0 +1,44 @@
+package metrics;
+
+/**
+ * PathWalkMetrics records the walks down the hierarchy done to resolve paths, both to validate and to apply the
+ * operations, and the length of every walked path, which is the depth the operations work at.
+ * Lookups that are served without walking (e.g. parents already resolved by a batch) are not recorded.
+ */
+public final class PathWalkMetrics implements PathWalkMetricsMXBean {
+
+    private final Histogram lengths = new Histogram();
+
+    /**
+     * Records a walk.
+     *
+     * @param length the number of elements of the walked path.
+     */
+    public void record(int length) {
+        lengths.record(length);
+    }
+
+    public Histogram.Snapshot snapshot() {
+        return lengths.snapshot();
+    }
+
+    @Override
+    public long getWalkCount() {
+        return lengths.snapshot().count();
+    }
+
+    @Override
+    public double getLengthMean() {
+        return lengths.snapshot().mean();
+    }
+
+    @Override
+    public long getLengthP99() {
+        return lengths.snapshot().p99();
+    }
+
+    @Override
+    public long getLengthMax() {
+        return lengths.snapshot().max();
+    }
+}
@@ -0,0 +1,15 @@
+package metrics;
+
+/**
+ * PathWalkMetricsMXBean exposes the metrics of the path walks through JMX. Lengths are in path elements.
+ */
+public interface PathWalkMetricsMXBean {
+
+    long getWalkCount();
+
+    double getLengthMean();
+
+    long getLengthP99();
+
+    long getLengthMax();
+}
@@ -0,0 +1,71 @@
+package metrics;
+
+import entities.EntityType;
+import services.EntityInfo;
+import services.FileSystemManagementService;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * TreeShape describes the shape of a subtree: how deep its entities are and how many children its Composable entities
+ * have. It is measured on demand by walking the subtree, so keeping it up to date costs nothing to the operations.
+ *
+ * @param entityDepths the depth of every entity, relative to the root of the subtree (depth 0).
+ * @param fanOuts the number of children of every Composable entity, including the root.
+ */
+public record TreeShape(Histogram.Snapshot entityDepths, Histogram.Snapshot fanOuts) {
+
+    /**
+     * Walks the whole subtree of a Composable entity to measure its shape.
+     *
+     * @param fileSystemManagementService the service holding the subtree.
+     * @param path the path to the Composable entity.
+     * @return the shape of the subtree.
+     */
+    public static TreeShape measure(FileSystemManagementService fileSystemManagementService, String path) {
+        try (Stream<EntityInfo> subtree = fileSystemManagementService.walk(path, Integer.MAX_VALUE, it -> true)) {
+            return measure(subtree.iterator());
+        }
+    }
+
+    /**
+     * Measures the shape of a subtree walked depth-first in pre-order, as FileSystemManagementService.walk does.
+     */
+    static TreeShape measure(Iterator<EntityInfo> subtree) {
+        Histogram entityDepths = new Histogram();
+        Histogram fanOuts = new Histogram();
+        // Depth and number of children seen so far of the Composable entities the walk is in
+        Deque<int[]> openComposables = new ArrayDeque<>();
+        int rootDepth = -1;
+
+        while (subtree.hasNext()) {
+            EntityInfo entity = subtree.next();
+            int depth = separatorCount(entity.path());
+            if (rootDepth < 0) rootDepth = depth;
+
+            while (!openComposables.isEmpty() && openComposables.peek()[0] >= depth) {
+                fanOuts.record(openComposables.pop()[1]);
+            }
+            if (!openComposables.isEmpty()) openComposables.peek()[1]++;
+
+            entityDepths.record(depth - rootDepth);
+            if (entity.type() != EntityType.TEXT_FILE) openComposables.push(new int[]{depth, 0});
+        }
+        while (!openComposables.isEmpty()) {
+            fanOuts.record(openComposables.pop()[1]);
+        }
+
+        return new TreeShape(entityDepths.snapshot(), fanOuts.snapshot());
+    }
+
+    private static int separatorCount(String path) {
+        int count = 0;
+        for (int i = 0; i < path.length(); i++) {
+            if (path.charAt(i) == '\\') count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,24 @@
+package metrics;
+
+import lombok.RequiredArgsConstructor;
+import services.FileSystemManagementService;
+
+/**
+ * TreeShapeProbe measures the shape of the FileSystem on behalf of JMX clients.
+ */
+@RequiredArgsConstructor
+public final class TreeShapeProbe implements TreeShapeProbeMXBean {
+
+    private final FileSystemManagementService fileSystemManagementService;
+
+    @Override
+    public String measureTreeShape(String path) {
+        TreeShape shape = TreeShape.measure(fileSystemManagementService, path);
+        return "depths " + format(shape.entityDepths()) + System.lineSeparator() + "fan-outs " + format(shape.fanOuts());
+    }
+
+    private static String format(Histogram.Snapshot snapshot) {
+        return String.format("count=%d min=%d mean=%.2f p50=%d p90=%d p99=%d p999=%d max=%d",
+                snapshot.count(), snapshot.min(), snapshot.mean(), snapshot.p50(), snapshot.p90(), snapshot.p99(), snapshot.p999(), snapshot.max());
+    }
+}
@@ -0,0 +1,15 @@
+package metrics;
+
+/**
+ * TreeShapeProbeMXBean exposes, through JMX, the shape of the FileSystem, which is measured on demand.
+ */
+public interface TreeShapeProbeMXBean {
+
+    /**
+     * Walks the whole subtree of a Composable entity to measure its shape.
+     *
+     * @param path the path to the Composable entity.
+     * @return the shape of the subtree, as text.
+     */
+    String measureTreeShape(String path);
+}
@@ -1,19 +1,29 @@
 package orchestrators;
 
-import entities.Entity;
+import commands.ScriptRunner;
+import entities.DriveRegistry;
 import entities.EntityType;
+import server.FileSystemServer;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
  * This class is responsible for orchestrating the application's workflow and dispatching the request down to the service.
  */
 public class ApplicationOrchestrator {
-    private static final List<Entity> DRIVES = new ArrayList<>();
+    private static final DriveRegistry DRIVES = new DriveRegistry();
+    private static final int SCRIPT_BUFFER_SIZE = 1 << 16;
     private static ApplicationOrchestrator instance;
     private final DependencyOrchestrator dependencyOrchestrator;
     private BufferedReader reader;
@@ -41,6 +51,44 @@ public class ApplicationOrchestrator {
         reader.close();
     }
 
+    /**
+     * Runs a script of commands instead of the interactive menu, writing their responses to the standard output, and a
+     * summary to the standard error once the script ends.
+     *
+     * @param script the path of the script file, or - to read the script from the standard input.
+     */
+    public void runScript(String script) throws IOException {
+        long start = System.nanoTime();
+        ScriptRunner.Summary summary;
+
+        // The standard output is wrapped without autoflush, so responses are only written when the buffer fills up
+        try (BufferedReader scriptReader = "-".equals(script) ?
+                new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), SCRIPT_BUFFER_SIZE) :
+                Files.newBufferedReader(Path.of(script), StandardCharsets.UTF_8)) {
+            Writer output = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), StandardCharsets.UTF_8), SCRIPT_BUFFER_SIZE);
+            summary = dependencyOrchestrator.getScriptRunner().run(scriptReader, output);
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        System.err.println("Ran " + summary.lines() + " lines in " + elapsedMillis + " ms, " + summary.failures() + " commands failed.");
+    }
+
+    /**
+     * Serves the FileSystem over the network instead of the interactive menu, until the process is stopped.
+     * The address is read from the server host (localhost by default) and port system properties.
+     */
+    public void serve() throws IOException {
+        String host = System.getProperty(DependencyOrchestrator.SERVER_HOST_PROPERTY, "localhost");
+        int port = Integer.getInteger(DependencyOrchestrator.SERVER_PORT_PROPERTY, 0);
+
+        try (FileSystemServer server = FileSystemServer.start(new InetSocketAddress(host, port), dependencyOrchestrator.getServerCommandExecutor())) {
+            System.out.println("Serving the file system on " + server.getAddress());
+            server.awaitTermination();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     private void printMainMenu() {
         System.out.println();
         System.out.println("In-Memory file system");
@@ -51,6 +99,8 @@ public class ApplicationOrchestrator {
         System.out.println("(3) Move an entity to a different (existent) location");
         System.out.println("(4) Get entity size");
         System.out.println("(5) Delete an existent entity");
+        System.out.println("(6) Save the file system to a snapshot file");
+        System.out.println("(7) Load the file system from a snapshot file");
         System.out.println("(0) Exit");
         System.out.println();
     }
@@ -67,7 +117,7 @@ public class ApplicationOrchestrator {
         try {
             selectedOption = Integer.parseInt(input);
         } catch (NumberFormatException e) {
-            System.out.println("Only numbers between 1 and 5 are valid inputs.");
+            System.out.println("Only numbers between 1 and 7 are valid inputs.");
             return;
         }
 
@@ -77,6 +127,8 @@ public class ApplicationOrchestrator {
             case 3 -> processEntityMove();
             case 4 -> processEntitySize();
             case 5 -> processEntityDeletion();
+            case 6 -> processSnapshotSave();
+            case 7 -> processSnapshotLoad();
         }
     }
 
@@ -177,4 +229,28 @@ public class ApplicationOrchestrator {
             System.out.println(e.getMessage());
         }
     }
+
+    private void processSnapshotSave() throws IOException {
+        System.out.println("Please enter the path of the snapshot file to write: ");
+        String file = reader.readLine();
+        printStatementsSeparator();
+        try {
+            dependencyOrchestrator.getFileSystemManagementService().saveSnapshot(Path.of(file));
+            System.out.println("Saved the file system to " + file);
+        } catch (Exception e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    private void processSnapshotLoad() throws IOException {
+        System.out.println("Please enter the path of the snapshot file to read: ");
+        String file = reader.readLine();
+        printStatementsSeparator();
+        try {
+            dependencyOrchestrator.getFileSystemManagementService().loadSnapshot(Path.of(file));
+            System.out.println("Loaded the file system from " + file);
+        } catch (Exception e) {
+            System.out.println(e.getMessage());
+        }
+    }
 }
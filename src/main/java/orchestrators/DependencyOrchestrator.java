@@ -1,17 +1,40 @@
 package orchestrators;
 
+import commands.CommandExecutor;
+import commands.CommandParser;
+import commands.ScriptRunner;
 import entities.Drive;
-import entities.Entity;
+import entities.DriveRegistry;
 import entities.EntityFactory;
+import entities.TextStorage;
+import journal.DurabilityLevel;
+import journal.OperationJournal;
 import lombok.Getter;
+import metrics.FileSystemMetrics;
+import metrics.PathWalkMetrics;
+import services.CompactFileSystemManagementService;
+import services.ConcurrentFileSystemManagementService;
 import services.DefaultFileSystemManagementService;
 import services.FileSystemManagementService;
+import services.InstrumentedFileSystemManagementService;
+import services.JournalingFileSystemManagementService;
+import services.OperationLogLevel;
+import services.PersistentFileSystemManagementService;
+import services.StorageMode;
 import utils.NavigationUtils;
+import utils.PathCache;
 import utils.PathUtils;
 import validators.ConstraintsValidator;
 import validators.DefaultConstraintsValidator;
 
-import java.util.List;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
 
 /**
  * This class is responsible for building the objects and injecting the dependencies in them.
@@ -19,29 +42,125 @@ import java.util.List;
  */
 @Getter
 public class DependencyOrchestrator {
+    public static final String OPERATION_LOG_LEVEL_PROPERTY = "filesystem.operationLogLevel";
+    public static final String STORAGE_MODE_PROPERTY = "filesystem.storageMode";
+    public static final String TEXT_STORAGE_PROPERTY = "filesystem.textStorage";
+    public static final String JOURNAL_DIRECTORY_PROPERTY = "filesystem.journal.directory";
+    public static final String JOURNAL_DURABILITY_PROPERTY = "filesystem.journal.durability";
+    public static final String JOURNAL_COMPACTION_THRESHOLD_PROPERTY = "filesystem.journal.compactionThreshold";
+    public static final String SERVER_HOST_PROPERTY = "filesystem.server.host";
+    public static final String SERVER_PORT_PROPERTY = "filesystem.server.port";
+    public static final String SERVER_SNAPSHOT_DIRECTORY_PROPERTY = "filesystem.server.snapshotDirectory";
+    public static final String SCRIPT_PROPERTY = "filesystem.script";
+    public static final String METRICS_ENABLED_PROPERTY = "filesystem.metrics.enabled";
+    public static final String PATH_CACHE_CAPACITY_PROPERTY = "filesystem.pathCache.capacity";
     private static DependencyOrchestrator instance;
-    private final List<Entity> drives;
+    private final DriveRegistry drives;
     private FileSystemManagementService fileSystemManagementService;
+    private FileSystemMetrics fileSystemMetrics;
     private ConstraintsValidator constraintsValidator;
     private NavigationUtils navigationUtils;
     private PathUtils pathUtils;
     private EntityFactory entityFactory;
+    private CommandParser commandParser;
+    private CommandExecutor commandExecutor;
+    private CommandExecutor serverCommandExecutor;
+    private ScriptRunner scriptRunner;
 
-    public static DependencyOrchestrator getInstance(List<Entity> drives) {
+    public static DependencyOrchestrator getInstance(DriveRegistry drives) {
         if (instance == null) instance = new DependencyOrchestrator(drives);
         return instance;
     }
 
-    private DependencyOrchestrator(List<Entity> drives) {
+    private DependencyOrchestrator(DriveRegistry drives) {
         this.drives = drives;
         injectDependencies();
     }
 
     private void injectDependencies() {
         pathUtils = new PathUtils();
-        navigationUtils = new NavigationUtils();
-        entityFactory = new EntityFactory();
+        navigationUtils = new NavigationUtils(new PathCache(Integer.getInteger(PATH_CACHE_CAPACITY_PROPERTY, PathCache.DEFAULT_CAPACITY)));
+        TextStorage textStorage = TextStorage.valueOf(System.getProperty(TEXT_STORAGE_PROPERTY, TextStorage.HEAP.name()).toUpperCase());
+        entityFactory = new EntityFactory(textStorage);
         constraintsValidator = new DefaultConstraintsValidator(drives, pathUtils, navigationUtils);
-        fileSystemManagementService = new DefaultFileSystemManagementService(constraintsValidator, drives, pathUtils, navigationUtils, entityFactory);
+        OperationLogLevel operationLogLevel = OperationLogLevel.valueOf(System.getProperty(OPERATION_LOG_LEVEL_PROPERTY, OperationLogLevel.METADATA.name()).toUpperCase());
+        StorageMode storageMode = StorageMode.valueOf(System.getProperty(STORAGE_MODE_PROPERTY, StorageMode.OBJECT_TREE.name()).toUpperCase());
+
+        PathWalkMetrics pathWalkMetrics;
+        PathCache pathCache;
+        fileSystemManagementService = switch (storageMode) {
+            case OBJECT_TREE -> {
+                DefaultFileSystemManagementService defaultFileSystemManagementService = new DefaultFileSystemManagementService(constraintsValidator, drives, pathUtils, navigationUtils, entityFactory);
+                defaultFileSystemManagementService.setOperationLogLevel(operationLogLevel);
+                pathWalkMetrics = navigationUtils.getPathWalkMetrics();
+                pathCache = navigationUtils.getPathCache();
+                // Lock stripes match the shards of the registry, so every shard of Drives is guarded by its own lock
+                yield new ConcurrentFileSystemManagementService(defaultFileSystemManagementService, pathUtils, drives.getShardCount(), drives.getSharding());
+            }
+            case PERSISTENT_TREE -> {
+                PersistentFileSystemManagementService persistentFileSystemManagementService = new PersistentFileSystemManagementService(pathUtils);
+                persistentFileSystemManagementService.setOperationLogLevel(operationLogLevel);
+                pathWalkMetrics = persistentFileSystemManagementService.getPathWalkMetrics();
+                pathCache = PathCache.disabled();
+                yield persistentFileSystemManagementService;
+            }
+            case COMPACT_TREE -> {
+                CompactFileSystemManagementService compactFileSystemManagementService = new CompactFileSystemManagementService(pathUtils, textStorage);
+                compactFileSystemManagementService.setOperationLogLevel(operationLogLevel);
+                pathWalkMetrics = compactFileSystemManagementService.getPathWalkMetrics();
+                pathCache = PathCache.disabled();
+                yield compactFileSystemManagementService;
+            }
+        };
+
+        String journalDirectory = System.getProperty(JOURNAL_DIRECTORY_PROPERTY);
+        if (journalDirectory != null) fileSystemManagementService = journaled(fileSystemManagementService, Path.of(journalDirectory));
+        if (Boolean.parseBoolean(System.getProperty(METRICS_ENABLED_PROPERTY, "true"))) fileSystemManagementService = instrumented(fileSystemManagementService, pathWalkMetrics, pathCache);
+
+        commandParser = new CommandParser();
+        commandExecutor = new CommandExecutor(fileSystemManagementService, commandParser);
+        String serverSnapshotDirectory = System.getProperty(SERVER_SNAPSHOT_DIRECTORY_PROPERTY);
+        serverCommandExecutor = CommandExecutor.confinedTo(fileSystemManagementService, commandParser, serverSnapshotDirectory == null ? null : Path.of(serverSnapshotDirectory));
+        scriptRunner = new ScriptRunner(commandExecutor);
+    }
+
+    /**
+     * Wraps the service so that the metrics of its operations are recorded, and exposes them through JMX, along with the
+     * statistics of the path cache if the storage mode uses it.
+     */
+    private FileSystemManagementService instrumented(FileSystemManagementService service, PathWalkMetrics pathWalkMetrics, PathCache pathCache) {
+        fileSystemMetrics = new FileSystemMetrics(pathWalkMetrics);
+        InstrumentedFileSystemManagementService instrumentedService = new InstrumentedFileSystemManagementService(service, fileSystemMetrics);
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            fileSystemMetrics.registerMBeans(server, instrumentedService);
+            if (pathCache.isEnabled()) server.registerMBean(pathCache, new ObjectName(FileSystemMetrics.JMX_DOMAIN, "type", "PathCache"));
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register the file system metrics MBeans", e);
+        }
+        return instrumentedService;
+    }
+
+    /**
+     * Wraps the service so that its mutations are journaled, and recovers the FileSystem saved in the journal.
+     */
+    private FileSystemManagementService journaled(FileSystemManagementService service, Path journalDirectory) {
+        DurabilityLevel durabilityLevel = DurabilityLevel.valueOf(System.getProperty(JOURNAL_DURABILITY_PROPERTY, DurabilityLevel.SYNCED.name()).toUpperCase());
+        long compactionThreshold = Long.getLong(JOURNAL_COMPACTION_THRESHOLD_PROPERTY, JournalingFileSystemManagementService.DEFAULT_COMPACTION_THRESHOLD);
+
+        try {
+            JournalingFileSystemManagementService journalingService = new JournalingFileSystemManagementService(service, OperationJournal.open(journalDirectory, durabilityLevel), compactionThreshold);
+            journalingService.recover();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    journalingService.close();
+                } catch (IOException e) {
+                    System.err.println("Failed to close the journal: " + e.getMessage());
+                }
+            }));
+            return journalingService;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to recover the file system from " + journalDirectory, e);
+        }
     }
 }
@@ -0,0 +1,322 @@
+package persistent;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * PersistentHashMap is an immutable hash array mapped trie.
+ * Every modification returns a new map that shares all the untouched nodes with the previous one, so that adding,
+ * replacing or removing an entry only copies the O(log32 n) nodes on the way to it.
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the values.
+ */
+public final class PersistentHashMap<K, V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(BitmapNode.EMPTY, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Returns the value mapped to the key.
+     *
+     * @param key the key to look for.
+     * @return the value, or null if the key is not present.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        return (V) root.get(hash(key), key, 0);
+    }
+
+    /**
+     * Returns a map with the key mapped to the value, replacing any previous mapping.
+     *
+     * @param key the key.
+     * @param value the value.
+     * @return the new map.
+     */
+    public PersistentHashMap<K, V> put(K key, V value) {
+        boolean[] added = new boolean[1];
+        Node newRoot = root.put(hash(key), key, value, 0, added);
+
+        return newRoot == root ? this : new PersistentHashMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * Returns a map without the key.
+     *
+     * @param key the key to remove.
+     * @return the new map, or the same map if the key was not present.
+     */
+    public PersistentHashMap<K, V> remove(K key) {
+        Node newRoot = root.remove(hash(key), key, 0);
+
+        if (newRoot == root) return this;
+        return new PersistentHashMap<>(newRoot == null ? BitmapNode.EMPTY : newRoot, size - 1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Performs the action on every value of the map, in no particular order.
+     *
+     * @param action the action to perform.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> action) {
+        root.forEach(it -> action.accept((V) it.value));
+    }
+
+    private static int hash(Object key) {
+        int hash = Objects.hashCode(key);
+        return hash ^ (hash >>> 16);
+    }
+
+    private record Entry(int hash, Object key, Object value) {
+    }
+
+    private sealed interface Node permits BitmapNode, CollisionNode {
+        Object get(int hash, Object key, int shift);
+
+        Node put(int hash, Object key, Object value, int shift, boolean[] added);
+
+        /**
+         * @return the same node if the key was not present, or null if the resulting node would be empty.
+         */
+        Node remove(int hash, Object key, int shift);
+
+        void forEach(Consumer<Entry> action);
+
+        /**
+         * @return the only entry of the node, or null if the node holds more than one entry or any sub-node.
+         */
+        Object singleEntry();
+    }
+
+    /**
+     * Node whose slots hold either entries or sub-nodes, indexed by 5 bits of the hash at its level.
+     */
+    private static final class BitmapNode implements Node {
+        private static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        private final int bitmap;
+        private final Object[] slots;
+
+        private BitmapNode(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        @Override
+        public Object get(int hash, Object key, int shift) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) return null;
+
+            Object slot = slots[index(bit)];
+            if (slot instanceof Node node) return node.get(hash, key, shift + BITS);
+
+            Entry entry = (Entry) slot;
+            return entry.hash == hash && entry.key.equals(key) ? entry.value : null;
+        }
+
+        @Override
+        public Node put(int hash, Object key, Object value, int shift, boolean[] added) {
+            int bit = bit(hash, shift);
+            int index = index(bit);
+
+            if ((bitmap & bit) == 0) {
+                Object[] newSlots = new Object[slots.length + 1];
+                System.arraycopy(slots, 0, newSlots, 0, index);
+                newSlots[index] = new Entry(hash, key, value);
+                System.arraycopy(slots, index, newSlots, index + 1, slots.length - index);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, newSlots);
+            }
+
+            Object slot = slots[index];
+            Object newSlot;
+            if (slot instanceof Node node) {
+                Node newNode = node.put(hash, key, value, shift + BITS, added);
+                if (newNode == node) return this;
+                newSlot = newNode;
+            } else {
+                Entry entry = (Entry) slot;
+                if (entry.hash == hash && entry.key.equals(key)) {
+                    if (entry.value == value) return this;
+                    newSlot = new Entry(hash, key, value);
+                } else {
+                    newSlot = merge(entry, new Entry(hash, key, value), shift + BITS);
+                    added[0] = true;
+                }
+            }
+            return withSlot(index, newSlot);
+        }
+
+        @Override
+        public Node remove(int hash, Object key, int shift) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) return this;
+
+            int index = index(bit);
+            Object slot = slots[index];
+
+            if (slot instanceof Node node) {
+                Node newNode = node.remove(hash, key, shift + BITS);
+                if (newNode == node) return this;
+                if (newNode != null) {
+                    // Pull single entries up, so that removals keep the trie as shallow as insertions
+                    Object singleEntry = newNode.singleEntry();
+                    return withSlot(index, singleEntry != null ? singleEntry : newNode);
+                }
+            } else {
+                Entry entry = (Entry) slot;
+                if (entry.hash != hash || !entry.key.equals(key)) return this;
+            }
+
+            if (slots.length == 1) return null;
+
+            Object[] newSlots = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, newSlots, 0, index);
+            System.arraycopy(slots, index + 1, newSlots, index, slots.length - index - 1);
+            return new BitmapNode(bitmap & ~bit, newSlots);
+        }
+
+        @Override
+        public void forEach(Consumer<Entry> action) {
+            for (Object slot : slots) {
+                if (slot instanceof Node node) {
+                    node.forEach(action);
+                } else {
+                    action.accept((Entry) slot);
+                }
+            }
+        }
+
+        @Override
+        public Object singleEntry() {
+            return slots.length == 1 && slots[0] instanceof Entry ? slots[0] : null;
+        }
+
+        private BitmapNode withSlot(int index, Object slot) {
+            Object[] newSlots = slots.clone();
+            newSlots[index] = slot;
+            return new BitmapNode(bitmap, newSlots);
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        private static int bit(int hash, int shift) {
+            return 1 << ((hash >>> shift) & MASK);
+        }
+
+        private static Node merge(Entry first, Entry second, int shift) {
+            if (first.hash == second.hash || shift >= Integer.SIZE) {
+                return new CollisionNode(first.hash, new Entry[] {first, second});
+            }
+
+            int firstBit = bit(first.hash, shift);
+            int secondBit = bit(second.hash, shift);
+            if (firstBit == secondBit) {
+                return new BitmapNode(firstBit, new Object[] {merge(first, second, shift + BITS)});
+            }
+            // Bits are compared unsigned, as the bit of the last slot is the sign bit
+            return Integer.compareUnsigned(firstBit, secondBit) < 0 ?
+                    new BitmapNode(firstBit | secondBit, new Object[] {first, second}) :
+                    new BitmapNode(firstBit | secondBit, new Object[] {second, first});
+        }
+    }
+
+    /**
+     * Node holding the entries of different keys that share the same hash.
+     */
+    private static final class CollisionNode implements Node {
+        private final int hash;
+        private final Entry[] entries;
+
+        private CollisionNode(int hash, Entry[] entries) {
+            this.hash = hash;
+            this.entries = entries;
+        }
+
+        @Override
+        public Object get(int hash, Object key, int shift) {
+            int index = indexOf(key);
+            return this.hash == hash && index >= 0 ? entries[index].value : null;
+        }
+
+        @Override
+        public Node put(int hash, Object key, Object value, int shift, boolean[] added) {
+            if (this.hash != hash) {
+                // Different hash at a level where this node sits in a single slot: split it in a bitmap node
+                BitmapNode node = new BitmapNode(BitmapNode.bit(this.hash, shift), new Object[] {this});
+                return node.put(hash, key, value, shift, added);
+            }
+
+            int index = indexOf(key);
+            if (index >= 0) {
+                if (entries[index].value == value) return this;
+                Entry[] newEntries = entries.clone();
+                newEntries[index] = new Entry(hash, key, value);
+                return new CollisionNode(hash, newEntries);
+            }
+
+            Entry[] newEntries = Arrays.copyOf(entries, entries.length + 1);
+            newEntries[entries.length] = new Entry(hash, key, value);
+            added[0] = true;
+            return new CollisionNode(hash, newEntries);
+        }
+
+        @Override
+        public Node remove(int hash, Object key, int shift) {
+            int index = this.hash == hash ? indexOf(key) : -1;
+            if (index < 0) return this;
+            if (entries.length == 1) return null;
+
+            Entry[] newEntries = new Entry[entries.length - 1];
+            System.arraycopy(entries, 0, newEntries, 0, index);
+            System.arraycopy(entries, index + 1, newEntries, index, entries.length - index - 1);
+            return new CollisionNode(hash, newEntries);
+        }
+
+        @Override
+        public void forEach(Consumer<Entry> action) {
+            for (Entry entry : entries) {
+                action.accept(entry);
+            }
+        }
+
+        @Override
+        public Object singleEntry() {
+            return entries.length == 1 ? entries[0] : null;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < entries.length; i++) {
+                if (entries[i].key.equals(key)) return i;
+            }
+            return -1;
+        }
+    }
+}
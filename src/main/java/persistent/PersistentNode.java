@@ -0,0 +1,161 @@
+package persistent;
+
+import entities.EntityType;
+import entities.NameTable;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * PersistentNode is an immutable node of the persistent FileSystem tree.
+ * Modifications return new nodes that share their untouched children with the original one, so a new version of the
+ * tree only copies the nodes on the path from the root to the modified node (path-copying).
+ * <p>
+ * The root of the tree is a node without EntityType whose children are the Drives.
+ */
+@Getter
+public final class PersistentNode {
+
+    private static final PersistentNode FOREST_ROOT = new PersistentNode(null, "", 0, 0, PersistentHashMap.empty(), 0, null);
+
+    private final EntityType entityType;
+    private final String name;
+    /**
+     * Insertion sequence of the node within its parent, used to list children in insertion order.
+     */
+    private final long sequence;
+    private final int size;
+    private final PersistentHashMap<ChildKey, PersistentNode> children;
+    private final long nextChildSequence;
+    private final PersistentText content;
+
+    private PersistentNode(EntityType entityType, String name, long sequence, int size, PersistentHashMap<ChildKey, PersistentNode> children, long nextChildSequence, PersistentText content) {
+        this.entityType = entityType;
+        this.name = name;
+        this.sequence = sequence;
+        this.size = size;
+        this.children = children;
+        this.nextChildSequence = nextChildSequence;
+        this.content = content;
+    }
+
+    /**
+     * Returns the empty root of a persistent FileSystem tree.
+     *
+     * @return the empty root node.
+     */
+    public static PersistentNode emptyForest() {
+        return FOREST_ROOT;
+    }
+
+    /**
+     * Creates a new empty node.
+     *
+     * @param type the type of the node.
+     * @param name the name of the node.
+     * @return the new node.
+     */
+    public static PersistentNode of(EntityType type, String name) {
+        return new PersistentNode(type, NameTable.getInstance().intern(name), 0, 0, PersistentHashMap.empty(), 0, type == EntityType.TEXT_FILE ? PersistentText.EMPTY : null);
+    }
+
+    /**
+     * Checks if the node may contain other nodes.
+     *
+     * @return true for the root, Drives, Folders and ZipFiles, and false otherwise.
+     */
+    public boolean isComposable() {
+        return entityType != EntityType.TEXT_FILE;
+    }
+
+    /**
+     * Finds the child with the provided name and type.
+     *
+     * @param name the name of the child.
+     * @param type the type of the child.
+     * @return an Optional with the child (empty if not found).
+     */
+    public Optional<PersistentNode> getChild(String name, EntityType type) {
+        return Optional.ofNullable(children.get(new ChildKey(name, type)));
+    }
+
+    /**
+     * Finds the Composable child with the provided name, whichever its type is.
+     *
+     * @param name the name of the child.
+     * @return an Optional with the child (empty if not found).
+     */
+    public Optional<PersistentNode> getComposableChild(String name) {
+        PersistentNode child = children.get(new ChildKey(name, EntityType.FOLDER));
+        if (child == null) child = children.get(new ChildKey(name, EntityType.ZIP_FILE));
+
+        return Optional.ofNullable(child);
+    }
+
+    /**
+     * Returns the children of the node in insertion order.
+     *
+     * @return a list with the children of the node.
+     */
+    public List<PersistentNode> getChildrenInOrder() {
+        List<PersistentNode> orderedChildren = new ArrayList<>(children.size());
+        children.forEachValue(orderedChildren::add);
+        orderedChildren.sort(Comparator.comparingLong(PersistentNode::getSequence));
+        return orderedChildren;
+    }
+
+    /**
+     * Returns a copy of this node with the child added, or replacing the child with the same name and type.
+     * Replaced children keep their position, while new children are placed at the end.
+     *
+     * @param child the child to add or replace.
+     * @return the new node.
+     */
+    public PersistentNode withChild(PersistentNode child) {
+        ChildKey key = new ChildKey(child.name, child.entityType);
+        PersistentNode previous = children.get(key);
+
+        PersistentNode positionedChild = child.withSequence(previous != null ? previous.sequence : nextChildSequence);
+        int newSize = size + getChildSizeContribution(positionedChild.size) - (previous != null ? getChildSizeContribution(previous.size) : 0);
+
+        return new PersistentNode(entityType, name, sequence, newSize, children.put(key, positionedChild), previous != null ? nextChildSequence : nextChildSequence + 1, content);
+    }
+
+    /**
+     * Returns a copy of this node without the provided child.
+     *
+     * @param child the child to remove.
+     * @return the new node.
+     */
+    public PersistentNode withoutChild(PersistentNode child) {
+        ChildKey key = new ChildKey(child.name, child.entityType);
+        if (children.get(key) != child) return this;
+
+        return new PersistentNode(entityType, name, sequence, size - getChildSizeContribution(child.size), children.remove(key), nextChildSequence, content);
+    }
+
+    /**
+     * Returns a copy of this text file node with the text appended to its content.
+     *
+     * @param text the text to append.
+     * @return the new node.
+     */
+    public PersistentNode withAppendedContent(String text) {
+        PersistentText newContent = content.append(text);
+        return new PersistentNode(entityType, name, sequence, newContent.length(), children, nextChildSequence, newContent);
+    }
+
+    private PersistentNode withSequence(long newSequence) {
+        return newSequence == sequence ? this : new PersistentNode(entityType, name, newSequence, size, children, nextChildSequence, content);
+    }
+
+    private int getChildSizeContribution(int childSize) {
+        return entityType == EntityType.ZIP_FILE ? childSize / 2 : childSize;
+    }
+
+    private record ChildKey(String name, EntityType type) {
+    }
+}
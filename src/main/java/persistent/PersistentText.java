@@ -0,0 +1,53 @@
+package persistent;
+
+/**
+ * PersistentText is an immutable, append-only text.
+ * Every append returns a new PersistentText that links to the previous one, so appending never copies the existing
+ * content, and older versions of the text remain valid for the snapshots still referencing them.
+ */
+public final class PersistentText {
+
+    public static final PersistentText EMPTY = new PersistentText(null, "", 0);
+
+    private final PersistentText previous;
+    private final String chunk;
+    private final int length;
+
+    private PersistentText(PersistentText previous, String chunk, int length) {
+        this.previous = previous;
+        this.chunk = chunk;
+        this.length = length;
+    }
+
+    /**
+     * Returns a new text with the provided text appended.
+     *
+     * @param text the text to append.
+     * @return the resulting text.
+     */
+    public PersistentText append(String text) {
+        return text.isEmpty() ? this : new PersistentText(this, text, length + text.length());
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Materializes the whole text as a String.
+     *
+     * @return the content of the text.
+     */
+    @Override
+    public String toString() {
+        char[] content = new char[length];
+        int end = length;
+
+        // Chunks are linked backwards, so the content is filled from its end
+        for (PersistentText current = this; current != EMPTY; current = current.previous) {
+            end -= current.chunk.length();
+            current.chunk.getChars(0, current.chunk.length(), content, end);
+        }
+        return new String(content);
+    }
+}
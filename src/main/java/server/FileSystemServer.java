@@ -0,0 +1,171 @@
+package server;
+
+import commands.CommandExecutor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * FileSystemServer serves the commands of a CommandExecutor over TCP, using the same line-delimited UTF-8 text protocol
+ * as scripts: clients send one command per line, and get the responses described in CommandExecutor, in order.
+ * <p>
+ * Every connection is served by its own virtual thread, which blocks on the socket channel without tying up a platform
+ * thread. Requests are pipelined: clients may send many commands without waiting for their responses, and every command
+ * received in the same read is executed before the responses are written back at once, so that a burst of requests
+ * costs a single write.
+ */
+public final class FileSystemServer implements Closeable {
+
+    /**
+     * Maximum length of a request line, in bytes. Connections sending longer lines are closed.
+     */
+    public static final int MAX_LINE_LENGTH = 1 << 20;
+
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+
+    private final ServerSocketChannel serverChannel;
+    private final CommandExecutor commandExecutor;
+    private final Set<SocketChannel> connections = ConcurrentHashMap.newKeySet();
+    private final Thread acceptor;
+    private final Logger log = LogManager.getLogger(FileSystemServer.class);
+
+    private FileSystemServer(ServerSocketChannel serverChannel, CommandExecutor commandExecutor) {
+        this.serverChannel = serverChannel;
+        this.commandExecutor = commandExecutor;
+        this.acceptor = Thread.ofVirtual().name("filesystem-server-acceptor").unstarted(this::acceptConnections);
+    }
+
+    /**
+     * Starts a server listening on the given address.
+     *
+     * @param address the address to listen on. Port 0 picks any free port.
+     * @param commandExecutor the executor of the received commands, which must be safe to use from many threads.
+     * @return the started server.
+     * @throws IOException if the address cannot be bound.
+     */
+    public static FileSystemServer start(InetSocketAddress address, CommandExecutor commandExecutor) throws IOException {
+        ServerSocketChannel serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.bind(address);
+        } catch (IOException e) {
+            serverChannel.close();
+            throw e;
+        }
+
+        FileSystemServer server = new FileSystemServer(serverChannel, commandExecutor);
+        server.acceptor.start();
+        return server;
+    }
+
+    /**
+     * Returns the address the server listens on, including the actual port if any free port was requested.
+     *
+     * @return the bound address.
+     * @throws IOException if the server is closed.
+     */
+    public InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) serverChannel.getLocalAddress();
+    }
+
+    /**
+     * Waits until the server stops accepting connections.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public void awaitTermination() throws InterruptedException {
+        acceptor.join();
+    }
+
+    /**
+     * Stops accepting connections and closes the open ones.
+     */
+    @Override
+    public void close() throws IOException {
+        serverChannel.close();
+        for (SocketChannel connection : connections) {
+            connection.close();
+        }
+    }
+
+    private void acceptConnections() {
+        log.info("Listening on {}", serverChannel.socket().getLocalSocketAddress());
+        while (true) {
+            SocketChannel connection;
+            try {
+                connection = serverChannel.accept();
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                log.error("Failed to accept a connection", e);
+                continue;
+            }
+
+            connections.add(connection);
+            Thread.ofVirtual().name("filesystem-connection").start(() -> serve(connection));
+        }
+    }
+
+    private void serve(SocketChannel connection) {
+        ByteBuffer input = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        StringBuilder output = new StringBuilder();
+
+        try (connection) {
+            while (connection.read(input) >= 0) {
+                input.flip();
+                executeCompleteLines(input, output);
+                input.compact();
+
+                if (!input.hasRemaining()) {
+                    if (input.capacity() >= MAX_LINE_LENGTH) {
+                        output.append("ERROR InvalidCommandException Request lines cannot be longer than ").append(MAX_LINE_LENGTH).append(" bytes.\n");
+                        write(connection, output);
+                        return;
+                    }
+                    input = ByteBuffer.allocate(Math.min(input.capacity() * 2, MAX_LINE_LENGTH)).put(input.flip());
+                }
+
+                if (!output.isEmpty()) write(connection, output);
+            }
+        } catch (ClosedChannelException e) {
+            // The server was closed
+        } catch (IOException e) {
+            log.debug("Connection closed abruptly", e);
+        } finally {
+            connections.remove(connection);
+        }
+    }
+
+    /**
+     * Executes every complete line of the input, leaving the input positioned at the start of the incomplete line left.
+     */
+    private void executeCompleteLines(ByteBuffer input, StringBuilder output) {
+        int lineStart = input.position();
+        for (int i = lineStart; i < input.limit(); i++) {
+            if (input.get(i) != '\n') continue;
+
+            int lineEnd = i > lineStart && input.get(i - 1) == '\r' ? i - 1 : i;
+            String line = new String(input.array(), input.arrayOffset() + lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+            commandExecutor.execute(line, output);
+            lineStart = i + 1;
+        }
+        input.position(lineStart);
+    }
+
+    private void write(SocketChannel connection, StringBuilder output) throws IOException {
+        ByteBuffer response = StandardCharsets.UTF_8.encode(output.toString());
+        output.setLength(0);
+        while (response.hasRemaining()) {
+            connection.write(response);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package services;
+
+import entities.EntityType;
+
+/**
+ * BatchOperation is one of the operations of a batch passed to FileSystemManagementService.executeBatch.
+ * Every kind of operation takes the same arguments as the equivalent single operation of FileSystemManagementService.
+ */
+public sealed interface BatchOperation {
+
+    static BatchOperation create(EntityType type, String name, String path) {
+        return new Create(type, name, path);
+    }
+
+    static BatchOperation delete(EntityType type, String path) {
+        return new Delete(type, path);
+    }
+
+    static BatchOperation move(EntityType type, String sourcePath, String destinationPath) {
+        return new Move(type, sourcePath, destinationPath);
+    }
+
+    static BatchOperation writeToFile(String path, String content) {
+        return new WriteToFile(path, content);
+    }
+
+    record Create(EntityType type, String name, String path) implements BatchOperation {
+    }
+
+    record Delete(EntityType type, String path) implements BatchOperation {
+    }
+
+    record Move(EntityType type, String sourcePath, String destinationPath) implements BatchOperation {
+    }
+
+    record WriteToFile(String path, String content) implements BatchOperation {
+    }
+}
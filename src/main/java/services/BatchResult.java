@@ -0,0 +1,67 @@
+package services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BatchResult is the outcome of a single operation of a batch.
+ *
+ * @param operation the operation.
+ * @param status what happened to the operation.
+ * @param failure the exception the operation failed with, or null if it did not fail.
+ */
+public record BatchResult(BatchOperation operation, Status status, RuntimeException failure) {
+
+    public enum Status {
+        /**
+         * The operation was applied to the FileSystem.
+         */
+        APPLIED,
+        /**
+         * The operation was not applied because it is not valid.
+         */
+        FAILED,
+        /**
+         * The operation was applied, but undone because a later operation of the same atomic batch failed.
+         */
+        ROLLED_BACK,
+        /**
+         * The operation was not attempted because an earlier operation of the same atomic batch failed.
+         */
+        SKIPPED
+    }
+
+    static BatchResult applied(BatchOperation operation) {
+        return new BatchResult(operation, Status.APPLIED, null);
+    }
+
+    static BatchResult failed(BatchOperation operation, RuntimeException failure) {
+        return new BatchResult(operation, Status.FAILED, failure);
+    }
+
+    static BatchResult rolledBack(BatchOperation operation) {
+        return new BatchResult(operation, Status.ROLLED_BACK, null);
+    }
+
+    static BatchResult skipped(BatchOperation operation) {
+        return new BatchResult(operation, Status.SKIPPED, null);
+    }
+
+    /**
+     * Builds the results of an atomic batch aborted by the failure of one of its operations: the operations before it are
+     * rolled back and the ones after it are skipped.
+     */
+    static List<BatchResult> aborted(List<BatchOperation> operations, int failedIndex, RuntimeException failure) {
+        List<BatchResult> results = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            if (i < failedIndex) results.add(rolledBack(operations.get(i)));
+            else if (i == failedIndex) results.add(failed(operations.get(i), failure));
+            else results.add(skipped(operations.get(i)));
+        }
+        return results;
+    }
+
+    public boolean isApplied() {
+        return status == Status.APPLIED;
+    }
+}
@@ -0,0 +1,565 @@
+package services;
+
+import compact.CompactNodeStore;
+import entities.EntityType;
+import entities.TextStorage;
+import exceptions.IllegalFileSystemOperationException;
+import exceptions.PathNotFoundException;
+import lombok.Getter;
+import lombok.Setter;
+import metrics.PathWalkMetrics;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import snapshot.SnapshotImage;
+import snapshot.SnapshotNode;
+import snapshot.SnapshotTextContent;
+import snapshot.SnapshotWriter;
+import utils.FileSystemPath;
+import utils.NamePattern;
+import utils.PathResolution;
+import utils.PathUtils;
+import validators.ConstraintsValidator;
+import validators.DefaultConstraintsValidator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static compact.CompactNodeStore.NONE;
+import static compact.CompactNodeStore.ROOT;
+
+/**
+ * CompactFileSystemManagementService keeps the FileSystem in a CompactNodeStore, which stores the nodes in primitive
+ * arrays instead of one object per entity, to reduce the heap and GC cost of very large trees.
+ * <p>
+ * The whole store is guarded by a single read/write lock, as all the Drives share the same arrays. Operations are
+ * validated by a DefaultConstraintsValidator against the nodes resolved in the store.
+ */
+public class CompactFileSystemManagementService implements FileSystemManagementService {
+
+    private final PathUtils pathUtils;
+    private final TextStorage textStorage;
+    private final ConstraintsValidator validator;
+    private CompactNodeStore store;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Logger log = LogManager.getLogger(CompactFileSystemManagementService.class);
+    @Getter
+    private final PathWalkMetrics pathWalkMetrics = new PathWalkMetrics();
+    @Setter
+    private OperationLogLevel operationLogLevel = OperationLogLevel.METADATA;
+
+    public CompactFileSystemManagementService(PathUtils pathUtils) {
+        this(pathUtils, TextStorage.HEAP);
+    }
+
+    public CompactFileSystemManagementService(PathUtils pathUtils, TextStorage textStorage) {
+        this.pathUtils = pathUtils;
+        this.textStorage = textStorage;
+        this.store = new CompactNodeStore(textStorage);
+        this.validator = new DefaultConstraintsValidator(path -> withLock(lock.readLock(), () -> resolve(pathUtils.parsePath(path))));
+    }
+
+    @Override
+    public OperationResult tryCreate(EntityType type, String name, String path) {
+        return withLock(lock.writeLock(), () -> create(type, name, path, null));
+    }
+
+    @Override
+    public OperationResult tryDelete(EntityType type, String path) {
+        return withLock(lock.writeLock(), () -> delete(type, path, store::free, null));
+    }
+
+    @Override
+    public OperationResult tryMove(EntityType type, String sourcePath, String destinationPath) {
+        return withLock(lock.writeLock(), () -> move(type, sourcePath, destinationPath, null));
+    }
+
+    @Override
+    public OperationResult tryWriteToFile(String path, String content) {
+        return withLock(lock.writeLock(), () -> writeToFile(path, content, null));
+    }
+
+    @Override
+    public ReadResult<Integer> tryGetEntitySize(EntityType type, String path) {
+        if (validator.anyValueNull(type, path)) return ReadResult.rejected(Rejections.NULL_SIZE_ARGUMENT);
+
+        return withLock(lock.readLock(), () -> {
+            Resolution resolution = resolve(pathUtils.parsePath(path));
+            int node = resolution.findTarget(type);
+            if (node == NONE) return ReadResult.rejected(Rejections.entityNotFound(resolution));
+
+            if (logs(OperationLogLevel.METADATA)) log.info("Getting size info for {} under {}", type, path);
+
+            // Sizes are kept as longs, but the API reports them as ints
+            return ReadResult.of((int) Math.min(store.getSize(node), Integer.MAX_VALUE));
+        });
+    }
+
+    /**
+     * The stream holds the read lock only while it reads the store, one entity at a time, and fails with a
+     * ConcurrentModificationException if entities are created, deleted or moved in the meantime.
+     */
+    @Override
+    public ReadResult<Stream<EntityInfo>> tryList(String path) {
+        if (validator.anyValueNull(path)) return ReadResult.rejected(Rejections.NULL_PATH);
+        FileSystemPath parsedPath = pathUtils.parsePath(path);
+
+        return withLock(lock.readLock(), () -> {
+            Resolution resolution = resolve(parsedPath);
+            int node = findComposableTarget(resolution);
+            if (node == NONE) return ReadResult.rejected(Rejections.composableNotFound(resolution, parsedPath));
+
+            if (logs(OperationLogLevel.METADATA)) log.info("Listing contents of {}", path);
+
+            NodeTree tree = new NodeTree(store);
+            return ReadResult.of(guarded(tree, EntityWalkSpliterator.descendants(tree, node, parsedPath.toString(), 1, 0)));
+        });
+    }
+
+    /**
+     * The stream holds the read lock only while it reads the store, one entity at a time, and fails with a
+     * ConcurrentModificationException if entities are created, deleted or moved in the meantime.
+     */
+    @Override
+    public ReadResult<Stream<EntityInfo>> tryWalk(String path, int maxDepth, Predicate<EntityInfo> filter) {
+        if (validator.anyValueNull(path, filter)) return ReadResult.rejected(Rejections.NULL_WALK_ARGUMENT);
+        if (maxDepth < 0) return ReadResult.rejected(Rejections.NEGATIVE_DEPTH);
+        FileSystemPath parsedPath = pathUtils.parsePath(path);
+
+        return withLock(lock.readLock(), () -> {
+            Resolution resolution = resolve(parsedPath);
+            int node = findComposableTarget(resolution);
+            if (node == NONE) return ReadResult.rejected(Rejections.composableNotFound(resolution, parsedPath));
+
+            if (logs(OperationLogLevel.METADATA)) log.info("Walking {} down to depth {}", path, maxDepth);
+
+            NodeTree tree = new NodeTree(store);
+            String parentPath = parsedPath.isSingleElement() ? null : parsedPath.parent().toString();
+            return ReadResult.of(guarded(tree, EntityWalkSpliterator.subtree(tree, node, parentPath, maxDepth, 0)).filter(filter));
+        });
+    }
+
+    /**
+     * Candidates are looked up in the name index of the store, which is updated as nodes are created and freed. Moving
+     * a node does not change its name, so moves do not need to update it.
+     */
+    @Override
+    public ReadResult<Stream<EntityInfo>> tryFind(String rootPath, String pattern, EntityType type) {
+        if (validator.anyValueNull(rootPath, pattern, type)) return ReadResult.rejected(Rejections.NULL_FIND_ARGUMENT);
+        FileSystemPath parsedPath = pathUtils.parsePath(rootPath);
+
+        return withLock(lock.readLock(), () -> {
+            Resolution resolution = resolve(parsedPath);
+            int root = findComposableTarget(resolution);
+            if (root == NONE) return ReadResult.rejected(Rejections.composableNotFound(resolution, parsedPath));
+
+            if (logs(OperationLogLevel.METADATA)) log.info("Finding {} matching {} under {}", type, pattern, rootPath);
+
+            List<EntityInfo> found = new ArrayList<>();
+            for (int node : store.find(root, NamePattern.compile(pattern), type)) {
+                found.add(new EntityInfo(type, store.getName(node), getPath(node), (int) Math.min(store.getSize(node), Integer.MAX_VALUE)));
+            }
+            return ReadResult.of(found.stream());
+        });
+    }
+
+    /**
+     * Operations are applied in the given order. Every applied operation of an atomic batch records how to undo it, and
+     * the undo actions are run in reverse order if an operation fails. Deleted nodes are only freed once the whole batch
+     * has been applied, so that they can still be linked back.
+     */
+    @Override
+    public List<BatchResult> executeBatch(List<BatchOperation> operations, boolean atomic) {
+        if (validator.anyValueNull(operations)) throw new IllegalFileSystemOperationException("Operations cannot be null.");
+
+        return withLock(lock.writeLock(), () -> {
+            List<BatchResult> results = new ArrayList<>(operations.size());
+            Deque<Runnable> undoActions = new ArrayDeque<>();
+            List<Integer> deletedNodes = new ArrayList<>();
+
+            for (int i = 0; i < operations.size(); i++) {
+                BatchOperation operation = operations.get(i);
+                RuntimeException failure;
+                try {
+                    OperationResult result = apply(operation, deletedNodes::add, atomic ? undoActions::push : null);
+                    failure = result.isOk() ? null : result.toException();
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+
+                if (failure == null) {
+                    results.add(BatchResult.applied(operation));
+                } else if (!atomic) {
+                    results.add(BatchResult.failed(operation, failure));
+                } else {
+                    if (logs(OperationLogLevel.METADATA)) log.info("Rolling back {} operations of the batch", undoActions.size());
+                    undoActions.forEach(Runnable::run);
+                    return BatchResult.aborted(operations, i, failure);
+                }
+            }
+
+            deletedNodes.forEach(store::free);
+            return results;
+        });
+    }
+
+    @Override
+    public void saveSnapshot(Path file) throws IOException {
+        if (validator.anyValueNull(file)) throw new IllegalFileSystemOperationException("File cannot be null.");
+        if (logs(OperationLogLevel.METADATA)) log.info("Saving snapshot to {}", file);
+
+        lock.readLock().lock();
+        try (SnapshotWriter writer = new SnapshotWriter(file)) {
+            writer.startForest();
+            int parent = ROOT;
+            int node = store.getFirstChild(ROOT);
+
+            // Walks the sibling chains going back up through the parents, so no stack is needed
+            while (true) {
+                if (node == NONE) {
+                    writer.endComposable();
+                    if (parent == ROOT) break;
+                    node = store.getNextSibling(parent);
+                    parent = store.getParent(parent);
+                } else if (store.isComposable(node)) {
+                    writer.startComposable(store.getType(node), store.getName(node), store.getSize(node));
+                    parent = node;
+                    node = store.getFirstChild(node);
+                } else {
+                    writer.writeTextFile(store.getName(node), store.getContent(node));
+                    node = store.getNextSibling(node);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (logs(OperationLogLevel.METADATA)) log.info("Successfully saved snapshot to {}", file);
+    }
+
+    /**
+     * The nodes are copied into a new store from the mapped image, while the content of the TextFiles is only read from
+     * the image when it is first accessed. The new store replaces the current one once it is complete.
+     */
+    @Override
+    public void loadSnapshot(Path file) throws IOException {
+        if (validator.anyValueNull(file)) throw new IllegalFileSystemOperationException("File cannot be null.");
+        if (logs(OperationLogLevel.METADATA)) log.info("Loading snapshot from {}", file);
+
+        CompactNodeStore restoredStore = restore(SnapshotImage.map(file).getForest());
+        withLock(lock.writeLock(), () -> {
+            store.releaseContents();
+            store = restoredStore;
+            return null;
+        });
+
+        if (logs(OperationLogLevel.METADATA)) log.info("Successfully loaded {} nodes from {}", restoredStore.getNodeCount() - 1, file);
+    }
+
+    private CompactNodeStore restore(SnapshotNode forest) {
+        CompactNodeStore restoredStore = new CompactNodeStore(textStorage);
+        Deque<PendingRestore> pendingNodes = new ArrayDeque<>();
+        pendingNodes.push(new PendingRestore(forest, ROOT));
+
+        // Iterative on purpose, so that deep hierarchies cannot overflow the stack
+        while (!pendingNodes.isEmpty()) {
+            PendingRestore pending = pendingNodes.pop();
+
+            for (SnapshotNode child : pending.node().getChildren()) {
+                int restoredChild = restoredStore.addChild(pending.parent(), child.getType(), child.getName());
+                if (child.isComposable()) {
+                    pendingNodes.push(new PendingRestore(child, restoredChild));
+                } else {
+                    restoredStore.restoreContent(restoredChild, new SnapshotTextContent(child, textStorage));
+                }
+            }
+        }
+        return restoredStore;
+    }
+
+    /**
+     * @param undoActions where the action undoing the operation is handed, or null if the operation will not be undone.
+     */
+    private OperationResult apply(BatchOperation operation, IntConsumer deletedNodes, Consumer<Runnable> undoActions) {
+        return switch (operation) {
+            case null -> Rejections.NULL_BATCH_OPERATION;
+            case BatchOperation.Create create -> create(create.type(), create.name(), create.path(), undoActions);
+            case BatchOperation.Delete delete -> delete(delete.type(), delete.path(), deletedNodes, undoActions);
+            case BatchOperation.Move move -> move(move.type(), move.sourcePath(), move.destinationPath(), undoActions);
+            case BatchOperation.WriteToFile writeToFile -> writeToFile(writeToFile.path(), writeToFile.content(), undoActions);
+        };
+    }
+
+    private OperationResult create(EntityType type, String name, String path, Consumer<Runnable> undoActions) {
+        if (validator.anyValueNull(type, name, path)) return Rejections.NULL_CREATION_ARGUMENT;
+        String fullPath = pathUtils.trimPath(path + "\\" + name);
+        Resolution resolution = resolve(pathUtils.parsePath(fullPath));
+        OperationResult validation = validator.validateCreation(type, resolution);
+        if (!validation.isOk()) return validation;
+
+        if (logs(OperationLogLevel.METADATA)) log.info("Creating {} under {}", type, fullPath);
+
+        int node = store.addChild(resolution.parent(), type, name);
+
+        if (logs(OperationLogLevel.METADATA)) log.info("Successfully created {} under {}", type, fullPath);
+
+        if (undoActions != null) {
+            undoActions.accept(() -> {
+                store.unlink(node);
+                store.free(node);
+            });
+        }
+        return OperationResult.OK;
+    }
+
+    /**
+     * Unlinks the node from its parent, and hands it to deletedNodes so that it is freed.
+     */
+    private OperationResult delete(EntityType type, String path, IntConsumer deletedNodes, Consumer<Runnable> undoActions) {
+        if (validator.anyValueNull(path)) return Rejections.NULL_PATH;
+        Resolution resolution = resolve(pathUtils.parsePath(path));
+        OperationResult validation = validator.validateDeletion(type, resolution);
+        if (!validation.isOk()) return validation;
+        int node = getTarget(type, resolution);
+
+        if (logs(OperationLogLevel.METADATA)) log.info("Deleting {} from {}", type, path);
+
+        int parent = store.getParent(node);
+        int previousSibling = store.getPreviousSibling(node);
+
+        store.unlink(node);
+        deletedNodes.accept(node);
+
+        if (logs(OperationLogLevel.METADATA)) log.info("Successfully delete {} from {}", type, path);
+
+        if (undoActions != null) undoActions.accept(() -> store.link(node, parent, previousSibling));
+        return OperationResult.OK;
+    }
+
+    private OperationResult move(EntityType type, String sourcePath, String destinationPath, Consumer<Runnable> undoActions) {
+        if (validator.anyValueNull(sourcePath, destinationPath)) return Rejections.NULL_PATH;
+        Resolution source = resolve(pathUtils.parsePath(sourcePath));
+        Resolution destination = resolve(pathUtils.parsePath(destinationPath));
+        OperationResult validation = validator.validateMove(type, source, destination);
+        if (!validation.isOk()) return validation;
+        int node = getTarget(type, source);
+
+        if (logs(OperationLogLevel.METADATA)) log.info("Moving {} from {}", type, sourcePath);
+
+        int oldParent = store.getParent(node);
+        int oldPreviousSibling = store.getPreviousSibling(node);
+        int newParent = destination.parent();
+
+        store.unlink(node);
+        store.link(node, newParent, store.getLastChild(newParent));
+
+        if (logs(OperationLogLevel.METADATA)) log.info("Successfully moved {} to {}", type, destinationPath);
+
+        if (undoActions != null) {
+            undoActions.accept(() -> {
+                store.unlink(node);
+                store.link(node, oldParent, oldPreviousSibling);
+            });
+        }
+        return OperationResult.OK;
+    }
+
+    private OperationResult writeToFile(String path, String content, Consumer<Runnable> undoActions) {
+        if (validator.anyValueNull(path, content)) return Rejections.NULL_WRITE_ARGUMENT;
+        Resolution resolution = resolve(pathUtils.parsePath(path));
+        OperationResult validation = validator.validateWrite(resolution);
+        if (!validation.isOk()) return validation;
+
+        if (logs(OperationLogLevel.FULL)) log.info("Writing {} to file in {}", content, path);
+
+        int node = getTarget(EntityType.TEXT_FILE, resolution);
+        int previousLength = (int) store.getSize(node);
+
+        store.appendContent(node, content);
+
+        if (logs(OperationLogLevel.FULL)) {
+            log.info("Successfully appended content. New content is {}", store.getContent(node));
+        } else if (logs(OperationLogLevel.METADATA)) {
+            log.info("Successfully appended {} characters to {}. New size is {}", content.length(), path, store.getSize(node));
+        }
+
+        if (undoActions != null) undoActions.accept(() -> store.truncateContent(node, previousLength));
+        return OperationResult.OK;
+    }
+
+    private Resolution resolve(FileSystemPath path) {
+        pathWalkMetrics.record(path.getElementCount());
+        if (path.isSingleElement()) return new Resolution(store, path, ROOT, null);
+
+        int node = store.findChild(ROOT, path.getElement(0), EntityType.DRIVE);
+        if (node == NONE) return new Resolution(store, path, NONE, "Drive not found.");
+
+        for (int i = 1; i < path.getElementCount() - 1; i++) {
+            String pathElement = path.getElement(i);
+            node = store.findComposableChild(node, pathElement);
+            if (node == NONE) return new Resolution(store, path, NONE, "The path contains a nonexistent component: " + pathElement);
+        }
+        return new Resolution(store, path, node, null);
+    }
+
+    private int getTarget(EntityType type, Resolution resolution) {
+        int node = resolution.findTarget(type);
+        if (node == NONE) throw new PathNotFoundException("The requested entity does not exist.");
+        return node;
+    }
+
+    private int findComposableTarget(Resolution resolution) {
+        if (!resolution.isParentFound()) return NONE;
+        if (resolution.isDriveLevel()) return store.findChild(ROOT, resolution.lastElement(), EntityType.DRIVE);
+
+        return store.findComposableChild(resolution.parent(), resolution.lastElement());
+    }
+
+    /**
+     * Builds the path of a linked node from the names of its ancestors.
+     */
+    private String getPath(int node) {
+        Deque<String> names = new ArrayDeque<>();
+        for (int current = node; current != ROOT; current = store.getParent(current)) {
+            names.push(store.getName(current));
+        }
+        return String.join("\\", names);
+    }
+
+    /**
+     * Makes a walk over the current store take the read lock for every read, and fail fast once the store is modified.
+     */
+    private Stream<EntityInfo> guarded(NodeTree tree, Spliterator<EntityInfo> spliterator) {
+        int expectedModifications = tree.store.getStructuralModificationCount();
+        Runnable check = () -> {
+            if (store != tree.store || store.getStructuralModificationCount() != expectedModifications) {
+                throw new ConcurrentModificationException("The FileSystem was modified while it was being walked.");
+            }
+        };
+        return StreamSupport.stream(new GuardedSpliterator<>(spliterator, List.of(lock.readLock()), check), false);
+    }
+
+    private <T> T withLock(Lock lock, Supplier<T> operation) {
+        lock.lock();
+        try {
+            return operation.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean logs(OperationLogLevel level) {
+        return operationLogLevel.includes(level) && log.isInfoEnabled();
+    }
+
+    /**
+     * The node that contains (or would contain) the last element of a path.
+     */
+    private record Resolution(CompactNodeStore store, FileSystemPath path, int parent, String notFoundMessage) implements PathResolution<Integer> {
+
+        @Override
+        public boolean isDriveLevel() {
+            return path.isSingleElement();
+        }
+
+        @Override
+        public boolean isParentFound() {
+            return notFoundMessage == null;
+        }
+
+        @Override
+        public String getNotFoundMessage() {
+            return notFoundMessage;
+        }
+
+        @Override
+        public boolean containsEntity(EntityType type) {
+            // Drives are the children of the root node, which is always found
+            if (isDriveLevel()) return store.findChild(ROOT, lastElement(), EntityType.DRIVE) != NONE;
+            if (!isParentFound()) throw new PathNotFoundException(notFoundMessage);
+
+            return store.findChild(parent, lastElement(), type) != NONE;
+        }
+
+        @Override
+        public Optional<Integer> getTarget(EntityType type) {
+            int node = findTarget(type);
+            return node == NONE ? Optional.empty() : Optional.of(node);
+        }
+
+        @Override
+        public boolean hasComposableTarget() {
+            if (!isParentFound()) return false;
+            if (isDriveLevel()) return store.findChild(ROOT, lastElement(), EntityType.DRIVE) != NONE;
+
+            return store.findComposableChild(parent, lastElement()) != NONE;
+        }
+
+        @Override
+        public boolean isParentWithin(Integer node) {
+            return isParentFound() && store.isSameOrDescendantOf(parent, node);
+        }
+
+        /**
+         * Same as getTarget, without boxing the node.
+         */
+        int findTarget(EntityType type) {
+            if (!isParentFound()) return NONE;
+
+            int node = store.findChild(parent, lastElement(), isDriveLevel() ? EntityType.DRIVE : type);
+            return node == NONE || store.getType(node) != type ? NONE : node;
+        }
+
+        String lastElement() {
+            return path.getLastElement();
+        }
+    }
+
+    /**
+     * Gives walks access to the nodes of a store.
+     */
+    private record NodeTree(CompactNodeStore store) implements EntityWalkSpliterator.Tree<Integer> {
+
+        @Override
+        public EntityInfo info(Integer node, String parentPath) {
+            String name = store.getName(node);
+            String path = parentPath == null ? name : parentPath + "\\" + name;
+            return new EntityInfo(store.getType(node), name, path, (int) Math.min(store.getSize(node), Integer.MAX_VALUE));
+        }
+
+        @Override
+        public boolean isComposable(Integer node) {
+            return store.isComposable(node);
+        }
+
+        @Override
+        public EntityWalkSpliterator.Siblings<Integer> childrenOf(Integer node) {
+            return EntityWalkSpliterator.Siblings.chain(nodeOrNull(store.getFirstChild(node)), it -> nodeOrNull(store.getNextSibling(it)));
+        }
+
+        private static Integer nodeOrNull(int node) {
+            return node == NONE ? null : node;
+        }
+    }
+
+    /**
+     * A node of the image whose children must be restored under the given node of the new store.
+     */
+    private record PendingRestore(SnapshotNode node, int parent) {
+    }
+}
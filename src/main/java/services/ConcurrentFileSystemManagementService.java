@@ -0,0 +1,242 @@
+package services;
+
+import entities.DriveSharding;
+import entities.EntityType;
+import utils.PathUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * ConcurrentFileSystemManagementService makes any FileSystemManagementService safe to be used from many threads.
+ * <p>
+ * Locking is striped by Drive: every Drive name is mapped to one of a fixed number of read/write locks by a
+ * DriveSharding, and every operation locks the stripes of the Drives it touches. Operations that only read (e.g.
+ * getEntitySize) take read locks, so they never block each other. Adding or removing a Drive only takes the write lock
+ * of its stripe, as the delegate keeps its Drives in a DriveRegistry, which can be updated concurrently. Batches of
+ * operations take the write lock of the whole forest, as do snapshots.
+ * <p>
+ * Locks are always acquired in the same order (forest lock first, then stripes by ascending index), so operations that
+ * touch two Drives, such as move, cannot deadlock.
+ */
+public class ConcurrentFileSystemManagementService implements FileSystemManagementService {
+
+    public static final int DEFAULT_STRIPES = 64;
+
+    private final FileSystemManagementService delegate;
+    private final PathUtils pathUtils;
+    private final DriveSharding sharding;
+    private final ReadWriteLock forestLock = new ReentrantReadWriteLock();
+    private final ReadWriteLock[] stripes;
+
+    public ConcurrentFileSystemManagementService(FileSystemManagementService delegate, PathUtils pathUtils) {
+        this(delegate, pathUtils, DEFAULT_STRIPES);
+    }
+
+    public ConcurrentFileSystemManagementService(FileSystemManagementService delegate, PathUtils pathUtils, int stripeCount) {
+        this(delegate, pathUtils, stripeCount, DriveSharding.HASH);
+    }
+
+    /**
+     * @param sharding maps the Drives to the lock stripes, e.g. the same way as the DriveRegistry of the delegate maps
+     *                 them to its shards.
+     */
+    public ConcurrentFileSystemManagementService(FileSystemManagementService delegate, PathUtils pathUtils, int stripeCount, DriveSharding sharding) {
+        if (stripeCount < 1) throw new IllegalArgumentException("At least one lock stripe is required.");
+
+        this.delegate = delegate;
+        this.pathUtils = pathUtils;
+        this.sharding = sharding;
+        this.stripes = new ReadWriteLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    @Override
+    public OperationResult tryCreate(EntityType type, String name, String path) {
+        // The path of a new Drive is empty, so its stripe is the one of its name
+        if (type == EntityType.DRIVE) return withWriteLock(name, () -> delegate.tryCreate(type, name, path));
+
+        return withWriteLock(path, () -> delegate.tryCreate(type, name, path));
+    }
+
+    @Override
+    public OperationResult tryDelete(EntityType type, String path) {
+        return withWriteLock(path, () -> delegate.tryDelete(type, path));
+    }
+
+    @Override
+    public OperationResult tryMove(EntityType type, String sourcePath, String destinationPath) {
+        int sourceStripe = stripeIndex(sourcePath);
+        int destinationStripe = stripeIndex(destinationPath);
+
+        // Stripes are locked by ascending index, so two opposite moves cannot wait for each other
+        Lock firstLock = stripes[Math.min(sourceStripe, destinationStripe)].writeLock();
+        Lock secondLock = stripes[Math.max(sourceStripe, destinationStripe)].writeLock();
+
+        forestLock.readLock().lock();
+        try {
+            firstLock.lock();
+            try {
+                if (secondLock != firstLock) secondLock.lock();
+                try {
+                    return delegate.tryMove(type, sourcePath, destinationPath);
+                } finally {
+                    if (secondLock != firstLock) secondLock.unlock();
+                }
+            } finally {
+                firstLock.unlock();
+            }
+        } finally {
+            forestLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public OperationResult tryWriteToFile(String path, String content) {
+        return withWriteLock(path, () -> delegate.tryWriteToFile(path, content));
+    }
+
+    @Override
+    public ReadResult<Integer> tryGetEntitySize(EntityType type, String path) {
+        return withReadLock(path, () -> delegate.tryGetEntitySize(type, path));
+    }
+
+    /**
+     * The stream holds the read locks of the Drive only while it reads it, one entity at a time, so it never keeps
+     * writers waiting while it is consumed. It is weakly consistent: every entity is read consistently, but the Drive
+     * may change between entities.
+     */
+    @Override
+    public ReadResult<Stream<EntityInfo>> tryList(String path) {
+        return guarded(path, withReadLock(path, () -> delegate.tryList(path)));
+    }
+
+    /**
+     * The stream holds the read locks of the Drive only while it reads it, one entity at a time, so it never keeps
+     * writers waiting while it is consumed. It is weakly consistent: every entity is read consistently, but the Drive
+     * may change between entities.
+     */
+    @Override
+    public ReadResult<Stream<EntityInfo>> tryWalk(String path, int maxDepth, Predicate<EntityInfo> filter) {
+        if (filter == null) return ReadResult.rejected(Rejections.NULL_WALK_ARGUMENT);
+
+        ReadResult<Stream<EntityInfo>> entities = guarded(path, withReadLock(path, () -> delegate.tryWalk(path, maxDepth, it -> true)));
+        return entities.isOk() ? ReadResult.of(entities.value().filter(filter)) : entities;
+    }
+
+    /**
+     * The matching entities are collected under the read locks of the root's Drive, so the stream is consistent.
+     */
+    @Override
+    public ReadResult<Stream<EntityInfo>> tryFind(String rootPath, String pattern, EntityType type) {
+        return withReadLock(rootPath, () -> {
+            ReadResult<Stream<EntityInfo>> entities = delegate.tryFind(rootPath, pattern, type);
+            return entities.isOk() ? ReadResult.of(entities.value().toList().stream()) : entities;
+        });
+    }
+
+    /**
+     * Batches may touch any number of Drives, so they hold the write lock of the whole forest, which also keeps atomic
+     * batches from being observed half applied.
+     */
+    @Override
+    public List<BatchResult> executeBatch(List<BatchOperation> operations, boolean atomic) {
+        forestLock.writeLock().lock();
+        try {
+            return delegate.executeBatch(operations, atomic);
+        } finally {
+            forestLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Saving holds the write lock of the whole forest, so the image is a consistent snapshot of all the Drives.
+     */
+    @Override
+    public void saveSnapshot(Path file) throws IOException {
+        forestLock.writeLock().lock();
+        try {
+            delegate.saveSnapshot(file);
+        } finally {
+            forestLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Only capturing holds the write lock of the whole forest, so writers wait for the capture but not for the image to be
+     * written.
+     */
+    @Override
+    public SnapshotCapture captureSnapshot(Path file) throws IOException {
+        forestLock.writeLock().lock();
+        try {
+            return delegate.captureSnapshot(file);
+        } finally {
+            forestLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void loadSnapshot(Path file) throws IOException {
+        forestLock.writeLock().lock();
+        try {
+            delegate.loadSnapshot(file);
+        } finally {
+            forestLock.writeLock().unlock();
+        }
+    }
+
+    private <T> T withWriteLock(String path, Supplier<T> operation) {
+        Lock stripeLock = stripes[stripeIndex(path)].writeLock();
+
+        forestLock.readLock().lock();
+        try {
+            stripeLock.lock();
+            try {
+                return operation.get();
+            } finally {
+                stripeLock.unlock();
+            }
+        } finally {
+            forestLock.readLock().unlock();
+        }
+    }
+
+    private <T> T withReadLock(String path, Supplier<T> operation) {
+        Lock stripeLock = stripes[stripeIndex(path)].readLock();
+
+        forestLock.readLock().lock();
+        try {
+            stripeLock.lock();
+            try {
+                return operation.get();
+            } finally {
+                stripeLock.unlock();
+            }
+        } finally {
+            forestLock.readLock().unlock();
+        }
+    }
+
+    private ReadResult<Stream<EntityInfo>> guarded(String path, ReadResult<Stream<EntityInfo>> entities) {
+        if (!entities.isOk()) return entities;
+
+        List<Lock> locks = List.of(forestLock.readLock(), stripes[stripeIndex(path)].readLock());
+        return ReadResult.of(StreamSupport.stream(new GuardedSpliterator<>(entities.value().spliterator(), locks, () -> { }), false));
+    }
+
+    private int stripeIndex(String path) {
+        String driveName = path == null ? null : pathUtils.getRootElement(path);
+        return sharding.shardOf(driveName, stripes.length);
+    }
+}
@@ -2,135 +2,701 @@ package services;
 
 import entities.*;
 import exceptions.IllegalFileSystemOperationException;
-import exceptions.NotATextFileException;
-import exceptions.PathAlreadyExistsException;
 import exceptions.PathNotFoundException;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import snapshot.SnapshotImage;
+import snapshot.SnapshotNode;
+import snapshot.SnapshotTextContent;
+import snapshot.SnapshotWriter;
+import utils.FileSystemPath;
+import utils.NameIndex;
+import utils.NamePattern;
 import utils.NavigationUtils;
+import utils.PathCache;
 import utils.PathUtils;
+import utils.ResolvedPath;
 import validators.ConstraintsValidator;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @RequiredArgsConstructor
 public class DefaultFileSystemManagementService implements FileSystemManagementService {
 
+    private static final int NOT_LINKED = -2;
+    private static final EntityWalkSpliterator.Tree<Entity> ENTITY_TREE = new EntityWalkSpliterator.Tree<>() {
+        @Override
+        public EntityInfo info(Entity entity, String parentPath) {
+            String path = parentPath == null ? entity.getName() : parentPath + "\\" + entity.getName();
+            return new EntityInfo(entity.getEntityType(), entity.getName(), path, entity.getSize());
+        }
+
+        @Override
+        public boolean isComposable(Entity entity) {
+            return entity instanceof Composable;
+        }
+
+        @Override
+        public EntityWalkSpliterator.Siblings<Entity> childrenOf(Entity entity) {
+            return EntityWalkSpliterator.Siblings.of(entity.getContents());
+        }
+    };
+
+    private static final Consumer<Runnable> NO_UNDO = undoAction -> {
+    };
+
     private final ConstraintsValidator validator;
-    private final List<Entity> drives;
+    private final DriveRegistry drives;
     private final PathUtils pathUtils;
     private final NavigationUtils navigationUtils;
     private final EntityFactory entityFactory;
+    private final EntityReclaimer reclaimer = EntityReclaimer.getInstance();
+    /**
+     * The index of every registered Drive, by Drive name.
+     */
+    private final Map<String, DriveIndex> driveIndexes = new ConcurrentHashMap<>();
     private final Logger log = LogManager.getLogger(DefaultFileSystemManagementService.class);
+    @Setter
+    private OperationLogLevel operationLogLevel = OperationLogLevel.METADATA;
 
     @Override
-    public void create(EntityType type, String name, String path) {
-        String fullPath = pathUtils.trimPath(path + "\\" + name);
-        if (validator.anyValueNull(type, name, path)) throw new IllegalFileSystemOperationException("Type, Name and Path cannot be null.");
-        if (validator.entityAlreadyExists(type, fullPath)) throw new PathAlreadyExistsException("The entity already exists under that path.");
-        if (!validator.isPathSuitableForEntityType(type, fullPath)) throw new IllegalFileSystemOperationException("The provided path does not apply to this entity type.");
-        if (!validator.pathExists(path)) throw new PathNotFoundException("Path does not exist.");
+    public OperationResult tryCreate(EntityType type, String name, String path) {
+        return create(type, name, path, null, NO_UNDO);
+    }
+
+    @Override
+    public OperationResult tryDelete(EntityType type, String path) {
+        return delete(type, path, null, this::reclaim, NO_UNDO);
+    }
+
+    @Override
+    public OperationResult tryMove(EntityType type, String sourcePath, String destinationPath) {
+        return move(type, sourcePath, destinationPath, null, NO_UNDO);
+    }
 
-        log.info("Creating {} under {}", type, fullPath);
+    @Override
+    public OperationResult tryWriteToFile(String path, String content) {
+        return writeToFile(path, content, null, NO_UNDO);
+    }
 
-        String[] pathParts = pathUtils.trimAndSplitPath(path);
+    @Override
+    public ReadResult<Integer> tryGetEntitySize(EntityType type, String path) {
+        if (validator.anyValueNull(type, path)) return ReadResult.rejected(Rejections.NULL_SIZE_ARGUMENT);
+        ResolvedPath resolvedPath = navigationUtils.resolvePath(drives, pathUtils.parsePath(path));
+        Optional<Entity> target = resolvedPath.getTarget(type);
+        if (target.isEmpty()) return ReadResult.rejected(Rejections.entityNotFound(resolvedPath));
 
-        if (type == EntityType.DRIVE) {
-            drives.add(entityFactory.createEntity(type, name, path));
-        } else {
-            Composable parentEntity = navigationUtils.navigateToComposableEntity(drives, pathParts);
+        if (logs(OperationLogLevel.METADATA)) log.info("Getting size info for {} under {}", type, path);
 
-            parentEntity.getContents().add(entityFactory.createEntity(type, name, path));
-        }
+        return ReadResult.of(target.get().getSize());
+    }
+
+    @Override
+    public ReadResult<Stream<EntityInfo>> tryList(String path) {
+        if (validator.anyValueNull(path)) return ReadResult.rejected(Rejections.NULL_PATH);
+        FileSystemPath parsedPath = pathUtils.parsePath(path);
+        ReadResult<Composable> composable = findComposable(parsedPath);
+        if (!composable.isOk()) return ReadResult.rejected(composable.result());
 
-        log.info("Successfully created {} under {}", type, fullPath);
+        if (logs(OperationLogLevel.METADATA)) log.info("Listing contents of {}", path);
+
+        return ReadResult.of(StreamSupport.stream(EntityWalkSpliterator.descendants(ENTITY_TREE, (Entity) composable.value(), parsedPath.toString(), 1, 0), false));
     }
 
     @Override
-    public void delete(EntityType type, String path) {
-        if (validator.anyValueNull(path)) throw new IllegalFileSystemOperationException("Path cannot be null.");
-        if (!validator.entityAlreadyExists(type, path)) throw new PathNotFoundException("The provided path does not exist.");
+    public ReadResult<Stream<EntityInfo>> tryWalk(String path, int maxDepth, Predicate<EntityInfo> filter) {
+        if (validator.anyValueNull(path, filter)) return ReadResult.rejected(Rejections.NULL_WALK_ARGUMENT);
+        if (maxDepth < 0) return ReadResult.rejected(Rejections.NEGATIVE_DEPTH);
+        FileSystemPath parsedPath = pathUtils.parsePath(path);
+        ReadResult<Composable> composable = findComposable(parsedPath);
+        if (!composable.isOk()) return ReadResult.rejected(composable.result());
 
-        log.info("Deleting {} from {}", type, path);
+        if (logs(OperationLogLevel.METADATA)) log.info("Walking {} down to depth {}", path, maxDepth);
 
-        String[] pathParts = pathUtils.trimAndSplitPath(path);
+        String parentPath = parsedPath.isSingleElement() ? null : parsedPath.parent().toString();
+        return ReadResult.of(StreamSupport.stream(EntityWalkSpliterator.subtree(ENTITY_TREE, (Entity) composable.value(), parentPath, maxDepth, 0), false).filter(filter));
+    }
 
-        List<Entity> parentList;
-        Entity elementToDelete;
-        if (EntityType.DRIVE == type) {
-            parentList = drives;
-            elementToDelete = drives.stream().filter(it -> it.getPath().equals(path)).findFirst().get();
-        } else {
-            Composable parent = navigationUtils.navigateToComposableEntity(drives, pathUtils.excludeLastElement(pathParts));
-            parentList = parent.getContents();
-            elementToDelete = navigationUtils.getChildOfType(type, pathParts[pathParts.length - 1], parent).get();
+    /**
+     * Candidates are looked up in the name index of the root's Drive, which is updated as entities are created, loaded,
+     * deleted and moved to another Drive. Moving an entity within its Drive does not change its name, and paths are
+     * derived from the parents, so such moves do not need to update it. Children that were not loaded from a snapshot yet
+     * are loaded (and indexed) first, but only under the root.
+     */
+    @Override
+    public ReadResult<Stream<EntityInfo>> tryFind(String rootPath, String pattern, EntityType type) {
+        if (validator.anyValueNull(rootPath, pattern, type)) return ReadResult.rejected(Rejections.NULL_FIND_ARGUMENT);
+        FileSystemPath parsedRootPath = pathUtils.parsePath(rootPath);
+        ReadResult<Composable> composable = findComposable(parsedRootPath);
+        if (!composable.isOk()) return ReadResult.rejected(composable.result());
+        Entity root = (Entity) composable.value();
+        DriveIndex driveIndex = driveIndexes.get(parsedRootPath.getElement(0));
+
+        if (logs(OperationLogLevel.METADATA)) log.info("Finding {} matching {} under {}", type, pattern, rootPath);
+
+        loadPendingComposables(root, driveIndex);
+        return ReadResult.of(driveIndex.names.find(NamePattern.compile(pattern), type).stream()
+                .filter(it -> it != root && it.isSameOrDescendantOf(root))
+                .map(it -> new EntityInfo(it.getEntityType(), it.getName(), it.getPath(), it.getSize()))
+                .toList()
+                .stream());
+    }
+
+    /**
+     * Operations are applied in the given order, as later operations may depend on earlier ones (e.g. creating a file in
+     * a folder created by the same batch). Parent locations are resolved once per batch and reused by all the operations
+     * under them, until an entity is deleted or moved.
+     * <p>
+     * Every applied operation of an atomic batch records how to undo it, and the undo actions are run in reverse order if
+     * an operation fails. Deleted entities are only reclaimed once the whole batch has been applied, so that they can still
+     * be linked back.
+     */
+    @Override
+    public List<BatchResult> executeBatch(List<BatchOperation> operations, boolean atomic) {
+        if (validator.anyValueNull(operations)) throw new IllegalFileSystemOperationException("Operations cannot be null.");
+
+        List<BatchResult> results = new ArrayList<>(operations.size());
+        Deque<Runnable> undoActions = new ArrayDeque<>();
+        List<Deletion> deletions = new ArrayList<>();
+        Map<FileSystemPath, Composable> resolvedParents = new HashMap<>();
+
+        for (int i = 0; i < operations.size(); i++) {
+            BatchOperation operation = operations.get(i);
+            RuntimeException failure;
+            try {
+                OperationResult result = apply(operation, resolvedParents, deletions::add, atomic ? undoActions::push : NO_UNDO);
+                failure = result.isOk() ? null : result.toException();
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+
+            if (failure == null) {
+                results.add(BatchResult.applied(operation));
+            } else if (!atomic) {
+                results.add(BatchResult.failed(operation, failure));
+            } else {
+                if (logs(OperationLogLevel.METADATA)) log.info("Rolling back {} operations of the batch", undoActions.size());
+                undoActions.forEach(Runnable::run);
+                return BatchResult.aborted(operations, i, failure);
+            }
         }
 
-        if (elementToDelete instanceof Composable) ((Composable) elementToDelete).clearContents();
-        parentList.remove(elementToDelete);
+        deletions.forEach(this::reclaim);
+        return results;
+    }
 
-        log.info("Successfully delete {} from {}", type, path);
+    @Override
+    public void saveSnapshot(Path file) throws IOException {
+        if (validator.anyValueNull(file)) throw new IllegalFileSystemOperationException("File cannot be null.");
+        if (logs(OperationLogLevel.METADATA)) log.info("Saving snapshot of {} drives to {}", drives.size(), file);
+
+        try (SnapshotWriter writer = new SnapshotWriter(file)) {
+            writer.startForest();
+            EntityTraversal.Visitor visitor = new EntityTraversal.Visitor() {
+                @Override
+                public boolean enter(Entity entity, int depth) {
+                    try {
+                        if (entity instanceof TextFile textFile) {
+                            writer.writeTextFile(textFile.getName(), textFile.getContent());
+                        } else {
+                            writer.startComposable(entity.getEntityType(), entity.getName(), entity.getSize());
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return true;
+                }
+
+                @Override
+                public void exit(Entity entity, int depth) {
+                    try {
+                        writer.endComposable();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            };
+
+            try {
+                for (Entity drive : drives) {
+                    EntityTraversal.traverse(drive, EntityTraversal.Order.DEPTH_FIRST, visitor);
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.endComposable();
+        }
+
+        if (logs(OperationLogLevel.METADATA)) log.info("Successfully saved snapshot to {}", file);
     }
 
+    /**
+     * Entities change in place, so capturing copies the names, types and sizes of the forest, and the content of every
+     * TextFile. This takes memory in proportion to the content, but no I/O: the image is written when the capture is
+     * saved, from the copy.
+     */
     @Override
-    public void move(EntityType type, String sourcePath, String destinationPath) {
-        if (validator.anyValueNull(sourcePath, destinationPath)) throw new IllegalFileSystemOperationException("Path cannot be null.");
-        if (!validator.entityAlreadyExists(type, sourcePath)) throw new PathNotFoundException("The requested entity does not exist.");
-        String[] destinationWithoutNewEntity = pathUtils.excludeLastElement(pathUtils.trimAndSplitPath(destinationPath));
-        if (!validator.pathExists(pathUtils.pathToString(destinationWithoutNewEntity))) throw new PathNotFoundException("The destination path does not exist.");
-        if (validator.entityAlreadyExists(type, destinationPath)) throw new PathAlreadyExistsException("The requested entity already exists in destination path.");
-        if (EntityType.DRIVE == type) throw new IllegalFileSystemOperationException("Drives may not be moved around.");
+    public SnapshotCapture captureSnapshot(Path file) {
+        if (validator.anyValueNull(file)) throw new IllegalFileSystemOperationException("File cannot be null.");
+
+        List<CapturedEntity> capturedDrives = new ArrayList<>();
+        Deque<List<CapturedEntity>> openChildren = new ArrayDeque<>();
+        openChildren.push(capturedDrives);
+        EntityTraversal.Visitor visitor = new EntityTraversal.Visitor() {
+            @Override
+            public boolean enter(Entity entity, int depth) {
+                if (entity instanceof TextFile textFile) {
+                    openChildren.element().add(new CapturedEntity(EntityType.TEXT_FILE, textFile.getName(), 0, textFile.getContent(), null));
+                } else {
+                    List<CapturedEntity> children = new ArrayList<>();
+                    openChildren.element().add(new CapturedEntity(entity.getEntityType(), entity.getName(), entity.getSize(), null, children));
+                    openChildren.push(children);
+                }
+                return true;
+            }
+
+            @Override
+            public void exit(Entity entity, int depth) {
+                openChildren.pop();
+            }
+        };
+        for (Entity drive : drives) {
+            EntityTraversal.traverse(drive, EntityTraversal.Order.DEPTH_FIRST, visitor);
+        }
+
+        return () -> save(capturedDrives, file);
+    }
 
-        log.info("Moving {} from {}", type, sourcePath);
+    private void save(List<CapturedEntity> capturedDrives, Path file) throws IOException {
+        if (logs(OperationLogLevel.METADATA)) log.info("Saving captured snapshot of {} drives to {}", capturedDrives.size(), file);
+
+        try (SnapshotWriter writer = new SnapshotWriter(file)) {
+            writer.startForest();
+            Deque<Iterator<CapturedEntity>> pendingChildren = new ArrayDeque<>();
+            pendingChildren.push(capturedDrives.iterator());
+
+            // Iterative on purpose, so that deep hierarchies cannot overflow the stack
+            while (!pendingChildren.isEmpty()) {
+                Iterator<CapturedEntity> children = pendingChildren.peek();
+                if (!children.hasNext()) {
+                    pendingChildren.pop();
+                    writer.endComposable();
+                    continue;
+                }
+
+                CapturedEntity child = children.next();
+                if (child.children() == null) {
+                    writer.writeTextFile(child.name(), child.content());
+                } else {
+                    writer.startComposable(child.type(), child.name(), child.size());
+                    pendingChildren.push(child.children().iterator());
+                }
+            }
+        }
 
-        String[] sourcePathParts = pathUtils.trimAndSplitPath(sourcePath);
-        String[] sourcePathWithoutEntity = pathUtils.excludeLastElement(sourcePathParts);
-        Composable oldParent = navigationUtils.navigateToComposableEntity(drives, sourcePathWithoutEntity);
+        if (logs(OperationLogLevel.METADATA)) log.info("Successfully saved snapshot to {}", file);
+    }
 
-        Entity movingEntity = navigationUtils.getChildOfType(type, sourcePathParts[sourcePathParts.length - 1], oldParent).get();
+    /**
+     * Only the Drives are read from the image when loading: the children of every Composable entity, and the content of
+     * every TextFile, are read from the mapped image when they are first accessed.
+     */
+    @Override
+    public void loadSnapshot(Path file) throws IOException {
+        if (validator.anyValueNull(file)) throw new IllegalFileSystemOperationException("File cannot be null.");
+        if (logs(OperationLogLevel.METADATA)) log.info("Loading snapshot from {}", file);
+
+        List<Drive> restoredDrives = new ArrayList<>();
+        Map<String, DriveIndex> restoredIndexes = new HashMap<>();
+        for (SnapshotNode driveNode : SnapshotImage.map(file).getForest().getChildren()) {
+            Drive drive = (Drive) restoreEntity(driveNode, null);
+            DriveIndex driveIndex = new DriveIndex(drive);
+            driveIndex.addRestored(drive);
+            restoredDrives.add(drive);
+            restoredIndexes.put(drive.getName(), driveIndex);
+        }
+
+        List<Drive> replacedDrives = drives.replaceAll(restoredDrives);
+        driveIndexes.clear();
+        driveIndexes.putAll(restoredIndexes);
+        navigationUtils.getPathCache().invalidateAll();
+        // The indexes of the replaced Drives are dropped with them, so their entities do not need to be removed one by one
+        replacedDrives.forEach(reclaimer::reclaim);
+
+        if (logs(OperationLogLevel.METADATA)) log.info("Successfully loaded {} drives from {}", drives.size(), file);
+    }
+
+    private OperationResult apply(BatchOperation operation, Map<FileSystemPath, Composable> resolvedParents, Consumer<Deletion> deletions, Consumer<Runnable> undoActions) {
+        return switch (operation) {
+            case null -> Rejections.NULL_BATCH_OPERATION;
+            case BatchOperation.Create create -> create(create.type(), create.name(), create.path(), resolvedParents, undoActions);
+            case BatchOperation.Delete delete -> {
+                OperationResult result = delete(delete.type(), delete.path(), resolvedParents, deletions, undoActions);
+                resolvedParents.clear();
+                yield result;
+            }
+            case BatchOperation.Move move -> {
+                OperationResult result = move(move.type(), move.sourcePath(), move.destinationPath(), resolvedParents, undoActions);
+                resolvedParents.clear();
+                yield result;
+            }
+            case BatchOperation.WriteToFile writeToFile -> writeToFile(writeToFile.path(), writeToFile.content(), resolvedParents, undoActions);
+        };
+    }
+
+    private OperationResult create(EntityType type, String name, String path, Map<FileSystemPath, Composable> resolvedParents, Consumer<Runnable> undoActions) {
+        if (validator.anyValueNull(type, name, path)) return Rejections.NULL_CREATION_ARGUMENT;
+        String fullPath = pathUtils.trimPath(path + "\\" + name);
+        ResolvedPath resolvedPath = resolvePath(fullPath, resolvedParents);
+        OperationResult validation = validator.validateCreation(type, resolvedPath);
+        if (!validation.isOk()) return validation;
+
+        if (logs(OperationLogLevel.METADATA)) log.info("Creating {} under {}", type, fullPath);
+
+        Entity newEntity = entityFactory.createEntity(type, name);
+        DriveIndex driveIndex;
+        if (newEntity instanceof Drive drive) {
+            // The registry has the last word, as another Drive may have taken the name since the validation
+            if (!drives.register(drive)) return Rejections.DRIVE_ALREADY_EXISTS;
+            driveIndex = new DriveIndex(drive);
+            driveIndexes.put(drive.getName(), driveIndex);
+        } else {
+            resolvedPath.getParent().getContents().add(newEntity);
+            driveIndex = driveIndexes.get(resolvedPath.getDriveName());
+        }
+        // A Composable of another type may be cached under the same path, while lookups now prefer the new entity
+        invalidateCachedPaths(newEntity);
+        driveIndex.add(newEntity);
+
+        if (logs(OperationLogLevel.METADATA)) log.info("Successfully created {} under {}", type, fullPath);
+
+        undoActions.accept(() -> {
+            invalidateCachedPaths(newEntity);
+            unlink(newEntity, resolvedPath);
+            if (newEntity instanceof Drive) {
+                driveIndexes.remove(newEntity.getName());
+            } else {
+                driveIndex.remove(newEntity);
+            }
+        });
+        return OperationResult.OK;
+    }
 
-        Composable newParent = navigationUtils.navigateToComposableEntity(drives, destinationWithoutNewEntity);
+    /**
+     * Unlinks the entity from its parent, and hands it to deletions so that its subtree is reclaimed. Unlinking
+     * does not depend on the size of the subtree, which is reclaimed in the background, but it is linear in the number
+     * of children of the parent (see unlink).
+     */
+    private OperationResult delete(EntityType type, String path, Map<FileSystemPath, Composable> resolvedParents, Consumer<Deletion> deletions, Consumer<Runnable> undoActions) {
+        if (validator.anyValueNull(path)) return Rejections.NULL_PATH;
+        ResolvedPath resolvedPath = resolvePath(path, resolvedParents);
+        OperationResult validation = validator.validateDeletion(type, resolvedPath);
+        if (!validation.isOk()) return validation;
+
+        if (logs(OperationLogLevel.METADATA)) log.info("Deleting {} from {}", type, path);
+
+        Entity elementToDelete = getTarget(type, resolvedPath);
+        DriveIndex driveIndex = driveIndexes.get(resolvedPath.getDriveName());
+
+        invalidateCachedPaths(elementToDelete);
+        int index = unlink(elementToDelete, resolvedPath);
+        if (index == NOT_LINKED) return Rejections.ENTITY_NOT_FOUND;
+        if (elementToDelete instanceof Drive) {
+            // The index of a Drive is dropped with it, so its entities do not need to be removed one by one
+            driveIndexes.remove(elementToDelete.getName());
+            deletions.accept(new Deletion(elementToDelete, null));
+        } else {
+            deletions.accept(new Deletion(elementToDelete, driveIndex));
+        }
+
+        if (logs(OperationLogLevel.METADATA)) log.info("Successfully delete {} from {}", type, path);
+
+        undoActions.accept(() -> {
+            if (elementToDelete instanceof Drive drive) {
+                drives.register(drive);
+                driveIndexes.put(drive.getName(), driveIndex);
+            } else {
+                resolvedPath.getParent().getContents().add(index, elementToDelete);
+            }
+        });
+        return OperationResult.OK;
+    }
+
+    private OperationResult move(EntityType type, String sourcePath, String destinationPath, Map<FileSystemPath, Composable> resolvedParents, Consumer<Runnable> undoActions) {
+        if (validator.anyValueNull(sourcePath, destinationPath)) return Rejections.NULL_PATH;
+        ResolvedPath source = resolvePath(sourcePath, resolvedParents);
+        ResolvedPath destination = resolvePath(destinationPath, resolvedParents);
+        OperationResult validation = validator.validateMove(type, source, destination);
+        if (!validation.isOk()) return validation;
+
+        List<Entity> oldParentContents = source.getParent().getContents();
+        Entity movingEntity = getTarget(type, source);
+        Composable newParent = destination.getParent();
+
+        if (logs(OperationLogLevel.METADATA)) log.info("Moving {} from {}", type, sourcePath);
+
+        // Descendants' paths are derived from their parents, so re-linking the entity is enough
+        int oldIndex = indexOfSame(oldParentContents, movingEntity);
+        invalidateCachedPaths(movingEntity);
+        oldParentContents.remove(oldIndex);
         newParent.getContents().add(movingEntity);
-        movingEntity.updateDescendantsPath(((Entity) newParent).getPath());
-        oldParent.getContents().remove(movingEntity);
+        // Only moves to another Drive change the index of the moved entities, which are then moved between indexes
+        DriveIndex sourceIndex = driveIndexes.get(source.getDriveName());
+        DriveIndex destinationIndex = driveIndexes.get(destination.getDriveName());
+        if (sourceIndex != destinationIndex) reindex(movingEntity, sourceIndex, destinationIndex);
+
+        if (logs(OperationLogLevel.METADATA)) log.info("Successfully moved {} to {}", type, destinationPath);
+
+        undoActions.accept(() -> {
+            invalidateCachedPaths(movingEntity);
+            newParent.getContents().remove(movingEntity);
+            oldParentContents.add(oldIndex, movingEntity);
+            if (sourceIndex != destinationIndex) reindex(movingEntity, destinationIndex, sourceIndex);
+        });
+        return OperationResult.OK;
+    }
+
+    private OperationResult writeToFile(String path, String content, Map<FileSystemPath, Composable> resolvedParents, Consumer<Runnable> undoActions) {
+        if (validator.anyValueNull(path, content)) return Rejections.NULL_WRITE_ARGUMENT;
+        ResolvedPath resolvedPath = resolvePath(path, resolvedParents);
+        OperationResult validation = validator.validateWrite(resolvedPath);
+        if (!validation.isOk()) return validation;
+
+        if (logs(OperationLogLevel.FULL)) log.info("Writing {} to file in {}", content, path);
+
+        TextFile textFile = (TextFile) getTarget(EntityType.TEXT_FILE, resolvedPath);
+        int previousLength = textFile.getSize();
+
+        textFile.appendContent(content);
 
-        log.info("Successfully moved {} to {}", type, destinationPath);
+        if (logs(OperationLogLevel.FULL)) {
+            log.info("Successfully appended content. New content is {}", textFile.getContent());
+        } else if (logs(OperationLogLevel.METADATA)) {
+            log.info("Successfully appended {} characters to {}. New size is {}", content.length(), path, textFile.getSize());
+        }
+
+        undoActions.accept(() -> textFile.truncateContent(previousLength));
+        return OperationResult.OK;
     }
 
-    @Override
-    public void writeToFile(String path, String content) {
-        if (validator.anyValueNull(path, content)) throw new IllegalFileSystemOperationException("Path and content cannot be null.");
-        if (!validator.entityAlreadyExists(EntityType.TEXT_FILE, path)) throw new NotATextFileException("The provided path is not a text file.");
+    /**
+     * Unlinks the entity from the Drive registry, if it is a Drive, or from the parent of the resolved path.
+     * <p>
+     * Unlinking from a parent is linear in its number of children: the entity is found by an identity scan of the
+     * contents, and removing it shifts the children after it. The shift is a single array copy, so the scan dominates.
+     *
+     * @return the index the entity had in its parent, -1 for Drives, or NOT_LINKED if the Drive was not registered.
+     */
+    private int unlink(Entity entity, ResolvedPath resolvedPath) {
+        if (entity instanceof Drive drive) return drives.unregister(drive) ? -1 : NOT_LINKED;
+
+        List<Entity> parentContents = resolvedPath.getParent().getContents();
+        int index = indexOfSame(parentContents, entity);
+        parentContents.remove(index);
+        return index;
+    }
+
+    /**
+     * Invalidates the cached paths of the entity and its descendants. It must be called while the entity is still linked
+     * where it is being unlinked from, as its path is derived from its parents.
+     */
+    private void invalidateCachedPaths(Entity entity) {
+        PathCache pathCache = navigationUtils.getPathCache();
+        if (pathCache.isEnabled() && entity instanceof Composable) pathCache.invalidate(pathUtils.parsePath(entity.getPath()));
+    }
+
+    /**
+     * Resolves the path, going through the resolved parents of the current batch if there is one.
+     */
+    private ResolvedPath resolvePath(String path, Map<FileSystemPath, Composable> resolvedParents) {
+        FileSystemPath parsedPath = pathUtils.parsePath(path);
+
+        return resolvedParents == null ?
+                navigationUtils.resolvePath(drives, parsedPath) :
+                navigationUtils.resolvePath(drives, parsedPath, resolvedParents);
+    }
+
+    private List<Entity> restoreChildren(SnapshotNode node, DriveIndex driveIndex) {
+        List<Entity> children = new ArrayList<>();
+        for (SnapshotNode child : node.getChildren()) {
+            children.add(restoreEntity(child, driveIndex));
+        }
+        return children;
+    }
 
-        log.info("Writing {} to file in {}", content, path);
+    /**
+     * Restores an entity from a snapshot, and adds it to the index of its Drive, if it has one.
+     */
+    private Entity restoreEntity(SnapshotNode node, DriveIndex driveIndex) {
+        Entity restoredEntity;
+        if (node.isComposable()) {
+            Entity composable = entityFactory.createEntity(node.getType(), node.getName());
+            composable.restoreContents((int) node.getSize(), () -> {
+                // The entity may have been moved to another Drive since it was restored
+                DriveIndex currentIndex = driveIndexOf(composable);
+                if (currentIndex != null) currentIndex.pendingComposables.remove(composable);
+                return restoreChildren(node, currentIndex);
+            });
+            restoredEntity = composable;
+        } else {
+            restoredEntity = new TextFile(EntityType.TEXT_FILE, node.getName(), new SnapshotTextContent(node, entityFactory.getTextStorage()));
+        }
+        if (driveIndex != null) driveIndex.addRestored(restoredEntity);
+        return restoredEntity;
+    }
 
-        String[] pathParts = pathUtils.trimAndSplitPath(path);
+    /**
+     * Returns the index of the Drive an entity is in, walking up to its root.
+     *
+     * @return the index, or null if the entity is not under a registered Drive (e.g. it was deleted).
+     */
+    private DriveIndex driveIndexOf(Entity entity) {
+        Entity root = entity;
+        while (root.getParent() != null) {
+            root = root.getParent();
+        }
+        DriveIndex driveIndex = driveIndexes.get(root.getName());
+        return driveIndex != null && driveIndex.drive == root ? driveIndex : null;
+    }
 
-        Composable parent = navigationUtils.navigateToComposableEntity(drives, pathUtils.excludeLastElement(pathParts));
+    /**
+     * Loads the children of the restored entities under the root, until all of them are loaded and indexed.
+     * <p>
+     * The pending entities of the root's Drive are scanned once. Every entity restored below a pending one was still in
+     * the image at that point, so the subtrees of the pending entities are walked as they are loaded, and nothing else is.
+     */
+    private void loadPendingComposables(Entity root, DriveIndex driveIndex) {
+        List<Entity> pendingUnderRoot;
+        synchronized (driveIndex.pendingComposables) {
+            if (driveIndex.pendingComposables.isEmpty()) return;
+            pendingUnderRoot = driveIndex.pendingComposables.stream().filter(it -> it.isSameOrDescendantOf(root)).toList();
+        }
 
-        TextFile textFile = (TextFile) navigationUtils.getChildOfType(EntityType.TEXT_FILE, pathParts[pathParts.length - 1], parent).get();
+        Deque<Entity> unloadedSubtrees = new ArrayDeque<>(pendingUnderRoot);
+        // Iterative on purpose, so that deep hierarchies cannot overflow the stack
+        while (!unloadedSubtrees.isEmpty()) {
+            for (Entity child : unloadedSubtrees.pop().getContents()) {
+                if (child instanceof Composable) unloadedSubtrees.push(child);
+            }
+        }
+    }
 
-        textFile.setContent(textFile.getContent() + content);
+    /**
+     * Moves the loaded entities of a subtree from the index of a Drive to the index of another one. Children that were
+     * not loaded from a snapshot yet are indexed in the destination Drive when they are loaded.
+     */
+    private void reindex(Entity entity, DriveIndex from, DriveIndex to) {
+        EntityTraversal.forEachLoadedParallel(entity, it -> {
+            boolean pending = from.pendingComposables.remove(it);
+            from.remove(it);
+            to.add(it);
+            if (pending) to.pendingComposables.add(it);
+        });
+    }
 
-        log.info("Successfully appended content. New content is {}", textFile.getContent());
+    /**
+     * Reclaims a deleted subtree in the background, removing its entities from the index of their Drive if it still
+     * has one.
+     */
+    private void reclaim(Deletion deletion) {
+        DriveIndex driveIndex = deletion.driveIndex();
+        reclaimer.reclaim(deletion.entity(), driveIndex == null ? null : driveIndex::remove);
     }
 
-    @Override
-    public int getEntitySize(EntityType type, String path) {
-        if (validator.anyValueNull(type, path)) throw new IllegalFileSystemOperationException("Entity type and path cannot be null.");
-        if (!validator.entityAlreadyExists(type, path)) throw new PathNotFoundException("The requested entity does not exist.");
+    /**
+     * Finds an entity by identity, as entities with the same name and contents are equal.
+     */
+    private static int indexOfSame(List<Entity> entities, Entity entity) {
+        for (int i = 0; i < entities.size(); i++) {
+            if (entities.get(i) == entity) return i;
+        }
+        return -1;
+    }
 
-        log.info("Getting size info for {} under {}", type, path);
+    private boolean logs(OperationLogLevel level) {
+        return operationLogLevel.includes(level) && log.isInfoEnabled();
+    }
 
-        String[] pathParts = pathUtils.trimAndSplitPath(path);
+    /**
+     * Looks up the Composable entity at the end of a path, as navigateToComposableEntity does, but reports a missing
+     * path element as a rejection instead of throwing.
+     */
+    private ReadResult<Composable> findComposable(FileSystemPath path) {
+        PathCache pathCache = navigationUtils.getPathCache();
+        Composable cachedComposable = pathCache.get(path);
+        if (cachedComposable != null) return ReadResult.of(cachedComposable);
+
+        ResolvedPath resolvedPath = navigationUtils.resolvePath(drives, path);
+        Optional<Composable> composable = resolvedPath.getComposableTarget();
+        if (composable.isEmpty()) return ReadResult.rejected(Rejections.composableNotFound(resolvedPath, path));
+
+        pathCache.put(path, composable.get());
+        return ReadResult.of(composable.get());
+    }
+
+    private Entity getTarget(EntityType type, ResolvedPath resolvedPath) {
+        return resolvedPath.getTarget(type).orElseThrow(() -> new PathNotFoundException("The requested entity does not exist."));
+    }
+
+    /**
+     * A copy of an entity taken by captureSnapshot, with the content of a TextFile, or the children of a Composable.
+     */
+    private record CapturedEntity(EntityType type, String name, int size, String content, List<CapturedEntity> children) {
+    }
+
+    /**
+     * An entity deleted by an operation, to be reclaimed once the operation (or its batch) is over, along with the index
+     * of the Drive it was deleted from, or null if it is a Drive.
+     */
+    private record Deletion(Entity entity, DriveIndex driveIndex) {
+    }
+
+    /**
+     * The name index of the entities of a Drive, along with its Composable entities restored from a snapshot whose
+     * children were not loaded, and thus indexed, yet. Every Drive has its own, so that a search only reads the entities
+     * of the Drive it runs in, which are the ones guarded by the locks of that Drive.
+     */
+    private static final class DriveIndex {
+        private final Drive drive;
+        private final NameIndex<Entity> names = new NameIndex<>(() -> Collections.newSetFromMap(new IdentityHashMap<>()));
+        private final Set<Entity> pendingComposables = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+
+        private DriveIndex(Drive drive) {
+            this.drive = drive;
+        }
 
-        Composable parent = navigationUtils.navigateToComposableEntity(drives, pathUtils.excludeLastElement(pathParts));
+        private void add(Entity entity) {
+            names.add(entity.getName(), entity.getEntityType(), entity);
+        }
 
-        Entity entity = type == EntityType.DRIVE ?
-                navigationUtils.findDrive(drives, path).get() :
-                navigationUtils.getChildOfType(type, pathParts[pathParts.length - 1], parent).get();
+        private void addRestored(Entity entity) {
+            add(entity);
+            if (entity instanceof Composable) pendingComposables.add(entity);
+        }
 
-        return entity.getSize();
+        private void remove(Entity entity) {
+            names.remove(entity.getName(), entity.getEntityType(), entity);
+            pendingComposables.remove(entity);
+        }
     }
 }
@@ -0,0 +1,14 @@
+package services;
+
+import entities.EntityType;
+
+/**
+ * EntityInfo describes an entity returned by the listing operations, detached from the storage the FileSystem uses.
+ *
+ * @param type the type of the entity.
+ * @param name the name of the entity.
+ * @param path the full path of the entity, including its name.
+ * @param size the size of the entity.
+ */
+public record EntityInfo(EntityType type, String name, String path, int size) {
+}
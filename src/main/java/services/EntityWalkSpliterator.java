@@ -0,0 +1,221 @@
+package services;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * EntityWalkSpliterator streams a subtree lazily, depth-first and in pre-order: the children of a node are only read
+ * when the walk reaches them, one at a time, so that no list of entries is built no matter how big a folder is.
+ * <p>
+ * Pending siblings are kept as frames of a stack, deepest first. Splitting hands the deeper frames, together with the
+ * first half of the shallowest siblings when they can be split, to a new spliterator, so that the returned spliterator
+ * always covers a prefix of the walk and the encounter order is preserved in parallel streams.
+ *
+ * @param <N> the type of the nodes of the tree.
+ */
+final class EntityWalkSpliterator<N> implements Spliterator<EntityInfo> {
+
+    private final Tree<N> tree;
+    private final Deque<Frame<N>> pendingFrames;
+    private final int maxDepth;
+    private final int characteristics;
+
+    private EntityWalkSpliterator(Tree<N> tree, Deque<Frame<N>> pendingFrames, int maxDepth, int characteristics) {
+        this.tree = tree;
+        this.pendingFrames = pendingFrames;
+        this.maxDepth = maxDepth;
+        this.characteristics = characteristics;
+    }
+
+    /**
+     * Creates a spliterator over the descendants of a Composable node.
+     *
+     * @param tree the tree of the node.
+     * @param node the Composable node.
+     * @param path the path of the node.
+     * @param maxDepth the maximum depth to descend to, the children of the node being at depth 1.
+     * @param characteristics the characteristics to report, in addition to ORDERED and NONNULL.
+     * @return the spliterator.
+     */
+    static <N> EntityWalkSpliterator<N> descendants(Tree<N> tree, N node, String path, int maxDepth, int characteristics) {
+        Deque<Frame<N>> pendingFrames = new ArrayDeque<>();
+        pendingFrames.push(new Frame<>(tree.childrenOf(node), path, 1));
+        return new EntityWalkSpliterator<>(tree, pendingFrames, maxDepth, characteristics);
+    }
+
+    /**
+     * Creates a spliterator over a node and its descendants.
+     *
+     * @param tree the tree of the node.
+     * @param node the node.
+     * @param parentPath the path of the parent of the node, or null for Drives.
+     * @param maxDepth the maximum depth to descend to, the node being at depth 0.
+     * @param characteristics the characteristics to report, in addition to ORDERED and NONNULL.
+     * @return the spliterator.
+     */
+    static <N> EntityWalkSpliterator<N> subtree(Tree<N> tree, N node, String parentPath, int maxDepth, int characteristics) {
+        Deque<Frame<N>> pendingFrames = new ArrayDeque<>();
+        pendingFrames.push(new Frame<>(Siblings.of(List.of(node)), parentPath, 0));
+        return new EntityWalkSpliterator<>(tree, pendingFrames, maxDepth, characteristics);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super EntityInfo> action) {
+        while (!pendingFrames.isEmpty()) {
+            Frame<N> frame = pendingFrames.peek();
+            N node = frame.siblings.next();
+            if (node == null) {
+                pendingFrames.pop();
+                continue;
+            }
+
+            EntityInfo info = tree.info(node, frame.parentPath);
+            if (frame.depth < maxDepth && tree.isComposable(node)) {
+                pendingFrames.push(new Frame<>(tree.childrenOf(node), info.path(), frame.depth + 1));
+            }
+            action.accept(info);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Spliterator<EntityInfo> trySplit() {
+        Frame<N> shallowestFrame = pendingFrames.peekLast();
+        if (shallowestFrame == null) return null;
+
+        Siblings<N> firstSiblings = shallowestFrame.siblings.trySplit();
+        if (firstSiblings == null && pendingFrames.size() == 1) return null;
+
+        Deque<Frame<N>> prefixFrames = new ArrayDeque<>();
+        while (pendingFrames.size() > 1) {
+            prefixFrames.addLast(pendingFrames.pollFirst());
+        }
+        if (firstSiblings != null) {
+            prefixFrames.addLast(new Frame<>(firstSiblings, shallowestFrame.parentPath, shallowestFrame.depth));
+        }
+        return new EntityWalkSpliterator<>(tree, prefixFrames, maxDepth, characteristics);
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | characteristics;
+    }
+
+    /**
+     * Tree gives the spliterator access to the nodes of a storage.
+     *
+     * @param <N> the type of the nodes.
+     */
+    interface Tree<N> {
+        /**
+         * Describes a node.
+         *
+         * @param node the node.
+         * @param parentPath the path of the parent of the node, or null for Drives.
+         * @return the description of the node.
+         */
+        EntityInfo info(N node, String parentPath);
+
+        boolean isComposable(N node);
+
+        /**
+         * Returns the children of a Composable node, in insertion order.
+         *
+         * @param node the Composable node.
+         * @return the children of the node.
+         */
+        Siblings<N> childrenOf(N node);
+    }
+
+    /**
+     * Siblings is a cursor over the children of a node.
+     *
+     * @param <N> the type of the nodes.
+     */
+    abstract static class Siblings<N> {
+
+        /**
+         * Returns the next sibling.
+         *
+         * @return the next sibling, or null if there are no more.
+         */
+        abstract N next();
+
+        /**
+         * Splits off the first half of the remaining siblings, if the cursor supports it.
+         *
+         * @return a cursor over the first half of the remaining siblings, or null if they cannot be split.
+         */
+        Siblings<N> trySplit() {
+            return null;
+        }
+
+        /**
+         * Creates a cursor over a list, which can be split in halves.
+         */
+        static <N> Siblings<N> of(List<N> nodes) {
+            return new ListSiblings<>(nodes, 0, nodes.size());
+        }
+
+        /**
+         * Creates a cursor over a chain of siblings, which cannot be split.
+         *
+         * @param first the first sibling, or null if there is none.
+         * @param nextSibling the function returning the sibling that follows a node, or null for the last one.
+         */
+        static <N> Siblings<N> chain(N first, UnaryOperator<N> nextSibling) {
+            return new Siblings<>() {
+                private N next = first;
+
+                @Override
+                N next() {
+                    N current = next;
+                    if (current != null) next = nextSibling.apply(current);
+                    return current;
+                }
+            };
+        }
+    }
+
+    private static final class ListSiblings<N> extends Siblings<N> {
+        private final List<N> nodes;
+        private int index;
+        private final int end;
+
+        private ListSiblings(List<N> nodes, int index, int end) {
+            this.nodes = nodes;
+            this.index = index;
+            this.end = end;
+        }
+
+        @Override
+        N next() {
+            // The list may shrink under a weakly consistent walk, so its current size is checked as well
+            if (index >= Math.min(end, nodes.size())) return null;
+            return nodes.get(index++);
+        }
+
+        @Override
+        Siblings<N> trySplit() {
+            if (end - index < 2) return null;
+
+            int middle = (index + end) >>> 1;
+            Siblings<N> firstHalf = new ListSiblings<>(nodes, index, middle);
+            index = middle;
+            return firstHalf;
+        }
+    }
+
+    private record Frame<N>(Siblings<N> siblings, String parentPath, int depth) {
+    }
+}
@@ -2,8 +2,18 @@ package services;
 
 import entities.EntityType;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
 /**
  * FileSystemManagementService provides an API for the operations that may take place within the system.
+ * <p>
+ * Every mutation and read has a throwing version and a try version that returns an OperationResult (or a ReadResult)
+ * instead. Callers that expect many rejections (e.g. commands coming from the network) should prefer the latter,
+ * although the exceptions thrown by the FileSystem do not capture stack traces either.
  */
 public interface FileSystemManagementService {
 
@@ -14,7 +24,9 @@ public interface FileSystemManagementService {
      * @param name the name of the entity.
      * @param path the path of the entity.
      */
-    void create(EntityType type, String name, String path);
+    default void create(EntityType type, String name, String path) {
+        tryCreate(type, name, path).orThrow();
+    }
 
     /**
      * Deletes an existent entity.
@@ -22,7 +34,9 @@ public interface FileSystemManagementService {
      * @param type the type of the entity to be deleted.
      * @param path the path to the entity.
      */
-    void delete(EntityType type, String path);
+    default void delete(EntityType type, String path) {
+        tryDelete(type, path).orThrow();
+    }
 
     /**
      * Moves an entity from one location to another.
@@ -31,7 +45,9 @@ public interface FileSystemManagementService {
      * @param sourcePath the path where the entity is currently located.
      * @param destinationPath the path where the entity should be moved to.
      */
-    void move(EntityType type, String sourcePath, String destinationPath);
+    default void move(EntityType type, String sourcePath, String destinationPath) {
+        tryMove(type, sourcePath, destinationPath).orThrow();
+    }
 
     /**
      * Adds content to a TextFile.
@@ -39,7 +55,47 @@ public interface FileSystemManagementService {
      * @param path the path to the text file.
      * @param content the content to be added.
      */
-    void writeToFile(String path, String content);
+    default void writeToFile(String path, String content) {
+        tryWriteToFile(path, content).orThrow();
+    }
+
+    /**
+     * Creates a new Entity, reporting a rejection as a result instead of throwing.
+     *
+     * @param type the type of the entity.
+     * @param name the name of the entity.
+     * @param path the path of the entity.
+     * @return OK, or the reason why the entity was not created.
+     */
+    OperationResult tryCreate(EntityType type, String name, String path);
+
+    /**
+     * Deletes an existent entity, reporting a rejection as a result instead of throwing.
+     *
+     * @param type the type of the entity to be deleted.
+     * @param path the path to the entity.
+     * @return OK, or the reason why the entity was not deleted.
+     */
+    OperationResult tryDelete(EntityType type, String path);
+
+    /**
+     * Moves an entity from one location to another, reporting a rejection as a result instead of throwing.
+     *
+     * @param type the type of the entity to be moved.
+     * @param sourcePath the path where the entity is currently located.
+     * @param destinationPath the path where the entity should be moved to.
+     * @return OK, or the reason why the entity was not moved.
+     */
+    OperationResult tryMove(EntityType type, String sourcePath, String destinationPath);
+
+    /**
+     * Adds content to a TextFile, reporting a rejection as a result instead of throwing.
+     *
+     * @param path the path to the text file.
+     * @param content the content to be added.
+     * @return OK, or the reason why the content was not added.
+     */
+    OperationResult tryWriteToFile(String path, String content);
 
     /**
      * Gets the size of the requested entity.
@@ -48,5 +104,130 @@ public interface FileSystemManagementService {
      * @param path the path to the entity.
      * @return the size of the requested entity.
      */
-    int getEntitySize(EntityType type, String path);
+    default int getEntitySize(EntityType type, String path) {
+        return tryGetEntitySize(type, path).orThrow();
+    }
+
+    /**
+     * Lists the children of a Composable entity (a Drive, Folder or ZipFile) in insertion order.
+     * The stream is lazy: children are read as it is consumed, so listing big folders does not copy them, and it can
+     * be split to be consumed in parallel.
+     *
+     * @param path the path to the Composable entity.
+     * @return a stream with the children of the entity.
+     */
+    default Stream<EntityInfo> list(String path) {
+        return tryList(path).orThrow();
+    }
+
+    /**
+     * Walks the subtree of a Composable entity depth-first, in pre-order, starting with the entity itself at depth 0.
+     * The stream is lazy: entities are read as it is consumed, so that short-circuiting operations (e.g. findFirst) stop
+     * the walk early, and it can be split to be consumed in parallel.
+     *
+     * @param path the path to the Composable entity.
+     * @param maxDepth the maximum depth to walk down to, 0 meaning the entity alone.
+     * @param filter the condition the returned entities must meet. Entities that do not meet it are still walked into.
+     * @return a stream with the entities of the subtree that meet the condition.
+     */
+    default Stream<EntityInfo> walk(String path, int maxDepth, Predicate<EntityInfo> filter) {
+        return tryWalk(path, maxDepth, filter).orThrow();
+    }
+
+    /**
+     * Finds the entities of a type whose name matches a glob pattern, anywhere under a Composable entity.
+     * In the pattern, * matches any sequence of characters and ? matches any single character, e.g. *.log.
+     *
+     * @param rootPath the path to the Composable entity to search under, which is not part of the results itself.
+     * @param pattern the glob pattern the names must match.
+     * @param type the type of the entities.
+     * @return a stream with the matching entities, in no particular order.
+     */
+    default Stream<EntityInfo> find(String rootPath, String pattern, EntityType type) {
+        return tryFind(rootPath, pattern, type).orThrow();
+    }
+
+    /**
+     * Gets the size of the requested entity, reporting a rejection as a result instead of throwing.
+     *
+     * @param type the entity type.
+     * @param path the path to the entity.
+     * @return the size of the requested entity, or the reason why it could not be read.
+     */
+    ReadResult<Integer> tryGetEntitySize(EntityType type, String path);
+
+    /**
+     * Lists the children of a Composable entity, reporting a rejection as a result instead of throwing. Once the stream
+     * is returned, consuming it behaves as with list.
+     *
+     * @param path the path to the Composable entity.
+     * @return a stream with the children of the entity, or the reason why they could not be listed.
+     */
+    ReadResult<Stream<EntityInfo>> tryList(String path);
+
+    /**
+     * Walks the subtree of a Composable entity, reporting a rejection as a result instead of throwing. Once the stream
+     * is returned, consuming it behaves as with walk.
+     *
+     * @param path the path to the Composable entity.
+     * @param maxDepth the maximum depth to walk down to, 0 meaning the entity alone.
+     * @param filter the condition the returned entities must meet. Entities that do not meet it are still walked into.
+     * @return a stream with the entities of the subtree that meet the condition, or the reason why it could not be walked.
+     */
+    ReadResult<Stream<EntityInfo>> tryWalk(String path, int maxDepth, Predicate<EntityInfo> filter);
+
+    /**
+     * Finds the entities of a type whose name matches a glob pattern under a Composable entity, reporting a rejection as
+     * a result instead of throwing.
+     *
+     * @param rootPath the path to the Composable entity to search under, which is not part of the results itself.
+     * @param pattern the glob pattern the names must match.
+     * @param type the type of the entities.
+     * @return a stream with the matching entities, or the reason why they could not be found.
+     */
+    ReadResult<Stream<EntityInfo>> tryFind(String rootPath, String pattern, EntityType type);
+
+    /**
+     * Executes a batch of operations in the given order, as if each one was requested separately, but sharing the work
+     * that is common to all of them (e.g. resolving the same parent location once).
+     * A failing operation does not stop the batch, unless the batch is atomic: then, either all operations are applied
+     * or none is, as the first failure undoes the already applied operations and skips the remaining ones.
+     *
+     * @param operations the operations to execute.
+     * @param atomic whether the batch must be applied all-or-nothing.
+     * @return the result of every operation, in the same order as the operations.
+     */
+    List<BatchResult> executeBatch(List<BatchOperation> operations, boolean atomic);
+
+    /**
+     * Saves the whole FileSystem to a binary image file, replacing the file if it exists.
+     *
+     * @param file the image file.
+     * @throws IOException if the image cannot be written.
+     */
+    void saveSnapshot(Path file) throws IOException;
+
+    /**
+     * Captures the whole FileSystem as it is now, to be saved to a binary image file later, e.g. once writers are allowed
+     * to modify it again. Services that can only save what they currently hold save it right away.
+     *
+     * @param file the image file.
+     * @return the capture, whose save writes the image file.
+     * @throws IOException if the image cannot be written right away.
+     */
+    default SnapshotCapture captureSnapshot(Path file) throws IOException {
+        saveSnapshot(file);
+        return () -> {
+        };
+    }
+
+    /**
+     * Replaces the whole FileSystem with the one saved in a binary image file. The file is memory-mapped, and the
+     * entities are read from it as they are accessed wherever the storage allows it, so loading does not take longer for
+     * bigger trees.
+     *
+     * @param file the image file.
+     * @throws IOException if the image cannot be read or is not valid.
+     */
+    void loadSnapshot(Path file) throws IOException;
 }
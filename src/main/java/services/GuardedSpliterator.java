@@ -0,0 +1,81 @@
+package services;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+
+/**
+ * GuardedSpliterator holds a set of locks while its delegate reads the FileSystem, and releases them before handing
+ * every element to the stream, so that lazy streams never keep writers waiting while they are consumed, and consumers
+ * may even modify the FileSystem. The resulting walk is weakly consistent: every element is read consistently, but the
+ * FileSystem may change between elements.
+ *
+ * @param <T> the type of the elements.
+ */
+final class GuardedSpliterator<T> implements Spliterator<T> {
+
+    private final Spliterator<T> delegate;
+    private final List<Lock> locks;
+    private final Runnable check;
+
+    /**
+     * @param delegate the spliterator reading the FileSystem.
+     * @param locks the locks to hold, acquired in the given order.
+     * @param check a check to run once the locks are held, before every read.
+     */
+    GuardedSpliterator(Spliterator<T> delegate, List<Lock> locks, Runnable check) {
+        this.delegate = delegate;
+        this.locks = locks;
+        this.check = check;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        Object[] next = new Object[1];
+        lock();
+        try {
+            check.run();
+            if (!delegate.tryAdvance(it -> next[0] = it)) return false;
+        } finally {
+            unlock();
+        }
+
+        @SuppressWarnings("unchecked")
+        T element = (T) next[0];
+        action.accept(element);
+        return true;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        lock();
+        try {
+            check.run();
+            Spliterator<T> prefix = delegate.trySplit();
+            return prefix == null ? null : new GuardedSpliterator<>(prefix, locks, check);
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public long estimateSize() {
+        return delegate.estimateSize();
+    }
+
+    @Override
+    public int characteristics() {
+        return delegate.characteristics();
+    }
+
+    private void lock() {
+        locks.forEach(Lock::lock);
+    }
+
+    private void unlock() {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+}
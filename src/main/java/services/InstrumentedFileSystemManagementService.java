@@ -0,0 +1,141 @@
+package services;
+
+import entities.EntityType;
+import lombok.Getter;
+import metrics.FileSystemMetrics;
+import metrics.Operation;
+import metrics.OperationMetrics;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * InstrumentedFileSystemManagementService records the metrics of every operation of any FileSystemManagementService:
+ * how many calls it got, how many of them were rejected or threw, and how long they took.
+ * <p>
+ * Streams are lazy, so the latency of list, walk and find is the time taken to start them, not to consume them.
+ * Batches are counted as rejected if any of their operations was not applied.
+ */
+public class InstrumentedFileSystemManagementService implements FileSystemManagementService {
+
+    private final FileSystemManagementService delegate;
+    @Getter
+    private final FileSystemMetrics metrics;
+
+    public InstrumentedFileSystemManagementService(FileSystemManagementService delegate, FileSystemMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public OperationResult tryCreate(EntityType type, String name, String path) {
+        return measured(Operation.CREATE, () -> delegate.tryCreate(type, name, path), OperationResult::isOk);
+    }
+
+    @Override
+    public OperationResult tryDelete(EntityType type, String path) {
+        return measured(Operation.DELETE, () -> delegate.tryDelete(type, path), OperationResult::isOk);
+    }
+
+    @Override
+    public OperationResult tryMove(EntityType type, String sourcePath, String destinationPath) {
+        return measured(Operation.MOVE, () -> delegate.tryMove(type, sourcePath, destinationPath), OperationResult::isOk);
+    }
+
+    @Override
+    public OperationResult tryWriteToFile(String path, String content) {
+        return measured(Operation.WRITE_TO_FILE, () -> delegate.tryWriteToFile(path, content), OperationResult::isOk);
+    }
+
+    @Override
+    public ReadResult<Integer> tryGetEntitySize(EntityType type, String path) {
+        return measured(Operation.GET_ENTITY_SIZE, () -> delegate.tryGetEntitySize(type, path), ReadResult::isOk);
+    }
+
+    @Override
+    public ReadResult<Stream<EntityInfo>> tryList(String path) {
+        return measured(Operation.LIST, () -> delegate.tryList(path), ReadResult::isOk);
+    }
+
+    @Override
+    public ReadResult<Stream<EntityInfo>> tryWalk(String path, int maxDepth, Predicate<EntityInfo> filter) {
+        return measured(Operation.WALK, () -> delegate.tryWalk(path, maxDepth, filter), ReadResult::isOk);
+    }
+
+    @Override
+    public ReadResult<Stream<EntityInfo>> tryFind(String rootPath, String pattern, EntityType type) {
+        return measured(Operation.FIND, () -> delegate.tryFind(rootPath, pattern, type), ReadResult::isOk);
+    }
+
+    @Override
+    public List<BatchResult> executeBatch(List<BatchOperation> operations, boolean atomic) {
+        return measured(Operation.EXECUTE_BATCH, () -> delegate.executeBatch(operations, atomic), results -> results.stream().allMatch(BatchResult::isApplied));
+    }
+
+    @Override
+    public void saveSnapshot(Path file) throws IOException {
+        measured(Operation.SAVE_SNAPSHOT, () -> delegate.saveSnapshot(file));
+    }
+
+    /**
+     * The capture is measured together with its save, as one SAVE_SNAPSHOT.
+     */
+    @Override
+    public SnapshotCapture captureSnapshot(Path file) throws IOException {
+        long start = System.nanoTime();
+        SnapshotCapture capture;
+        try {
+            capture = delegate.captureSnapshot(file);
+        } catch (IOException | RuntimeException e) {
+            metrics.get(Operation.SAVE_SNAPSHOT).recordFailed(System.nanoTime() - start);
+            throw e;
+        }
+        return () -> measured(Operation.SAVE_SNAPSHOT, start, capture::save);
+    }
+
+    @Override
+    public void loadSnapshot(Path file) throws IOException {
+        measured(Operation.LOAD_SNAPSHOT, () -> delegate.loadSnapshot(file));
+    }
+
+    private <T> T measured(Operation operation, Supplier<T> call, Predicate<T> applied) {
+        OperationMetrics operationMetrics = metrics.get(operation);
+        long start = System.nanoTime();
+
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            operationMetrics.recordFailed(System.nanoTime() - start);
+            throw e;
+        }
+
+        operationMetrics.recordCompleted(System.nanoTime() - start, !applied.test(result));
+        return result;
+    }
+
+    private void measured(Operation operation, SnapshotCall call) throws IOException {
+        measured(operation, System.nanoTime(), call);
+    }
+
+    private void measured(Operation operation, long start, SnapshotCall call) throws IOException {
+        OperationMetrics operationMetrics = metrics.get(operation);
+
+        try {
+            call.run();
+        } catch (IOException | RuntimeException e) {
+            operationMetrics.recordFailed(System.nanoTime() - start);
+            throw e;
+        }
+
+        operationMetrics.recordCompleted(System.nanoTime() - start, false);
+    }
+
+    private interface SnapshotCall {
+        void run() throws IOException;
+    }
+}
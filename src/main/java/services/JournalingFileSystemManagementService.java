@@ -0,0 +1,236 @@
+package services;
+
+import entities.EntityType;
+import journal.JournalEntry;
+import journal.OperationJournal;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * JournalingFileSystemManagementService records every mutation of any FileSystemManagementService in an
+ * OperationJournal, so that the FileSystem survives restarts and crashes.
+ * <p>
+ * Mutations are applied to the delegate and appended to the journal under a single lock, so the journal always holds
+ * them in the order they were applied, and only the ones that were actually applied. Waiting for the journal to make
+ * them durable happens after that lock is released, so that concurrent writers share a single sync of the journal.
+ * Reads go straight to the delegate.
+ * <p>
+ * Once the journal grows beyond the compaction threshold, a background thread saves a snapshot of the FileSystem and
+ * discards the journal entries it covers. The snapshot must match a position of the journal exactly, so writers wait
+ * while the journal is rotated and the FileSystem is captured, but not while the capture is written: services that
+ * cannot capture the FileSystem without saving it (see captureSnapshot) block their own writers while saving anyway.
+ */
+public class JournalingFileSystemManagementService implements FileSystemManagementService, Closeable {
+
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 64L * 1024 * 1024;
+
+    private final FileSystemManagementService delegate;
+    private final OperationJournal journal;
+    private final long compactionThreshold;
+    private final ReentrantLock orderLock = new ReentrantLock();
+    private final ReentrantLock compactionLock = new ReentrantLock();
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "filesystem-journal-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Logger log = LogManager.getLogger(JournalingFileSystemManagementService.class);
+
+    public JournalingFileSystemManagementService(FileSystemManagementService delegate, OperationJournal journal) {
+        this(delegate, journal, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * @param compactionThreshold the size in bytes the journal may reach before being compacted into a snapshot.
+     */
+    public JournalingFileSystemManagementService(FileSystemManagementService delegate, OperationJournal journal, long compactionThreshold) {
+        this.delegate = delegate;
+        this.journal = journal;
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Restores the FileSystem after a restart: loads the latest snapshot of the journal into the delegate, and replays on
+     * top of it every entry journaled since then. It must be called before any other operation.
+     *
+     * @throws IOException if the snapshot or the journal cannot be read.
+     */
+    public void recover() throws IOException {
+        orderLock.lock();
+        try {
+            Path snapshot = journal.getSnapshot().orElse(null);
+            if (snapshot != null) delegate.loadSnapshot(snapshot);
+
+            int replayed = journal.replay(entry -> delegate.executeBatch(entry.operations(), entry.atomic()));
+            log.info("Recovered the file system from {} and {} journal entries", snapshot == null ? "an empty tree" : snapshot, replayed);
+        } finally {
+            orderLock.unlock();
+        }
+    }
+
+    @Override
+    public OperationResult tryCreate(EntityType type, String name, String path) {
+        return journaled(JournalEntry.of(BatchOperation.create(type, name, path)), () -> delegate.tryCreate(type, name, path), OperationResult::isOk);
+    }
+
+    @Override
+    public OperationResult tryDelete(EntityType type, String path) {
+        return journaled(JournalEntry.of(BatchOperation.delete(type, path)), () -> delegate.tryDelete(type, path), OperationResult::isOk);
+    }
+
+    @Override
+    public OperationResult tryMove(EntityType type, String sourcePath, String destinationPath) {
+        return journaled(JournalEntry.of(BatchOperation.move(type, sourcePath, destinationPath)), () -> delegate.tryMove(type, sourcePath, destinationPath), OperationResult::isOk);
+    }
+
+    @Override
+    public OperationResult tryWriteToFile(String path, String content) {
+        return journaled(JournalEntry.of(BatchOperation.writeToFile(path, content)), () -> delegate.tryWriteToFile(path, content), OperationResult::isOk);
+    }
+
+    @Override
+    public ReadResult<Integer> tryGetEntitySize(EntityType type, String path) {
+        return delegate.tryGetEntitySize(type, path);
+    }
+
+    @Override
+    public ReadResult<Stream<EntityInfo>> tryList(String path) {
+        return delegate.tryList(path);
+    }
+
+    @Override
+    public ReadResult<Stream<EntityInfo>> tryWalk(String path, int maxDepth, Predicate<EntityInfo> filter) {
+        return delegate.tryWalk(path, maxDepth, filter);
+    }
+
+    @Override
+    public ReadResult<Stream<EntityInfo>> tryFind(String rootPath, String pattern, EntityType type) {
+        return delegate.tryFind(rootPath, pattern, type);
+    }
+
+    /**
+     * Batches are journaled as a single entry, even if some of their operations fail, as replaying them fails the same
+     * operations again.
+     */
+    @Override
+    public List<BatchResult> executeBatch(List<BatchOperation> operations, boolean atomic) {
+        if (operations == null) return delegate.executeBatch(null, atomic);
+
+        // Copied, as batches may hold nulls and the caller may modify the list afterwards
+        return journaled(new JournalEntry(new ArrayList<>(operations), atomic), () -> delegate.executeBatch(operations, atomic), results -> true);
+    }
+
+    @Override
+    public void saveSnapshot(Path file) throws IOException {
+        delegate.saveSnapshot(file);
+    }
+
+    /**
+     * Loading a snapshot replaces the whole FileSystem, so instead of being journaled, the journal is compacted right
+     * away into a snapshot of the loaded FileSystem.
+     */
+    @Override
+    public void loadSnapshot(Path file) throws IOException {
+        compact(() -> delegate.loadSnapshot(file));
+    }
+
+    /**
+     * Saves a snapshot of the FileSystem and discards the journal entries it covers.
+     *
+     * @throws IOException if the snapshot cannot be saved.
+     */
+    public void compact() throws IOException {
+        compact(() -> {
+        });
+    }
+
+    /**
+     * Stops the background compaction and closes the journal, making every journaled operation durable.
+     */
+    @Override
+    public void close() throws IOException {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        journal.close();
+    }
+
+    /**
+     * Applies the operation and journals it, unless the result tells that it was rejected and so there is nothing to
+     * replay.
+     */
+    private <T> T journaled(JournalEntry entry, Supplier<T> operation, Predicate<T> applied) {
+        T result;
+        long sequence;
+
+        orderLock.lock();
+        try {
+            result = operation.get();
+            if (!applied.test(result)) return result;
+            sequence = journal.append(entry);
+        } finally {
+            orderLock.unlock();
+        }
+
+        journal.awaitDurable(sequence);
+        if (journal.getSizeSinceSnapshot() >= compactionThreshold && compactionScheduled.compareAndSet(false, true)) {
+            compactor.execute(this::compactInBackground);
+        }
+        return result;
+    }
+
+    private void compactInBackground() {
+        try {
+            compact();
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to compact the journal", e);
+        } finally {
+            compactionScheduled.set(false);
+        }
+    }
+
+    private void compact(SnapshotAction beforeSnapshot) throws IOException {
+        compactionLock.lock();
+        try {
+            long generation;
+            SnapshotCapture snapshot;
+            orderLock.lock();
+            try {
+                beforeSnapshot.run();
+                generation = journal.rotate();
+                snapshot = delegate.captureSnapshot(journal.getPendingSnapshot(generation));
+            } finally {
+                orderLock.unlock();
+            }
+
+            // The new journal generation is already in use, so the snapshot is saved and committed without blocking writers
+            snapshot.save();
+            journal.commitSnapshot(generation);
+            log.info("Compacted the journal into generation {}", generation);
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    private interface SnapshotAction {
+        void run() throws IOException;
+    }
+}
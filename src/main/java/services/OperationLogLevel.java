@@ -0,0 +1,21 @@
+package services;
+
+/**
+ * OperationLogLevel defines how much information is logged for every operation performed by the service.
+ * - OFF: operations are not logged.
+ * - METADATA: operations are logged with their type, paths and sizes, but never with the file contents.
+ * - FULL: operations are logged with all their details, including the appended and resulting file contents.
+ */
+public enum OperationLogLevel {
+    OFF, METADATA, FULL;
+
+    /**
+     * Checks if this level logs the information of the provided level.
+     *
+     * @param level the level to check.
+     * @return true if this level is at least as verbose as the provided one and false otherwise.
+     */
+    public boolean includes(OperationLogLevel level) {
+        return compareTo(level) >= 0;
+    }
+}
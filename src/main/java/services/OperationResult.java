@@ -0,0 +1,95 @@
+package services;
+
+import exceptions.IllegalFileSystemOperationException;
+import exceptions.NotATextFileException;
+import exceptions.PathAlreadyExistsException;
+import exceptions.PathNotFoundException;
+
+import java.util.function.Function;
+
+/**
+ * OperationResult is the outcome of an operation that reports rejections as a result code instead of throwing, so that
+ * rejecting an operation costs about the same as applying it.
+ *
+ * @param code why the operation was rejected, or OK if it was (or can be) applied.
+ * @param message the reason of the rejection, or null if the operation was applied.
+ */
+public record OperationResult(Code code, String message) {
+
+    public static final OperationResult OK = new OperationResult(Code.OK, null);
+
+    public enum Code {
+        OK(null, null),
+        /**
+         * The operation breaks the rules of the FileSystem, same as an IllegalFileSystemOperationException.
+         */
+        ILLEGAL_OPERATION(IllegalFileSystemOperationException.class, IllegalFileSystemOperationException::new),
+        /**
+         * The entity or its location does not exist, same as a PathNotFoundException.
+         */
+        PATH_NOT_FOUND(PathNotFoundException.class, PathNotFoundException::new),
+        /**
+         * The entity already exists, same as a PathAlreadyExistsException.
+         */
+        PATH_ALREADY_EXISTS(PathAlreadyExistsException.class, PathAlreadyExistsException::new),
+        /**
+         * The entity is not a TextFile, same as a NotATextFileException.
+         */
+        NOT_A_TEXT_FILE(NotATextFileException.class, NotATextFileException::new);
+
+        private final String errorName;
+        private final Function<String, RuntimeException> exceptionFactory;
+
+        Code(Class<? extends RuntimeException> exceptionType, Function<String, RuntimeException> exceptionFactory) {
+            this.errorName = exceptionType == null ? null : exceptionType.getSimpleName();
+            this.exceptionFactory = exceptionFactory;
+        }
+
+        /**
+         * Returns the name of the exception that the throwing versions of the operations fail with for this code.
+         *
+         * @return the simple name of the exception class, or null for OK.
+         */
+        public String getErrorName() {
+            return errorName;
+        }
+    }
+
+    public static OperationResult illegalOperation(String message) {
+        return new OperationResult(Code.ILLEGAL_OPERATION, message);
+    }
+
+    public static OperationResult pathNotFound(String message) {
+        return new OperationResult(Code.PATH_NOT_FOUND, message);
+    }
+
+    public static OperationResult pathAlreadyExists(String message) {
+        return new OperationResult(Code.PATH_ALREADY_EXISTS, message);
+    }
+
+    public static OperationResult notATextFile(String message) {
+        return new OperationResult(Code.NOT_A_TEXT_FILE, message);
+    }
+
+    public boolean isOk() {
+        return code == Code.OK;
+    }
+
+    /**
+     * Builds the exception that the throwing version of the operation fails with.
+     *
+     * @return the exception matching the code.
+     * @throws IllegalStateException if the operation was not rejected.
+     */
+    public RuntimeException toException() {
+        if (isOk()) throw new IllegalStateException("The operation was not rejected.");
+        return code.exceptionFactory.apply(message);
+    }
+
+    /**
+     * Throws the exception that the throwing version of the operation fails with, if the operation was rejected.
+     */
+    public void orThrow() {
+        if (!isOk()) throw toException();
+    }
+}
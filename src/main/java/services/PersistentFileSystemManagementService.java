@@ -0,0 +1,540 @@
+package services;
+
+import entities.EntityType;
+import exceptions.IllegalFileSystemOperationException;
+import exceptions.PathNotFoundException;
+import lombok.Getter;
+import lombok.Setter;
+import metrics.PathWalkMetrics;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import persistent.PersistentNode;
+import snapshot.SnapshotImage;
+import snapshot.SnapshotNode;
+import snapshot.SnapshotWriter;
+import utils.FileSystemPath;
+import utils.NamePattern;
+import utils.PathResolution;
+import utils.PathUtils;
+import validators.ConstraintsValidator;
+import validators.DefaultConstraintsValidator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * PersistentFileSystemManagementService keeps the FileSystem in an immutable persistent tree.
+ * <p>
+ * Readers take the current root and work on that snapshot without any locking, so they never block nor are blocked by
+ * writers. Writers validate the operation against a single snapshot, build a new version of the tree by copying the
+ * nodes on the modified paths, and publish it with a compare-and-set, retrying against the latest snapshot if another
+ * writer published first.
+ * <p>
+ * Operations are validated by a DefaultConstraintsValidator against the paths resolved in the snapshot they apply to.
+ * Modifications may be built more than once when writers race, so they are only logged once published.
+ */
+public class PersistentFileSystemManagementService implements FileSystemManagementService {
+
+    private static final EntityWalkSpliterator.Tree<PersistentNode> NODE_TREE = new EntityWalkSpliterator.Tree<>() {
+        @Override
+        public EntityInfo info(PersistentNode node, String parentPath) {
+            String path = parentPath == null ? node.getName() : parentPath + "\\" + node.getName();
+            return new EntityInfo(node.getEntityType(), node.getName(), path, node.getSize());
+        }
+
+        @Override
+        public boolean isComposable(PersistentNode node) {
+            return node.isComposable();
+        }
+
+        /**
+         * Children are kept by key, so every Composable node walked into is sorted once to restore the insertion order.
+         */
+        @Override
+        public EntityWalkSpliterator.Siblings<PersistentNode> childrenOf(PersistentNode node) {
+            return EntityWalkSpliterator.Siblings.of(node.getChildrenInOrder());
+        }
+    };
+
+    private final PathUtils pathUtils;
+    private final ConstraintsValidator validator;
+    private final AtomicReference<PersistentNode> root = new AtomicReference<>(PersistentNode.emptyForest());
+    private final Logger log = LogManager.getLogger(PersistentFileSystemManagementService.class);
+    @Getter
+    private final PathWalkMetrics pathWalkMetrics = new PathWalkMetrics();
+    @Setter
+    private OperationLogLevel operationLogLevel = OperationLogLevel.METADATA;
+
+    public PersistentFileSystemManagementService(PathUtils pathUtils) {
+        this.pathUtils = pathUtils;
+        this.validator = new DefaultConstraintsValidator(path -> resolve(root.get(), pathUtils.parsePath(path)));
+    }
+
+    /**
+     * Returns the current version of the tree. The returned snapshot never changes.
+     *
+     * @return the root of the current version of the tree.
+     */
+    public PersistentNode getSnapshot() {
+        return root.get();
+    }
+
+    @Override
+    public OperationResult tryCreate(EntityType type, String name, String path) {
+        OperationResult result = update(snapshot -> create(snapshot, type, name, path));
+
+        if (result.isOk() && logs(OperationLogLevel.METADATA)) log.info("Successfully created {} under {}", type, pathUtils.trimPath(path + "\\" + name));
+        return result;
+    }
+
+    @Override
+    public OperationResult tryDelete(EntityType type, String path) {
+        OperationResult result = update(snapshot -> delete(snapshot, type, path));
+
+        if (result.isOk() && logs(OperationLogLevel.METADATA)) log.info("Successfully delete {} from {}", type, path);
+        return result;
+    }
+
+    @Override
+    public OperationResult tryMove(EntityType type, String sourcePath, String destinationPath) {
+        OperationResult result = update(snapshot -> move(snapshot, type, sourcePath, destinationPath));
+
+        if (result.isOk() && logs(OperationLogLevel.METADATA)) log.info("Successfully moved {} to {}", type, destinationPath);
+        return result;
+    }
+
+    @Override
+    public OperationResult tryWriteToFile(String path, String content) {
+        PersistentNode[] appendedTextFile = new PersistentNode[1];
+        OperationResult result = update(snapshot -> writeToFile(snapshot, path, content, it -> appendedTextFile[0] = it));
+        if (!result.isOk()) return result;
+
+        if (logs(OperationLogLevel.FULL)) {
+            log.info("Successfully appended content. New content is {}", appendedTextFile[0].getContent());
+        } else if (logs(OperationLogLevel.METADATA)) {
+            log.info("Successfully appended {} characters to {}. New size is {}", content.length(), path, appendedTextFile[0].getSize());
+        }
+        return result;
+    }
+
+    @Override
+    public ReadResult<Integer> tryGetEntitySize(EntityType type, String path) {
+        if (validator.anyValueNull(type, path)) return ReadResult.rejected(Rejections.NULL_SIZE_ARGUMENT);
+        Resolution resolution = resolve(root.get(), pathUtils.parsePath(path));
+        Optional<PersistentNode> target = resolution.getTarget(type);
+        if (target.isEmpty()) return ReadResult.rejected(Rejections.entityNotFound(resolution));
+
+        if (logs(OperationLogLevel.METADATA)) log.info("Getting size info for {} under {}", type, path);
+
+        return ReadResult.of(target.get().getSize());
+    }
+
+    /**
+     * The stream reads the current version of the tree, which never changes, so it is consistent however long it takes
+     * to consume it.
+     */
+    @Override
+    public ReadResult<Stream<EntityInfo>> tryList(String path) {
+        if (validator.anyValueNull(path)) return ReadResult.rejected(Rejections.NULL_PATH);
+        FileSystemPath parsedPath = pathUtils.parsePath(path);
+        ReadResult<PersistentNode> composable = findComposableTarget(resolve(root.get(), parsedPath), parsedPath);
+        if (!composable.isOk()) return ReadResult.rejected(composable.result());
+
+        if (logs(OperationLogLevel.METADATA)) log.info("Listing contents of {}", path);
+
+        return ReadResult.of(StreamSupport.stream(EntityWalkSpliterator.descendants(NODE_TREE, composable.value(), parsedPath.toString(), 1, Spliterator.IMMUTABLE), false));
+    }
+
+    /**
+     * The stream walks the current version of the tree, which never changes, so it is consistent however long it takes
+     * to consume it.
+     */
+    @Override
+    public ReadResult<Stream<EntityInfo>> tryWalk(String path, int maxDepth, Predicate<EntityInfo> filter) {
+        if (validator.anyValueNull(path, filter)) return ReadResult.rejected(Rejections.NULL_WALK_ARGUMENT);
+        if (maxDepth < 0) return ReadResult.rejected(Rejections.NEGATIVE_DEPTH);
+        FileSystemPath parsedPath = pathUtils.parsePath(path);
+        ReadResult<PersistentNode> composable = findComposableTarget(resolve(root.get(), parsedPath), parsedPath);
+        if (!composable.isOk()) return ReadResult.rejected(composable.result());
+
+        if (logs(OperationLogLevel.METADATA)) log.info("Walking {} down to depth {}", path, maxDepth);
+
+        String parentPath = parsedPath.isSingleElement() ? null : parsedPath.parent().toString();
+        return ReadResult.of(StreamSupport.stream(EntityWalkSpliterator.subtree(NODE_TREE, composable.value(), parentPath, maxDepth, Spliterator.IMMUTABLE), false).filter(filter));
+    }
+
+    /**
+     * Versions of the tree share their nodes, which have no identity nor parent, so a mutable global index could not
+     * serve every version. Instead, the current version is walked under the root, matching names as they are reached.
+     */
+    @Override
+    public ReadResult<Stream<EntityInfo>> tryFind(String rootPath, String pattern, EntityType type) {
+        if (validator.anyValueNull(rootPath, pattern, type)) return ReadResult.rejected(Rejections.NULL_FIND_ARGUMENT);
+        FileSystemPath parsedPath = pathUtils.parsePath(rootPath);
+        ReadResult<PersistentNode> composable = findComposableTarget(resolve(root.get(), parsedPath), parsedPath);
+        if (!composable.isOk()) return ReadResult.rejected(composable.result());
+
+        if (logs(OperationLogLevel.METADATA)) log.info("Finding {} matching {} under {}", type, pattern, rootPath);
+
+        NamePattern namePattern = NamePattern.compile(pattern);
+        return ReadResult.of(StreamSupport.stream(EntityWalkSpliterator.descendants(NODE_TREE, composable.value(), parsedPath.toString(), Integer.MAX_VALUE, Spliterator.IMMUTABLE), false)
+                .filter(it -> it.type() == type && namePattern.matches(it.name())));
+    }
+
+    /**
+     * All the operations of a batch are applied, in order, to a single new version of the tree, which is published with
+     * one compare-and-set. Atomic batches are rolled back by simply not publishing that version.
+     */
+    @Override
+    public List<BatchResult> executeBatch(List<BatchOperation> operations, boolean atomic) {
+        if (validator.anyValueNull(operations)) throw new IllegalFileSystemOperationException("Operations cannot be null.");
+
+        while (true) {
+            PersistentNode snapshot = root.get();
+            PersistentNode newRoot = snapshot;
+            List<BatchResult> results = new ArrayList<>(operations.size());
+
+            for (int i = 0; i < operations.size(); i++) {
+                BatchOperation operation = operations.get(i);
+                RuntimeException failure;
+                try {
+                    Modification modification = apply(newRoot, operation);
+                    if (modification.isApplied()) newRoot = modification.root();
+                    failure = modification.isApplied() ? null : modification.rejection().toException();
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+
+                if (failure == null) {
+                    results.add(BatchResult.applied(operation));
+                } else if (atomic) {
+                    return BatchResult.aborted(operations, i, failure);
+                } else {
+                    results.add(BatchResult.failed(operation, failure));
+                }
+            }
+
+            if (root.compareAndSet(snapshot, newRoot)) {
+                if (logs(OperationLogLevel.METADATA)) log.info("Successfully published a batch of {} operations", operations.size());
+                return results;
+            }
+        }
+    }
+
+    /**
+     * The image is written from the current version of the tree, which never changes, so saving does not block writers.
+     */
+    @Override
+    public void saveSnapshot(Path file) throws IOException {
+        if (validator.anyValueNull(file)) throw new IllegalFileSystemOperationException("File cannot be null.");
+        save(root.get(), file);
+    }
+
+    /**
+     * Capturing only takes the current version of the tree, which is written whenever the capture is saved.
+     */
+    @Override
+    public SnapshotCapture captureSnapshot(Path file) {
+        if (validator.anyValueNull(file)) throw new IllegalFileSystemOperationException("File cannot be null.");
+        PersistentNode snapshot = root.get();
+        return () -> save(snapshot, file);
+    }
+
+    private void save(PersistentNode snapshot, Path file) throws IOException {
+        if (logs(OperationLogLevel.METADATA)) log.info("Saving snapshot of {} drives to {}", snapshot.getChildren().size(), file);
+
+        try (SnapshotWriter writer = new SnapshotWriter(file)) {
+            writer.startForest();
+            Deque<Iterator<PersistentNode>> pendingChildren = new ArrayDeque<>();
+            pendingChildren.push(snapshot.getChildrenInOrder().iterator());
+
+            // Iterative on purpose, so that deep hierarchies cannot overflow the stack
+            while (!pendingChildren.isEmpty()) {
+                Iterator<PersistentNode> children = pendingChildren.peek();
+                if (!children.hasNext()) {
+                    pendingChildren.pop();
+                    writer.endComposable();
+                    continue;
+                }
+
+                PersistentNode child = children.next();
+                if (child.isComposable()) {
+                    writer.startComposable(child.getEntityType(), child.getName(), child.getSize());
+                    pendingChildren.push(child.getChildrenInOrder().iterator());
+                } else {
+                    writer.writeTextFile(child.getName(), child.getContent().toString());
+                }
+            }
+        }
+
+        if (logs(OperationLogLevel.METADATA)) log.info("Successfully saved snapshot to {}", file);
+    }
+
+    /**
+     * Persistent nodes are immutable, so the whole tree is built from the mapped image before being published, replacing
+     * the current version with a single write.
+     */
+    @Override
+    public void loadSnapshot(Path file) throws IOException {
+        if (validator.anyValueNull(file)) throw new IllegalFileSystemOperationException("File cannot be null.");
+        if (logs(OperationLogLevel.METADATA)) log.info("Loading snapshot from {}", file);
+
+        PersistentNode restoredRoot = restore(SnapshotImage.map(file).getForest());
+        root.set(restoredRoot);
+
+        if (logs(OperationLogLevel.METADATA)) log.info("Successfully loaded {} drives from {}", restoredRoot.getChildren().size(), file);
+    }
+
+    /**
+     * Builds the tree bottom-up, as every node must be complete before being added to its parent.
+     */
+    private PersistentNode restore(SnapshotNode forest) {
+        Deque<RestoredNode> pendingNodes = new ArrayDeque<>();
+        pendingNodes.push(new RestoredNode(PersistentNode.emptyForest(), forest.getChildren().iterator()));
+
+        // Iterative on purpose, so that deep hierarchies cannot overflow the stack
+        while (true) {
+            RestoredNode current = pendingNodes.peek();
+            if (!current.children.hasNext()) {
+                pendingNodes.pop();
+                if (pendingNodes.isEmpty()) return current.node;
+                pendingNodes.peek().node = pendingNodes.peek().node.withChild(current.node);
+                continue;
+            }
+
+            SnapshotNode child = current.children.next();
+            if (child.isComposable()) {
+                pendingNodes.push(new RestoredNode(PersistentNode.of(child.getType(), child.getName()), child.getChildren().iterator()));
+            } else {
+                current.node = current.node.withChild(PersistentNode.of(EntityType.TEXT_FILE, child.getName()).withAppendedContent(child.getContent()));
+            }
+        }
+    }
+
+    private Modification apply(PersistentNode snapshot, BatchOperation operation) {
+        return switch (operation) {
+            case null -> Modification.rejected(Rejections.NULL_BATCH_OPERATION);
+            case BatchOperation.Create create -> create(snapshot, create.type(), create.name(), create.path());
+            case BatchOperation.Delete delete -> delete(snapshot, delete.type(), delete.path());
+            case BatchOperation.Move move -> move(snapshot, move.type(), move.sourcePath(), move.destinationPath());
+            case BatchOperation.WriteToFile writeToFile -> writeToFile(snapshot, writeToFile.path(), writeToFile.content(), it -> { });
+        };
+    }
+
+    private Modification create(PersistentNode snapshot, EntityType type, String name, String path) {
+        if (validator.anyValueNull(type, name, path)) return Modification.rejected(Rejections.NULL_CREATION_ARGUMENT);
+        String fullPath = pathUtils.trimPath(path + "\\" + name);
+        Resolution resolution = resolve(snapshot, pathUtils.parsePath(fullPath));
+        OperationResult validation = validator.validateCreation(type, resolution);
+        if (!validation.isOk()) return Modification.rejected(validation);
+
+        return Modification.applied(resolution.replaceParent(resolution.parent().withChild(PersistentNode.of(type, name))));
+    }
+
+    private Modification delete(PersistentNode snapshot, EntityType type, String path) {
+        if (validator.anyValueNull(path)) return Modification.rejected(Rejections.NULL_PATH);
+        Resolution resolution = resolve(snapshot, pathUtils.parsePath(path));
+        OperationResult validation = validator.validateDeletion(type, resolution);
+        if (!validation.isOk()) return Modification.rejected(validation);
+        PersistentNode deletedNode = getTarget(type, resolution);
+
+        // Detached nodes are simply no longer referenced by the new version of the tree
+        return Modification.applied(resolution.replaceParent(resolution.parent().withoutChild(deletedNode)));
+    }
+
+    private Modification move(PersistentNode snapshot, EntityType type, String sourcePath, String destinationPath) {
+        if (validator.anyValueNull(sourcePath, destinationPath)) return Modification.rejected(Rejections.NULL_PATH);
+        FileSystemPath parsedDestinationPath = pathUtils.parsePath(destinationPath);
+        Resolution source = resolve(snapshot, pathUtils.parsePath(sourcePath));
+        Resolution destination = resolve(snapshot, parsedDestinationPath);
+        OperationResult validation = validator.validateMove(type, source, destination);
+        if (!validation.isOk()) return Modification.rejected(validation);
+        PersistentNode movingNode = getTarget(type, source);
+
+        // Both modifications are applied to the same new version, which is published at once
+        PersistentNode withoutMovingNode = source.replaceParent(source.parent().withoutChild(movingNode));
+        Resolution newDestination = resolve(withoutMovingNode, parsedDestinationPath);
+        return Modification.applied(newDestination.replaceParent(newDestination.parent().withChild(movingNode)));
+    }
+
+    private Modification writeToFile(PersistentNode snapshot, String path, String content, Consumer<PersistentNode> appendedTextFile) {
+        if (validator.anyValueNull(path, content)) return Modification.rejected(Rejections.NULL_WRITE_ARGUMENT);
+        Resolution resolution = resolve(snapshot, pathUtils.parsePath(path));
+        OperationResult validation = validator.validateWrite(resolution);
+        if (!validation.isOk()) return Modification.rejected(validation);
+
+        PersistentNode textFile = getTarget(EntityType.TEXT_FILE, resolution).withAppendedContent(content);
+        appendedTextFile.accept(textFile);
+        return Modification.applied(resolution.replaceParent(resolution.parent().withChild(textFile)));
+    }
+
+    /**
+     * Applies the modification to the latest snapshot and publishes the result, retrying if another writer published a
+     * new version in the meantime. A rejected modification aborts the update without publishing anything.
+     *
+     * @param modification the function building a new version of the tree from a snapshot.
+     * @return OK if a new version was published, or the reason of the rejection.
+     */
+    private OperationResult update(Function<PersistentNode, Modification> modification) {
+        while (true) {
+            PersistentNode snapshot = root.get();
+            Modification result = modification.apply(snapshot);
+            if (!result.isApplied()) return result.rejection();
+            if (root.compareAndSet(snapshot, result.root())) return OperationResult.OK;
+        }
+    }
+
+    private Resolution resolve(PersistentNode snapshot, FileSystemPath path) {
+        pathWalkMetrics.record(path.getElementCount());
+        PersistentNode[] ancestors = new PersistentNode[path.getElementCount()];
+        ancestors[0] = snapshot;
+
+        for (int i = 1; i < path.getElementCount(); i++) {
+            String pathElement = path.getElement(i - 1);
+            Optional<PersistentNode> nextNode = i == 1 ?
+                    ancestors[0].getChild(pathElement, EntityType.DRIVE) :
+                    ancestors[i - 1].getComposableChild(pathElement);
+            if (nextNode.isEmpty()) {
+                return new Resolution(path, null, i == 1 ? "Drive not found." : "The path contains a nonexistent component: " + pathElement);
+            }
+            ancestors[i] = nextNode.get();
+        }
+        return new Resolution(path, ancestors, null);
+    }
+
+    private PersistentNode getTarget(EntityType type, Resolution resolution) {
+        return resolution.getTarget(type).orElseThrow(() -> new PathNotFoundException("The requested entity does not exist."));
+    }
+
+    private ReadResult<PersistentNode> findComposableTarget(Resolution resolution, FileSystemPath path) {
+        if (!resolution.isParentFound()) return ReadResult.rejected(Rejections.composableNotFound(resolution, path));
+
+        Optional<PersistentNode> composable = resolution.isDriveLevel()
+                ? resolution.parent().getChild(resolution.lastElement(), EntityType.DRIVE)
+                : resolution.parent().getComposableChild(resolution.lastElement());
+        return composable.isPresent() ? ReadResult.of(composable.get()) : ReadResult.rejected(Rejections.composableNotFound(resolution, path));
+    }
+
+    private boolean logs(OperationLogLevel level) {
+        return operationLogLevel.includes(level) && log.isInfoEnabled();
+    }
+
+    /**
+     * The nodes from the root of a snapshot down to the node that contains (or would contain) the last element of a path.
+     */
+    private record Resolution(FileSystemPath path, PersistentNode[] ancestors, String notFoundMessage) implements PathResolution<PersistentNode> {
+
+        @Override
+        public boolean isDriveLevel() {
+            return path.isSingleElement();
+        }
+
+        @Override
+        public boolean isParentFound() {
+            return notFoundMessage == null;
+        }
+
+        @Override
+        public String getNotFoundMessage() {
+            return notFoundMessage;
+        }
+
+        @Override
+        public boolean containsEntity(EntityType type) {
+            // Drives are the children of the forest node, which is always found
+            if (isDriveLevel()) return parent().getChild(lastElement(), EntityType.DRIVE).isPresent();
+            if (!isParentFound()) throw new PathNotFoundException(notFoundMessage);
+
+            return parent().getChild(lastElement(), type).isPresent();
+        }
+
+        @Override
+        public Optional<PersistentNode> getTarget(EntityType type) {
+            if (!isParentFound()) return Optional.empty();
+            EntityType targetType = isDriveLevel() ? EntityType.DRIVE : type;
+
+            return parent().getChild(lastElement(), targetType).filter(it -> it.getEntityType() == type);
+        }
+
+        @Override
+        public boolean hasComposableTarget() {
+            if (!isParentFound()) return false;
+            if (isDriveLevel()) return parent().getChild(lastElement(), EntityType.DRIVE).isPresent();
+
+            return parent().getComposableChild(lastElement()).isPresent();
+        }
+
+        /**
+         * Nodes have no parent, so the resolved ancestors are searched for the node itself.
+         */
+        @Override
+        public boolean isParentWithin(PersistentNode node) {
+            if (!isParentFound()) return false;
+
+            for (PersistentNode ancestor : ancestors) {
+                if (ancestor == node) return true;
+            }
+            return false;
+        }
+
+        PersistentNode parent() {
+            return ancestors[ancestors.length - 1];
+        }
+
+        String lastElement() {
+            return path.getLastElement();
+        }
+
+        /**
+         * Builds a new version of the snapshot with the parent replaced, copying all of its ancestors.
+         */
+        PersistentNode replaceParent(PersistentNode newParent) {
+            PersistentNode newChild = newParent;
+            for (int i = ancestors.length - 2; i >= 0; i--) {
+                newChild = ancestors[i].withChild(newChild);
+            }
+            return newChild;
+        }
+    }
+
+    /**
+     * A new version of the tree built from a snapshot, or the reason why it could not be built.
+     */
+    private record Modification(PersistentNode root, OperationResult rejection) {
+
+        static Modification applied(PersistentNode root) {
+            return new Modification(root, null);
+        }
+
+        static Modification rejected(OperationResult rejection) {
+            return new Modification(null, rejection);
+        }
+
+        boolean isApplied() {
+            return rejection == null;
+        }
+    }
+
+    private static final class RestoredNode {
+        private PersistentNode node;
+        private final Iterator<SnapshotNode> children;
+
+        private RestoredNode(PersistentNode node, Iterator<SnapshotNode> children) {
+            this.node = node;
+            this.children = children;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package services;
+
+/**
+ * ReadResult is the outcome of a read that reports rejections as an OperationResult instead of throwing, along with
+ * what was read if it was not rejected.
+ *
+ * @param value what was read, or null if the read was rejected.
+ * @param result OK, or why the read was rejected.
+ * @param <T> the type of what is read.
+ */
+public record ReadResult<T>(T value, OperationResult result) {
+
+    public static <T> ReadResult<T> of(T value) {
+        return new ReadResult<>(value, OperationResult.OK);
+    }
+
+    public static <T> ReadResult<T> rejected(OperationResult result) {
+        return new ReadResult<>(null, result);
+    }
+
+    public boolean isOk() {
+        return result.isOk();
+    }
+
+    /**
+     * Returns what was read, or throws the exception that the throwing version of the read fails with.
+     *
+     * @return what was read.
+     */
+    public T orThrow() {
+        result.orThrow();
+        return value;
+    }
+}
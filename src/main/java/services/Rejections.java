@@ -0,0 +1,51 @@
+package services;
+
+import utils.FileSystemPath;
+import utils.PathResolution;
+
+/**
+ * Rejections holds the results of the operations rejected by the services themselves, rather than by the validator:
+ * missing arguments, checked before any path is resolved, entities that reads could not find, and Drives the registry
+ * turned down. Rejecting an operation does not allocate, unless the reason names a path element.
+ */
+final class Rejections {
+
+    static final OperationResult NULL_BATCH_OPERATION = OperationResult.illegalOperation("Batch operations cannot be null.");
+    static final OperationResult NULL_CREATION_ARGUMENT = OperationResult.illegalOperation("Type, Name and Path cannot be null.");
+    static final OperationResult NULL_PATH = OperationResult.illegalOperation("Path cannot be null.");
+    static final OperationResult NULL_WRITE_ARGUMENT = OperationResult.illegalOperation("Path and content cannot be null.");
+    static final OperationResult NULL_SIZE_ARGUMENT = OperationResult.illegalOperation("Entity type and path cannot be null.");
+    static final OperationResult NULL_WALK_ARGUMENT = OperationResult.illegalOperation("Path and filter cannot be null.");
+    static final OperationResult NULL_FIND_ARGUMENT = OperationResult.illegalOperation("Root path, pattern and type cannot be null.");
+    static final OperationResult NEGATIVE_DEPTH = OperationResult.illegalOperation("Depth cannot be negative.");
+    static final OperationResult DRIVE_ALREADY_EXISTS = OperationResult.pathAlreadyExists("The entity already exists under that path.");
+    static final OperationResult ENTITY_NOT_FOUND = OperationResult.pathNotFound("The requested entity does not exist.");
+    static final OperationResult DRIVE_NOT_FOUND = OperationResult.pathNotFound("Drive not found.");
+
+    private Rejections() {
+    }
+
+    /**
+     * Returns why the entity at the end of a path could not be found, with the same reasons as the throwing reads.
+     *
+     * @param resolution the resolution of the path, which has no entity of the requested type at its end.
+     * @return PATH_NOT_FOUND, with the reason.
+     */
+    static OperationResult entityNotFound(PathResolution<?> resolution) {
+        return resolution.isParentFound() ? ENTITY_NOT_FOUND : OperationResult.pathNotFound(resolution.getNotFoundMessage());
+    }
+
+    /**
+     * Returns why the Composable entity at the end of a path could not be found, with the same reasons as the throwing
+     * reads.
+     *
+     * @param resolution the resolution of the path, which has no Composable entity at its end.
+     * @param path the path.
+     * @return PATH_NOT_FOUND, with the reason.
+     */
+    static OperationResult composableNotFound(PathResolution<?> resolution, FileSystemPath path) {
+        if (!resolution.isParentFound()) return OperationResult.pathNotFound(resolution.getNotFoundMessage());
+        if (resolution.isDriveLevel()) return DRIVE_NOT_FOUND;
+        return OperationResult.pathNotFound("The path contains a nonexistent component: " + path.getLastElement());
+    }
+}
@@ -0,0 +1,17 @@
+package services;
+
+import java.io.IOException;
+
+/**
+ * SnapshotCapture is the FileSystem as it was when it was captured, waiting to be saved to its image file.
+ */
+@FunctionalInterface
+public interface SnapshotCapture {
+
+    /**
+     * Writes the captured FileSystem to the image file, however much the FileSystem changed since it was captured.
+     *
+     * @throws IOException if the image cannot be written.
+     */
+    void save() throws IOException;
+}
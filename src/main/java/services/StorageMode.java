@@ -0,0 +1,11 @@
+package services;
+
+/**
+ * StorageMode defines which FileSystemManagementService implementation backs the application.
+ * - OBJECT_TREE: a mutable tree of entities, guarded by Drive-striped read/write locks.
+ * - PERSISTENT_TREE: an immutable persistent tree, read without locking and updated with copy-on-write.
+ * - COMPACT_TREE: a tree stored in primitive arrays, for very large trees, guarded by a single read/write lock.
+ */
+public enum StorageMode {
+    OBJECT_TREE, PERSISTENT_TREE, COMPACT_TREE
+}
@@ -0,0 +1,96 @@
+package snapshot;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * SnapshotImage is a read-only, memory-mapped view of an image file written by a SnapshotWriter.
+ * Mapping the file does not read it: only the header and trailer are checked, and records are decoded on demand as the
+ * nodes are visited, so opening an image takes the same time regardless of the size of the tree it holds.
+ * <p>
+ * The mapping is released by the garbage collector once neither the image nor any of its nodes is reachable.
+ */
+public final class SnapshotImage {
+
+    static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private final MemorySegment segment;
+    private final long endTablePosition;
+    private final int composableCount;
+
+    private SnapshotImage(MemorySegment segment, long endTablePosition, int composableCount) {
+        this.segment = segment;
+        this.endTablePosition = endTablePosition;
+        this.composableCount = composableCount;
+    }
+
+    /**
+     * Maps an image file.
+     *
+     * @param file the image file.
+     * @return the mapped image.
+     * @throws IOException if the file cannot be read or is not a valid image.
+     */
+    public static SnapshotImage map(Path file) throws IOException {
+        MemorySegment segment;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), Arena.ofAuto());
+        }
+
+        long size = segment.byteSize();
+        if (size < SnapshotWriter.HEADER_SIZE + SnapshotWriter.TRAILER_SIZE
+                || segment.get(INT, 0) != SnapshotWriter.MAGIC
+                || segment.get(INT, size - Integer.BYTES) != SnapshotWriter.MAGIC) {
+            throw new IOException(file + " is not a file system snapshot.");
+        }
+        int version = segment.get(INT, Integer.BYTES);
+        if (version != SnapshotWriter.VERSION) throw new IOException("Unsupported snapshot version " + version + " in " + file);
+
+        long endTablePosition = segment.get(LONG, size - SnapshotWriter.TRAILER_SIZE);
+        int composableCount = segment.get(INT, size - SnapshotWriter.TRAILER_SIZE + Long.BYTES);
+        if (composableCount < 1 || endTablePosition < SnapshotWriter.HEADER_SIZE
+                || endTablePosition + (long) composableCount * Long.BYTES != size - SnapshotWriter.TRAILER_SIZE) {
+            throw new IOException(file + " is a truncated or corrupted snapshot.");
+        }
+
+        return new SnapshotImage(segment, endTablePosition, composableCount);
+    }
+
+    /**
+     * Returns the forest root of the image, whose children are the Drives.
+     *
+     * @return the forest root node.
+     */
+    public SnapshotNode getForest() {
+        return new SnapshotNode(this, SnapshotWriter.HEADER_SIZE);
+    }
+
+    byte getByte(long position) {
+        return segment.get(ValueLayout.JAVA_BYTE, position);
+    }
+
+    int getInt(long position) {
+        return segment.get(INT, position);
+    }
+
+    long getLong(long position) {
+        return segment.get(LONG, position);
+    }
+
+    String getString(long position, int byteLength) {
+        return new String(segment.asSlice(position, byteLength).toArray(ValueLayout.JAVA_BYTE), StandardCharsets.UTF_8);
+    }
+
+    long getComposableEnd(int index) {
+        if (index < 0 || index >= composableCount) throw new IllegalStateException("Corrupted snapshot: invalid record index " + index);
+        return segment.get(LONG, endTablePosition + (long) index * Long.BYTES);
+    }
+}
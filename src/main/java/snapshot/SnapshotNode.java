@@ -0,0 +1,101 @@
+package snapshot;
+
+import entities.EntityType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SnapshotNode is a view of a node record of a SnapshotImage. Only the fixed-size fields of the record are read when
+ * the view is created; names, contents and children are decoded when they are requested.
+ */
+public final class SnapshotNode {
+
+    private static final EntityType[] TYPES = EntityType.values();
+
+    private final SnapshotImage image;
+    private final byte type;
+    private final long namePosition;
+    private final int nameLength;
+    /**
+     * Size of Composable entities, or length in characters of TextFiles.
+     */
+    private final long size;
+    /**
+     * Position of the first child of Composable entities, or of the content of TextFiles.
+     */
+    private final long bodyPosition;
+    private final long end;
+
+    SnapshotNode(SnapshotImage image, long position) {
+        this.image = image;
+        this.type = image.getByte(position);
+        this.namePosition = position + 1 + Integer.BYTES;
+        this.nameLength = image.getInt(position + 1);
+
+        long fieldsPosition = namePosition + nameLength;
+        if (type == EntityType.TEXT_FILE.ordinal()) {
+            this.size = image.getInt(fieldsPosition);
+            this.bodyPosition = fieldsPosition + Integer.BYTES * 2;
+            this.end = bodyPosition + image.getInt(fieldsPosition + Integer.BYTES);
+        } else {
+            this.size = image.getLong(fieldsPosition);
+            this.bodyPosition = fieldsPosition + Long.BYTES + Integer.BYTES;
+            this.end = image.getComposableEnd(image.getInt(fieldsPosition + Long.BYTES));
+        }
+    }
+
+    /**
+     * Returns the type of the node.
+     *
+     * @return the type of the node, or null for the forest root.
+     */
+    public EntityType getType() {
+        return type == SnapshotWriter.FOREST_TYPE ? null : TYPES[type];
+    }
+
+    public String getName() {
+        return image.getString(namePosition, nameLength);
+    }
+
+    /**
+     * Returns the size of the node, which for TextFiles is the length of their content.
+     *
+     * @return the size of the node.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    public boolean isComposable() {
+        return type != EntityType.TEXT_FILE.ordinal();
+    }
+
+    /**
+     * Decodes the direct children of a Composable node, in the order they were written. Grandchildren are skipped
+     * without being decoded.
+     *
+     * @return a list with the children of the node.
+     */
+    public List<SnapshotNode> getChildren() {
+        if (!isComposable()) throw new IllegalStateException("Text files have no children.");
+
+        List<SnapshotNode> children = new ArrayList<>();
+        for (long position = bodyPosition; position < end; ) {
+            SnapshotNode child = new SnapshotNode(image, position);
+            children.add(child);
+            position = child.end;
+        }
+        return children;
+    }
+
+    /**
+     * Decodes the content of a TextFile node.
+     *
+     * @return the content of the file.
+     */
+    public String getContent() {
+        if (isComposable()) throw new IllegalStateException("Only text files have content.");
+        return image.getString(bodyPosition, (int) (end - bodyPosition));
+    }
+}
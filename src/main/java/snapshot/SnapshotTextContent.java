@@ -0,0 +1,61 @@
+package snapshot;
+
+import entities.TextContent;
+import entities.TextStorage;
+
+/**
+ * SnapshotTextContent is the content of a TextFile restored from a SnapshotImage. It reads the content from the image
+ * until it is first modified, and only then copies it into a content of the configured TextStorage.
+ */
+public final class SnapshotTextContent implements TextContent {
+
+    private final TextStorage textStorage;
+    private SnapshotNode source;
+    private TextContent content;
+
+    public SnapshotTextContent(SnapshotNode source, TextStorage textStorage) {
+        this.source = source;
+        this.textStorage = textStorage;
+    }
+
+    @Override
+    public void append(String text) {
+        materialize().append(text);
+    }
+
+    @Override
+    public void truncate(int newLength) {
+        materialize().truncate(newLength);
+    }
+
+    @Override
+    public void clear() {
+        materialize().clear();
+    }
+
+    @Override
+    public int length() {
+        return content != null ? content.length() : (int) source.getSize();
+    }
+
+    @Override
+    public void release() {
+        source = null;
+        if (content != null) content.release();
+        content = textStorage.newContent();
+    }
+
+    @Override
+    public String toString() {
+        return content != null ? content.toString() : source.getContent();
+    }
+
+    private TextContent materialize() {
+        if (content == null) {
+            content = textStorage.newContent();
+            content.append(source.getContent());
+            source = null;
+        }
+        return content;
+    }
+}
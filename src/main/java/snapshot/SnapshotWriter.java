@@ -0,0 +1,163 @@
+package snapshot;
+
+import entities.EntityType;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * SnapshotWriter streams a FileSystem tree into a binary image file, in a single pre-order pass.
+ * <p>
+ * The image starts with a header (magic number and format version) followed by the node records, every record written
+ * right before the records of its children:
+ * - Composable entities (and the forest root, whose type is -1): type, name, size and index in the end table.
+ * - TextFiles: type, name, length in characters and content.
+ * Names and contents are stored as length-prefixed UTF-8. As the end of a Composable record is only known once all its
+ * descendants are written, ends are collected in a table appended after the records, so the image never needs to be
+ * rewritten. The image finishes with a trailer holding the position of the end table, its length and the magic number.
+ * All numbers are big-endian.
+ * <p>
+ * The image is written to a temporary file next to the target, which only replaces the target once it is complete and
+ * synced to disk. The previous image is therefore never truncated: it survives a crash while saving, and it can still be
+ * mapped (and lazily read) by the FileSystem that was loaded from it, even when saving over it.
+ */
+public final class SnapshotWriter implements Closeable {
+
+    static final int MAGIC = 0x494D4653;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = Integer.BYTES * 2;
+    static final int TRAILER_SIZE = Long.BYTES + Integer.BYTES * 2;
+    static final byte FOREST_TYPE = -1;
+
+    private final Path file;
+    private final Path temporaryFile;
+    private final FileChannel channel;
+    private final DataOutputStream out;
+    private long position;
+    private long[] composableEnds = new long[16];
+    private int composableCount;
+    private int[] openComposables = new int[16];
+    private int openComposableCount;
+
+    public SnapshotWriter(Path file) throws IOException {
+        this.file = file;
+        Path directory = file.toAbsolutePath().getParent();
+        temporaryFile = Files.createTempFile(directory, file.getFileName() + ".", ".tmp");
+        channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE);
+        out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        position = HEADER_SIZE;
+    }
+
+    /**
+     * Starts the forest root, whose children are the Drives. It must be the first record of the image.
+     */
+    public void startForest() throws IOException {
+        if (composableCount > 0) throw new IllegalStateException("The forest must be the first record of the snapshot.");
+        startComposable(FOREST_TYPE, "", 0);
+    }
+
+    /**
+     * Starts a Composable entity. The records written until the matching endComposable are its descendants.
+     *
+     * @param type the type of the entity.
+     * @param name the name of the entity.
+     * @param size the size of the entity.
+     */
+    public void startComposable(EntityType type, String name, long size) throws IOException {
+        if (type == EntityType.TEXT_FILE) throw new IllegalArgumentException("Text files are not Composable.");
+        checkOpen();
+        startComposable((byte) type.ordinal(), name, size);
+    }
+
+    /**
+     * Ends the innermost Composable entity (or the forest root) that was started.
+     */
+    public void endComposable() throws IOException {
+        checkOpen();
+        composableEnds[openComposables[--openComposableCount]] = position;
+    }
+
+    /**
+     * Writes a TextFile.
+     *
+     * @param name the name of the file.
+     * @param content the content of the file.
+     */
+    public void writeTextFile(String name, String content) throws IOException {
+        checkOpen();
+        out.writeByte(EntityType.TEXT_FILE.ordinal());
+        writeString(name);
+        out.writeInt(content.length());
+        writeString(content);
+        position += 1 + Integer.BYTES;
+    }
+
+    /**
+     * Writes the end table and the trailer, syncs the image and atomically moves it over the target file. Every started
+     * Composable must have been ended, otherwise the image is discarded and the target is left untouched.
+     */
+    @Override
+    public void close() throws IOException {
+        boolean complete = false;
+        try {
+            if (openComposableCount > 0) throw new IllegalStateException(openComposableCount + " Composable entities were not ended.");
+
+            long endTablePosition = position;
+            for (int i = 0; i < composableCount; i++) {
+                out.writeLong(composableEnds[i]);
+            }
+            out.writeLong(endTablePosition);
+            out.writeInt(composableCount);
+            out.writeInt(MAGIC);
+            out.flush();
+            channel.force(true);
+            complete = true;
+        } finally {
+            out.close();
+            if (!complete) Files.deleteIfExists(temporaryFile);
+        }
+
+        try {
+            Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporaryFile);
+            throw e;
+        }
+    }
+
+    private void startComposable(byte type, String name, long size) throws IOException {
+        if (composableCount == composableEnds.length) composableEnds = Arrays.copyOf(composableEnds, composableCount * 2);
+        if (openComposableCount == openComposables.length) openComposables = Arrays.copyOf(openComposables, openComposableCount * 2);
+        int index = composableCount++;
+        openComposables[openComposableCount++] = index;
+
+        out.writeByte(type);
+        writeString(name);
+        out.writeLong(size);
+        out.writeInt(index);
+        position += 1 + Long.BYTES + Integer.BYTES;
+    }
+
+    private void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        position += Integer.BYTES + bytes.length;
+    }
+
+    private void checkOpen() {
+        if (openComposableCount == 0) throw new IllegalStateException("Records must be written inside the forest.");
+    }
+}
@@ -0,0 +1,192 @@
+package utils;
+
+/**
+ * FileSystemPath is a path tokenized once into the offsets of its elements over the original String.
+ * Parsing does not use regular expressions nor copies the elements, and parent and prefix views share the original
+ * String and offsets, so that walking up or down a path never copies it. Elements are only materialized as Strings when
+ * they are requested.
+ * <p>
+ * Paths are parsed the same way as PathUtils.trimAndSplitPath: a single leading and trailing \ are ignored, and the
+ * rest is split using \ as delimiter, discarding trailing empty elements.
+ */
+public final class FileSystemPath {
+
+    private static final char SEPARATOR = '\\';
+
+    private final String source;
+    /**
+     * Start (inclusive) and end (exclusive) offsets of every element, in pairs.
+     */
+    private final int[] bounds;
+    private final int elementCount;
+    private String lastElement;
+    private int hash;
+
+    private FileSystemPath(String source, int[] bounds, int elementCount) {
+        this.source = source;
+        this.bounds = bounds;
+        this.elementCount = elementCount;
+    }
+
+    /**
+     * Tokenizes a path String.
+     *
+     * @param path the path String.
+     * @return the tokenized path, which always has at least one (maybe empty) element.
+     */
+    public static FileSystemPath parse(String path) {
+        int start = path.startsWith("\\") ? 1 : 0;
+        int end = path.length() > start && path.endsWith("\\") ? path.length() - 1 : path.length();
+
+        // Trailing empty elements are discarded, as String.split does
+        while (end > start && path.charAt(end - 1) == SEPARATOR) end--;
+
+        int elementCount = 1;
+        for (int i = start; i < end; i++) {
+            if (path.charAt(i) == SEPARATOR) elementCount++;
+        }
+
+        int[] bounds = new int[elementCount * 2];
+        int element = 0;
+        bounds[0] = start;
+        for (int i = start; i < end; i++) {
+            if (path.charAt(i) == SEPARATOR) {
+                bounds[element * 2 + 1] = i;
+                element++;
+                bounds[element * 2] = i + 1;
+            }
+        }
+        bounds[element * 2 + 1] = end;
+
+        return new FileSystemPath(path, bounds, elementCount);
+    }
+
+    /**
+     * Returns the number of elements of the path.
+     *
+     * @return the number of elements.
+     */
+    public int getElementCount() {
+        return elementCount;
+    }
+
+    /**
+     * Checks if the path only has one element, i.e. it points to the Drive level.
+     *
+     * @return true if the path has a single element and false otherwise.
+     */
+    public boolean isSingleElement() {
+        return elementCount == 1;
+    }
+
+    /**
+     * Materializes an element of the path.
+     *
+     * @param index the index of the element.
+     * @return the element at the index.
+     */
+    public String getElement(int index) {
+        if (index == elementCount - 1) return getLastElement();
+        return source.substring(start(index), end(index));
+    }
+
+    /**
+     * Returns the last element of the path, i.e. the name of the entity the path points to. It is only materialized once.
+     *
+     * @return the last element of the path.
+     */
+    public String getLastElement() {
+        if (lastElement == null) lastElement = source.substring(start(elementCount - 1), end(elementCount - 1));
+        return lastElement;
+    }
+
+    /**
+     * Compares an element of the path with a name without materializing the element.
+     *
+     * @param index the index of the element.
+     * @param name the name to compare with.
+     * @return true if the element is equal to the name and false otherwise.
+     */
+    public boolean elementEquals(int index, String name) {
+        int length = end(index) - start(index);
+        return name.length() == length && source.regionMatches(start(index), name, 0, length);
+    }
+
+    /**
+     * Returns a view of the first elements of the path, sharing this path's String and offsets.
+     *
+     * @param elementCount the number of elements of the prefix.
+     * @return the prefix of the path.
+     */
+    public FileSystemPath prefix(int elementCount) {
+        if (elementCount < 1 || elementCount > this.elementCount) throw new IndexOutOfBoundsException("Invalid prefix length: " + elementCount);
+        return elementCount == this.elementCount ? this : new FileSystemPath(source, bounds, elementCount);
+    }
+
+    /**
+     * Returns a view of the path without its last element. Single element paths are their own parent.
+     *
+     * @return the parent path.
+     */
+    public FileSystemPath parent() {
+        return isSingleElement() ? this : prefix(elementCount - 1);
+    }
+
+    /**
+     * Materializes the elements of the path into an array.
+     *
+     * @return a String array with the elements of the path.
+     */
+    public String[] toArray() {
+        String[] elements = new String[elementCount];
+        for (int i = 0; i < elementCount; i++) {
+            elements[i] = getElement(i);
+        }
+        return elements;
+    }
+
+    /**
+     * Two paths are equal if they have the same elements, regardless of the Strings they were parsed from.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof FileSystemPath otherPath) || elementCount != otherPath.elementCount) return false;
+
+        for (int i = 0; i < elementCount; i++) {
+            int length = end(i) - start(i);
+            if (otherPath.end(i) - otherPath.start(i) != length) return false;
+            if (!source.regionMatches(start(i), otherPath.source, otherPath.start(i), length)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = hash;
+        if (result == 0) {
+            // Same value as the hash code of the joined path String
+            for (int i = start(0); i < end(elementCount - 1); i++) {
+                result = 31 * result + source.charAt(i);
+            }
+            hash = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the elements of the path joined using \ as delimiter.
+     */
+    @Override
+    public String toString() {
+        return source.substring(start(0), end(elementCount - 1));
+    }
+
+    private int start(int index) {
+        return bounds[index * 2];
+    }
+
+    private int end(int index) {
+        return bounds[index * 2 + 1];
+    }
+}
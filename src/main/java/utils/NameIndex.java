@@ -0,0 +1,76 @@
+package utils;
+
+import entities.EntityType;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * NameIndex is an index of entities by name and type, so that entities can be found by name pattern without walking
+ * the tree.
+ * <p>
+ * Distinct names are kept in a NameMap, so patterns only look at the names they may match, and never at every entity.
+ * <p>
+ * The index is safe to use from many threads.
+ *
+ * @param <E> the type of the indexed entities, e.g. the entities themselves or node identifiers.
+ */
+public final class NameIndex<E> {
+
+    private final NameMap<Map<EntityType, Set<E>>> entitiesByName = new NameMap<>();
+    private final Supplier<Set<E>> setFactory;
+
+    /**
+     * @param setFactory creates the sets holding the entities with the same name and type, which decide how entities are
+     * told apart (e.g. by identity).
+     */
+    public NameIndex(Supplier<Set<E>> setFactory) {
+        this.setFactory = setFactory;
+    }
+
+    public synchronized void add(String name, EntityType type, E entity) {
+        entitiesByName.computeIfAbsent(name, it -> new EnumMap<>(EntityType.class))
+                .computeIfAbsent(type, it -> setFactory.get())
+                .add(entity);
+    }
+
+    public synchronized void remove(String name, EntityType type, E entity) {
+        Map<EntityType, Set<E>> entitiesByType = entitiesByName.get(name);
+        if (entitiesByType == null) return;
+
+        Set<E> entities = entitiesByType.get(type);
+        if (entities == null || !entities.remove(entity) || !entities.isEmpty()) return;
+
+        entitiesByType.remove(type);
+        if (entitiesByType.isEmpty()) entitiesByName.remove(name);
+    }
+
+    /**
+     * Finds the entities of a type whose name matches a pattern.
+     *
+     * @param pattern the name pattern.
+     * @param type the type of the entities.
+     * @return the matching entities, in no particular order.
+     */
+    public synchronized List<E> find(NamePattern pattern, EntityType type) {
+        List<E> found = new ArrayList<>();
+        for (Map<EntityType, Set<E>> entitiesByType : entitiesByName.findMatching(pattern)) {
+            Set<E> entities = entitiesByType.get(type);
+            if (entities != null) found.addAll(entities);
+        }
+        return found;
+    }
+
+    /**
+     * Returns the number of distinct names in the index.
+     *
+     * @return the number of names.
+     */
+    public synchronized int getNameCount() {
+        return entitiesByName.size();
+    }
+}
@@ -0,0 +1,82 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * NameMap maps distinct entity names to values, and finds the values of the names matching a pattern.
+ * <p>
+ * Names are kept sorted both as they are and reversed, so that patterns with a literal prefix (e.g. report*) or suffix
+ * (e.g. *.log) only look at the names in a range, while exact names are looked up directly. Patterns without any
+ * literal part look at every name.
+ * <p>
+ * The map is not thread-safe.
+ *
+ * @param <V> the type of the values, e.g. the entities with that name.
+ */
+public final class NameMap<V> {
+
+    private final NavigableMap<String, V> valuesByName = new TreeMap<>();
+    private final NavigableMap<String, String> namesByReversedName = new TreeMap<>();
+
+    public V get(String name) {
+        return valuesByName.get(name);
+    }
+
+    public V computeIfAbsent(String name, Function<String, V> valueFactory) {
+        V value = valuesByName.get(name);
+        if (value == null) {
+            value = valueFactory.apply(name);
+            valuesByName.put(name, value);
+            namesByReversedName.put(reverse(name), name);
+        }
+        return value;
+    }
+
+    public void remove(String name) {
+        if (valuesByName.remove(name) != null) namesByReversedName.remove(reverse(name));
+    }
+
+    public int size() {
+        return valuesByName.size();
+    }
+
+    /**
+     * Finds the values of the names matching a pattern.
+     *
+     * @param pattern the name pattern.
+     * @return the values, in no particular order.
+     */
+    public List<V> findMatching(NamePattern pattern) {
+        List<V> found = new ArrayList<>();
+        if (pattern.isLiteral()) {
+            V value = valuesByName.get(pattern.toString());
+            if (value != null) found.add(value);
+            return found;
+        }
+
+        String prefix = pattern.getLiteralPrefix();
+        String suffix = pattern.getLiteralSuffix();
+        if (suffix.length() > prefix.length()) {
+            String reversedSuffix = reverse(suffix);
+            for (Map.Entry<String, String> entry : namesByReversedName.tailMap(reversedSuffix, true).entrySet()) {
+                if (!entry.getKey().startsWith(reversedSuffix)) break;
+                if (pattern.matches(entry.getValue())) found.add(valuesByName.get(entry.getValue()));
+            }
+        } else {
+            for (Map.Entry<String, V> entry : valuesByName.tailMap(prefix, true).entrySet()) {
+                if (!entry.getKey().startsWith(prefix)) break;
+                if (pattern.matches(entry.getKey())) found.add(entry.getValue());
+            }
+        }
+        return found;
+    }
+
+    private static String reverse(String name) {
+        return new StringBuilder(name).reverse().toString();
+    }
+}
@@ -0,0 +1,113 @@
+package utils;
+
+/**
+ * NamePattern is a glob pattern matched against entity names: * matches any sequence of characters (including none),
+ * ? matches any single character, and every other character matches itself, case-sensitively.
+ * <p>
+ * The literal prefix and suffix of the pattern (the characters before the first and after the last wildcard) are kept,
+ * so that indexes can narrow the names to match down to a range, e.g. names ending with .log for *.log.
+ */
+public final class NamePattern {
+
+    private final String pattern;
+    private final String literalPrefix;
+    private final String literalSuffix;
+    private final boolean literal;
+
+    private NamePattern(String pattern, String literalPrefix, String literalSuffix, boolean literal) {
+        this.pattern = pattern;
+        this.literalPrefix = literalPrefix;
+        this.literalSuffix = literalSuffix;
+        this.literal = literal;
+    }
+
+    /**
+     * Compiles a glob pattern.
+     *
+     * @param pattern the glob pattern.
+     * @return the compiled pattern.
+     */
+    public static NamePattern compile(String pattern) {
+        int firstWildcard = -1;
+        int lastWildcard = -1;
+        for (int i = 0; i < pattern.length(); i++) {
+            if (isWildcard(pattern.charAt(i))) {
+                if (firstWildcard < 0) firstWildcard = i;
+                lastWildcard = i;
+            }
+        }
+
+        if (firstWildcard < 0) return new NamePattern(pattern, pattern, pattern, true);
+        return new NamePattern(pattern, pattern.substring(0, firstWildcard), pattern.substring(lastWildcard + 1), false);
+    }
+
+    /**
+     * Checks if the pattern has no wildcards, i.e. it only matches the name equal to it.
+     *
+     * @return true if the pattern has no wildcards and false otherwise.
+     */
+    public boolean isLiteral() {
+        return literal;
+    }
+
+    /**
+     * Returns the characters every matching name starts with.
+     *
+     * @return the characters before the first wildcard, or the whole pattern if it is literal.
+     */
+    public String getLiteralPrefix() {
+        return literalPrefix;
+    }
+
+    /**
+     * Returns the characters every matching name ends with.
+     *
+     * @return the characters after the last wildcard, or the whole pattern if it is literal.
+     */
+    public String getLiteralSuffix() {
+        return literalSuffix;
+    }
+
+    /**
+     * Matches a name against the pattern without recursion, only backtracking to the last * met.
+     *
+     * @param name the name.
+     * @return true if the whole name matches the pattern and false otherwise.
+     */
+    public boolean matches(String name) {
+        if (literal) return pattern.equals(name);
+
+        int patternIndex = 0;
+        int nameIndex = 0;
+        int lastStar = -1;
+        int lastStarMatch = 0;
+
+        while (nameIndex < name.length()) {
+            if (patternIndex < pattern.length() && pattern.charAt(patternIndex) == '*') {
+                // Try matching nothing first, and give the last * one more character whenever the rest fails
+                lastStar = patternIndex++;
+                lastStarMatch = nameIndex;
+            } else if (patternIndex < pattern.length() && (pattern.charAt(patternIndex) == '?' || pattern.charAt(patternIndex) == name.charAt(nameIndex))) {
+                patternIndex++;
+                nameIndex++;
+            } else if (lastStar >= 0) {
+                patternIndex = lastStar + 1;
+                nameIndex = ++lastStarMatch;
+            } else {
+                return false;
+            }
+        }
+
+        while (patternIndex < pattern.length() && pattern.charAt(patternIndex) == '*') patternIndex++;
+        return patternIndex == pattern.length();
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+
+    private static boolean isWildcard(char character) {
+        return character == '*' || character == '?';
+    }
+}
@@ -2,11 +2,14 @@ package utils;
 
 import entities.Composable;
 import entities.Drive;
+import entities.DriveRegistry;
 import entities.Entity;
 import entities.EntityType;
 import exceptions.PathNotFoundException;
+import lombok.Getter;
+import metrics.PathWalkMetrics;
 
-import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -14,44 +17,123 @@ import java.util.Optional;
  */
 public class NavigationUtils {
 
+    @Getter
+    private final PathWalkMetrics pathWalkMetrics = new PathWalkMetrics();
+    @Getter
+    private final PathCache pathCache;
+
+    public NavigationUtils() {
+        this(PathCache.disabled());
+    }
+
+    /**
+     * @param pathCache the cache of the Composable entities by their path, which the FileSystem using these
+     *                  NavigationUtils must invalidate on every move and delete.
+     */
+    public NavigationUtils(PathCache pathCache) {
+        this.pathCache = pathCache;
+    }
+
     /**
      * Finds a Drive by its name.
      *
-     * @param drives the list of drives to search in.
+     * @param drives the registry of drives to search in.
      * @param driveName the name of the Drive to look for.
      * @return an Optional with the Drive (empty if not found).
      */
-    public Optional<Drive> findDrive(List<Entity> drives, String driveName) {
-        return  drives.stream()
-                .filter(it -> it.getName().equals(driveName))
-                .map(it -> (Drive) it)
-                .findFirst();
+    public Optional<Drive> findDrive(DriveRegistry drives, String driveName) {
+        return Optional.ofNullable(drives.find(driveName));
     }
 
     /**
-     * Navigates the whole hierarchy down to the last Composable entity and returns it.
+     * Finds the Drive named after the first element of the path.
+     */
+    private Optional<Drive> findDrive(DriveRegistry drives, FileSystemPath path) {
+        return Optional.ofNullable(drives.find(path.getElement(0)));
+    }
+
+    /**
+     * Navigates the whole hierarchy down to the last Composable entity and returns it, unless it is cached.
      * The last element in the path must be a Composable entity as well.
      *
-     * @param drives the list of drives containing the root to start the search.
-     * @param pathParts a String list with the path.
+     * @param drives the registry of drives containing the root to start the search.
+     * @param path the path.
      * @throws PathNotFoundException if either the drive does not exist or if any of the path elements is not a Composable entity.
      * @return the Composable entity at the end of the path.
      */
-    public Composable navigateToComposableEntity(List<Entity> drives, String[] pathParts) {
-        Composable nextEntity = findDrive(drives, pathParts[0]).orElseThrow(() -> new PathNotFoundException("Drive not found."));
+    public Composable navigateToComposableEntity(DriveRegistry drives, FileSystemPath path) {
+        Composable cachedEntity = pathCache.get(path);
+        if (cachedEntity != null) return cachedEntity;
+
+        pathWalkMetrics.record(path.getElementCount());
+        Composable nextEntity = findDrive(drives, path).orElseThrow(() -> new PathNotFoundException("Drive not found."));
 
         // Move through the path to reach the end and insert the new element
-        for (int i = 1; i < pathParts.length; i++) {
-            int currentPathElement = i;
+        for (int i = 1; i < path.getElementCount(); i++) {
+            String pathElement = path.getElement(i);
 
-            nextEntity = (Composable) nextEntity.getContents()
-                    .stream()
-                    .filter(it -> it.getName().equals(pathParts[currentPathElement]) && it instanceof Composable)
-                    .findFirst().orElseThrow(() -> new PathNotFoundException("The path contains a nonexistent component: " + pathParts[currentPathElement]));
+            nextEntity = nextEntity.getContents()
+                    .findComposableChild(pathElement)
+                    .orElseThrow(() -> new PathNotFoundException("The path contains a nonexistent component: " + pathElement));
         }
+        pathCache.put(path, nextEntity);
         return nextEntity;
     }
 
+    /**
+     * Descends the hierarchy once, down to the Composable entity that contains the last element of the path.
+     * Unlike navigateToComposableEntity, a missing path element does not throw but is reported in the result.
+     * The parent is looked up in the PathCache first, and cached after descending to it.
+     *
+     * @param drives the registry of drives containing the root to start the search.
+     * @param path the path, including its last element.
+     * @return the ResolvedPath for the provided path.
+     */
+    public ResolvedPath resolvePath(DriveRegistry drives, FileSystemPath path) {
+        if (!path.isSingleElement()) {
+            Composable cachedParent = pathCache.get(path.parent());
+            if (cachedParent != null) return ResolvedPath.ofParent(path, cachedParent);
+        }
+
+        pathWalkMetrics.record(path.getElementCount());
+        Optional<Drive> drive = findDrive(drives, path);
+
+        if (path.isSingleElement()) return ResolvedPath.ofDrive(path, drive.orElse(null));
+        if (drive.isEmpty()) return ResolvedPath.notFound(path, "Drive not found.");
+
+        Composable currentEntity = drive.get();
+        for (int i = 1; i < path.getElementCount() - 1; i++) {
+            String pathElement = path.getElement(i);
+            Optional<Composable> nextEntity = currentEntity.getContents().findComposableChild(pathElement);
+            if (nextEntity.isEmpty()) return ResolvedPath.notFound(path, "The path contains a nonexistent component: " + pathElement);
+            currentEntity = nextEntity.get();
+        }
+        pathCache.put(path.parent(), currentEntity);
+        return ResolvedPath.ofParent(path, currentEntity);
+    }
+
+    /**
+     * Same as resolvePath, but looks the parent up in the provided cache first, and stores it there when it has to be
+     * resolved, so that paths sharing the same parent only descend the hierarchy once.
+     * Cached parents become stale when entities are deleted or moved, so the cache must be cleared afterwards.
+     *
+     * @param drives the registry of drives containing the root to start the search.
+     * @param path the path, including its last element.
+     * @param resolvedParents the already resolved parents, by their path.
+     * @return the ResolvedPath for the provided path.
+     */
+    public ResolvedPath resolvePath(DriveRegistry drives, FileSystemPath path, Map<FileSystemPath, Composable> resolvedParents) {
+        if (path.isSingleElement()) return resolvePath(drives, path);
+
+        FileSystemPath parentPath = path.parent();
+        Composable parent = resolvedParents.get(parentPath);
+        if (parent != null) return ResolvedPath.ofParent(path, parent);
+
+        ResolvedPath resolvedPath = resolvePath(drives, path);
+        if (resolvedPath.isParentFound()) resolvedParents.put(parentPath, resolvedPath.getParent());
+        return resolvedPath;
+    }
+
     /**
      * Finds the child of a specific type contained in the parent Composable entity.
      *
@@ -61,9 +143,6 @@ public class NavigationUtils {
      * @return an Optional with the Entity (empty if not found).
      */
     public Optional<Entity> getChildOfType(EntityType type, String name, Composable parent) {
-        return parent.getContents()
-                .stream()
-                .filter(it -> it.getName().equals(name) && it.getEntityType() == type)
-                .findFirst();
+        return parent.getContents().findChild(name, type);
     }
 }
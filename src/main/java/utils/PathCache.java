@@ -0,0 +1,223 @@
+package utils;
+
+import entities.Composable;
+import metrics.PathCacheMXBean;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * PathCache maps the paths of Composable entities to the entities, so that resolving a hot path does not descend the
+ * hierarchy from its Drive again.
+ * <p>
+ * It is bounded, evicting the least recently used paths, and split in segments by path, so that concurrent lookups
+ * rarely contend. Every segment also keeps its paths sorted, so that invalidating a path invalidates all the paths under
+ * it, and nothing else, with a range lookup per segment instead of a scan. The FileSystem must invalidate the path of
+ * every entity it moves or deletes, as the entities under it are no longer reachable through the cached paths.
+ */
+public class PathCache implements PathCacheMXBean {
+
+    public static final int DEFAULT_CAPACITY = 10_000;
+    private static final int SEGMENT_COUNT = 16;
+
+    private final int capacity;
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * @param capacity the maximum number of cached paths, 0 disabling the cache.
+     */
+    public PathCache(int capacity) {
+        if (capacity < 0) throw new IllegalArgumentException("The capacity cannot be negative.");
+
+        this.capacity = capacity;
+        if (capacity == 0) {
+            this.segments = null;
+        } else {
+            int segmentCount = Math.min(SEGMENT_COUNT, capacity);
+            this.segments = new Segment[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                // The capacity is spread over the segments, the first ones taking the remainder
+                segments[i] = new Segment(capacity / segmentCount + (i < capacity % segmentCount ? 1 : 0));
+            }
+        }
+    }
+
+    public static PathCache disabled() {
+        return new PathCache(0);
+    }
+
+    public boolean isEnabled() {
+        return segments != null;
+    }
+
+    /**
+     * Looks up the Composable entity at the end of a path.
+     *
+     * @param path the path.
+     * @return the cached entity, or null if the path is not cached.
+     */
+    public Composable get(FileSystemPath path) {
+        if (segments == null) return null;
+
+        Composable composable = segmentOf(path).get(path);
+        if (composable == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return composable;
+    }
+
+    /**
+     * Caches the Composable entity at the end of a path.
+     *
+     * @param path the path.
+     * @param composable the entity.
+     */
+    public void put(FileSystemPath path, Composable composable) {
+        if (segments == null) return;
+
+        segmentOf(path).put(path, composable);
+    }
+
+    /**
+     * Invalidates a path and all the paths under it.
+     *
+     * @param path the path.
+     */
+    public void invalidate(FileSystemPath path) {
+        if (segments == null) return;
+
+        String pathString = path.toString();
+        for (Segment segment : segments) {
+            invalidations.add(segment.invalidate(pathString));
+        }
+    }
+
+    /**
+     * Invalidates all the paths, e.g. when the whole FileSystem is replaced.
+     */
+    public void invalidateAll() {
+        if (segments == null) return;
+
+        for (Segment segment : segments) {
+            invalidations.add(segment.invalidateAll());
+        }
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public int getSize() {
+        if (segments == null) return 0;
+
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    @Override
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long lookupCount = hitCount + misses.sum();
+        return lookupCount == 0 ? 0 : (double) hitCount / lookupCount;
+    }
+
+    private Segment segmentOf(FileSystemPath path) {
+        int hash = path.hashCode();
+        // Spread the high bits of the hash, as HashMap does, since only the low ones pick the segment
+        return segments[Math.floorMod(hash ^ (hash >>> 16), segments.length)];
+    }
+
+    private final class Segment {
+        private final LinkedHashMap<FileSystemPath, Composable> entries;
+        private final TreeMap<String, FileSystemPath> keysByPath = new TreeMap<>();
+
+        private Segment(int capacity) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<FileSystemPath, Composable> eldest) {
+                    if (size() <= capacity) return false;
+
+                    keysByPath.remove(eldest.getKey().toString());
+                    evictions.increment();
+                    return true;
+                }
+            };
+        }
+
+        private synchronized Composable get(FileSystemPath path) {
+            return entries.get(path);
+        }
+
+        private synchronized void put(FileSystemPath path, Composable composable) {
+            String pathString = path.toString();
+            // The key is parsed again so that it does not keep the String of a longer path alive
+            FileSystemPath key = keysByPath.computeIfAbsent(pathString, FileSystemPath::parse);
+            entries.put(key, composable);
+        }
+
+        private synchronized int invalidate(String path) {
+            int invalidated = 0;
+
+            FileSystemPath key = keysByPath.remove(path);
+            if (key != null) {
+                entries.remove(key);
+                invalidated++;
+            }
+
+            // The paths under it are the ones starting with path\, which sort before path] as ] follows \
+            SortedMap<String, FileSystemPath> descendants = keysByPath.subMap(path + "\\", path + "]");
+            for (FileSystemPath descendant : descendants.values()) {
+                entries.remove(descendant);
+                invalidated++;
+            }
+            descendants.clear();
+
+            return invalidated;
+        }
+
+        private synchronized int invalidateAll() {
+            int invalidated = entries.size();
+            entries.clear();
+            keysByPath.clear();
+            return invalidated;
+        }
+
+        private synchronized int size() {
+            return entries.size();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package utils;
+
+import entities.EntityType;
+import exceptions.PathNotFoundException;
+
+import java.util.Optional;
+
+/**
+ * PathResolution is what a storage engine found when resolving a path: whether the location that contains (or would
+ * contain) the last element of the path exists, and what is at the end of the path. It is all a ConstraintsValidator
+ * needs to validate an operation, so every engine is validated by the same rules whatever its entities are.
+ *
+ * @param <E> the type of the entities of the engine, e.g. the entities themselves or node identifiers.
+ */
+public interface PathResolution<E> {
+
+    /**
+     * Checks if the path points to the Drive level, i.e. it only has one element.
+     *
+     * @return true if the path has a single element and false otherwise.
+     */
+    boolean isDriveLevel();
+
+    /**
+     * Checks if the location that contains (or would contain) the last element of the path exists.
+     * The location of Drive level paths is the root of the FileSystem, which always exists.
+     *
+     * @return true if the parent location exists and false otherwise.
+     */
+    boolean isParentFound();
+
+    /**
+     * Returns the reason why the parent location could not be found.
+     *
+     * @return the reason, or null if the parent location was found.
+     */
+    String getNotFoundMessage();
+
+    /**
+     * Checks if the parent location holds an entity of the type named after the last element of the path. At the Drive
+     * level, it checks if there is a Drive with that name, whichever the requested type is.
+     *
+     * @param type the type of the entity.
+     * @return true if the entity exists and false otherwise.
+     * @throws PathNotFoundException if the parent location does not exist.
+     */
+    boolean containsEntity(EntityType type);
+
+    /**
+     * Returns the entity of the requested type at the end of the path.
+     *
+     * @param type the type of the entity.
+     * @return an Optional with the entity (empty if not found).
+     */
+    Optional<E> getTarget(EntityType type);
+
+    /**
+     * Checks if there is a Composable entity at the end of the path, whichever its type is.
+     *
+     * @return true if there is one and false otherwise.
+     */
+    boolean hasComposableTarget();
+
+    /**
+     * Checks if the parent location is the entity itself or one of its descendants.
+     *
+     * @param entity the entity that may contain the parent location.
+     * @return true if the parent location is within the entity and false otherwise.
+     */
+    boolean isParentWithin(E entity);
+}
@@ -35,6 +35,29 @@ public class PathUtils {
         return trimmedPath.split("\\\\");
     }
 
+    /**
+     * Tokenizes a String path into a FileSystemPath, without regular expressions nor copying its elements.
+     *
+     * @param path the String path.
+     * @return the tokenized path.
+     */
+    public FileSystemPath parsePath(String path) {
+        return FileSystemPath.parse(path);
+    }
+
+    /**
+     * Returns the first element of a path (i.e. the Drive name) without splitting the whole path.
+     *
+     * @param path the path String.
+     * @return the first element of the path.
+     */
+    public String getRootElement(String path) {
+        String trimmedPath = trimPath(path);
+        int separatorIndex = trimmedPath.indexOf('\\');
+
+        return separatorIndex < 0 ? trimmedPath : trimmedPath.substring(0, separatorIndex);
+    }
+
     /**
      * Removes the last element of a path parts array and returns the rest.
      * If the array has only one element, it returns the same array.
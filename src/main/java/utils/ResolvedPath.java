@@ -0,0 +1,126 @@
+package utils;
+
+import entities.Composable;
+import entities.Drive;
+import entities.Entity;
+import entities.EntityType;
+import exceptions.PathNotFoundException;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Optional;
+
+/**
+ * ResolvedPath is the outcome of a single descent through the FileSystem hierarchy of entities.
+ * It holds the parsed path, the Composable entity that contains (or would contain) the last element of the path,
+ * and gives constant time access to the entity at the end of the path, so that validators and services can perform
+ * all of their checks without walking the tree again.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class ResolvedPath implements PathResolution<Entity> {
+
+    private final FileSystemPath path;
+    /**
+     * The Composable entity containing the last element of the path. It is null for single element (Drive level)
+     * paths and for paths whose parent could not be found.
+     */
+    private final Composable parent;
+    /**
+     * The Drive at the end of a single element path, if it exists.
+     */
+    private final Drive drive;
+    /**
+     * The reason why the parent could not be found, or null if it was found.
+     */
+    private final String notFoundMessage;
+
+    static ResolvedPath ofDrive(FileSystemPath path, Drive drive) {
+        return new ResolvedPath(path, null, drive, null);
+    }
+
+    static ResolvedPath ofParent(FileSystemPath path, Composable parent) {
+        return new ResolvedPath(path, parent, null, null);
+    }
+
+    static ResolvedPath notFound(FileSystemPath path, String notFoundMessage) {
+        return new ResolvedPath(path, null, null, notFoundMessage);
+    }
+
+    @Override
+    public boolean isDriveLevel() {
+        return path.isSingleElement();
+    }
+
+    @Override
+    public boolean isParentFound() {
+        return notFoundMessage == null;
+    }
+
+    /**
+     * Returns the parent Composable entity, failing if it could not be found.
+     *
+     * @throws PathNotFoundException if the parent does not exist.
+     * @return the parent Composable entity.
+     */
+    public Composable getExistingParent() {
+        if (!isParentFound()) throw new PathNotFoundException(notFoundMessage);
+        return parent;
+    }
+
+    /**
+     * Returns the first element of the path, i.e. the name of the Drive the path goes through.
+     *
+     * @return the first element of the path.
+     */
+    public String getDriveName() {
+        return path.getElement(0);
+    }
+
+    /**
+     * Returns the last element of the path, i.e. the name of the entity the path points to.
+     *
+     * @return the last element of the path.
+     */
+    public String getLastElement() {
+        return path.getLastElement();
+    }
+
+    @Override
+    public boolean containsEntity(EntityType type) {
+        if (isDriveLevel()) return drive != null;
+
+        return getExistingParent().getContents().containsChild(getLastElement(), type);
+    }
+
+    @Override
+    public Optional<Entity> getTarget(EntityType type) {
+        if (isDriveLevel()) return type == EntityType.DRIVE ? Optional.ofNullable(drive) : Optional.empty();
+        if (!isParentFound()) return Optional.empty();
+
+        return parent.getContents().findChild(getLastElement(), type);
+    }
+
+    /**
+     * Returns the Composable entity at the end of the path, whichever its type is.
+     *
+     * @return an Optional with the Composable entity (empty if not found).
+     */
+    public Optional<Composable> getComposableTarget() {
+        if (isDriveLevel()) return Optional.ofNullable(drive);
+        if (!isParentFound()) return Optional.empty();
+
+        return parent.getContents().findComposableChild(getLastElement());
+    }
+
+    @Override
+    public boolean hasComposableTarget() {
+        return getComposableTarget().isPresent();
+    }
+
+    @Override
+    public boolean isParentWithin(Entity entity) {
+        return parent != null && ((Entity) parent).isSameOrDescendantOf(entity);
+    }
+}
@@ -1,9 +1,18 @@
 package validators;
 
+import entities.Composable;
+import entities.Entity;
 import entities.EntityType;
+import services.OperationResult;
+import utils.PathResolution;
 
 /**
  * ConstraintsValidator provides a common API for business constraints checking.
+ * <p>
+ * Besides the single checks, it validates whole operations against resolved paths, reporting the first broken
+ * constraint as an OperationResult instead of throwing, so that rejecting an operation does not cost more than
+ * accepting it. Paths are resolved by the storage engines into PathResolutions, so every engine is validated by the
+ * same rules.
  */
 public interface ConstraintsValidator {
 
@@ -40,4 +49,76 @@ public interface ConstraintsValidator {
      * @return true if the path can contain the entity and false otherwise.
      */
     boolean isPathSuitableForEntityType(EntityType type, String path);
+
+    /**
+     * Checks if the location that contains (or would contain) the resolved entity exists.
+     *
+     * @param resolvedPath the resolved path, including the desired entity.
+     * @return true if the location does exist and false otherwise.
+     */
+    boolean parentPathExists(PathResolution<?> resolvedPath);
+
+    /**
+     * Checks if the entity of this type already exists at the end of the resolved path.
+     *
+     * @param type the EntityType to check for.
+     * @param resolvedPath the resolved path, including the desired entity.
+     * @return true if the entity already exists and false otherwise.
+     */
+    boolean entityAlreadyExists(EntityType type, PathResolution<?> resolvedPath);
+
+    /**
+     * Checks if the resolved path can contain the provided entity type.
+     *
+     * @param type the type to check.
+     * @param resolvedPath the resolved path, including the desired entity.
+     * @return true if the path can contain the entity and false otherwise.
+     */
+    boolean isPathSuitableForEntityType(EntityType type, PathResolution<?> resolvedPath);
+
+    /**
+     * Checks if the location is the entity itself or one of its descendants.
+     *
+     * @param location the location to check.
+     * @param entity the entity that may contain the location.
+     * @return true if the location is within the entity and false otherwise.
+     */
+    boolean isLocationWithinEntity(Composable location, Entity entity);
+
+    /**
+     * Validates the creation of an entity at the end of the resolved path.
+     *
+     * @param type the type of the entity.
+     * @param resolvedPath the resolved path, including the desired entity.
+     * @return OK if the entity can be created, or the first constraint it breaks.
+     */
+    OperationResult validateCreation(EntityType type, PathResolution<?> resolvedPath);
+
+    /**
+     * Validates the deletion of the entity at the end of the resolved path.
+     *
+     * @param type the type of the entity.
+     * @param resolvedPath the resolved path to the entity.
+     * @return OK if the entity can be deleted, or the first constraint it breaks.
+     */
+    OperationResult validateDeletion(EntityType type, PathResolution<?> resolvedPath);
+
+    /**
+     * Validates moving the entity at the end of a resolved path to the end of another one.
+     *
+     * @param type the type of the entity.
+     * @param source the resolved path to the entity.
+     * @param destination the resolved path the entity would have after being moved.
+     * @param <E> the type of the entities of the storage engine.
+     * @return OK if the entity can be moved, or the first constraint it breaks.
+     */
+    <E> OperationResult validateMove(EntityType type, PathResolution<E> source, PathResolution<E> destination);
+
+    /**
+     * Validates writing to the TextFile at the end of the resolved path.
+     *
+     * @param resolvedPath the resolved path to the TextFile.
+     * @return OK if the TextFile can be written, or the first constraint it breaks.
+     */
+    OperationResult validateWrite(PathResolution<?> resolvedPath);
 }
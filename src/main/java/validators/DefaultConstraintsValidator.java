@@ -1,25 +1,49 @@
 package validators;
 
 import entities.Composable;
-import entities.Drive;
+import entities.DriveRegistry;
 import entities.Entity;
 import entities.EntityType;
 import exceptions.PathNotFoundException;
-import lombok.RequiredArgsConstructor;
+import services.OperationResult;
 import utils.NavigationUtils;
+import utils.PathResolution;
 import utils.PathUtils;
 
 import java.util.Arrays;
-import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
+import java.util.function.Function;
 
-@RequiredArgsConstructor
 public class DefaultConstraintsValidator implements ConstraintsValidator {
 
-    private final List<Entity> drives;
-    private final PathUtils pathUtils;
-    private final NavigationUtils navigationUtils;
+    private static final OperationResult ENTITY_ALREADY_EXISTS = OperationResult.pathAlreadyExists("The entity already exists under that path.");
+    private static final OperationResult UNSUITABLE_PATH = OperationResult.illegalOperation("The provided path does not apply to this entity type.");
+    private static final OperationResult PATH_NOT_FOUND = OperationResult.pathNotFound("The provided path does not exist.");
+    private static final OperationResult ENTITY_NOT_FOUND = OperationResult.pathNotFound("The requested entity does not exist.");
+    private static final OperationResult DESTINATION_NOT_FOUND = OperationResult.pathNotFound("The destination path does not exist.");
+    private static final OperationResult ENTITY_ALREADY_IN_DESTINATION = OperationResult.pathAlreadyExists("The requested entity already exists in destination path.");
+    private static final OperationResult DRIVE_MOVE = OperationResult.illegalOperation("Drives may not be moved around.");
+    private static final OperationResult UNSUITABLE_DESTINATION = OperationResult.illegalOperation("The destination path does not apply to this entity type.");
+    private static final OperationResult MOVE_INTO_ITSELF = OperationResult.illegalOperation("An entity cannot be moved into itself.");
+    private static final OperationResult NOT_A_TEXT_FILE = OperationResult.notATextFile("The provided path is not a text file.");
+
+    private final Function<String, ? extends PathResolution<?>> resolver;
+
+    /**
+     * Validates the operations on a hierarchy of entities.
+     */
+    public DefaultConstraintsValidator(DriveRegistry drives, PathUtils pathUtils, NavigationUtils navigationUtils) {
+        this(path -> navigationUtils.resolvePath(drives, pathUtils.parsePath(path)));
+    }
+
+    /**
+     * Validates the operations on any storage engine.
+     *
+     * @param resolver resolves the paths given as Strings, in the storage engine being validated.
+     */
+    public DefaultConstraintsValidator(Function<String, ? extends PathResolution<?>> resolver) {
+        this.resolver = resolver;
+    }
 
     @Override
     public boolean anyValueNull(Object... values) {
@@ -28,63 +52,94 @@ public class DefaultConstraintsValidator implements ConstraintsValidator {
 
     @Override
     public boolean pathExists(String path) {
-        String trimmmedPath = pathUtils.trimPath(path);
-
-        boolean pathExists;
+        if ("".equals(path)) return true;
 
-        try {
-            pathExists = "".equals(path) ||
-                    entityAlreadyExists(EntityType.DRIVE, trimmmedPath) ||
-                    entityAlreadyExists(EntityType.FOLDER, trimmmedPath) ||
-                    entityAlreadyExists(EntityType.ZIP_FILE, trimmmedPath);
-        } catch (Exception e) {
-            pathExists = false;
-        }
+        PathResolution<?> resolvedPath = resolver.apply(path);
 
-        return pathExists;
+        return resolvedPath.hasComposableTarget();
     }
 
     @Override
     public boolean entityAlreadyExists(EntityType type, String path) {
-        String[] pathParts = pathUtils.trimAndSplitPath(path); // this is the whole full path up to the desired new element
-        String lastElement = pathParts[pathParts.length - 1];
-        String[] pathWithoutNewElement = pathParts.length > 1 ? pathUtils.excludeLastElement(pathParts) : pathParts;
+        return entityAlreadyExists(type, resolver.apply(path));
+    }
+
+    @Override
+    public boolean isPathSuitableForEntityType(EntityType type, String path) {
+        return isPathSuitableForEntityType(type, resolver.apply(path));
+    }
+
+    @Override
+    public boolean parentPathExists(PathResolution<?> resolvedPath) {
+        return resolvedPath.isParentFound();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws PathNotFoundException if the location that should contain the entity does not exist.
+     */
+    @Override
+    public boolean entityAlreadyExists(EntityType type, PathResolution<?> resolvedPath) {
+        return resolvedPath.containsEntity(type);
+    }
+
+    @Override
+    public boolean isPathSuitableForEntityType(EntityType type, PathResolution<?> resolvedPath) {
+        if (!resolvedPath.isParentFound()) return false;
+
+        return switch (type) {
+            case TEXT_FILE -> !resolvedPath.isDriveLevel() && !entityAlreadyExists(type, resolvedPath);
+            case ZIP_FILE, FOLDER -> !resolvedPath.isDriveLevel() && !entityAlreadyExists(EntityType.ZIP_FILE, resolvedPath) && !entityAlreadyExists(EntityType.FOLDER, resolvedPath);
+            case DRIVE -> resolvedPath.isDriveLevel() && !entityAlreadyExists(type, resolvedPath);
+        };
+    }
+
+    @Override
+    public boolean isLocationWithinEntity(Composable location, Entity entity) {
+        return ((Entity) location).isSameOrDescendantOf(entity);
+    }
 
-        Optional<Drive> drive = navigationUtils.findDrive(drives, pathParts[0]);
+    @Override
+    public OperationResult validateCreation(EntityType type, PathResolution<?> resolvedPath) {
+        if (!resolvedPath.isParentFound()) return OperationResult.pathNotFound(resolvedPath.getNotFoundMessage());
+        if (entityAlreadyExists(type, resolvedPath)) return ENTITY_ALREADY_EXISTS;
+        if (!isPathSuitableForEntityType(type, resolvedPath)) return UNSUITABLE_PATH;
 
-        if (drive.isEmpty()) {
-            if (pathParts.length == 1) {
-                // If there is only one element, we are checking for a Drive, and if we get here, the Drive does not exist
-                return false;
-            } else {
-                throw new PathNotFoundException("Drive not found.");
-            }
-        }
+        return OperationResult.OK;
+    }
 
-        Composable currentEntity = navigationUtils.navigateToComposableEntity(drives, pathWithoutNewElement);
+    @Override
+    public OperationResult validateDeletion(EntityType type, PathResolution<?> resolvedPath) {
+        if (!resolvedPath.isParentFound()) return OperationResult.pathNotFound(resolvedPath.getNotFoundMessage());
+        if (!entityAlreadyExists(type, resolvedPath)) return PATH_NOT_FOUND;
+        // Drive level paths hold a Drive, whichever the requested type is
+        if (resolvedPath.getTarget(type).isEmpty()) return ENTITY_NOT_FOUND;
 
-        // If we only have one element, we are checking for a drive, and if we reached this far, the drive does exist.
-        // Otherwise, the last check is to make sure there are no other entity of the same type with the same name in the location.
-        boolean entityExists = pathParts.length == 1 || currentEntity.getContents().stream()
-                .anyMatch(it -> it.getName().equals(lastElement) && it.getEntityType() == type);;
+        return OperationResult.OK;
+    }
 
-        return entityExists;
+    @Override
+    public <E> OperationResult validateMove(EntityType type, PathResolution<E> source, PathResolution<E> destination) {
+        if (!source.isParentFound()) return OperationResult.pathNotFound(source.getNotFoundMessage());
+        if (!entityAlreadyExists(type, source)) return ENTITY_NOT_FOUND;
+        if (!destination.isParentFound()) return DESTINATION_NOT_FOUND;
+        if (entityAlreadyExists(type, destination)) return ENTITY_ALREADY_IN_DESTINATION;
+        if (EntityType.DRIVE == type) return DRIVE_MOVE;
+        if (!isPathSuitableForEntityType(type, destination)) return UNSUITABLE_DESTINATION;
+
+        E movingEntity = source.getTarget(type).orElse(null);
+        if (movingEntity == null) return ENTITY_NOT_FOUND;
+        if (destination.isParentWithin(movingEntity)) return MOVE_INTO_ITSELF;
+
+        return OperationResult.OK;
     }
 
     @Override
-    public boolean isPathSuitableForEntityType(EntityType type, String path) {
-        boolean isPathSuitable;
-
-        try {
-            isPathSuitable = switch (type) {
-                case TEXT_FILE -> pathUtils.trimAndSplitPath(path).length > 1 && !entityAlreadyExists(type, path);
-                case ZIP_FILE, FOLDER -> pathUtils.trimAndSplitPath(path).length > 1 && !entityAlreadyExists(EntityType.ZIP_FILE, path) && !entityAlreadyExists(EntityType.FOLDER, path);
-                case DRIVE -> pathUtils.trimAndSplitPath(path).length == 1 && !entityAlreadyExists(type, path);
-            };
-        } catch (Exception e) {
-            isPathSuitable = false;
-        }
-
-        return isPathSuitable;
+    public OperationResult validateWrite(PathResolution<?> resolvedPath) {
+        if (!resolvedPath.isParentFound()) return OperationResult.pathNotFound(resolvedPath.getNotFoundMessage());
+        if (!entityAlreadyExists(EntityType.TEXT_FILE, resolvedPath)) return NOT_A_TEXT_FILE;
+
+        return OperationResult.OK;
     }
 }
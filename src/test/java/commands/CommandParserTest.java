@@ -0,0 +1,35 @@
+package commands;
+
+import entities.EntityType;
+import exceptions.InvalidCommandException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandParserTest {
+
+    private final CommandParser parser = new CommandParser();
+
+    @Test
+    void parseCommands() {
+        assertEquals(new Command.Create(EntityType.DRIVE, "C:", ""), parser.parse("create drive C:"));
+        assertEquals(new Command.Create(EntityType.FOLDER, "My Folder", "C:\\docs"), parser.parse("CREATE\tFOLDER \"My Folder\" C:\\docs"));
+        assertEquals(new Command.WriteToFile("C:\\notes", "say \"hi\""), parser.parse("WRITE C:\\notes \"say \"\"hi\"\"\""));
+        assertEquals(new Command.Move(EntityType.TEXT_FILE, "C:\\a", "D:"), parser.parse("MOVE TEXT_FILE C:\\a D:"));
+        assertEquals(new Command.Find("C:", "*.log", EntityType.TEXT_FILE), parser.parse("FIND C: *.log TEXT_FILE"));
+        assertEquals(new Command.LoadSnapshot(Path.of("fs.img")), parser.parse("LOAD fs.img"));
+        assertEquals(new Command.WriteToFile("C:\\notes", ""), parser.parse("WRITE C:\\notes \"\""));
+    }
+
+    @Test
+    void rejectInvalidCommands() {
+        assertThrows(InvalidCommandException.class, () -> parser.parse("FORMAT C:"));
+        assertThrows(InvalidCommandException.class, () -> parser.parse("DELETE C:"));
+        assertThrows(InvalidCommandException.class, () -> parser.parse("SIZE FILE C:"));
+        assertThrows(InvalidCommandException.class, () -> parser.parse("WRITE C:\\notes \"unterminated"));
+        assertTrue(parser.isSkipped("   "));
+        assertTrue(parser.isSkipped("# comment"));
+    }
+}
@@ -0,0 +1,69 @@
+package commands;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import services.OperationLogLevel;
+import services.PersistentFileSystemManagementService;
+import utils.PathUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScriptRunnerTest {
+
+    private ScriptRunner scriptRunner;
+
+    @BeforeEach
+    void setUp() {
+        PersistentFileSystemManagementService fileSystemManagementService = new PersistentFileSystemManagementService(new PathUtils());
+        fileSystemManagementService.setOperationLogLevel(OperationLogLevel.OFF);
+        scriptRunner = new ScriptRunner(new CommandExecutor(fileSystemManagementService, new CommandParser()));
+    }
+
+    @Test
+    void runScriptAndKeepGoingAfterFailures() throws IOException {
+        String script = """
+                # Sets up a drive
+                CREATE DRIVE C:
+                CREATE FOLDER docs C:
+
+                CREATE FOLDER docs C:
+                CREATE TEXT_FILE notes C:\\docs
+                WRITE C:\\docs\\notes abc
+                LIST C:\\docs
+                """;
+        StringWriter output = new StringWriter();
+
+        ScriptRunner.Summary summary = scriptRunner.run(new BufferedReader(new StringReader(script)), output);
+
+        assertEquals(8, summary.lines());
+        assertEquals(1, summary.failures());
+        assertEquals("""
+                OK
+                OK
+                ERROR PathAlreadyExistsException The entity already exists under that path.
+                OK
+                OK
+                OK 1
+                TEXT_FILE 3 C:\\docs\\notes
+                """, output.toString());
+    }
+
+    @Test
+    void writeResponsesOfLongScripts() throws IOException {
+        StringBuilder script = new StringBuilder("CREATE DRIVE C:\n");
+        for (int i = 0; i < ScriptRunner.FLUSH_THRESHOLD; i++) {
+            script.append("CREATE FOLDER f").append(i).append(" C:\n");
+        }
+        StringWriter output = new StringWriter();
+
+        ScriptRunner.Summary summary = scriptRunner.run(new BufferedReader(new StringReader(script.toString())), output);
+
+        assertEquals(0, summary.failures());
+        assertEquals("OK\n".repeat(ScriptRunner.FLUSH_THRESHOLD + 1), output.toString());
+    }
+}
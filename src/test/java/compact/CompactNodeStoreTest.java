@@ -0,0 +1,133 @@
+package compact;
+
+import entities.EntityType;
+import org.junit.jupiter.api.Test;
+import utils.NamePattern;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static compact.CompactNodeStore.NONE;
+import static compact.CompactNodeStore.ROOT;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactNodeStoreTest {
+
+    @Test
+    void keepChildrenInInsertionOrder() {
+        CompactNodeStore store = new CompactNodeStore();
+        int drive = store.addChild(ROOT, EntityType.DRIVE, "C:");
+        int first = store.addChild(drive, EntityType.FOLDER, "first");
+        int second = store.addChild(drive, EntityType.TEXT_FILE, "second");
+        int third = store.addChild(drive, EntityType.ZIP_FILE, "third");
+
+        store.unlink(second);
+        store.link(second, drive, third);
+        store.unlink(first);
+        store.link(first, drive, NONE);
+
+        assertEquals(List.of(first, third, second), children(store, drive));
+        assertEquals(second, store.findChild(drive, "second", EntityType.TEXT_FILE));
+        assertEquals(NONE, store.findChild(drive, "second", EntityType.FOLDER));
+        assertEquals(third, store.findComposableChild(drive, "third"));
+    }
+
+    @Test
+    void reuseFreedNodes() {
+        CompactNodeStore store = new CompactNodeStore();
+        int drive = store.addChild(ROOT, EntityType.DRIVE, "C:");
+        int folder = store.addChild(drive, EntityType.FOLDER, "folder");
+        int textFile = store.addChild(folder, EntityType.TEXT_FILE, "letter");
+        store.appendContent(textFile, "content");
+        assertEquals(7, store.getSize(drive));
+
+        store.unlink(folder);
+        store.free(folder);
+
+        assertEquals(0, store.getSize(drive));
+        assertEquals(2, store.getNodeCount());
+        assertEquals(NONE, store.findChild(drive, "folder", EntityType.FOLDER));
+
+        int newFolder = store.addChild(drive, EntityType.FOLDER, "other");
+        int newTextFile = store.addChild(newFolder, EntityType.TEXT_FILE, "letter");
+        assertTrue(newFolder == folder || newFolder == textFile);
+        assertEquals("", store.getContent(newTextFile));
+        assertEquals(NONE, store.findChild(folder == newFolder ? textFile : folder, "letter", EntityType.TEXT_FILE));
+    }
+
+    @Test
+    void findNodesByNameUnderAncestor() {
+        CompactNodeStore store = new CompactNodeStore();
+        int drive = store.addChild(ROOT, EntityType.DRIVE, "C:");
+        int first = store.addChild(drive, EntityType.FOLDER, "first");
+        int second = store.addChild(drive, EntityType.FOLDER, "second");
+        int firstReport = store.addChild(first, EntityType.TEXT_FILE, "report.log");
+        int middleReport = store.addChild(second, EntityType.TEXT_FILE, "report.log");
+        int lastReport = store.addChild(drive, EntityType.TEXT_FILE, "report.log");
+        store.addChild(drive, EntityType.FOLDER, "report.log");
+
+        assertEquals(Set.of(firstReport, middleReport, lastReport), nodes(store.find(drive, NamePattern.compile("*.log"), EntityType.TEXT_FILE)));
+        assertEquals(Set.of(middleReport), nodes(store.find(second, NamePattern.compile("report*"), EntityType.TEXT_FILE)));
+
+        store.unlink(middleReport);
+        store.free(middleReport);
+        assertEquals(Set.of(firstReport, lastReport), nodes(store.find(drive, NamePattern.compile("report.log"), EntityType.TEXT_FILE)));
+        store.unlink(first);
+        store.free(first);
+        store.unlink(lastReport);
+        store.free(lastReport);
+        assertEquals(0, store.find(drive, NamePattern.compile("*"), EntityType.TEXT_FILE).length);
+    }
+
+    @Test
+    void findChildrenAfterRandomChanges() {
+        CompactNodeStore store = new CompactNodeStore();
+        int drive = store.addChild(ROOT, EntityType.DRIVE, "C:");
+        List<Integer> folders = new ArrayList<>(List.of(drive));
+        Map<String, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20_000; i++) {
+            int parent = folders.get(random.nextInt(folders.size()));
+            String name = "entry-" + random.nextInt(500);
+            String key = parent + "/" + name;
+
+            Integer existing = expected.get(key);
+            if (existing == null) {
+                int node = store.addChild(parent, EntityType.FOLDER, name);
+                expected.put(key, node);
+            } else if (store.getFirstChild(existing) == NONE) {
+                store.unlink(existing);
+                store.free(existing);
+                expected.remove(key);
+                folders.remove(existing);
+            }
+            if (existing == null && random.nextBoolean()) folders.add(expected.get(key));
+        }
+
+        expected.forEach((key, node) -> {
+            int separator = key.indexOf('/');
+            int parent = Integer.parseInt(key.substring(0, separator));
+            assertEquals(node, store.findChild(parent, key.substring(separator + 1), EntityType.FOLDER));
+        });
+        assertEquals(expected.size() + 2, store.getNodeCount());
+    }
+
+    private static List<Integer> children(CompactNodeStore store, int parent) {
+        List<Integer> children = new ArrayList<>();
+        for (int child = store.getFirstChild(parent); child != NONE; child = store.getNextSibling(child)) {
+            children.add(child);
+        }
+        return children;
+    }
+
+    private static Set<Integer> nodes(int[] nodes) {
+        return Arrays.stream(nodes).boxed().collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,62 @@
+package entities;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DriveRegistryTest {
+
+    @Test
+    void registerFindAndUnregisterDrives() {
+        DriveRegistry drives = new DriveRegistry();
+        Drive first = new Drive(EntityType.DRIVE, "C:");
+        Drive duplicate = new Drive(EntityType.DRIVE, "C:");
+
+        assertTrue(drives.register(first));
+        assertFalse(drives.register(duplicate));
+        assertSame(first, drives.find("C:"));
+        assertNull(drives.find("D:"));
+        assertNull(drives.find(null));
+        assertEquals(1, drives.size());
+
+        // Only the registered instance unregisters its name
+        assertFalse(drives.unregister(duplicate));
+        assertTrue(drives.unregister(first));
+        assertNull(drives.find("C:"));
+        assertTrue(drives.isEmpty());
+    }
+
+    @Test
+    void iterateDrivesSortedByName() {
+        DriveRegistry drives = new DriveRegistry();
+        for (String name : List.of("E:", "C:", "D:")) {
+            drives.register(new Drive(EntityType.DRIVE, name));
+        }
+
+        assertEquals(List.of("C:", "D:", "E:"), drives.getDrives().stream().map(Entity::getName).toList());
+
+        List<Drive> replacedDrives = drives.replaceAll(List.of(new Drive(EntityType.DRIVE, "F:")));
+        assertEquals(3, replacedDrives.size());
+        assertEquals(List.of("F:"), drives.getDrives().stream().map(Entity::getName).toList());
+        assertEquals(1, drives.size());
+    }
+
+    @Test
+    void groupDrivesInShards() {
+        // Drives of the same tenant, named tenant/drive, share a shard
+        DriveSharding byTenant = (driveName, shardCount) -> DriveSharding.HASH.shardOf(driveName.substring(0, driveName.indexOf('/')), shardCount);
+        DriveRegistry drives = new DriveRegistry(8, byTenant);
+        for (String name : List.of("acme/C:", "acme/D:", "globex/C:")) {
+            drives.register(new Drive(EntityType.DRIVE, name));
+        }
+
+        int acmeShard = drives.shardOf("acme/C:");
+        assertEquals(acmeShard, drives.shardOf("acme/D:"));
+        assertTrue(drives.getShard(acmeShard).stream().map(Entity::getName).toList().containsAll(List.of("acme/C:", "acme/D:")));
+        assertSame(drives.find("globex/C:"), drives.getShard(drives.shardOf("globex/C:")).stream().filter(it -> it.getName().equals("globex/C:")).findFirst().orElseThrow());
+        assertEquals(8, drives.getShardCount());
+        assertThrows(IllegalArgumentException.class, () -> new DriveRegistry(0, DriveSharding.HASH));
+    }
+}
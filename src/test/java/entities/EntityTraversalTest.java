@@ -0,0 +1,77 @@
+package entities;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityTraversalTest {
+
+    private final EntityFactory entityFactory = new EntityFactory();
+
+    @Test
+    void traverseDepthFirstAndBreadthFirst() {
+        Entity drive = entityFactory.createEntity(EntityType.DRIVE, "C:");
+        Entity folder = entityFactory.createEntity(EntityType.FOLDER, "folder");
+        Entity zip = entityFactory.createEntity(EntityType.ZIP_FILE, "zip");
+        drive.getContents().add(folder);
+        drive.getContents().add(entityFactory.createEntity(EntityType.TEXT_FILE, "a"));
+        folder.getContents().add(zip);
+        zip.getContents().add(entityFactory.createEntity(EntityType.TEXT_FILE, "b"));
+
+        List<String> depthFirst = new ArrayList<>();
+        EntityTraversal.traverse(drive, EntityTraversal.Order.DEPTH_FIRST, new EntityTraversal.Visitor() {
+            @Override
+            public boolean enter(Entity entity, int depth) {
+                depthFirst.add(depth + entity.getName());
+                return true;
+            }
+
+            @Override
+            public void exit(Entity entity, int depth) {
+                depthFirst.add("/" + entity.getName());
+            }
+        });
+        assertEquals(List.of("0C:", "1folder", "2zip", "3b", "/zip", "/folder", "1a", "/C:"), depthFirst);
+
+        List<String> breadthFirst = new ArrayList<>();
+        EntityTraversal.traverse(drive, EntityTraversal.Order.BREADTH_FIRST, (entity, depth) -> breadthFirst.add(depth + entity.getName()));
+        assertEquals(List.of("0C:", "1folder", "1a", "2zip", "3b"), breadthFirst);
+
+        List<String> skipped = new ArrayList<>();
+        EntityTraversal.traverse(drive, EntityTraversal.Order.DEPTH_FIRST, (entity, depth) -> skipped.add(entity.getName()) && entity != folder);
+        assertEquals(List.of("C:", "folder", "a"), skipped);
+    }
+
+    @Test
+    void parallelTraversalOfWideAndDeepSubtrees() {
+        Entity drive = entityFactory.createEntity(EntityType.DRIVE, "C:");
+        Entity zip = entityFactory.createEntity(EntityType.ZIP_FILE, "zip");
+        drive.getContents().add(zip);
+        for (int i = 0; i < 10 * EntityTraversal.PARALLEL_THRESHOLD; i++) {
+            TextFile textFile = (TextFile) entityFactory.createEntity(EntityType.TEXT_FILE, "file" + i);
+            zip.getContents().add(textFile);
+            textFile.setContent("abc");
+        }
+        Entity current = drive;
+        for (int i = 0; i < 100_000; i++) {
+            Entity folder = entityFactory.createEntity(EntityType.FOLDER, "level");
+            current.getContents().add(folder);
+            current = folder;
+        }
+        TextFile leaf = (TextFile) entityFactory.createEntity(EntityType.TEXT_FILE, "leaf");
+        current.getContents().add(leaf);
+        leaf.setContent("abcd");
+
+        AtomicInteger visited = new AtomicInteger();
+        EntityTraversal.forEachParallel(drive, it -> visited.incrementAndGet());
+        assertEquals(3 + 10 * EntityTraversal.PARALLEL_THRESHOLD + 100_000, visited.get());
+
+        assertEquals(drive.getSize(), EntityTraversal.computeSize(drive));
+        // Every child of a ZipFile adds half its size, rounded down
+        assertEquals(10 * EntityTraversal.PARALLEL_THRESHOLD + 4, EntityTraversal.computeSize(drive));
+    }
+}
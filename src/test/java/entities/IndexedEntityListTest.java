@@ -0,0 +1,48 @@
+package entities;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedEntityListTest {
+
+    @Test
+    void keepIndexParentsAndSizesThroughSubListsAndBulkMutators() {
+        Folder folder = new Folder(EntityType.FOLDER, "docs");
+        List<Entity> contents = folder.getContents();
+        for (String name : List.of("a", "b", "c", "d")) {
+            TextFile file = new TextFile(EntityType.TEXT_FILE, name);
+            file.setContent(name + name);
+            contents.add(file);
+        }
+        Entity b = contents.get(1);
+        Entity c = contents.get(2);
+        assertEquals(8, folder.getSize());
+
+        contents.subList(1, 3).clear();
+        assertEquals(List.of("a", "d"), contents.stream().map(Entity::getName).toList());
+        assertFalse(folder.getContents().containsChild("b", EntityType.TEXT_FILE));
+        assertNull(b.getParent());
+        assertNull(c.getParent());
+        assertEquals(4, folder.getSize());
+
+        TextFile e = new TextFile(EntityType.TEXT_FILE, "e");
+        e.setContent("eee");
+        contents.subList(0, 1).set(0, e);
+        assertSame(folder, e.getParent());
+        assertTrue(folder.getContents().containsChild("e", EntityType.TEXT_FILE));
+        assertFalse(folder.getContents().containsChild("a", EntityType.TEXT_FILE));
+        assertEquals(5, folder.getSize());
+
+        contents.replaceAll(it -> it.getName().equals("d") ? c : it);
+        assertSame(folder, c.getParent());
+        assertTrue(folder.getContents().containsChild("c", EntityType.TEXT_FILE));
+        assertEquals(5, folder.getSize());
+
+        contents.removeLast();
+        assertFalse(folder.getContents().containsChild("c", EntityType.TEXT_FILE));
+        assertEquals(3, folder.getSize());
+    }
+}
@@ -0,0 +1,30 @@
+package entities;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NameTableTest {
+
+    private final NameTable nameTable = NameTable.getInstance();
+
+    @Test
+    void internReturnsCanonicalInstance() {
+        String name = nameTable.intern(new String("interned-name"));
+
+        assertSame(name, nameTable.intern(new String("interned-name")));
+        assertSame(name, nameTable.find(new String("interned-name")));
+        assertNull(nameTable.find("never-interned-name"));
+    }
+
+    @Test
+    void entitiesShareNames() {
+        Folder first = new Folder(EntityType.FOLDER, new String("shared"));
+        Folder second = new Folder(EntityType.FOLDER, new String("shared"));
+        first.getContents().add(new TextFile(EntityType.TEXT_FILE, new String("letter")));
+
+        assertSame(first.getName(), second.getName());
+        assertTrue(first.getContents().findChild(new String("letter"), EntityType.TEXT_FILE).isPresent());
+        assertTrue(first.getContents().findChild("unknown", EntityType.TEXT_FILE).isEmpty());
+    }
+}
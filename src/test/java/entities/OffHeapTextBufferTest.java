@@ -0,0 +1,78 @@
+package entities;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OffHeapTextBufferTest {
+
+    @Test
+    void appendAndTruncateAcrossBlocks() {
+        OffHeapTextBuffer buffer = new OffHeapTextBuffer();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            String text = "line " + i + " é€\n";
+            buffer.append(text);
+            expected.append(text);
+        }
+
+        assertEquals(expected.length(), buffer.length());
+        assertEquals(expected.toString(), buffer.toString());
+
+        buffer.truncate(70);
+        buffer.append("tail");
+        assertEquals(expected.substring(0, 70) + "tail", buffer.toString());
+
+        buffer.release();
+        buffer.release();
+        assertEquals(0, buffer.length());
+        assertEquals("", buffer.toString());
+    }
+
+    @Test
+    void textFileContentIsReleasedWhenItsParentIsCleared() {
+        EntityFactory entityFactory = new EntityFactory(TextStorage.OFF_HEAP);
+        Folder folder = (Folder) entityFactory.createEntity(EntityType.FOLDER, "folder");
+        TextFile textFile = (TextFile) entityFactory.createEntity(EntityType.TEXT_FILE, "file");
+        folder.getContents().add(textFile);
+        textFile.setContent("content");
+
+        assertEquals(7, folder.getSize());
+        folder.clearContents();
+
+        assertEquals(0, folder.getSize());
+        assertEquals("", textFile.getContent());
+    }
+
+    @Test
+    void reuseFreedBlocksOfTheSameSize() {
+        OffHeapBlockPool pool = new OffHeapBlockPool();
+        MemorySegment block = pool.allocate(3000);
+        assertEquals(4096, block.byteSize());
+        assertEquals(OffHeapBlockPool.MIN_BLOCK_SIZE, pool.allocate(1).byteSize());
+        assertEquals(OffHeapBlockPool.MAX_BLOCK_SIZE, pool.allocate(Long.MAX_VALUE).byteSize());
+
+        pool.free(block);
+        assertEquals(block.address(), pool.allocate(4096).address());
+    }
+
+    @Test
+    void releaseSlabsWhoseBlocksAreAllFree() {
+        OffHeapBlockPool pool = new OffHeapBlockPool();
+        long blocksPerSlab = OffHeapBlockPool.SLAB_SIZE / OffHeapBlockPool.MAX_BLOCK_SIZE;
+        List<MemorySegment> blocks = new ArrayList<>();
+        for (int i = 0; i < 3 * blocksPerSlab; i++) {
+            blocks.add(pool.allocate(OffHeapBlockPool.MAX_BLOCK_SIZE));
+        }
+        pool.allocate(1);
+        assertEquals(4 * OffHeapBlockPool.SLAB_SIZE, pool.getReservedBytes());
+
+        // One empty slab of each size is kept for the next allocations
+        blocks.forEach(pool::free);
+        assertEquals(2 * OffHeapBlockPool.SLAB_SIZE, pool.getReservedBytes());
+    }
+}
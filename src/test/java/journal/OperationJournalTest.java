@@ -0,0 +1,76 @@
+package journal;
+
+import entities.EntityType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import services.BatchOperation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OperationJournalTest {
+
+    @Test
+    void replayAppendedEntries(@TempDir Path directory) throws IOException {
+        List<JournalEntry> entries = List.of(
+                JournalEntry.of(BatchOperation.create(EntityType.DRIVE, "C:", "")),
+                JournalEntry.of(BatchOperation.writeToFile("C:\\file", "x".repeat(100_000) + "ñ")),
+                new JournalEntry(Arrays.asList(BatchOperation.move(EntityType.FOLDER, "C:\\a", null), null), true)
+        );
+
+        try (OperationJournal journal = OperationJournal.open(directory, DurabilityLevel.SYNCED)) {
+            for (JournalEntry entry : entries) {
+                journal.awaitDurable(journal.append(entry));
+            }
+        }
+
+        try (OperationJournal journal = OperationJournal.open(directory, DurabilityLevel.SYNCED)) {
+            List<JournalEntry> replayed = new ArrayList<>();
+            assertEquals(3, journal.replay(replayed::add));
+            assertEquals(entries, replayed);
+            assertTrue(journal.getSnapshot().isEmpty());
+        }
+    }
+
+    @Test
+    void ignoreTornRecords(@TempDir Path directory) throws IOException {
+        try (OperationJournal journal = OperationJournal.open(directory, DurabilityLevel.WRITTEN)) {
+            journal.awaitDurable(journal.append(JournalEntry.of(BatchOperation.create(EntityType.DRIVE, "C:", ""))));
+        }
+        Files.write(directory.resolve("journal-1.log"), new byte[] {0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+        try (OperationJournal journal = OperationJournal.open(directory, DurabilityLevel.WRITTEN)) {
+            List<JournalEntry> replayed = new ArrayList<>();
+            assertEquals(1, journal.replay(replayed::add));
+            assertEquals(BatchOperation.create(EntityType.DRIVE, "C:", ""), replayed.getFirst().operations().getFirst());
+        }
+    }
+
+    @Test
+    void compactIntoSnapshot(@TempDir Path directory) throws IOException {
+        try (OperationJournal journal = OperationJournal.open(directory, DurabilityLevel.BUFFERED)) {
+            journal.append(JournalEntry.of(BatchOperation.create(EntityType.DRIVE, "C:", "")));
+            long generation = journal.rotate();
+            assertTrue(journal.getSizeSinceSnapshot() > 0);
+
+            Files.writeString(journal.getPendingSnapshot(generation), "snapshot");
+            journal.commitSnapshot(generation);
+            journal.append(JournalEntry.of(BatchOperation.create(EntityType.DRIVE, "D:", "")));
+        }
+
+        try (OperationJournal journal = OperationJournal.open(directory, DurabilityLevel.BUFFERED)) {
+            assertEquals("snapshot", Files.readString(journal.getSnapshot().orElseThrow()));
+            List<JournalEntry> replayed = new ArrayList<>();
+            assertEquals(1, journal.replay(replayed::add));
+            assertEquals(BatchOperation.create(EntityType.DRIVE, "D:", ""), replayed.getFirst().operations().getFirst());
+            assertFalse(Files.exists(directory.resolve("journal-1.log")));
+        }
+    }
+}
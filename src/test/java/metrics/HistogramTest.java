@@ -0,0 +1,39 @@
+package metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistogramTest {
+
+    @Test
+    void bucketsKeepRelativePrecision() {
+        for (long value : new long[]{0, 1, 31, 32, 33, 63, 64, 1_000, 123_456_789, Long.MAX_VALUE}) {
+            long reported = Histogram.highestValueInBucket(Histogram.bucketIndex(value));
+
+            assertTrue(reported >= value);
+            assertTrue(reported - value <= value / 32, () -> value + " reported as " + reported);
+        }
+        assertEquals(Histogram.bucketIndex(63) + 1, Histogram.bucketIndex(64));
+    }
+
+    @Test
+    void snapshotPercentiles() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.snapshot().count());
+
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        Histogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(1000, snapshot.count());
+        assertEquals(1, snapshot.min());
+        assertEquals(1000, snapshot.max());
+        assertEquals(500.5, snapshot.mean());
+        assertEquals(500, snapshot.p50(), 500 / 32.0);
+        assertEquals(900, snapshot.p90(), 900 / 32.0);
+        assertEquals(990, snapshot.p99(), 990 / 32.0);
+        assertEquals(1000, snapshot.p999());
+    }
+}
@@ -0,0 +1,41 @@
+package metrics;
+
+import entities.EntityType;
+import org.junit.jupiter.api.Test;
+import services.OperationLogLevel;
+import services.PersistentFileSystemManagementService;
+import utils.PathUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TreeShapeTest {
+
+    @Test
+    void measureDepthsAndFanOuts() {
+        PersistentFileSystemManagementService fileSystemManagementService = new PersistentFileSystemManagementService(new PathUtils());
+        fileSystemManagementService.setOperationLogLevel(OperationLogLevel.OFF);
+        fileSystemManagementService.create(EntityType.DRIVE, "C:", "");
+        fileSystemManagementService.create(EntityType.FOLDER, "sample", "C:");
+        fileSystemManagementService.create(EntityType.FOLDER, "empty", "C:");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "letter", "C:");
+        fileSystemManagementService.create(EntityType.ZIP_FILE, "compressed", "C:\\sample");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "letter", "C:\\sample\\compressed");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "notes", "C:\\sample\\compressed");
+
+        TreeShape shape = TreeShape.measure(fileSystemManagementService, "C:");
+
+        // C: | sample, empty, letter | compressed | letter, notes
+        assertEquals(7, shape.entityDepths().count());
+        assertEquals(3, shape.entityDepths().max());
+        assertEquals(1, shape.entityDepths().p50());
+        // C: has 3 children, sample 1, empty 0 and compressed 2
+        assertEquals(4, shape.fanOuts().count());
+        assertEquals(0, shape.fanOuts().min());
+        assertEquals(3, shape.fanOuts().max());
+        assertEquals(1.5, shape.fanOuts().mean());
+
+        TreeShape subtreeShape = TreeShape.measure(fileSystemManagementService, "C:\\sample");
+        assertEquals(4, subtreeShape.entityDepths().count());
+        assertEquals(2, subtreeShape.entityDepths().max());
+    }
+}
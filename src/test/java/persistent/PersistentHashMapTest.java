@@ -0,0 +1,73 @@
+package persistent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentHashMapTest {
+
+    @Test
+    void putGetAndRemove() {
+        PersistentHashMap<String, Integer> empty = PersistentHashMap.empty();
+        PersistentHashMap<String, Integer> map = empty.put("a", 1).put("b", 2).put("a", 3);
+
+        assertEquals(2, map.size());
+        assertEquals(3, map.get("a"));
+        assertEquals(2, map.get("b"));
+        assertNull(map.get("c"));
+
+        PersistentHashMap<String, Integer> removed = map.remove("a");
+        assertEquals(1, removed.size());
+        assertNull(removed.get("a"));
+        assertSame(removed, removed.remove("a"));
+
+        // Previous versions are not modified
+        assertTrue(empty.isEmpty());
+        assertEquals(3, map.get("a"));
+    }
+
+    @Test
+    void collidingKeys() {
+        // "Aa" and "BB" have the same String hash code
+        PersistentHashMap<String, Integer> map = PersistentHashMap.<String, Integer>empty().put("Aa", 1).put("BB", 2);
+
+        assertEquals(2, map.size());
+        assertEquals(1, map.get("Aa"));
+        assertEquals(2, map.get("BB"));
+        assertEquals(2, map.remove("Aa").get("BB"));
+        assertNull(map.remove("Aa").get("Aa"));
+    }
+
+    @Test
+    void behavesLikeHashMap() {
+        Random random = new Random(42);
+        Map<Integer, Integer> expected = new HashMap<>();
+        PersistentHashMap<Integer, Integer> map = PersistentHashMap.empty();
+
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, i);
+                map = map.put(key, i);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (int key = 0; key < 5_000; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+
+        Set<Integer> values = new HashSet<>();
+        map.forEachValue(values::add);
+        assertEquals(new HashSet<>(expected.values()), values);
+    }
+}
@@ -0,0 +1,121 @@
+package server;
+
+import commands.CommandExecutor;
+import commands.CommandParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import services.OperationLogLevel;
+import services.PersistentFileSystemManagementService;
+import utils.PathUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileSystemServerTest {
+
+    @TempDir
+    Path snapshotDirectory;
+    private FileSystemServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        PersistentFileSystemManagementService fileSystemManagementService = new PersistentFileSystemManagementService(new PathUtils());
+        fileSystemManagementService.setOperationLogLevel(OperationLogLevel.OFF);
+        server = FileSystemServer.start(new InetSocketAddress("localhost", 0), CommandExecutor.confinedTo(fileSystemManagementService, new CommandParser(), snapshotDirectory));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    void answerPipelinedRequestsInOrder() throws IOException {
+        try (Socket socket = new Socket("localhost", server.getAddress().getPort())) {
+            OutputStream output = socket.getOutputStream();
+            BufferedReader input = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+
+            output.write(("""
+                    CREATE DRIVE C:
+                    CREATE FOLDER logs C:
+                    CREATE TEXT_FILE app.log C:\\logs
+
+                    WRITE C:\\logs\\app.log "started up"
+                    SIZE FOLDER C:\\logs\r
+                    FIND C: *.log TEXT_FILE
+                    DELETE FOLDER D:\\logs
+                    """).getBytes(StandardCharsets.UTF_8));
+            output.flush();
+
+            assertEquals(List.of("OK", "OK", "OK", "OK", "OK 10", "OK 1", "TEXT_FILE 10 C:\\logs\\app.log"), readLines(input, 7));
+            assertTrue(input.readLine().startsWith("ERROR PathNotFoundException "));
+        }
+    }
+
+    @Test
+    void serveManyConnections() throws IOException {
+        List<Socket> sockets = new ArrayList<>();
+        try {
+            for (int i = 0; i < 50; i++) {
+                Socket socket = new Socket("localhost", server.getAddress().getPort());
+                sockets.add(socket);
+                socket.getOutputStream().write(("CREATE DRIVE D" + i + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            for (Socket socket : sockets) {
+                BufferedReader input = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                assertEquals("OK", input.readLine());
+            }
+        } finally {
+            for (Socket socket : sockets) socket.close();
+        }
+    }
+
+    @Test
+    void confineSnapshotsToTheSnapshotDirectory() throws IOException {
+        try (Socket socket = new Socket("localhost", server.getAddress().getPort())) {
+            OutputStream output = socket.getOutputStream();
+            BufferedReader input = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+
+            output.write(("""
+                    CREATE DRIVE C:
+                    SAVE fs.snapshot
+                    LOAD fs.snapshot
+                    SAVE ../outside.snapshot
+                    LOAD %s
+                    LOAD missing.snapshot
+                    """.formatted(snapshotDirectory.resolveSibling("outside.snapshot"))).getBytes(StandardCharsets.UTF_8));
+            output.flush();
+
+            assertEquals(List.of("OK", "OK", "OK"), readLines(input, 3));
+            assertEquals("ERROR IllegalFileSystemOperationException Snapshot files must be inside the snapshot directory.", input.readLine());
+            assertEquals("ERROR IllegalFileSystemOperationException Snapshot files must be inside the snapshot directory.", input.readLine());
+            String missingSnapshotError = input.readLine();
+            assertTrue(missingSnapshotError.startsWith("ERROR "));
+            assertFalse(missingSnapshotError.contains(snapshotDirectory.toString()));
+        }
+
+        assertTrue(Files.exists(snapshotDirectory.resolve("fs.snapshot")));
+        assertFalse(Files.exists(snapshotDirectory.resolveSibling("outside.snapshot")));
+    }
+
+    private List<String> readLines(BufferedReader input, int count) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            lines.add(input.readLine());
+        }
+        return lines;
+    }
+}
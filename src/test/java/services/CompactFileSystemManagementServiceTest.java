@@ -0,0 +1,79 @@
+package services;
+
+import entities.EntityType;
+import exceptions.PathNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import utils.PathUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactFileSystemManagementServiceTest extends FileSystemManagementServiceContractTest<CompactFileSystemManagementService> {
+
+    @Override
+    protected CompactFileSystemManagementService createService() {
+        CompactFileSystemManagementService service = new CompactFileSystemManagementService(new PathUtils());
+        service.setOperationLogLevel(OperationLogLevel.OFF);
+        return service;
+    }
+
+    @Test
+    void rollBackAtomicBatch() {
+        fileSystemManagementService.create(EntityType.FOLDER, "first", "C:");
+        fileSystemManagementService.create(EntityType.FOLDER, "second", "C:");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "letter", "C:\\first");
+        fileSystemManagementService.writeToFile("C:\\first\\letter", "abc");
+
+        List<BatchResult> results = fileSystemManagementService.executeBatch(List.of(
+                BatchOperation.writeToFile("C:\\first\\letter", "defgh"),
+                BatchOperation.move(EntityType.TEXT_FILE, "C:\\first\\letter", "C:\\second\\letter"),
+                BatchOperation.delete(EntityType.FOLDER, "C:\\first"),
+                BatchOperation.create(EntityType.FOLDER, "third", "C:"),
+                BatchOperation.create(EntityType.FOLDER, "fourth", "C:\\first")
+        ), true);
+
+        assertEquals(BatchResult.Status.FAILED, results.getLast().status());
+        assertEquals(3, fileSystemManagementService.getEntitySize(EntityType.TEXT_FILE, "C:\\first\\letter"));
+        assertEquals(0, fileSystemManagementService.getEntitySize(EntityType.FOLDER, "C:\\second"));
+        assertEquals(3, fileSystemManagementService.getEntitySize(EntityType.DRIVE, "C:"));
+        assertThrows(PathNotFoundException.class, () -> fileSystemManagementService.getEntitySize(EntityType.FOLDER, "C:\\third"));
+    }
+
+    @Test
+    void saveAndLoadSnapshot(@TempDir Path directory) throws IOException {
+        fileSystemManagementService.create(EntityType.ZIP_FILE, "archive", "C:");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "invoice", "C:\\archive");
+        fileSystemManagementService.create(EntityType.DRIVE, "D:", "");
+        fileSystemManagementService.writeToFile("C:\\archive\\invoice", "12345");
+        Path file = directory.resolve("snapshot.img");
+
+        fileSystemManagementService.saveSnapshot(file);
+        CompactFileSystemManagementService restoredService = new CompactFileSystemManagementService(new PathUtils());
+        restoredService.setOperationLogLevel(OperationLogLevel.OFF);
+        restoredService.loadSnapshot(file);
+
+        assertEquals(2, restoredService.getEntitySize(EntityType.DRIVE, "C:"));
+        assertEquals(0, restoredService.getEntitySize(EntityType.DRIVE, "D:"));
+        restoredService.writeToFile("C:\\archive\\invoice", "6");
+        assertEquals(6, restoredService.getEntitySize(EntityType.TEXT_FILE, "C:\\archive\\invoice"));
+        assertEquals(3, restoredService.getEntitySize(EntityType.DRIVE, "C:"));
+    }
+
+    @Test
+    void walkFailsFastWhenEntitiesAreCreated() {
+        fileSystemManagementService.create(EntityType.FOLDER, "sample", "C:");
+        fileSystemManagementService.create(EntityType.FOLDER, "example", "C:");
+
+        Iterator<EntityInfo> entities = fileSystemManagementService.walk("C:", 1, it -> true).iterator();
+        assertEquals("C:", entities.next().name());
+        fileSystemManagementService.create(EntityType.FOLDER, "other", "C:");
+        assertThrows(ConcurrentModificationException.class, entities::next);
+    }
+
+}
@@ -0,0 +1,138 @@
+package services;
+
+import entities.DriveRegistry;
+import entities.EntityFactory;
+import entities.EntityType;
+import entities.TextFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import utils.NavigationUtils;
+import utils.PathUtils;
+import validators.DefaultConstraintsValidator;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentFileSystemManagementServiceTest {
+
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 500;
+
+    private ConcurrentFileSystemManagementService fileSystemManagementService;
+    private DriveRegistry drives;
+    private NavigationUtils navigationUtils;
+
+    @BeforeEach
+    void setUp() {
+        PathUtils pathUtils = new PathUtils();
+        navigationUtils = new NavigationUtils();
+        drives = new DriveRegistry();
+        DefaultFileSystemManagementService delegate = new DefaultFileSystemManagementService(new DefaultConstraintsValidator(drives, pathUtils, navigationUtils), drives, pathUtils, navigationUtils, new EntityFactory());
+        delegate.setOperationLogLevel(OperationLogLevel.OFF);
+        fileSystemManagementService = new ConcurrentFileSystemManagementService(delegate, pathUtils, 4);
+        fileSystemManagementService.create(EntityType.DRIVE, "C:", "");
+        fileSystemManagementService.create(EntityType.DRIVE, "D:", "");
+    }
+
+    @Test
+    void concurrentAppendsToSameFile() throws Exception {
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "log", "C:");
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                fileSystemManagementService.writeToFile("C:\\log", "ab");
+                fileSystemManagementService.getEntitySize(EntityType.DRIVE, "C:");
+            }
+        });
+
+        TextFile textFile = (TextFile) navigationUtils.findDrive(drives, "C:").get().getContents().getFirst();
+        assertEquals(THREADS * OPERATIONS_PER_THREAD * 2, textFile.getContent().length());
+        assertEquals(THREADS * OPERATIONS_PER_THREAD * 2, fileSystemManagementService.getEntitySize(EntityType.DRIVE, "C:"));
+    }
+
+    @Test
+    void concurrentCreationsInDifferentDrives() throws Exception {
+        runConcurrently(thread -> {
+            String drive = thread % 2 == 0 ? "C:" : "D:";
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                fileSystemManagementService.create(EntityType.TEXT_FILE, "file-" + thread + "-" + i, drive);
+            }
+        });
+
+        assertEquals(THREADS / 2 * OPERATIONS_PER_THREAD, navigationUtils.findDrive(drives, "C:").get().getContents().size());
+        assertEquals(THREADS / 2 * OPERATIONS_PER_THREAD, navigationUtils.findDrive(drives, "D:").get().getContents().size());
+    }
+
+    @Test
+    void concurrentOppositeMovesDoNotDeadlock() {
+        for (int thread = 0; thread < THREADS; thread++) {
+            fileSystemManagementService.create(EntityType.FOLDER, "folder-" + thread, thread % 2 == 0 ? "C:" : "D:");
+        }
+
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> runConcurrently(thread -> {
+            String name = "folder-" + thread;
+            String source = thread % 2 == 0 ? "C:" : "D:";
+            String destination = thread % 2 == 0 ? "D:" : "C:";
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                fileSystemManagementService.move(EntityType.FOLDER, source + "\\" + name, destination + "\\" + name);
+                String swap = source;
+                source = destination;
+                destination = swap;
+            }
+        }));
+
+        int totalFolders = navigationUtils.findDrive(drives, "C:").get().getContents().size() + navigationUtils.findDrive(drives, "D:").get().getContents().size();
+        assertEquals(THREADS, totalFolders);
+    }
+
+    @Test
+    void concurrentDriveCreationsAndDeletions() throws Exception {
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                String driveName = "tenant-" + thread + "-" + i;
+                fileSystemManagementService.create(EntityType.DRIVE, driveName, "");
+                fileSystemManagementService.create(EntityType.FOLDER, "home", driveName);
+                if (i % 2 == 1) fileSystemManagementService.delete(EntityType.DRIVE, driveName);
+            }
+        });
+
+        assertEquals(2 + THREADS * OPERATIONS_PER_THREAD / 2, drives.size());
+        for (int thread = 0; thread < THREADS; thread++) {
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                String driveName = "tenant-" + thread + "-" + i;
+                assertEquals(i % 2 == 0, drives.find(driveName) != null, driveName);
+                if (i % 2 == 0) assertEquals(1, drives.find(driveName).getContents().size());
+            }
+        }
+    }
+
+    private void runConcurrently(ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int threadNumber = thread;
+                futures.add(executor.submit(() -> {
+                    task.run(threadNumber);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThreadTask {
+        void run(int thread);
+    }
+}
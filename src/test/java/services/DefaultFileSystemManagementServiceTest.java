@@ -5,36 +5,50 @@ import exceptions.IllegalFileSystemOperationException;
 import exceptions.NotATextFileException;
 import exceptions.PathAlreadyExistsException;
 import exceptions.PathNotFoundException;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import utils.FileSystemPath;
 import utils.NavigationUtils;
+import utils.PathCache;
 import utils.PathUtils;
 import validators.ConstraintsValidator;
 import validators.DefaultConstraintsValidator;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-class DefaultFileSystemManagementServiceTest {
+class DefaultFileSystemManagementServiceTest extends FileSystemManagementServiceContractTest<DefaultFileSystemManagementService> {
 
-    private DefaultFileSystemManagementService fileSystemManagementService;
-    private List<Entity> drives;
+    private DriveRegistry drives;
     private EntityFactory entityFactory;
     private PathUtils pathUtils;
     private NavigationUtils navigationUtils;
     private ConstraintsValidator validator;
 
-    @BeforeEach
-    void setUp() {
+    @Override
+    protected DefaultFileSystemManagementService createService() {
         pathUtils = new PathUtils();
-        navigationUtils = new NavigationUtils();
-        drives = new ArrayList<>();
+        navigationUtils = new NavigationUtils(new PathCache(PathCache.DEFAULT_CAPACITY));
+        drives = new DriveRegistry();
         validator = new DefaultConstraintsValidator(drives, pathUtils, navigationUtils);
         entityFactory = new EntityFactory();
-        fileSystemManagementService = new DefaultFileSystemManagementService(validator, drives, pathUtils, navigationUtils, entityFactory);
-        fileSystemManagementService.create(EntityType.DRIVE, "C:", "");
+        return new DefaultFileSystemManagementService(validator, drives, pathUtils, navigationUtils, entityFactory);
+    }
+
+    @Test
+    void rejectDriveWhoseNameIsTakenInTheRegistry() {
+        // A validator that does not see C: lets the creation through, as it would after a race
+        DefaultConstraintsValidator staleValidator = new DefaultConstraintsValidator(new DriveRegistry(), pathUtils, navigationUtils);
+        DefaultFileSystemManagementService service = new DefaultFileSystemManagementService(staleValidator, drives, pathUtils, navigationUtils, entityFactory);
+        Drive existingDrive = drives.find("C:");
+
+        assertEquals(OperationResult.Code.PATH_ALREADY_EXISTS, service.tryCreate(EntityType.DRIVE, "C:", "").code());
+        assertEquals(1, drives.size());
+        assertSame(existingDrive, drives.find("C:"));
     }
 
     @Test
@@ -54,9 +68,9 @@ class DefaultFileSystemManagementServiceTest {
     @Test
     void createNewFolder() {
         fileSystemManagementService.create(EntityType.FOLDER, "sample", "C:");
-        assertEquals(1, drives.getFirst().getContents().size());
+        assertEquals(1, drives.find("C:").getContents().size());
 
-        Entity newFolder = drives.getFirst().getContents().getFirst();
+        Entity newFolder = drives.find("C:").getContents().getFirst();
 
         assertInstanceOf(Folder.class, newFolder);
         assertEquals(EntityType.FOLDER, newFolder.getEntityType());
@@ -69,7 +83,7 @@ class DefaultFileSystemManagementServiceTest {
     @Test
     void createNewTextFile() {
         fileSystemManagementService.create(EntityType.FOLDER, "sample", "C:");
-        Entity newFolder = drives.getFirst().getContents().getFirst();
+        Entity newFolder = drives.find("C:").getContents().getFirst();
 
         fileSystemManagementService.create(EntityType.TEXT_FILE, "letter", "C:\\sample");
         assertEquals(1, newFolder.getContents().size());
@@ -129,8 +143,8 @@ class DefaultFileSystemManagementServiceTest {
 
         fileSystemManagementService.delete(EntityType.FOLDER, "C:\\sample");
 
-        assertThrows(PathNotFoundException.class, () -> navigationUtils.navigateToComposableEntity(drives, new String[] {"C:\\sample"}));
-        assertThrows(PathNotFoundException.class, () -> navigationUtils.navigateToComposableEntity(drives, new String[] {"C:\\sample\\compressed"}));
+        assertThrows(PathNotFoundException.class, () -> navigationUtils.navigateToComposableEntity(drives, FileSystemPath.parse("C:\\sample")));
+        assertThrows(PathNotFoundException.class, () -> navigationUtils.navigateToComposableEntity(drives, FileSystemPath.parse("C:\\sample\\compressed")));
     }
 
     @Test
@@ -138,7 +152,7 @@ class DefaultFileSystemManagementServiceTest {
         fileSystemManagementService.create(EntityType.TEXT_FILE, "letter", "C:");
 
         fileSystemManagementService.delete(EntityType.TEXT_FILE, "C:\\letter");
-        assertEquals(0, navigationUtils.navigateToComposableEntity(drives, new String[] {"C:"}).getContents().size());
+        assertEquals(0, navigationUtils.navigateToComposableEntity(drives, FileSystemPath.parse("C:")).getContents().size());
     }
 
     @Test
@@ -147,24 +161,24 @@ class DefaultFileSystemManagementServiceTest {
         fileSystemManagementService.create(EntityType.FOLDER, "sample", "C:");
 
         fileSystemManagementService.move(EntityType.FOLDER, "C:\\sample", "D:\\sample");
-        assertThrows(PathNotFoundException.class, () -> navigationUtils.navigateToComposableEntity(drives, new String[] {"C:", "sample"}));
+        assertThrows(PathNotFoundException.class, () -> navigationUtils.navigateToComposableEntity(drives, FileSystemPath.parse("C:\\sample")));
 
-        Composable movedFolder = navigationUtils.navigateToComposableEntity(drives, new String[]{"D:", "sample"});
+        Composable movedFolder = navigationUtils.navigateToComposableEntity(drives, FileSystemPath.parse("D:\\sample"));
         assertInstanceOf(Folder.class, movedFolder);
         assertEquals("D:\\sample", ((Folder) movedFolder).getPath());
         assertEquals(0, movedFolder.getContents().size());
     }
 
     @Test
-    void moveFolderWithContentBetweenDrives() {
+    void moveFolderWithContentBetweenDrivesRelinksItsEntities() {
         fileSystemManagementService.create(EntityType.DRIVE, "D:", "");
         fileSystemManagementService.create(EntityType.FOLDER, "sample", "C:");
         fileSystemManagementService.create(EntityType.TEXT_FILE, "letter", "C:\\sample");
 
         fileSystemManagementService.move(EntityType.FOLDER, "C:\\sample", "D:\\sample");
-        assertThrows(PathNotFoundException.class, () -> navigationUtils.navigateToComposableEntity(drives, new String[] {"C:", "sample"}));
+        assertThrows(PathNotFoundException.class, () -> navigationUtils.navigateToComposableEntity(drives, FileSystemPath.parse("C:\\sample")));
 
-        Composable movedFolder = navigationUtils.navigateToComposableEntity(drives, new String[]{"D:", "sample"});
+        Composable movedFolder = navigationUtils.navigateToComposableEntity(drives, FileSystemPath.parse("D:\\sample"));
         assertInstanceOf(Folder.class, movedFolder);
         assertEquals(1, movedFolder.getContents().size());
         assertEquals("D:\\sample", ((Folder) movedFolder).getPath());
@@ -184,8 +198,8 @@ class DefaultFileSystemManagementServiceTest {
 
         fileSystemManagementService.move(EntityType.TEXT_FILE, "C:\\sample\\letter", "D:\\example\\letter");
 
-        Composable oldFolder = navigationUtils.navigateToComposableEntity(drives, new String[]{"C:", "sample"});
-        Composable newFolder = navigationUtils.navigateToComposableEntity(drives, new String[]{"D:", "example"});
+        Composable oldFolder = navigationUtils.navigateToComposableEntity(drives, FileSystemPath.parse("C:\\sample"));
+        Composable newFolder = navigationUtils.navigateToComposableEntity(drives, FileSystemPath.parse("D:\\example"));
         assertEquals(0, oldFolder.getContents().size());
         assertEquals(1, newFolder.getContents().size());
         assertEquals("D:\\example\\letter", newFolder.getContents().getFirst().getPath());
@@ -200,6 +214,23 @@ class DefaultFileSystemManagementServiceTest {
         assertThrows(PathAlreadyExistsException.class, () -> fileSystemManagementService.move(EntityType.FOLDER, "C:\\sample", "D:\\sample"));
     }
 
+    @Test
+    void failToMoveFolderWhereZipFileWithSameNameExists() {
+        fileSystemManagementService.create(EntityType.DRIVE, "D:", "");
+        fileSystemManagementService.create(EntityType.FOLDER, "sample", "C:");
+        fileSystemManagementService.create(EntityType.ZIP_FILE, "sample", "D:");
+
+        assertThrows(IllegalFileSystemOperationException.class, () -> fileSystemManagementService.move(EntityType.FOLDER, "C:\\sample", "D:\\sample"));
+    }
+
+    @Test
+    void failToMoveFolderIntoItself() {
+        fileSystemManagementService.create(EntityType.FOLDER, "sample", "C:");
+        fileSystemManagementService.create(EntityType.FOLDER, "nested", "C:\\sample");
+
+        assertThrows(IllegalFileSystemOperationException.class, () -> fileSystemManagementService.move(EntityType.FOLDER, "C:\\sample", "C:\\sample\\nested\\sample"));
+    }
+
     @Test
     void failToMoveDrive() {
         fileSystemManagementService.create(EntityType.DRIVE, "D:", "");
@@ -213,12 +244,28 @@ class DefaultFileSystemManagementServiceTest {
         fileSystemManagementService.create(EntityType.TEXT_FILE, "letter", "C:");
         fileSystemManagementService.writeToFile("C:\\letter", "Test content");
 
-        String fileContent = ((TextFile) drives.getFirst().getContents().getFirst()).getContent();
+        String fileContent = ((TextFile) drives.find("C:").getContents().getFirst()).getContent();
         assertFalse(fileContent.isBlank());
         assertEquals("Test content".length(), fileContent.length());
         assertEquals("Test content", fileContent);
     }
 
+    @Test
+    void appendToTextFile() {
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "log", "C:");
+        StringBuilder expectedContent = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            String line = "line " + i + "\n";
+            fileSystemManagementService.writeToFile("C:\\log", line);
+            expectedContent.append(line);
+        }
+
+        TextFile textFile = (TextFile) drives.find("C:").getContents().getFirst();
+        assertEquals(expectedContent.length(), textFile.getSize());
+        assertEquals(expectedContent.toString(), textFile.getContent());
+        assertEquals(expectedContent.length(), fileSystemManagementService.getEntitySize(EntityType.DRIVE, "C:"));
+    }
+
     @Test
     void failToWriteToNonTextFile() {
         fileSystemManagementService.create(EntityType.ZIP_FILE, "compressed", "C:");
@@ -241,4 +288,231 @@ class DefaultFileSystemManagementServiceTest {
 
         assertEquals("compressed content".length() / 2 + "content".length(), fileSystemManagementService.getEntitySize(EntityType.DRIVE, "C:"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getEntitySizeAfterMoveAndDelete() {
+        fileSystemManagementService.create(EntityType.DRIVE, "D:", "");
+        fileSystemManagementService.create(EntityType.ZIP_FILE, "compressed", "C:");
+        fileSystemManagementService.create(EntityType.FOLDER, "sample", "C:\\compressed");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "letter", "C:\\compressed\\sample");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "invoice", "C:\\compressed\\sample");
+
+        fileSystemManagementService.writeToFile("C:\\compressed\\sample\\letter", "abc");
+        fileSystemManagementService.writeToFile("C:\\compressed\\sample\\invoice", "abcd");
+
+        assertEquals(7, fileSystemManagementService.getEntitySize(EntityType.FOLDER, "C:\\compressed\\sample"));
+        assertEquals(3, fileSystemManagementService.getEntitySize(EntityType.ZIP_FILE, "C:\\compressed"));
+        assertEquals(3, fileSystemManagementService.getEntitySize(EntityType.DRIVE, "C:"));
+
+        fileSystemManagementService.move(EntityType.TEXT_FILE, "C:\\compressed\\sample\\invoice", "D:\\invoice");
+
+        assertEquals(1, fileSystemManagementService.getEntitySize(EntityType.DRIVE, "C:"));
+        assertEquals(4, fileSystemManagementService.getEntitySize(EntityType.DRIVE, "D:"));
+
+        fileSystemManagementService.delete(EntityType.FOLDER, "C:\\compressed\\sample");
+
+        assertEquals(0, fileSystemManagementService.getEntitySize(EntityType.ZIP_FILE, "C:\\compressed"));
+        assertEquals(0, fileSystemManagementService.getEntitySize(EntityType.DRIVE, "C:"));
+    }
+
+    @Test
+    void invalidateCachedPathsOnMoveAndDelete() {
+        PathCache pathCache = navigationUtils.getPathCache();
+        fileSystemManagementService.create(EntityType.DRIVE, "D:", "");
+        fileSystemManagementService.create(EntityType.FOLDER, "sample", "C:");
+        fileSystemManagementService.create(EntityType.FOLDER, "nested", "C:\\sample");
+        fileSystemManagementService.create(EntityType.FOLDER, "other", "C:");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "letter", "C:\\sample\\nested");
+
+        assertEquals(List.of("letter"), fileSystemManagementService.list("C:\\sample\\nested").map(EntityInfo::name).toList());
+        assertEquals(List.of(), fileSystemManagementService.list("C:\\other").map(EntityInfo::name).toList());
+        long hitCount = pathCache.getHitCount();
+        assertEquals(List.of("letter"), fileSystemManagementService.list("C:\\sample\\nested").map(EntityInfo::name).toList());
+        assertEquals(hitCount + 1, pathCache.getHitCount());
+
+        fileSystemManagementService.move(EntityType.FOLDER, "C:\\sample", "D:\\sample");
+        assertThrows(PathNotFoundException.class, () -> fileSystemManagementService.list("C:\\sample\\nested"));
+        assertEquals(List.of("letter"), fileSystemManagementService.list("D:\\sample\\nested").map(EntityInfo::name).toList());
+
+        // A batch that caches paths under the moved entity and is rolled back must not leave them behind
+        List<BatchResult> results = fileSystemManagementService.executeBatch(List.of(
+                BatchOperation.move(EntityType.FOLDER, "D:\\sample", "C:\\sample"),
+                BatchOperation.create(EntityType.TEXT_FILE, "invoice", "C:\\sample\\nested"),
+                BatchOperation.create(EntityType.TEXT_FILE, "invoice", "C:\\sample\\nested")
+        ), true);
+        assertEquals(BatchResult.Status.FAILED, results.get(2).status());
+        assertThrows(PathNotFoundException.class, () -> fileSystemManagementService.create(EntityType.TEXT_FILE, "invoice", "C:\\sample\\nested"));
+
+        fileSystemManagementService.delete(EntityType.FOLDER, "D:\\sample");
+        assertThrows(PathNotFoundException.class, () -> fileSystemManagementService.list("D:\\sample\\nested"));
+        fileSystemManagementService.create(EntityType.FOLDER, "sample", "D:");
+        fileSystemManagementService.create(EntityType.FOLDER, "nested", "D:\\sample");
+        assertEquals(List.of(), fileSystemManagementService.list("D:\\sample\\nested").map(EntityInfo::name).toList());
+
+        // Paths outside the moved and deleted entities stay cached
+        hitCount = pathCache.getHitCount();
+        assertEquals(List.of(), fileSystemManagementService.list("C:\\other").map(EntityInfo::name).toList());
+        assertEquals(hitCount + 1, pathCache.getHitCount());
+    }
+
+    @Test
+    void invalidateCachedPathOnCreate() {
+        PathCache pathCache = navigationUtils.getPathCache();
+        Composable staleArchive = (Composable) entityFactory.createEntity(EntityType.ZIP_FILE, "sample");
+        staleArchive.getContents().add(entityFactory.createEntity(EntityType.TEXT_FILE, "stale"));
+        pathCache.put(pathUtils.parsePath("C:\\sample"), staleArchive);
+
+        fileSystemManagementService.create(EntityType.FOLDER, "sample", "C:");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "letter", "C:\\sample");
+
+        assertEquals(List.of("letter"), fileSystemManagementService.list("C:\\sample").map(EntityInfo::name).toList());
+        assertInstanceOf(Folder.class, navigationUtils.resolvePath(drives, pathUtils.parsePath("C:\\sample\\letter")).getParent());
+    }
+
+    @Test
+    void executeBatch() {
+        List<BatchResult> results = fileSystemManagementService.executeBatch(List.of(
+                BatchOperation.create(EntityType.FOLDER, "sample", "C:"),
+                BatchOperation.create(EntityType.TEXT_FILE, "letter", "C:\\sample"),
+                BatchOperation.create(EntityType.TEXT_FILE, "invoice", "C:\\sample"),
+                BatchOperation.create(EntityType.TEXT_FILE, "letter", "C:\\sample"),
+                BatchOperation.writeToFile("C:\\sample\\letter", "abc"),
+                BatchOperation.move(EntityType.TEXT_FILE, "C:\\sample\\invoice", "C:\\invoice"),
+                BatchOperation.writeToFile("C:\\sample\\invoice", "abcd")
+        ), false);
+
+        assertEquals(List.of(BatchResult.Status.APPLIED, BatchResult.Status.APPLIED, BatchResult.Status.APPLIED, BatchResult.Status.FAILED,
+                BatchResult.Status.APPLIED, BatchResult.Status.APPLIED, BatchResult.Status.FAILED), results.stream().map(BatchResult::status).toList());
+        assertInstanceOf(PathAlreadyExistsException.class, results.get(3).failure());
+        assertInstanceOf(NotATextFileException.class, results.get(6).failure());
+        assertEquals(List.of("sample", "invoice"), drives.find("C:").getContents().stream().map(Entity::getName).toList());
+        assertEquals(3, fileSystemManagementService.getEntitySize(EntityType.DRIVE, "C:"));
+    }
+
+    @Test
+    void rollBackAtomicBatch() {
+        fileSystemManagementService.create(EntityType.FOLDER, "first", "C:");
+        fileSystemManagementService.create(EntityType.FOLDER, "second", "C:");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "letter", "C:\\first");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "invoice", "C:\\first");
+        fileSystemManagementService.writeToFile("C:\\first\\letter", "abc");
+
+        List<BatchResult> results = fileSystemManagementService.executeBatch(List.of(
+                BatchOperation.writeToFile("C:\\first\\letter", "defgh"),
+                BatchOperation.move(EntityType.TEXT_FILE, "C:\\first\\letter", "C:\\second\\letter"),
+                BatchOperation.delete(EntityType.FOLDER, "C:\\first"),
+                BatchOperation.create(EntityType.FOLDER, "third", "C:"),
+                BatchOperation.create(EntityType.FOLDER, "fourth", "C:\\first"),
+                BatchOperation.create(EntityType.FOLDER, "fifth", "C:")
+        ), true);
+
+        assertEquals(List.of(BatchResult.Status.ROLLED_BACK, BatchResult.Status.ROLLED_BACK, BatchResult.Status.ROLLED_BACK, BatchResult.Status.ROLLED_BACK,
+                BatchResult.Status.FAILED, BatchResult.Status.SKIPPED), results.stream().map(BatchResult::status).toList());
+        assertInstanceOf(PathNotFoundException.class, results.get(4).failure());
+
+        Entity first = drives.find("C:").getContents().getFirst();
+        assertEquals(List.of("first", "second"), drives.find("C:").getContents().stream().map(Entity::getName).toList());
+        assertEquals(List.of("letter", "invoice"), first.getContents().stream().map(Entity::getName).toList());
+        assertEquals("abc", ((TextFile) first.getContents().getFirst()).getContent());
+        assertEquals("C:\\first\\letter", first.getContents().getFirst().getPath());
+        assertEquals(3, fileSystemManagementService.getEntitySize(EntityType.DRIVE, "C:"));
+        assertEquals(0, fileSystemManagementService.getEntitySize(EntityType.FOLDER, "C:\\second"));
+    }
+
+    @Test
+    void saveAndLoadSnapshot(@TempDir Path directory) throws IOException {
+        fileSystemManagementService.create(EntityType.FOLDER, "docs", "C:");
+        fileSystemManagementService.create(EntityType.ZIP_FILE, "archive", "C:\\docs");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "letter", "C:\\docs");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "invoice", "C:\\docs\\archive");
+        fileSystemManagementService.create(EntityType.DRIVE, "D:", "");
+        fileSystemManagementService.writeToFile("C:\\docs\\letter", "Dear señor");
+        fileSystemManagementService.writeToFile("C:\\docs\\archive\\invoice", "1234");
+        Path file = directory.resolve("snapshot.img");
+
+        fileSystemManagementService.saveSnapshot(file);
+        DriveRegistry restoredDrives = new DriveRegistry();
+        DefaultFileSystemManagementService restoredService = new DefaultFileSystemManagementService(
+                new DefaultConstraintsValidator(restoredDrives, pathUtils, navigationUtils), restoredDrives, pathUtils, navigationUtils, entityFactory);
+        restoredService.loadSnapshot(file);
+
+        assertEquals(List.of("C:", "D:"), restoredDrives.getDrives().stream().map(Entity::getName).toList());
+        assertEquals(12, restoredService.getEntitySize(EntityType.DRIVE, "C:"));
+        assertEquals(2, restoredService.getEntitySize(EntityType.ZIP_FILE, "C:\\docs\\archive"));
+        assertEquals(List.of("archive", "letter"), restoredDrives.find("C:").getContents().getFirst().getContents().stream().map(Entity::getName).toList());
+
+        restoredService.writeToFile("C:\\docs\\letter", "!");
+        TextFile letter = (TextFile) restoredDrives.find("C:").getContents().getFirst().getContents().get(1);
+        assertEquals("Dear señor!", letter.getContent());
+        assertEquals("C:\\docs\\letter", letter.getPath());
+        assertEquals(13, restoredService.getEntitySize(EntityType.DRIVE, "C:"));
+
+        fileSystemManagementService.loadSnapshot(file);
+        assertEquals(2, drives.size());
+        assertEquals(12, fileSystemManagementService.getEntitySize(EntityType.DRIVE, "C:"));
+    }
+
+    @Test
+    void findRestoredEntitiesMovedToAnotherDrive(@TempDir Path directory) throws IOException {
+        fileSystemManagementService.create(EntityType.FOLDER, "docs", "C:");
+        fileSystemManagementService.create(EntityType.FOLDER, "archive", "C:\\docs");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "letter", "C:\\docs\\archive");
+        fileSystemManagementService.create(EntityType.DRIVE, "D:", "");
+        Path file = directory.resolve("snapshot.img");
+        fileSystemManagementService.saveSnapshot(file);
+        fileSystemManagementService.loadSnapshot(file);
+
+        // The children of archive are not loaded yet, so they are indexed in D: when they are
+        fileSystemManagementService.move(EntityType.FOLDER, "C:\\docs", "D:\\docs");
+
+        assertEquals(Set.of(), findPaths("C:", "*", EntityType.TEXT_FILE));
+        assertEquals(Set.of("D:\\docs\\archive\\letter"), findPaths("D:", "*", EntityType.TEXT_FILE));
+        assertEquals(Set.of("D:\\docs", "D:\\docs\\archive"), findPaths("D:", "*", EntityType.FOLDER));
+
+        fileSystemManagementService.delete(EntityType.DRIVE, "D:");
+        fileSystemManagementService.create(EntityType.DRIVE, "D:", "");
+        assertEquals(Set.of(), findPaths("D:", "*", EntityType.FOLDER));
+    }
+
+    @Test
+    void deleteDeepHierarchyWithoutOverflowingTheStack() throws InterruptedException {
+        Entity top = entityFactory.createEntity(EntityType.FOLDER, "top");
+        drives.find("C:").getContents().add(top);
+        Entity current = top;
+        for (int i = 0; i < 100_000; i++) {
+            Entity folder = entityFactory.createEntity(EntityType.FOLDER, "level");
+            current.getContents().add(folder);
+            current = folder;
+        }
+        TextFile leaf = (TextFile) entityFactory.createEntity(EntityType.TEXT_FILE, "leaf");
+        current.getContents().add(leaf);
+        leaf.setContent("abc");
+        assertEquals(3, fileSystemManagementService.getEntitySize(EntityType.DRIVE, "C:"));
+
+        fileSystemManagementService.delete(EntityType.FOLDER, "C:\\top");
+        assertEquals(0, fileSystemManagementService.getEntitySize(EntityType.DRIVE, "C:"));
+        assertNull(top.getParent());
+
+        EntityReclaimer.getInstance().awaitReclaimed();
+        assertTrue(top.getContents().isEmpty());
+        assertEquals("", leaf.getContent());
+    }
+
+    @Test
+    void findEntitiesRestoredFromSnapshot(@TempDir Path directory) throws IOException {
+        fileSystemManagementService.create(EntityType.FOLDER, "logs", "C:");
+        fileSystemManagementService.create(EntityType.ZIP_FILE, "archive", "C:\\logs");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "app.log", "C:\\logs\\archive");
+        fileSystemManagementService.create(EntityType.FOLDER, "nested", "C:\\logs\\archive");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "db.log", "C:\\logs\\archive\\nested");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "web.log", "C:\\logs");
+        Path file = directory.resolve("snapshot.img");
+        fileSystemManagementService.saveSnapshot(file);
+        fileSystemManagementService.loadSnapshot(file);
+
+        // Only the subtree under the root is loaded, so a later search from higher up loads the rest
+        assertEquals(Set.of("C:\\logs\\archive\\app.log", "C:\\logs\\archive\\nested\\db.log"), findPaths("C:\\logs\\archive", "*.log", EntityType.TEXT_FILE));
+        assertEquals(Set.of("C:\\logs\\web.log", "C:\\logs\\archive\\app.log", "C:\\logs\\archive\\nested\\db.log"), findPaths("C:", "*.log", EntityType.TEXT_FILE));
+    }
+
+}
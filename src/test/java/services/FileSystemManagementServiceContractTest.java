@@ -0,0 +1,249 @@
+package services;
+
+import entities.EntityType;
+import exceptions.IllegalFileSystemOperationException;
+import exceptions.NotATextFileException;
+import exceptions.PathAlreadyExistsException;
+import exceptions.PathNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The behaviour every storage engine must share. Each engine extends it, adding the tests of its own features.
+ */
+abstract class FileSystemManagementServiceContractTest<S extends FileSystemManagementService> {
+
+    protected S fileSystemManagementService;
+
+    /**
+     * @return a new, empty service.
+     */
+    protected abstract S createService();
+
+    @BeforeEach
+    void setUpService() {
+        fileSystemManagementService = createService();
+        fileSystemManagementService.create(EntityType.DRIVE, "C:", "");
+    }
+
+    @Test
+    void failToCreateInvalidEntities() {
+        fileSystemManagementService.create(EntityType.FOLDER, "sample", "C:");
+
+        assertThrows(IllegalFileSystemOperationException.class, () -> fileSystemManagementService.create(EntityType.DRIVE, "D:", "C:"));
+        assertThrows(IllegalFileSystemOperationException.class, () -> fileSystemManagementService.create(EntityType.FOLDER, "sample", ""));
+        assertThrows(PathNotFoundException.class, () -> fileSystemManagementService.create(EntityType.FOLDER, "sample", "D:"));
+        assertThrows(PathAlreadyExistsException.class, () -> fileSystemManagementService.create(EntityType.FOLDER, "sample", "C:"));
+        assertThrows(IllegalFileSystemOperationException.class, () -> fileSystemManagementService.create(EntityType.ZIP_FILE, "sample", "C:"));
+        assertThrows(IllegalFileSystemOperationException.class, () -> fileSystemManagementService.create(null, "sample", "C:"));
+    }
+
+    @Test
+    void deleteFolder() {
+        fileSystemManagementService.create(EntityType.FOLDER, "sample", "C:");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "letter", "C:\\sample");
+        fileSystemManagementService.writeToFile("C:\\sample\\letter", "content");
+
+        fileSystemManagementService.delete(EntityType.FOLDER, "C:\\sample");
+
+        assertThrows(PathNotFoundException.class, () -> fileSystemManagementService.getEntitySize(EntityType.FOLDER, "C:\\sample"));
+        assertThrows(PathNotFoundException.class, () -> fileSystemManagementService.getEntitySize(EntityType.TEXT_FILE, "C:\\sample\\letter"));
+        assertEquals(0, fileSystemManagementService.getEntitySize(EntityType.DRIVE, "C:"));
+
+        fileSystemManagementService.create(EntityType.FOLDER, "sample", "C:");
+        assertEquals(0, fileSystemManagementService.getEntitySize(EntityType.FOLDER, "C:\\sample"));
+    }
+
+    @Test
+    void moveFolderWithContentBetweenDrives() {
+        fileSystemManagementService.create(EntityType.DRIVE, "D:", "");
+        fileSystemManagementService.create(EntityType.FOLDER, "sample", "C:");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "letter", "C:\\sample");
+        fileSystemManagementService.writeToFile("C:\\sample\\letter", "content");
+
+        fileSystemManagementService.move(EntityType.FOLDER, "C:\\sample", "D:\\sample");
+
+        assertEquals(0, fileSystemManagementService.getEntitySize(EntityType.DRIVE, "C:"));
+        assertEquals("content".length(), fileSystemManagementService.getEntitySize(EntityType.TEXT_FILE, "D:\\sample\\letter"));
+        assertEquals("content".length(), fileSystemManagementService.getEntitySize(EntityType.DRIVE, "D:"));
+    }
+
+    @Test
+    void failToMoveInvalidEntities() {
+        fileSystemManagementService.create(EntityType.DRIVE, "D:", "");
+        fileSystemManagementService.create(EntityType.FOLDER, "sample", "C:");
+        fileSystemManagementService.create(EntityType.FOLDER, "nested", "C:\\sample");
+        fileSystemManagementService.create(EntityType.FOLDER, "sample", "D:");
+        fileSystemManagementService.create(EntityType.ZIP_FILE, "compressed", "D:");
+        fileSystemManagementService.create(EntityType.FOLDER, "compressed", "C:");
+
+        assertThrows(PathAlreadyExistsException.class, () -> fileSystemManagementService.move(EntityType.FOLDER, "C:\\sample", "D:\\sample"));
+        assertThrows(IllegalFileSystemOperationException.class, () -> fileSystemManagementService.move(EntityType.FOLDER, "C:\\compressed", "D:\\compressed"));
+        assertThrows(IllegalFileSystemOperationException.class, () -> fileSystemManagementService.move(EntityType.DRIVE, "D:", "C:\\sample\\D:"));
+        assertThrows(IllegalFileSystemOperationException.class, () -> fileSystemManagementService.move(EntityType.FOLDER, "C:\\sample", "C:\\sample\\nested\\sample"));
+        assertThrows(PathNotFoundException.class, () -> fileSystemManagementService.move(EntityType.FOLDER, "C:\\example", "D:\\example"));
+    }
+
+    @Test
+    void writeToFileAndGetSizes() {
+        fileSystemManagementService.create(EntityType.ZIP_FILE, "compressed", "C:");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "letter", "C:\\compressed");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "invoice", "C:");
+
+        fileSystemManagementService.writeToFile("C:\\compressed\\letter", "compressed ");
+        fileSystemManagementService.writeToFile("C:\\compressed\\letter", "content");
+        fileSystemManagementService.writeToFile("C:\\invoice", "content");
+
+        assertEquals("compressed content".length(), fileSystemManagementService.getEntitySize(EntityType.TEXT_FILE, "C:\\compressed\\letter"));
+        assertEquals("compressed content".length() / 2, fileSystemManagementService.getEntitySize(EntityType.ZIP_FILE, "C:\\compressed"));
+        assertEquals("compressed content".length() / 2 + "content".length(), fileSystemManagementService.getEntitySize(EntityType.DRIVE, "C:"));
+        assertThrows(NotATextFileException.class, () -> fileSystemManagementService.writeToFile("C:\\compressed", "content"));
+    }
+
+    @Test
+    void saveTheFileSystemAsItWasWhenCaptured(@TempDir Path directory) throws IOException {
+        fileSystemManagementService.create(EntityType.ZIP_FILE, "archive", "C:");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "letter", "C:\\archive");
+        fileSystemManagementService.writeToFile("C:\\archive\\letter", "Dear");
+        Path file = directory.resolve("snapshot.img");
+
+        SnapshotCapture capture = fileSystemManagementService.captureSnapshot(file);
+        fileSystemManagementService.writeToFile("C:\\archive\\letter", " señor");
+        fileSystemManagementService.create(EntityType.FOLDER, "docs", "C:");
+        capture.save();
+
+        fileSystemManagementService.loadSnapshot(file);
+        assertEquals(List.of("archive"), fileSystemManagementService.list("C:").map(EntityInfo::name).toList());
+        assertEquals(4, fileSystemManagementService.getEntitySize(EntityType.TEXT_FILE, "C:\\archive\\letter"));
+        assertEquals(2, fileSystemManagementService.getEntitySize(EntityType.DRIVE, "C:"));
+    }
+
+    @Test
+    void saveOverTheLoadedSnapshot(@TempDir Path directory) throws IOException {
+        fileSystemManagementService.create(EntityType.FOLDER, "docs", "C:");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "letter", "C:\\docs");
+        fileSystemManagementService.writeToFile("C:\\docs\\letter", "Dear señor");
+        Path file = directory.resolve("snapshot.img");
+        fileSystemManagementService.saveSnapshot(file);
+        fileSystemManagementService.loadSnapshot(file);
+
+        // The loaded contents are still read lazily from the image being replaced
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "invoice", "C:\\docs");
+        fileSystemManagementService.saveSnapshot(file);
+        fileSystemManagementService.writeToFile("C:\\docs\\letter", "!");
+
+        assertEquals(11, fileSystemManagementService.getEntitySize(EntityType.TEXT_FILE, "C:\\docs\\letter"));
+        fileSystemManagementService.loadSnapshot(file);
+        assertEquals(10, fileSystemManagementService.getEntitySize(EntityType.FOLDER, "C:\\docs"));
+        assertEquals(0, fileSystemManagementService.getEntitySize(EntityType.TEXT_FILE, "C:\\docs\\invoice"));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(List.of(file), files.toList());
+        }
+    }
+
+    @Test
+    void listAndWalkEntities() {
+        fileSystemManagementService.create(EntityType.FOLDER, "sample", "C:");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "letter", "C:\\sample");
+        fileSystemManagementService.create(EntityType.ZIP_FILE, "archive", "C:\\sample");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "invoice", "C:\\sample\\archive");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "notes", "C:");
+        fileSystemManagementService.writeToFile("C:\\sample\\letter", "abc");
+
+        assertEquals(List.of(new EntityInfo(EntityType.FOLDER, "sample", "C:\\sample", 3), new EntityInfo(EntityType.TEXT_FILE, "notes", "C:\\notes", 0)),
+                fileSystemManagementService.list("C:").toList());
+        assertEquals(List.of("C:\\sample\\letter", "C:\\sample\\archive"), fileSystemManagementService.list("\\C:\\sample\\").map(EntityInfo::path).toList());
+        assertEquals(List.of("C:", "C:\\sample", "C:\\sample\\letter", "C:\\sample\\archive", "C:\\sample\\archive\\invoice", "C:\\notes"),
+                fileSystemManagementService.walk("C:", Integer.MAX_VALUE, it -> true).map(EntityInfo::path).toList());
+        assertEquals(List.of("sample", "notes"), fileSystemManagementService.walk("C:", 1, it -> it.type() != EntityType.DRIVE).map(EntityInfo::name).toList());
+        assertEquals(List.of("letter", "invoice"),
+                fileSystemManagementService.walk("C:\\sample", 2, it -> it.type() == EntityType.TEXT_FILE).parallel().map(EntityInfo::name).toList());
+
+        assertThrows(PathNotFoundException.class, () -> fileSystemManagementService.list("C:\\sample\\letter"));
+        assertThrows(PathNotFoundException.class, () -> fileSystemManagementService.walk("D:", 1, it -> true));
+        assertThrows(IllegalFileSystemOperationException.class, () -> fileSystemManagementService.walk("C:", -1, it -> true));
+    }
+
+    @Test
+    void findEntitiesByNamePattern() {
+        fileSystemManagementService.create(EntityType.DRIVE, "D:", "");
+        fileSystemManagementService.create(EntityType.FOLDER, "logs", "C:");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "app.log", "C:\\logs");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "app.txt", "C:\\logs");
+        fileSystemManagementService.create(EntityType.FOLDER, "old.log", "C:\\logs");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "db.log", "C:\\logs\\old.log");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "app.log", "D:");
+
+        assertEquals(Set.of("C:\\logs\\app.log", "C:\\logs\\old.log\\db.log"), findPaths("C:", "*.log", EntityType.TEXT_FILE));
+        assertEquals(Set.of("C:\\logs\\old.log"), findPaths("C:", "*.log", EntityType.FOLDER));
+        assertEquals(Set.of("C:\\logs\\app.log", "C:\\logs\\app.txt"), findPaths("C:\\logs", "app.*", EntityType.TEXT_FILE));
+        assertEquals(Set.of("C:\\logs\\app.log"), findPaths("C:", "a?p.log", EntityType.TEXT_FILE));
+        assertEquals(Set.of("D:\\app.log"), findPaths("D:", "app.log", EntityType.TEXT_FILE));
+        assertEquals(Set.of(), findPaths("C:\\logs\\old.log", "*.log", EntityType.FOLDER));
+
+        fileSystemManagementService.move(EntityType.FOLDER, "C:\\logs\\old.log", "D:\\old.log");
+        fileSystemManagementService.delete(EntityType.TEXT_FILE, "C:\\logs\\app.log");
+        assertEquals(Set.of(), findPaths("C:", "*.log", EntityType.TEXT_FILE));
+        assertEquals(Set.of("D:\\app.log", "D:\\old.log\\db.log"), findPaths("D:", "*.log", EntityType.TEXT_FILE));
+
+        assertThrows(PathNotFoundException.class, () -> fileSystemManagementService.find("E:", "*", EntityType.FOLDER));
+        assertThrows(IllegalFileSystemOperationException.class, () -> fileSystemManagementService.find("C:", null, EntityType.FOLDER));
+    }
+
+    protected Set<String> findPaths(String rootPath, String pattern, EntityType type) {
+        return fileSystemManagementService.find(rootPath, pattern, type).map(EntityInfo::path).collect(Collectors.toSet());
+    }
+
+    @Test
+    void reportRejectedOperationsWithoutThrowing() {
+        fileSystemManagementService.create(EntityType.FOLDER, "sample", "C:");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "letter", "C:\\sample");
+
+        assertEquals(OperationResult.OK, fileSystemManagementService.tryCreate(EntityType.FOLDER, "nested", "C:\\sample"));
+        assertEquals(OperationResult.Code.PATH_ALREADY_EXISTS, fileSystemManagementService.tryCreate(EntityType.FOLDER, "sample", "C:").code());
+        assertEquals(OperationResult.pathNotFound("Drive not found."), fileSystemManagementService.tryCreate(EntityType.FOLDER, "sample", "D:"));
+        assertEquals(OperationResult.Code.ILLEGAL_OPERATION, fileSystemManagementService.tryCreate(EntityType.DRIVE, "D:", "C:").code());
+        assertEquals(OperationResult.Code.PATH_NOT_FOUND, fileSystemManagementService.tryDelete(EntityType.ZIP_FILE, "C:\\sample").code());
+        assertEquals(OperationResult.Code.PATH_NOT_FOUND, fileSystemManagementService.tryDelete(EntityType.FOLDER, "C:").code());
+        assertEquals(OperationResult.Code.ILLEGAL_OPERATION, fileSystemManagementService.tryMove(EntityType.FOLDER, "C:\\sample", "C:\\sample\\nested\\sample").code());
+        assertEquals(OperationResult.Code.NOT_A_TEXT_FILE, fileSystemManagementService.tryWriteToFile("C:\\sample", "content").code());
+        assertEquals(OperationResult.OK, fileSystemManagementService.tryWriteToFile("C:\\sample\\letter", "content"));
+        assertEquals(7, fileSystemManagementService.getEntitySize(EntityType.FOLDER, "C:\\sample"));
+
+        PathAlreadyExistsException exception = assertThrows(PathAlreadyExistsException.class, () -> fileSystemManagementService.create(EntityType.FOLDER, "sample", "C:"));
+        assertEquals(0, exception.getStackTrace().length);
+    }
+
+    @Test
+    void reportRejectedReadsWithoutThrowing() {
+        fileSystemManagementService.create(EntityType.FOLDER, "sample", "C:");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "letter", "C:\\sample");
+        fileSystemManagementService.writeToFile("C:\\sample\\letter", "content");
+
+        assertEquals(ReadResult.of(7), fileSystemManagementService.tryGetEntitySize(EntityType.TEXT_FILE, "C:\\sample\\letter"));
+        assertEquals(OperationResult.pathNotFound("The requested entity does not exist."), fileSystemManagementService.tryGetEntitySize(EntityType.FOLDER, "C:\\sample\\letter").result());
+        assertEquals(OperationResult.pathNotFound("Drive not found."), fileSystemManagementService.tryGetEntitySize(EntityType.FOLDER, "D:\\sample").result());
+        assertEquals(OperationResult.Code.ILLEGAL_OPERATION, fileSystemManagementService.tryGetEntitySize(null, "C:").result().code());
+
+        assertEquals(1, fileSystemManagementService.tryList("C:\\sample").value().count());
+        assertEquals(OperationResult.pathNotFound("The path contains a nonexistent component: letter"), fileSystemManagementService.tryList("C:\\sample\\letter").result());
+        assertEquals(OperationResult.pathNotFound("Drive not found."), fileSystemManagementService.tryList("D:").result());
+        assertEquals(OperationResult.Code.ILLEGAL_OPERATION, fileSystemManagementService.tryWalk("C:", -1, it -> true).result().code());
+        assertEquals(OperationResult.Code.PATH_NOT_FOUND, fileSystemManagementService.tryWalk("C:\\example", 1, it -> true).result().code());
+        assertEquals(OperationResult.Code.PATH_NOT_FOUND, fileSystemManagementService.tryFind("C:\\example", "*", EntityType.TEXT_FILE).result().code());
+        assertEquals(1, fileSystemManagementService.tryFind("C:", "let*", EntityType.TEXT_FILE).value().count());
+
+        assertThrows(PathNotFoundException.class, () -> fileSystemManagementService.list("C:\\sample\\letter"));
+    }
+}
@@ -0,0 +1,77 @@
+package services;
+
+import entities.EntityType;
+import exceptions.PathNotFoundException;
+import metrics.FileSystemMetrics;
+import metrics.Operation;
+import metrics.OperationMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import utils.PathUtils;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstrumentedFileSystemManagementServiceTest {
+
+    private PersistentFileSystemManagementService delegate;
+    private InstrumentedFileSystemManagementService fileSystemManagementService;
+
+    @BeforeEach
+    void setUp() {
+        delegate = new PersistentFileSystemManagementService(new PathUtils());
+        delegate.setOperationLogLevel(OperationLogLevel.OFF);
+        fileSystemManagementService = new InstrumentedFileSystemManagementService(delegate, new FileSystemMetrics(delegate.getPathWalkMetrics()));
+    }
+
+    @Test
+    void recordOperationMetrics() {
+        fileSystemManagementService.create(EntityType.DRIVE, "C:", "");
+        fileSystemManagementService.create(EntityType.FOLDER, "sample", "C:");
+        fileSystemManagementService.tryCreate(EntityType.FOLDER, "sample", "C:");
+        assertThrows(PathNotFoundException.class, () -> fileSystemManagementService.getEntitySize(EntityType.FOLDER, "C:\\example"));
+        assertEquals(0, fileSystemManagementService.getEntitySize(EntityType.FOLDER, "C:\\sample"));
+
+        FileSystemMetrics.Snapshot snapshot = fileSystemManagementService.getMetrics().snapshot();
+
+        OperationMetrics.Snapshot creations = snapshot.operations().get(Operation.CREATE);
+        assertEquals(3, creations.count());
+        assertEquals(1, creations.rejections());
+        assertEquals(0, creations.failures());
+        assertTrue(creations.latencyNanos().max() > 0);
+
+        OperationMetrics.Snapshot sizes = snapshot.operations().get(Operation.GET_ENTITY_SIZE);
+        assertEquals(2, sizes.count());
+        assertEquals(1, sizes.rejections());
+        assertEquals(0, sizes.failures());
+        assertEquals(0, snapshot.operations().get(Operation.MOVE).count());
+
+        // Every operation walked one path, down to C:\sample at most
+        assertEquals(5, snapshot.pathWalkLengths().count());
+        assertEquals(2, snapshot.pathWalkLengths().max());
+    }
+
+    @Test
+    void exposeMetricsThroughJmx() throws Exception {
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        FileSystemMetrics metrics = fileSystemManagementService.getMetrics();
+        metrics.registerMBeans(server, fileSystemManagementService);
+
+        fileSystemManagementService.create(EntityType.DRIVE, "C:", "");
+        fileSystemManagementService.tryDelete(EntityType.FOLDER, "C:\\sample");
+
+        ObjectName deletions = new ObjectName("filesystem:type=Operation,name=DELETE");
+        assertEquals(1L, server.getAttribute(deletions, "Count"));
+        assertEquals(1L, server.getAttribute(deletions, "RejectionCount"));
+        assertEquals(2L, server.getAttribute(new ObjectName("filesystem:type=PathWalks"), "WalkCount"));
+
+        String shape = (String) server.invoke(new ObjectName("filesystem:type=TreeShape"), "measureTreeShape", new Object[]{"C:"}, new String[]{String.class.getName()});
+        assertTrue(shape.contains("count=1"));
+
+        metrics.unregisterMBeans(server);
+        assertFalse(server.isRegistered(deletions));
+    }
+}
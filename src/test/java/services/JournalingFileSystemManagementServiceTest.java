@@ -0,0 +1,92 @@
+package services;
+
+import entities.EntityType;
+import exceptions.PathNotFoundException;
+import journal.DurabilityLevel;
+import journal.OperationJournal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import utils.PathUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalingFileSystemManagementServiceTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void recoverJournaledOperations() throws Exception {
+        try (JournalingFileSystemManagementService service = open(Long.MAX_VALUE)) {
+            service.create(EntityType.DRIVE, "C:", "");
+            service.create(EntityType.FOLDER, "docs", "C:");
+            service.create(EntityType.TEXT_FILE, "letter", "C:\\docs");
+            service.writeToFile("C:\\docs\\letter", "abc");
+            assertThrows(PathNotFoundException.class, () -> service.create(EntityType.FOLDER, "missing", "C:\\nowhere"));
+            service.executeBatch(List.of(
+                    BatchOperation.create(EntityType.FOLDER, "archive", "C:"),
+                    BatchOperation.move(EntityType.TEXT_FILE, "C:\\docs\\letter", "C:\\archive\\letter")
+            ), true);
+        }
+
+        try (JournalingFileSystemManagementService service = open(Long.MAX_VALUE)) {
+            assertEquals(3, service.getEntitySize(EntityType.TEXT_FILE, "C:\\archive\\letter"));
+            assertEquals(0, service.getEntitySize(EntityType.FOLDER, "C:\\docs"));
+            assertThrows(PathNotFoundException.class, () -> service.getEntitySize(EntityType.FOLDER, "C:\\missing"));
+        }
+    }
+
+    @Test
+    void compactIntoSnapshotAndReplayOnTopOfIt() throws Exception {
+        try (JournalingFileSystemManagementService service = open(1)) {
+            service.create(EntityType.DRIVE, "C:", "");
+            service.create(EntityType.TEXT_FILE, "letter", "C:");
+            service.compact();
+            service.writeToFile("C:\\letter", "abcd");
+        }
+
+        try (JournalingFileSystemManagementService service = open(Long.MAX_VALUE)) {
+            assertEquals(4, service.getEntitySize(EntityType.DRIVE, "C:"));
+        }
+        try (var files = Files.list(directory)) {
+            assertTrue(files.anyMatch(it -> it.getFileName().toString().startsWith("snapshot-")));
+        }
+    }
+
+    @Test
+    void shareSyncsAmongConcurrentWriters() throws Exception {
+        try (JournalingFileSystemManagementService service = open(Long.MAX_VALUE)) {
+            service.create(EntityType.DRIVE, "C:", "");
+            service.create(EntityType.TEXT_FILE, "log", "C:");
+
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            List<Future<?>> writes = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                writes.add(executor.submit(() -> service.writeToFile("C:\\log", "x")));
+            }
+            for (Future<?> write : writes) write.get();
+            executor.shutdown();
+        }
+
+        try (JournalingFileSystemManagementService service = open(Long.MAX_VALUE)) {
+            assertEquals(200, service.getEntitySize(EntityType.TEXT_FILE, "C:\\log"));
+        }
+    }
+
+    private JournalingFileSystemManagementService open(long compactionThreshold) throws IOException {
+        PersistentFileSystemManagementService delegate = new PersistentFileSystemManagementService(new PathUtils());
+        delegate.setOperationLogLevel(OperationLogLevel.OFF);
+        JournalingFileSystemManagementService service = new JournalingFileSystemManagementService(delegate, OperationJournal.open(directory, DurabilityLevel.SYNCED), compactionThreshold);
+        service.recover();
+        return service;
+    }
+}
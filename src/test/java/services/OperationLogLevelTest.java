@@ -0,0 +1,108 @@
+package services;
+
+import entities.DriveRegistry;
+import entities.EntityFactory;
+import entities.EntityType;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.config.LoggerConfig;
+import org.apache.logging.log4j.core.config.Property;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import utils.NavigationUtils;
+import utils.PathCache;
+import utils.PathUtils;
+import validators.DefaultConstraintsValidator;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OperationLogLevelTest {
+
+    private static final String CONTENT = "confidential content";
+
+    private final CapturingAppender appender = new CapturingAppender();
+    private LoggerContext context;
+
+    @BeforeEach
+    void setUp() {
+        context = (LoggerContext) LogManager.getContext(false);
+        appender.start();
+        context.getConfiguration().getRootLogger().addAppender(appender, Level.ALL, null);
+        context.updateLoggers();
+    }
+
+    @AfterEach
+    void tearDown() {
+        LoggerConfig rootLogger = context.getConfiguration().getRootLogger();
+        rootLogger.removeAppender(appender.getName());
+        context.updateLoggers();
+        appender.stop();
+    }
+
+    @Test
+    void neverLogFileContentBelowFull() {
+        for (OperationLogLevel level : List.of(OperationLogLevel.OFF, OperationLogLevel.METADATA)) {
+            for (FileSystemManagementService service : createServices(level)) {
+                writeAndReadFile(service);
+            }
+        }
+
+        assertFalse(appender.messages.isEmpty());
+        assertTrue(appender.messages.stream().noneMatch(it -> it.contains(CONTENT)), () -> String.join("\n", appender.messages));
+    }
+
+    @Test
+    void logFileContentInFull() {
+        for (FileSystemManagementService service : createServices(OperationLogLevel.FULL)) {
+            appender.messages.clear();
+            writeAndReadFile(service);
+
+            assertTrue(appender.messages.stream().anyMatch(it -> it.contains(CONTENT)), service.getClass().getSimpleName());
+        }
+    }
+
+    private static void writeAndReadFile(FileSystemManagementService service) {
+        service.create(EntityType.DRIVE, "C:", "");
+        service.create(EntityType.TEXT_FILE, "letter", "C:");
+        service.writeToFile("C:\\letter", CONTENT);
+        service.getEntitySize(EntityType.TEXT_FILE, "C:\\letter");
+        service.delete(EntityType.TEXT_FILE, "C:\\letter");
+    }
+
+    private static List<FileSystemManagementService> createServices(OperationLogLevel level) {
+        PathUtils pathUtils = new PathUtils();
+        NavigationUtils navigationUtils = new NavigationUtils(new PathCache(PathCache.DEFAULT_CAPACITY));
+        DriveRegistry drives = new DriveRegistry();
+        DefaultFileSystemManagementService defaultService = new DefaultFileSystemManagementService(
+                new DefaultConstraintsValidator(drives, pathUtils, navigationUtils), drives, pathUtils, navigationUtils, new EntityFactory());
+        defaultService.setOperationLogLevel(level);
+        PersistentFileSystemManagementService persistentService = new PersistentFileSystemManagementService(pathUtils);
+        persistentService.setOperationLogLevel(level);
+        CompactFileSystemManagementService compactService = new CompactFileSystemManagementService(pathUtils);
+        compactService.setOperationLogLevel(level);
+        return List.of(defaultService, persistentService, compactService);
+    }
+
+    /**
+     * Keeps the formatted message of every event logged while a test runs.
+     */
+    private static final class CapturingAppender extends AbstractAppender {
+        private final List<String> messages = new CopyOnWriteArrayList<>();
+
+        private CapturingAppender() {
+            super("capturing", null, null, true, Property.EMPTY_ARRAY);
+        }
+
+        @Override
+        public void append(LogEvent event) {
+            messages.add(event.getMessage().getFormattedMessage());
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package services;
+
+import entities.EntityType;
+import exceptions.IllegalFileSystemOperationException;
+import exceptions.PathNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import persistent.PersistentNode;
+import utils.PathUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentFileSystemManagementServiceTest extends FileSystemManagementServiceContractTest<PersistentFileSystemManagementService> {
+
+    @Override
+    protected PersistentFileSystemManagementService createService() {
+        PersistentFileSystemManagementService service = new PersistentFileSystemManagementService(new PathUtils());
+        service.setOperationLogLevel(OperationLogLevel.OFF);
+        return service;
+    }
+
+    @Test
+    void createEntities() {
+        fileSystemManagementService.create(EntityType.FOLDER, "sample", "C:");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "letter", "C:\\sample");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "sample", "C:");
+
+        PersistentNode drive = fileSystemManagementService.getSnapshot().getChild("C:", EntityType.DRIVE).get();
+        assertEquals(List.of("sample", "sample"), drive.getChildrenInOrder().stream().map(PersistentNode::getName).toList());
+        assertEquals(EntityType.FOLDER, drive.getChildrenInOrder().getFirst().getEntityType());
+        assertTrue(drive.getComposableChild("sample").get().getChild("letter", EntityType.TEXT_FILE).isPresent());
+    }
+
+    @Test
+    void snapshotsAreNotAffectedByLaterWrites() {
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "letter", "C:");
+        fileSystemManagementService.writeToFile("C:\\letter", "first");
+        PersistentNode snapshot = fileSystemManagementService.getSnapshot();
+
+        fileSystemManagementService.writeToFile("C:\\letter", " second");
+        fileSystemManagementService.delete(EntityType.DRIVE, "C:");
+
+        PersistentNode letter = snapshot.getChild("C:", EntityType.DRIVE).get().getChild("letter", EntityType.TEXT_FILE).get();
+        assertEquals("first", letter.getContent().toString());
+        assertEquals(5, snapshot.getChild("C:", EntityType.DRIVE).get().getSize());
+        assertTrue(fileSystemManagementService.getSnapshot().getChild("C:", EntityType.DRIVE).isEmpty());
+    }
+
+    @Test
+    void saveCapturedSnapshotAfterLaterWrites(@TempDir Path directory) throws IOException {
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "letter", "C:");
+        fileSystemManagementService.writeToFile("C:\\letter", "first");
+        Path file = directory.resolve("snapshot.img");
+
+        SnapshotCapture capture = fileSystemManagementService.captureSnapshot(file);
+        fileSystemManagementService.writeToFile("C:\\letter", " second");
+        fileSystemManagementService.create(EntityType.FOLDER, "sample", "C:");
+        capture.save();
+
+        fileSystemManagementService.loadSnapshot(file);
+        assertEquals(5, fileSystemManagementService.getEntitySize(EntityType.TEXT_FILE, "C:\\letter"));
+        assertThrows(PathNotFoundException.class, () -> fileSystemManagementService.getEntitySize(EntityType.FOLDER, "C:\\sample"));
+    }
+
+    @Test
+    void executeBatch() {
+        List<BatchOperation> operations = List.of(
+                BatchOperation.create(EntityType.FOLDER, "sample", "C:"),
+                BatchOperation.create(EntityType.TEXT_FILE, "letter", "C:\\sample"),
+                BatchOperation.writeToFile("C:\\sample\\letter", "abc"),
+                BatchOperation.move(EntityType.FOLDER, "C:\\sample", "C:\\sample\\inner")
+        );
+
+        PersistentNode before = fileSystemManagementService.getSnapshot();
+        List<BatchResult> atomicResults = fileSystemManagementService.executeBatch(operations, true);
+
+        assertEquals(List.of(BatchResult.Status.ROLLED_BACK, BatchResult.Status.ROLLED_BACK, BatchResult.Status.ROLLED_BACK, BatchResult.Status.FAILED),
+                atomicResults.stream().map(BatchResult::status).toList());
+        assertSame(before, fileSystemManagementService.getSnapshot());
+
+        List<BatchResult> results = fileSystemManagementService.executeBatch(operations, false);
+
+        assertEquals(List.of(BatchResult.Status.APPLIED, BatchResult.Status.APPLIED, BatchResult.Status.APPLIED, BatchResult.Status.FAILED),
+                results.stream().map(BatchResult::status).toList());
+        assertInstanceOf(IllegalFileSystemOperationException.class, results.getLast().failure());
+        assertEquals(3, fileSystemManagementService.getEntitySize(EntityType.TEXT_FILE, "C:\\sample\\letter"));
+    }
+
+    @Test
+    void concurrentWritersDoNotLoseUpdates() throws Exception {
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "log", "C:");
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                int threadNumber = thread;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 250; i++) {
+                        fileSystemManagementService.writeToFile("C:\\log", "ab");
+                        fileSystemManagementService.create(EntityType.FOLDER, "folder-" + threadNumber + "-" + i, "C:");
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(8 * 250 * 2, fileSystemManagementService.getEntitySize(EntityType.TEXT_FILE, "C:\\log"));
+        assertEquals(8 * 250 + 1, fileSystemManagementService.getSnapshot().getChild("C:", EntityType.DRIVE).get().getChildren().size());
+    }
+
+    @Test
+    void saveAndLoadSnapshot(@TempDir Path directory) throws IOException {
+        fileSystemManagementService.create(EntityType.FOLDER, "docs", "C:");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "letter", "C:\\docs");
+        fileSystemManagementService.create(EntityType.TEXT_FILE, "invoice", "C:\\docs");
+        fileSystemManagementService.writeToFile("C:\\docs\\letter", "abc");
+        Path file = directory.resolve("snapshot.img");
+
+        fileSystemManagementService.saveSnapshot(file);
+        fileSystemManagementService.delete(EntityType.DRIVE, "C:");
+        fileSystemManagementService.loadSnapshot(file);
+
+        PersistentNode docs = fileSystemManagementService.getSnapshot().getChildrenInOrder().getFirst().getChildrenInOrder().getFirst();
+        assertEquals(List.of("letter", "invoice"), docs.getChildrenInOrder().stream().map(PersistentNode::getName).toList());
+        assertEquals("abc", docs.getChildrenInOrder().getFirst().getContent().toString());
+        assertEquals(3, fileSystemManagementService.getEntitySize(EntityType.DRIVE, "C:"));
+    }
+
+}
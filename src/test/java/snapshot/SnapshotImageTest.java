@@ -0,0 +1,52 @@
+package snapshot;
+
+import entities.EntityType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotImageTest {
+
+    @Test
+    void readWrittenImage(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("snapshot.img");
+        try (SnapshotWriter writer = new SnapshotWriter(file)) {
+            writer.startForest();
+            writer.startComposable(EntityType.DRIVE, "C:", 3);
+            writer.startComposable(EntityType.FOLDER, "empty", 0);
+            writer.endComposable();
+            writer.writeTextFile("letter", "abc");
+            writer.endComposable();
+            writer.startComposable(EntityType.DRIVE, "D:", 0);
+            writer.endComposable();
+            writer.endComposable();
+        }
+
+        SnapshotNode forest = SnapshotImage.map(file).getForest();
+        assertNull(forest.getType());
+        List<SnapshotNode> drives = forest.getChildren();
+        assertEquals(List.of("C:", "D:"), drives.stream().map(SnapshotNode::getName).toList());
+        assertEquals(3, drives.getFirst().getSize());
+
+        List<SnapshotNode> children = drives.getFirst().getChildren();
+        assertEquals(List.of(EntityType.FOLDER, EntityType.TEXT_FILE), children.stream().map(SnapshotNode::getType).toList());
+        assertTrue(children.getFirst().getChildren().isEmpty());
+        assertEquals("abc", children.get(1).getContent());
+        assertEquals(3, children.get(1).getSize());
+    }
+
+    @Test
+    void failToMapInvalidImages(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("not-a-snapshot.img");
+        Files.writeString(file, "This is not a snapshot, but it is long enough to be one");
+
+        assertThrows(IOException.class, () -> SnapshotImage.map(file));
+        assertThrows(IOException.class, () -> SnapshotImage.map(directory.resolve("missing.img")));
+    }
+}
@@ -0,0 +1,57 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileSystemPathTest {
+
+    private final PathUtils pathUtils = new PathUtils();
+
+    @Test
+    void parseLikeTrimAndSplitPath() {
+        for (String path : new String[] {"C:", "C:\\", "\\C:\\", "C:\\test", "C:\\test\\", "C:\\test\\letter", "C:\\\\test", "C:\\test\\\\", ""}) {
+            assertArrayEquals(pathUtils.trimAndSplitPath(path), FileSystemPath.parse(path).toArray(), path);
+        }
+    }
+
+    @Test
+    void accessElements() {
+        FileSystemPath path = FileSystemPath.parse("\\C:\\test\\letter\\");
+
+        assertEquals(3, path.getElementCount());
+        assertFalse(path.isSingleElement());
+        assertEquals("C:", path.getElement(0));
+        assertEquals("test", path.getElement(1));
+        assertEquals("letter", path.getLastElement());
+        assertTrue(path.elementEquals(1, "test"));
+        assertFalse(path.elementEquals(1, "tes"));
+        assertEquals("C:\\test\\letter", path.toString());
+    }
+
+    @Test
+    void parentAndPrefixViews() {
+        FileSystemPath path = FileSystemPath.parse("C:\\test\\letter");
+
+        assertEquals("C:\\test", path.parent().toString());
+        assertEquals("test", path.parent().getLastElement());
+        assertEquals("C:", path.prefix(1).toString());
+        assertTrue(path.prefix(1).isSingleElement());
+        FileSystemPath drivePath = path.prefix(1);
+        assertSame(drivePath, drivePath.parent());
+        assertSame(path, path.prefix(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> path.prefix(0));
+    }
+
+    @Test
+    void equalsRegardlessOfSource() {
+        FileSystemPath parent = FileSystemPath.parse("C:\\test\\letter").parent();
+        FileSystemPath samePath = FileSystemPath.parse("\\C:\\test\\");
+
+        assertEquals(samePath, parent);
+        assertEquals(samePath.hashCode(), parent.hashCode());
+        assertEquals("C:\\test".hashCode(), parent.hashCode());
+        assertNotEquals(FileSystemPath.parse("C:\\tes"), parent);
+        assertNotEquals(FileSystemPath.parse("C:"), parent);
+    }
+}
@@ -0,0 +1,38 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NamePatternTest {
+
+    @Test
+    void matchLiteralPatterns() {
+        NamePattern pattern = NamePattern.compile("app.log");
+
+        assertTrue(pattern.isLiteral());
+        assertTrue(pattern.matches("app.log"));
+        assertFalse(pattern.matches("app.logs"));
+    }
+
+    @Test
+    void matchWildcards() {
+        assertTrue(NamePattern.compile("*.log").matches("app.log"));
+        assertTrue(NamePattern.compile("*.log").matches(".log"));
+        assertFalse(NamePattern.compile("*.log").matches("app.log.gz"));
+        assertTrue(NamePattern.compile("a*b*c").matches("aXbYbZc"));
+        assertFalse(NamePattern.compile("a*b*c").matches("aXbYbZ"));
+        assertTrue(NamePattern.compile("?pp*").matches("app"));
+        assertFalse(NamePattern.compile("?pp*").matches("pp"));
+        assertTrue(NamePattern.compile("*").matches(""));
+    }
+
+    @Test
+    void keepLiteralPrefixAndSuffix() {
+        NamePattern pattern = NamePattern.compile("report-*-2024?.csv");
+
+        assertFalse(pattern.isLiteral());
+        assertEquals("report-", pattern.getLiteralPrefix());
+        assertEquals(".csv", pattern.getLiteralSuffix());
+    }
+}
@@ -1,34 +1,34 @@
 package utils;
 
 import entities.*;
+import exceptions.IllegalFileSystemOperationException;
 import exceptions.PathNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-import java.util.List;
-
 import static org.junit.jupiter.api.Assertions.*;
 
 class NavigationUtilsTest {
 
     private NavigationUtils navigationUtils;
-    private List<Entity> drives;
+    private DriveRegistry drives;
     private Folder defaultFolder;
 
     @BeforeEach
     void setUp() {
-        Drive defaultDrive = new Drive(EntityType.DRIVE, "C:", "");
-        defaultFolder = new Folder(EntityType.FOLDER, "sample", "C:\\");
-        ZipFile defaultZipFile = new ZipFile(EntityType.ZIP_FILE, "compressed", "C:\\sample");
-        TextFile defaultTextFile = new TextFile(EntityType.TEXT_FILE, "letter", "C:\\sample\\compressed");
-        TextFile secondaryTextFile = new TextFile(EntityType.TEXT_FILE, "compressed", "C:\\sample");
+        Drive defaultDrive = new Drive(EntityType.DRIVE, "C:");
+        defaultFolder = new Folder(EntityType.FOLDER, "sample");
+        ZipFile defaultZipFile = new ZipFile(EntityType.ZIP_FILE, "compressed");
+        TextFile defaultTextFile = new TextFile(EntityType.TEXT_FILE, "letter");
+        TextFile secondaryTextFile = new TextFile(EntityType.TEXT_FILE, "compressed");
 
         defaultDrive.getContents().add(defaultFolder);
         defaultFolder.getContents().add(defaultZipFile);
         defaultFolder.getContents().add(secondaryTextFile);
         defaultZipFile.getContents().add(defaultTextFile);
 
-        drives = List.of(defaultDrive);
+        drives = new DriveRegistry();
+        drives.register(defaultDrive);
 
         navigationUtils = new NavigationUtils();
     }
@@ -37,20 +37,43 @@ class NavigationUtilsTest {
     void findDrive() {
         assertTrue(navigationUtils.findDrive(drives, "C:").isPresent());
         assertTrue(navigationUtils.findDrive(drives, "D:").isEmpty());
-        assertTrue(navigationUtils.findDrive(List.of(), "C:").isEmpty());
+        assertTrue(navigationUtils.findDrive(new DriveRegistry(), "C:").isEmpty());
     }
 
     @Test
     void navigateToComposableEntity() {
-        String[] existentPathParts = "C:\\sample\\compressed".split("\\\\");
-        String[] nonExistentPathParts = "C:\\example\\compressed".split("\\\\");
-        String[] textFilePathParts = "C:\\sample\\compressed\\letter".split("\\\\");
-
-        assertInstanceOf(ZipFile.class, navigationUtils.navigateToComposableEntity(drives, existentPathParts));
-        assertInstanceOf(Drive.class, navigationUtils.navigateToComposableEntity(drives, new String[] {"C:"}));
-        assertThrows(PathNotFoundException.class, () -> navigationUtils.navigateToComposableEntity(drives, new String[] {"D:"}));
-        assertThrows(PathNotFoundException.class, () -> navigationUtils.navigateToComposableEntity(drives, nonExistentPathParts));
-        assertThrows(PathNotFoundException.class, () -> navigationUtils.navigateToComposableEntity(drives, textFilePathParts));
+        FileSystemPath existentPath = FileSystemPath.parse("C:\\sample\\compressed");
+        FileSystemPath nonExistentPath = FileSystemPath.parse("C:\\example\\compressed");
+        FileSystemPath textFilePath = FileSystemPath.parse("C:\\sample\\compressed\\letter");
+
+        assertInstanceOf(ZipFile.class, navigationUtils.navigateToComposableEntity(drives, existentPath));
+        assertInstanceOf(Drive.class, navigationUtils.navigateToComposableEntity(drives, FileSystemPath.parse("C:")));
+        assertThrows(PathNotFoundException.class, () -> navigationUtils.navigateToComposableEntity(drives, FileSystemPath.parse("D:")));
+        assertThrows(PathNotFoundException.class, () -> navigationUtils.navigateToComposableEntity(drives, nonExistentPath));
+        assertThrows(PathNotFoundException.class, () -> navigationUtils.navigateToComposableEntity(drives, textFilePath));
+    }
+
+    @Test
+    void resolvePath() {
+        ResolvedPath zipFilePath = navigationUtils.resolvePath(drives, FileSystemPath.parse("C:\\sample\\compressed"));
+        assertTrue(zipFilePath.isParentFound());
+        assertSame(defaultFolder, zipFilePath.getParent());
+        assertInstanceOf(ZipFile.class, zipFilePath.getTarget(EntityType.ZIP_FILE).get());
+        assertInstanceOf(TextFile.class, zipFilePath.getTarget(EntityType.TEXT_FILE).get());
+        assertInstanceOf(ZipFile.class, zipFilePath.getComposableTarget().get());
+
+        ResolvedPath drivePath = navigationUtils.resolvePath(drives, FileSystemPath.parse("C:"));
+        assertTrue(drivePath.isDriveLevel());
+        assertTrue(drivePath.isParentFound());
+        assertInstanceOf(Drive.class, drivePath.getTarget(EntityType.DRIVE).get());
+
+        ResolvedPath nonExistentPath = navigationUtils.resolvePath(drives, FileSystemPath.parse("C:\\example\\compressed"));
+        assertFalse(nonExistentPath.isParentFound());
+        assertTrue(nonExistentPath.getTarget(EntityType.ZIP_FILE).isEmpty());
+        assertThrows(PathNotFoundException.class, nonExistentPath::getExistingParent);
+
+        assertFalse(navigationUtils.resolvePath(drives, FileSystemPath.parse("D:\\sample")).isParentFound());
+        assertTrue(navigationUtils.resolvePath(drives, FileSystemPath.parse("D:")).getTarget(EntityType.DRIVE).isEmpty());
     }
 
     @Test
@@ -59,4 +82,19 @@ class NavigationUtilsTest {
         assertInstanceOf(TextFile.class, navigationUtils.getChildOfType(EntityType.TEXT_FILE, "compressed", defaultFolder).get());
         assertTrue(navigationUtils.getChildOfType(EntityType.TEXT_FILE, "letter", defaultFolder).isEmpty());
     }
+
+    @Test
+    void getChildOfTypeAfterRemoval() {
+        Entity textFile = navigationUtils.getChildOfType(EntityType.TEXT_FILE, "compressed", defaultFolder).get();
+        defaultFolder.getContents().remove(textFile);
+
+        assertTrue(navigationUtils.getChildOfType(EntityType.TEXT_FILE, "compressed", defaultFolder).isEmpty());
+        assertTrue(navigationUtils.getChildOfType(EntityType.ZIP_FILE, "compressed", defaultFolder).isPresent());
+    }
+
+    @Test
+    void failToAddDriveOrDuplicatedChild() {
+        assertThrows(IllegalFileSystemOperationException.class, () -> defaultFolder.getContents().add(new Drive(EntityType.DRIVE, "D:")));
+        assertThrows(IllegalFileSystemOperationException.class, () -> defaultFolder.getContents().add(new TextFile(EntityType.TEXT_FILE, "compressed")));
+    }
 }
\ No newline at end of file
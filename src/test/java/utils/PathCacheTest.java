@@ -0,0 +1,77 @@
+package utils;
+
+import entities.EntityType;
+import entities.Folder;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PathCacheTest {
+
+    @Test
+    void cacheAndCountLookups() {
+        PathCache pathCache = new PathCache(16);
+        Folder folder = new Folder(EntityType.FOLDER, "sample");
+
+        assertNull(pathCache.get(FileSystemPath.parse("C:\\sample")));
+        pathCache.put(FileSystemPath.parse("C:\\sample\\letter").parent(), folder);
+
+        assertSame(folder, pathCache.get(FileSystemPath.parse("\\C:\\sample\\")));
+        assertEquals(1, pathCache.getSize());
+        assertEquals(1, pathCache.getHitCount());
+        assertEquals(1, pathCache.getMissCount());
+        assertEquals(0.5, pathCache.getHitRatio());
+    }
+
+    @Test
+    void evictLeastRecentlyUsedPaths() {
+        // A single segment holding a single path, so that every path evicts the previous one
+        PathCache pathCache = new PathCache(1);
+        Folder first = new Folder(EntityType.FOLDER, "first");
+        Folder second = new Folder(EntityType.FOLDER, "second");
+
+        pathCache.put(FileSystemPath.parse("C:\\first"), first);
+        pathCache.put(FileSystemPath.parse("C:\\second"), second);
+
+        assertNull(pathCache.get(FileSystemPath.parse("C:\\first")));
+        assertSame(second, pathCache.get(FileSystemPath.parse("C:\\second")));
+        assertEquals(1, pathCache.getEvictionCount());
+
+        // Invalidating the evicted path must not find it in the sorted paths either
+        pathCache.invalidate(FileSystemPath.parse("C:\\first"));
+        assertEquals(0, pathCache.getInvalidationCount());
+    }
+
+    @Test
+    void invalidatePathAndDescendantsOnly() {
+        PathCache pathCache = new PathCache(64);
+        String[] paths = {"C:", "C:\\sample", "C:\\sample\\nested", "C:\\sample\\nested\\deeper", "C:\\samples", "C:\\sample2", "C:\\other", "D:\\sample"};
+        for (String path : paths) {
+            pathCache.put(FileSystemPath.parse(path), new Folder(EntityType.FOLDER, path));
+        }
+
+        pathCache.invalidate(FileSystemPath.parse("C:\\sample"));
+
+        assertEquals(3, pathCache.getInvalidationCount());
+        assertNull(pathCache.get(FileSystemPath.parse("C:\\sample")));
+        assertNull(pathCache.get(FileSystemPath.parse("C:\\sample\\nested")));
+        assertNull(pathCache.get(FileSystemPath.parse("C:\\sample\\nested\\deeper")));
+        for (String path : new String[]{"C:", "C:\\samples", "C:\\sample2", "C:\\other", "D:\\sample"}) {
+            assertNotNull(pathCache.get(FileSystemPath.parse(path)), path);
+        }
+
+        pathCache.invalidateAll();
+        assertEquals(0, pathCache.getSize());
+    }
+
+    @Test
+    void disabledCacheStoresNothing() {
+        PathCache pathCache = PathCache.disabled();
+        pathCache.put(FileSystemPath.parse("C:"), new Folder(EntityType.FOLDER, "C:"));
+
+        assertFalse(pathCache.isEnabled());
+        assertNull(pathCache.get(FileSystemPath.parse("C:")));
+        assertEquals(0, pathCache.getMissCount());
+        assertThrows(IllegalArgumentException.class, () -> new PathCache(-1));
+    }
+}
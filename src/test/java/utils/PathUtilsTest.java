@@ -29,6 +29,14 @@ class PathUtilsTest {
         assertArrayEquals(new String[] {"C:"}, pathUtils.trimAndSplitPath("C:\\"));
     }
 
+    @Test
+    void getRootElement() {
+        assertEquals("C:", pathUtils.getRootElement("C:\\test\\letter"));
+        assertEquals("C:", pathUtils.getRootElement("\\C:\\"));
+        assertEquals("C:", pathUtils.getRootElement("C:"));
+        assertEquals("", pathUtils.getRootElement(""));
+    }
+
     @Test
     void excludeLastElement() {
         assertArrayEquals(new String[] {"C:", "test"}, pathUtils.excludeLastElement(new String[] {"C:", "test", "letter"}));
@@ -4,31 +4,36 @@ import entities.*;
 import exceptions.PathNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import services.OperationResult;
 import utils.NavigationUtils;
 import utils.PathUtils;
-
-import java.util.List;
+import utils.ResolvedPath;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class DefaultConstraintsValidatorTest {
 
     private DefaultConstraintsValidator validator;
+    private DriveRegistry drives;
+    private PathUtils pathUtils;
+    private NavigationUtils navigationUtils;
 
     @BeforeEach
     void setUp() {
-        Drive defaultDrive = new Drive(EntityType.DRIVE, "C:", "");
-        Folder defaultFolder = new Folder(EntityType.FOLDER, "sample", "C:\\");
-        ZipFile defaultZipFile = new ZipFile(EntityType.ZIP_FILE, "compressed", "C:\\sample");
-        TextFile defaultTextFile = new TextFile(EntityType.TEXT_FILE, "letter", "C:\\sample\\compressed");
+        Drive defaultDrive = new Drive(EntityType.DRIVE, "C:");
+        Folder defaultFolder = new Folder(EntityType.FOLDER, "sample");
+        ZipFile defaultZipFile = new ZipFile(EntityType.ZIP_FILE, "compressed");
+        TextFile defaultTextFile = new TextFile(EntityType.TEXT_FILE, "letter");
 
         defaultDrive.getContents().add(defaultFolder);
         defaultFolder.getContents().add(defaultZipFile);
         defaultZipFile.getContents().add(defaultTextFile);
 
-        PathUtils pathUtils = new PathUtils();
-        NavigationUtils navigationUtils = new NavigationUtils();
-        validator = new DefaultConstraintsValidator(List.of(defaultDrive), pathUtils, navigationUtils);
+        drives = new DriveRegistry();
+        drives.register(defaultDrive);
+        pathUtils = new PathUtils();
+        navigationUtils = new NavigationUtils();
+        validator = new DefaultConstraintsValidator(drives, pathUtils, navigationUtils);
     }
 
     @Test
@@ -88,4 +93,39 @@ class DefaultConstraintsValidatorTest {
         assertFalse(validator.isPathSuitableForEntityType(EntityType.FOLDER, "sample"));
         assertFalse(validator.isPathSuitableForEntityType(EntityType.TEXT_FILE, "letter"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void parentPathExists() {
+        assertTrue(validator.parentPathExists(resolve("D:")));
+        assertTrue(validator.parentPathExists(resolve("C:\\example")));
+        assertTrue(validator.parentPathExists(resolve("C:\\sample\\compressed\\letter")));
+        assertFalse(validator.parentPathExists(resolve("C:\\example\\letter")));
+        assertFalse(validator.parentPathExists(resolve("D:\\example")));
+    }
+
+    private ResolvedPath resolve(String path) {
+        return navigationUtils.resolvePath(drives, pathUtils.parsePath(path));
+    }
+
+    @Test
+    void validateOperations() {
+        ResolvedPath sample = navigationUtils.resolvePath(drives, pathUtils.parsePath("C:\\sample"));
+        ResolvedPath letter = navigationUtils.resolvePath(drives, pathUtils.parsePath("C:\\sample\\compressed\\letter"));
+        ResolvedPath missing = navigationUtils.resolvePath(drives, pathUtils.parsePath("C:\\examples\\sample"));
+
+        assertEquals(OperationResult.OK, validator.validateCreation(EntityType.TEXT_FILE, sample));
+        assertEquals(OperationResult.Code.PATH_ALREADY_EXISTS, validator.validateCreation(EntityType.FOLDER, sample).code());
+        assertEquals(OperationResult.Code.ILLEGAL_OPERATION, validator.validateCreation(EntityType.ZIP_FILE, sample).code());
+        assertEquals(OperationResult.pathNotFound("The path contains a nonexistent component: examples"), validator.validateCreation(EntityType.FOLDER, missing));
+
+        assertEquals(OperationResult.OK, validator.validateDeletion(EntityType.FOLDER, sample));
+        assertEquals(OperationResult.Code.PATH_NOT_FOUND, validator.validateDeletion(EntityType.ZIP_FILE, sample).code());
+
+        ResolvedPath intoItself = navigationUtils.resolvePath(drives, pathUtils.parsePath("C:\\sample\\compressed\\sample"));
+        assertEquals(OperationResult.Code.ILLEGAL_OPERATION, validator.validateMove(EntityType.FOLDER, sample, intoItself).code());
+        assertEquals(OperationResult.Code.PATH_NOT_FOUND, validator.validateMove(EntityType.FOLDER, missing, sample).code());
+
+        assertEquals(OperationResult.OK, validator.validateWrite(letter));
+        assertEquals(OperationResult.Code.NOT_A_TEXT_FILE, validator.validateWrite(sample).code());
+    }
+}